@@ -59,8 +59,17 @@ dependencies {
     implementation ("androidx.cardview:cardview:1.0.0")
     implementation("com.android.support:recyclerview-v7:28.0.0")
 
+    //Room
+    val roomVersion = "2.6.1"
+    implementation("androidx.room:room-runtime:${roomVersion}")
+    annotationProcessor("androidx.room:room-compiler:${roomVersion}")
+
     implementation ("com.github.bumptech.glide:glide:4.16.0")
     annotationProcessor ("com.github.bumptech.glide:compiler:4.16.0")
+    implementation ("com.github.bumptech.glide:recyclerview-integration:4.16.0") {
+        // The app already provides its own version of RecyclerView
+        isTransitive = false
+    }
 
     testImplementation ("org.mockito:mockito-core:5.11.0")
     testImplementation ("org.mockito:mockito-junit-jupiter:5.11.0")
@@ -77,6 +86,7 @@ dependencies {
     testImplementation("com.google.dagger:hilt-android-testing:2.51.1")
 
     testImplementation ("junit:junit:4.13.2")
+    testImplementation ("androidx.arch.core:core-testing:2.2.0")
     testImplementation ("org.robolectric:robolectric:4.12.1")
 
 
@@ -0,0 +1,84 @@
+package com.openclassrooms.tajmahal.data.local;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import java.util.List;
+
+/**
+ * Data access object for the reviews waiting in the local database to be submitted to the API.
+ * <p>
+ * The queries are blocking, so they must be run off the main thread, on the executor of the repository
+ * or in the background worker submitting the reviews.
+ */
+@Dao
+public abstract class OutboxDao {
+
+    /**
+     * Queues reviews for submission, skipping the ones whose idempotency key is already queued.
+     *
+     * @param reviews The reviews to submit
+     */
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    public abstract void insertAll(List<OutboxEntity> reviews);
+
+    /**
+     * Returns the oldest reviews waiting to be submitted, in the order in which they were queued.
+     *
+     * @param limit The maximum number of reviews to return
+     * @return The queued reviews
+     */
+    @Query("SELECT * FROM review_outbox ORDER BY id LIMIT :limit")
+    public abstract List<OutboxEntity> getQueuedReviews(int limit);
+
+    /**
+     * Removes reviews from the outbox, once they have been acknowledged or rejected by the API.
+     *
+     * @param ids The identifiers of the rows to remove
+     */
+    @Query("DELETE FROM review_outbox WHERE id IN (:ids)")
+    public abstract void delete(List<Long> ids);
+
+    /**
+     * Removes a review from the outbox, before its submission.
+     *
+     * @param idempotencyKey The idempotency key of the review
+     */
+    @Query("DELETE FROM review_outbox WHERE idempotency_key = :idempotencyKey")
+    public abstract void deleteByKey(String idempotencyKey);
+
+    /**
+     * Rewrites a review waiting in the outbox, keeping its place in the queue.
+     *
+     * @param idempotencyKey    The idempotency key of the review
+     * @param newIdempotencyKey The idempotency key of the rewritten review
+     * @param author            The author of the rewritten review
+     * @param avatarUrl         The avatar URL of the author of the rewritten review
+     * @param content           The content of the rewritten review
+     * @param rating            The rating of the rewritten review
+     */
+    @Query("UPDATE review_outbox SET idempotency_key = :newIdempotencyKey, author = :author, avatar_url = :avatarUrl,"
+            + " content = :content, rating = :rating WHERE idempotency_key = :idempotencyKey")
+    public abstract void updateByKey(String idempotencyKey, String newIdempotencyKey, String author, String avatarUrl,
+                                     String content, int rating);
+
+    /**
+     * Replaces a review waiting in the outbox by the given one, keeping its place in the queue.
+     *
+     * @param idempotencyKey The idempotency key of the replaced review
+     * @param review         The review replacing it, whose identifier and queuing time are ignored
+     */
+    public void replaceByKey(String idempotencyKey, OutboxEntity review) {
+        updateByKey(idempotencyKey, review.idempotencyKey, review.author, review.avatarUrl, review.content, review.rating);
+    }
+
+    /**
+     * Returns the number of reviews waiting to be submitted.
+     *
+     * @return The size of the outbox
+     */
+    @Query("SELECT COUNT(*) FROM review_outbox")
+    public abstract int count();
+}
@@ -0,0 +1,95 @@
+package com.openclassrooms.tajmahal.data.local;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.model.ReviewSubmission;
+
+/**
+ * Represents a review waiting in the local database to be submitted to the API.
+ * <p>
+ * Each row stores the review, the restaurant it is about and the idempotency key generated when the review was queued,
+ * so that the key survives the restarts of the application and the review is submitted with the same key until the API
+ * acknowledges it. The rows are submitted in the order of their identifier, which is the order in which they were queued.
+ */
+@Entity(tableName = "review_outbox",
+        indices = {
+                @Index(value = "idempotency_key", unique = true)
+        })
+public class OutboxEntity {
+
+    @PrimaryKey(autoGenerate = true)
+    public long id;
+
+    @NonNull
+    @ColumnInfo(name = "idempotency_key")
+    public String idempotencyKey = "";
+
+    @ColumnInfo(name = "restaurant_id")
+    public long restaurantId;
+
+    @ColumnInfo(name = "author")
+    public String author;
+
+    @ColumnInfo(name = "avatar_url")
+    public String avatarUrl;
+
+    @ColumnInfo(name = "content")
+    public String content;
+
+    @ColumnInfo(name = "rating")
+    public int rating;
+
+    @ColumnInfo(name = "queued_at")
+    public long queuedAt;
+
+    /**
+     * Returns the idempotency key of a review of a restaurant, derived from its fingerprint, so that the row of a queued
+     * review can be found again to remove or rewrite it when the review is deleted or updated before its submission.
+     * A review is only queued once per restaurant, the reviews of a restaurant being deduplicated before.
+     *
+     * @param restaurantId The identifier of the reviewed restaurant
+     * @param review       The review to submit
+     * @return The key identifying the submission across retries
+     */
+    @NonNull
+    public static String idempotencyKey(long restaurantId, @NonNull Review review) {
+        return restaurantId + "-" + Long.toHexString(review.getFingerprint());
+    }
+
+    /**
+     * Creates the outbox row of the given review.
+     *
+     * @param restaurantId   The identifier of the reviewed restaurant
+     * @param review         The review to submit
+     * @param idempotencyKey The key identifying the submission across retries
+     * @param queuedAt       The time at which the review was queued, in milliseconds
+     * @return The row to insert in the outbox
+     */
+    @NonNull
+    public static OutboxEntity fromReview(long restaurantId, @NonNull Review review, @NonNull String idempotencyKey, long queuedAt) {
+        OutboxEntity entity = new OutboxEntity();
+        entity.idempotencyKey = idempotencyKey;
+        entity.restaurantId = restaurantId;
+        entity.author = review.getAuthor();
+        entity.avatarUrl = review.getAvatarUrl();
+        entity.content = review.getContent();
+        entity.rating = review.getRating();
+        entity.queuedAt = queuedAt;
+        return entity;
+    }
+
+    /**
+     * Converts the outbox row to the submission sent to the API.
+     *
+     * @return The submission stored in this row
+     */
+    @NonNull
+    public ReviewSubmission toSubmission() {
+        return new ReviewSubmission(idempotencyKey, new Review(author, avatarUrl, content, rating));
+    }
+}
@@ -0,0 +1,110 @@
+package com.openclassrooms.tajmahal.data.local;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+import java.util.List;
+
+/**
+ * Data access object for the reviews stored in the local database.
+ * <p>
+ * The queries are blocking, so they must be run off the main thread, on the executor of the repository.
+ */
+@Dao
+public abstract class ReviewDao {
+
+    /**
+     * Returns the reviews of a restaurant written on this device, newest first.
+     *
+     * @param restaurantId The identifier of the restaurant
+     * @return The local reviews
+     */
+    @Query("SELECT * FROM reviews WHERE restaurant_id = :restaurantId AND is_local = 1 ORDER BY inserted_at DESC")
+    public abstract List<ReviewEntity> getLocalReviews(long restaurantId);
+
+    /**
+     * Returns the reviews of a restaurant cached from the API, in the order in which the API returned them.
+     *
+     * @param restaurantId The identifier of the restaurant
+     * @param limit        The maximum number of reviews to return
+     * @return The cached reviews
+     */
+    @Query("SELECT * FROM reviews WHERE restaurant_id = :restaurantId AND is_local = 0 ORDER BY inserted_at DESC LIMIT :limit")
+    public abstract List<ReviewEntity> getCachedReviews(long restaurantId, int limit);
+
+    /**
+     * Inserts a review, unless a review of the same restaurant with the same fingerprint is already stored.
+     *
+     * @param review The review to insert
+     */
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    public abstract void insert(ReviewEntity review);
+
+    /**
+     * Inserts reviews, skipping the ones already stored.
+     *
+     * @param reviews The reviews to insert
+     */
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    public abstract void insertAll(List<ReviewEntity> reviews);
+
+    /**
+     * Deletes a review of a restaurant, written on this device or cached from the API.
+     *
+     * @param restaurantId The identifier of the restaurant
+     * @param fingerprint  The fingerprint of the review
+     */
+    @Query("DELETE FROM reviews WHERE restaurant_id = :restaurantId AND fingerprint = :fingerprint")
+    public abstract void deleteReview(long restaurantId, long fingerprint);
+
+    /**
+     * Updates the attributes of a review of a restaurant, keeping its insertion time so that it keeps its place.
+     *
+     * @param restaurantId   The identifier of the restaurant
+     * @param fingerprint    The fingerprint of the review
+     * @param newFingerprint The fingerprint of the updated review
+     * @param author         The author of the updated review
+     * @param avatarUrl      The avatar URL of the author of the updated review
+     * @param content        The content of the updated review
+     * @param rating         The rating of the updated review
+     */
+    @Query("UPDATE reviews SET fingerprint = :newFingerprint, author = :author, avatar_url = :avatarUrl, content = :content, rating = :rating"
+            + " WHERE restaurant_id = :restaurantId AND fingerprint = :fingerprint")
+    public abstract void updateReview(long restaurantId, long fingerprint, long newFingerprint, String author, String avatarUrl,
+                                      String content, int rating);
+
+    /**
+     * Replaces a review of a restaurant by the given one, in place.
+     *
+     * @param restaurantId The identifier of the restaurant
+     * @param fingerprint  The fingerprint of the replaced review
+     * @param review       The review replacing it, whose insertion time and origin are ignored
+     */
+    public void replaceReview(long restaurantId, long fingerprint, ReviewEntity review) {
+        updateReview(restaurantId, fingerprint, review.fingerprint, review.author, review.avatarUrl, review.content, review.rating);
+    }
+
+    /**
+     * Deletes the reviews of a restaurant cached from the API, keeping the reviews written on this device.
+     *
+     * @param restaurantId The identifier of the restaurant
+     */
+    @Query("DELETE FROM reviews WHERE restaurant_id = :restaurantId AND is_local = 0")
+    public abstract void deleteCachedReviews(long restaurantId);
+
+    /**
+     * Replaces the reviews of a restaurant cached from the API by the given ones, in a single transaction.
+     * The reviews cached for the other restaurants are kept.
+     *
+     * @param restaurantId The identifier of the restaurant
+     * @param reviews      The reviews of this restaurant freshly fetched from the API
+     */
+    @Transaction
+    public void replaceCachedReviews(long restaurantId, List<ReviewEntity> reviews) {
+        deleteCachedReviews(restaurantId);
+        insertAll(reviews);
+    }
+}
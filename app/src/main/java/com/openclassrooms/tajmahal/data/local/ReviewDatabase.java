@@ -0,0 +1,83 @@
+package com.openclassrooms.tajmahal.data.local;
+
+import androidx.annotation.NonNull;
+import androidx.room.Database;
+import androidx.room.RoomDatabase;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+/**
+ * The local database of the application, caching the reviews on the device and queuing the reviews to submit to the API.
+ * It is built once for the whole application by the Hilt module.
+ */
+@Database(entities = {ReviewEntity.class, OutboxEntity.class}, version = 3, exportSchema = false)
+public abstract class ReviewDatabase extends RoomDatabase {
+
+    // The name of the database file.
+    public static final String NAME = "tajmahal.db";
+
+    // The restaurant of the reviews stored by the first version of the database, which only knew the Taj Mahal.
+    public static final long LEGACY_RESTAURANT_ID = 1;
+
+    /**
+     * Migrates the reviews of the first version of the database, which were all about the Taj Mahal,
+     * to the table partitioned by restaurant. SQLite cannot add a column to a unique index, so the table is rebuilt.
+     */
+    public static final Migration MIGRATION_1_2 = new Migration(1, 2) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `reviews_new` ("
+                    + "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                    + "`restaurant_id` INTEGER NOT NULL, "
+                    + "`fingerprint` INTEGER NOT NULL, "
+                    + "`author` TEXT, "
+                    + "`avatar_url` TEXT, "
+                    + "`content` TEXT, "
+                    + "`rating` INTEGER NOT NULL, "
+                    + "`inserted_at` INTEGER NOT NULL, "
+                    + "`is_local` INTEGER NOT NULL)");
+            database.execSQL("INSERT INTO `reviews_new` "
+                    + "(`id`, `restaurant_id`, `fingerprint`, `author`, `avatar_url`, `content`, `rating`, `inserted_at`, `is_local`) "
+                    + "SELECT `id`, " + LEGACY_RESTAURANT_ID + ", `fingerprint`, `author`, `avatar_url`, `content`, `rating`, `inserted_at`, `is_local` "
+                    + "FROM `reviews`");
+            database.execSQL("DROP TABLE `reviews`");
+            database.execSQL("ALTER TABLE `reviews_new` RENAME TO `reviews`");
+            database.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_reviews_restaurant_id_fingerprint` ON `reviews` (`restaurant_id`, `fingerprint`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_reviews_restaurant_id_rating` ON `reviews` (`restaurant_id`, `rating`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_reviews_restaurant_id_inserted_at` ON `reviews` (`restaurant_id`, `inserted_at`)");
+        }
+    };
+
+    /**
+     * Adds the outbox of the reviews waiting to be submitted to the API.
+     */
+    public static final Migration MIGRATION_2_3 = new Migration(2, 3) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `review_outbox` ("
+                    + "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                    + "`idempotency_key` TEXT NOT NULL, "
+                    + "`restaurant_id` INTEGER NOT NULL, "
+                    + "`author` TEXT, "
+                    + "`avatar_url` TEXT, "
+                    + "`content` TEXT, "
+                    + "`rating` INTEGER NOT NULL, "
+                    + "`queued_at` INTEGER NOT NULL)");
+            database.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_review_outbox_idempotency_key` ON `review_outbox` (`idempotency_key`)");
+        }
+    };
+
+    /**
+     * Returns the data access object for the reviews.
+     *
+     * @return The review DAO
+     */
+    public abstract ReviewDao reviewDao();
+
+    /**
+     * Returns the data access object for the reviews waiting to be submitted.
+     *
+     * @return The outbox DAO
+     */
+    public abstract OutboxDao outboxDao();
+}
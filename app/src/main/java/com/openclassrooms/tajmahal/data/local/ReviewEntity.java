@@ -0,0 +1,87 @@
+package com.openclassrooms.tajmahal.data.local;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+/**
+ * Represents a review stored in the local database.
+ * <p>
+ * Besides the attributes of the {@link Review}, each row stores the identifier of the reviewed restaurant, the fingerprint
+ * of the review (unique per restaurant, so that a review is never stored twice), the time at which it was inserted and
+ * whether it was written on this device or cached from the API. Every index starts with the restaurant, so that the reviews
+ * of a restaurant are sorted and filtered by rating or insertion time without scanning the reviews of the other ones.
+ */
+@Entity(tableName = "reviews",
+        indices = {
+                @Index(value = {"restaurant_id", "fingerprint"}, unique = true),
+                @Index(value = {"restaurant_id", "rating"}),
+                @Index(value = {"restaurant_id", "inserted_at"})
+        })
+public class ReviewEntity {
+
+    @PrimaryKey(autoGenerate = true)
+    public long id;
+
+    @ColumnInfo(name = "restaurant_id")
+    public long restaurantId;
+
+    @ColumnInfo(name = "fingerprint")
+    public long fingerprint;
+
+    @ColumnInfo(name = "author")
+    public String author;
+
+    @ColumnInfo(name = "avatar_url")
+    public String avatarUrl;
+
+    @ColumnInfo(name = "content")
+    public String content;
+
+    @ColumnInfo(name = "rating")
+    public int rating;
+
+    @ColumnInfo(name = "inserted_at")
+    public long insertedAt;
+
+    // true for the reviews written on this device, false for the reviews cached from the API.
+    @ColumnInfo(name = "is_local")
+    public boolean local;
+
+    /**
+     * Creates the database row of the given review.
+     *
+     * @param restaurantId The identifier of the reviewed restaurant
+     * @param review       The review to store
+     * @param local        true if the review was written on this device, false if it comes from the API
+     * @param insertedAt   The insertion time of the review, in milliseconds
+     * @return The row to insert in the database
+     */
+    @NonNull
+    public static ReviewEntity fromReview(long restaurantId, @NonNull Review review, boolean local, long insertedAt) {
+        ReviewEntity entity = new ReviewEntity();
+        entity.restaurantId = restaurantId;
+        entity.fingerprint = review.getFingerprint();
+        entity.author = review.getAuthor();
+        entity.avatarUrl = review.getAvatarUrl();
+        entity.content = review.getContent();
+        entity.rating = review.getRating();
+        entity.insertedAt = insertedAt;
+        entity.local = local;
+        return entity;
+    }
+
+    /**
+     * Converts the database row to a review.
+     *
+     * @return The review stored in this row
+     */
+    @NonNull
+    public Review toReview() {
+        return new Review(author, avatarUrl, content, rating);
+    }
+}
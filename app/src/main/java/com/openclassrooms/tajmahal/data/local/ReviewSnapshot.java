@@ -0,0 +1,371 @@
+package com.openclassrooms.tajmahal.data.local;
+
+import androidx.annotation.NonNull;
+
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Read-only list of reviews backed by a memory-mapped snapshot file.
+ * <p>
+ * The snapshot is laid out in columns, so that opening it never decodes a review, whatever the number of reviews:
+ * <ul>
+ *     <li>a header: the magic number, the version of the format, the number of reviews and the size of the string blob;</li>
+ *     <li>the ratings, as one int per review;</li>
+ *     <li>the fingerprints, as one long per review, used to look up a review without decoding the rows;</li>
+ *     <li>a hash table of the fingerprints, as one int per slot holding the position of a review plus one, or 0 for an
+ *     empty slot, with at least twice as many slots as reviews so that a lookup probes a slot or two;</li>
+ *     <li>the flags marking the missing fields, as one byte per review;</li>
+ *     <li>the offsets of the author, avatar URL and content of each review in the blob, followed by the size of the blob;</li>
+ *     <li>the blob, holding the strings of every review encoded in UTF-8, one after the other.</li>
+ * </ul>
+ * The file is mapped with {@link FileChannel#map}, and a review is only decoded when it is read, typically when
+ * the RecyclerView binds its row. Opening the file checks its header, its length, its offsets and its hash table,
+ * scanning these two columns of ints once, so that a corrupted file is rejected rather than read out of the blob
+ * or probed endlessly. A review is looked up by probing the hash table in the mapped file, in constant time,
+ * without reading the other fingerprints. The snapshot is never modified once written: a new file replaces it atomically.
+ */
+public final class ReviewSnapshot extends AbstractList<Review> implements RandomAccess {
+
+    // The magic number starting every snapshot file, "TJRS" in ASCII.
+    private static final int MAGIC = 0x544A5253;
+
+    // The version of the format of the snapshot files.
+    private static final int VERSION = 2;
+
+    // The size of the header: magic number, version, number of reviews and size of the blob.
+    private static final int HEADER_SIZE = 4 * Integer.BYTES;
+
+    // The number of strings stored for each review: author, avatar URL and content.
+    private static final int FIELDS = 3;
+
+    // The multiplier spreading the fingerprints over the slots of the hash table, 2^64 divided by the golden ratio.
+    private static final long SPREAD = 0x9E3779B97F4A7C15L;
+
+    // The snapshot holding no review.
+    private static final ReviewSnapshot EMPTY = new ReviewSnapshot(ByteBuffer.allocate(0), 0);
+
+    // The mapped content of the snapshot file. Only read with absolute accessors, so it can be shared between threads.
+    private final ByteBuffer buffer;
+
+    // The number of reviews of the snapshot.
+    private final int size;
+
+    // The mask of the slots of the hash table of the fingerprints, whose number is a power of two.
+    private final int tableMask;
+
+    // The positions of the columns in the buffer.
+    private final int ratingsPosition;
+    private final int fingerprintsPosition;
+    private final int tablePosition;
+    private final int flagsPosition;
+    private final int offsetsPosition;
+    private final int blobPosition;
+
+    /**
+     * Constructor for a snapshot read from the given buffer, whose header has been checked.
+     *
+     * @param buffer The content of the snapshot file
+     * @param size   The number of reviews of the snapshot
+     */
+    private ReviewSnapshot(ByteBuffer buffer, int size) {
+        this.buffer = buffer;
+        this.size = size;
+        this.ratingsPosition = HEADER_SIZE;
+        this.tableMask = tableCapacity(size) - 1;
+        this.fingerprintsPosition = ratingsPosition + size * Integer.BYTES;
+        this.tablePosition = fingerprintsPosition + size * Long.BYTES;
+        this.flagsPosition = tablePosition + (tableMask + 1) * Integer.BYTES;
+        this.offsetsPosition = flagsPosition + size;
+        this.blobPosition = offsetsPosition + (size * FIELDS + 1) * Integer.BYTES;
+    }
+
+    /**
+     * Maps the given snapshot file in memory and checks it. The reviews are decoded when they are read.
+     *
+     * @param file The snapshot file
+     * @return The reviews of the snapshot, newest first
+     * @throws IOException if the file cannot be read, or is not a valid snapshot
+     */
+    @NonNull
+    public static ReviewSnapshot open(@NonNull File file) throws IOException {
+        ByteBuffer buffer;
+        try (RandomAccessFile input = new RandomAccessFile(file, "r"); FileChannel channel = input.getChannel()) {
+            // The mapping stays valid once the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a review snapshot: " + file);
+        }
+        if (buffer.getInt(Integer.BYTES) != VERSION) {
+            throw new IOException("Unsupported review snapshot version " + buffer.getInt(Integer.BYTES) + ": " + file);
+        }
+        int size = buffer.getInt(2 * Integer.BYTES);
+        int blobLength = buffer.getInt(3 * Integer.BYTES);
+        if (size < 0 || size > Integer.MAX_VALUE / 4 || blobLength < 0) {
+            throw new IOException("Truncated review snapshot: " + file);
+        }
+        long expectedLength = HEADER_SIZE + (long) size * (Integer.BYTES + Long.BYTES + 1)
+                + (long) tableCapacity(size) * Integer.BYTES + ((long) size * FIELDS + 1) * Integer.BYTES + blobLength;
+        if (expectedLength != buffer.capacity()) {
+            throw new IOException("Truncated review snapshot: " + file);
+        }
+        if (size == 0) {
+            return EMPTY;
+        }
+        ReviewSnapshot snapshot = new ReviewSnapshot(buffer, size);
+        snapshot.check(file);
+        return snapshot;
+    }
+
+    /**
+     * Checks that the offsets of the strings lie in the blob, in order, and that the hash table of the fingerprints only
+     * points to reviews of the snapshot and has an empty slot to end the probes.
+     *
+     * @param file The snapshot file, for the message of the exception
+     * @throws IOException if the snapshot is corrupted
+     */
+    private void check(File file) throws IOException {
+        int blobLength = buffer.capacity() - blobPosition;
+        int previousOffset = 0;
+        for (int i = 0; i <= size * FIELDS; i++) {
+            int offset = buffer.getInt(offsetsPosition + i * Integer.BYTES);
+            if (offset < previousOffset || offset > blobLength) {
+                throw new IOException("Corrupted review snapshot offsets: " + file);
+            }
+            previousOffset = offset;
+        }
+        if (previousOffset != blobLength) {
+            throw new IOException("Corrupted review snapshot offsets: " + file);
+        }
+        boolean emptySlot = false;
+        for (int slot = 0; slot <= tableMask; slot++) {
+            int entry = buffer.getInt(tablePosition + slot * Integer.BYTES);
+            if (entry < 0 || entry > size) {
+                throw new IOException("Corrupted review snapshot hash table: " + file);
+            }
+            emptySlot |= entry == 0;
+        }
+        if (!emptySlot) {
+            throw new IOException("Corrupted review snapshot hash table: " + file);
+        }
+    }
+
+    /**
+     * Writes the given reviews to a snapshot file. The reviews are written to a temporary file first,
+     * which then replaces the snapshot file, so that a snapshot being read is never modified.
+     *
+     * @param file    The snapshot file
+     * @param reviews The reviews to write, newest first
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(@NonNull File file, @NonNull List<Review> reviews) throws IOException {
+        int size = reviews.size();
+        byte[][] strings = new byte[size * FIELDS][];
+        int blobLength = 0;
+        for (int i = 0; i < size; i++) {
+            Review review = reviews.get(i);
+            strings[i * FIELDS] = encode(review.getAuthor());
+            strings[i * FIELDS + 1] = encode(review.getAvatarUrl());
+            strings[i * FIELDS + 2] = encode(review.getContent());
+            for (int field = 0; field < FIELDS; field++) {
+                byte[] string = strings[i * FIELDS + field];
+                blobLength += string == null ? 0 : string.length;
+            }
+        }
+
+        File temporaryFile = new File(file.getPath() + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporaryFile)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(size);
+            output.writeInt(blobLength);
+            for (Review review : reviews) {
+                output.writeInt(review.getRatingValue());
+            }
+            int[] table = new int[tableCapacity(size)];
+            for (int i = 0; i < size; i++) {
+                long fingerprint = reviews.get(i).getFingerprint();
+                output.writeLong(fingerprint);
+                int slot = slotOf(fingerprint, table.length - 1);
+                while (table[slot] != 0) {
+                    slot = (slot + 1) & (table.length - 1);
+                }
+                table[slot] = i + 1;
+            }
+            for (int entry : table) {
+                output.writeInt(entry);
+            }
+            for (int i = 0; i < size; i++) {
+                int flags = 0;
+                for (int field = 0; field < FIELDS; field++) {
+                    if (strings[i * FIELDS + field] == null) {
+                        flags |= 1 << field;
+                    }
+                }
+                output.writeByte(flags);
+            }
+            int offset = 0;
+            for (byte[] string : strings) {
+                output.writeInt(offset);
+                offset += string == null ? 0 : string.length;
+            }
+            output.writeInt(offset);
+            for (byte[] string : strings) {
+                if (string != null) {
+                    output.write(string);
+                }
+            }
+        }
+        if (!temporaryFile.renameTo(file)) {
+            temporaryFile.delete();
+            throw new IOException("Cannot replace the review snapshot: " + file);
+        }
+    }
+
+    /**
+     * Decodes the review at the given position.
+     *
+     * @param index The position of the review, 0 being the newest review
+     * @return The review at this position
+     */
+    @Override
+    public Review get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        int flags = buffer.get(flagsPosition + index);
+        return new Review(decode(index, 0, flags), decode(index, 1, flags), decode(index, 2, flags),
+                buffer.getInt(ratingsPosition + index * Integer.BYTES));
+    }
+
+    /**
+     * Returns the rating of the review at the given position, read from the column of the ratings without decoding the review.
+     *
+     * @param index The position of the review, 0 being the newest review
+     * @return The rating of the review, or {@link Review#NO_RATING} if it has none
+     */
+    public int getRatingValue(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return buffer.getInt(ratingsPosition + index * Integer.BYTES);
+    }
+
+    /**
+     * Returns the number of reviews of the snapshot.
+     *
+     * @return The number of reviews
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Indicates whether the snapshot holds the given review, in constant time.
+     *
+     * @param obj The review to look up
+     * @return true if the snapshot holds an equal review; false otherwise
+     * @see #indexOf(Object)
+     */
+    @Override
+    public boolean contains(Object obj) {
+        return indexOf(obj) >= 0;
+    }
+
+    /**
+     * Returns the position of the given review in the snapshot, in constant time. The hash table of the fingerprints is
+     * probed from the slot of the fingerprint of the review up to an empty slot, and never more than once per slot,
+     * so that only the rows with the same fingerprint are decoded.
+     *
+     * @param obj The review to look up
+     * @return The position of the review, or -1 if the snapshot does not hold an equal review
+     */
+    @Override
+    public int indexOf(Object obj) {
+        if (!(obj instanceof Review) || size == 0) {
+            return -1;
+        }
+        long fingerprint = ((Review) obj).getFingerprint();
+        int slot = slotOf(fingerprint, tableMask);
+        for (int probe = 0; probe <= tableMask; probe++) {
+            int entry = buffer.getInt(tablePosition + slot * Integer.BYTES);
+            if (entry == 0) {
+                return -1;
+            }
+            int index = entry - 1;
+            if (buffer.getLong(fingerprintsPosition + index * Long.BYTES) == fingerprint && get(index).equals(obj)) {
+                return index;
+            }
+            slot = (slot + 1) & tableMask;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the number of slots of the hash table of the fingerprints of the given number of reviews:
+     * the smallest power of two at least twice as large.
+     *
+     * @param size The number of reviews
+     * @return The number of slots
+     */
+    private static int tableCapacity(int size) {
+        return size == 0 ? 1 : Integer.highestOneBit(size * 2 - 1) << 1;
+    }
+
+    /**
+     * Returns the first slot probed for a fingerprint in the hash table.
+     *
+     * @param fingerprint The fingerprint of a review
+     * @param mask        The mask of the slots of the hash table
+     * @return The slot
+     */
+    private static int slotOf(long fingerprint, int mask) {
+        return (int) ((fingerprint * SPREAD) >>> 32) & mask;
+    }
+
+    /**
+     * Decodes a string of the review at the given position from the blob.
+     *
+     * @param index The position of the review
+     * @param field The field: 0 for the author, 1 for the avatar URL and 2 for the content
+     * @param flags The flags of the review, marking its missing fields
+     * @return The string, or null if the review has no such field
+     */
+    private String decode(int index, int field, int flags) {
+        if ((flags & 1 << field) != 0) {
+            return null;
+        }
+        int offsetPosition = offsetsPosition + (index * FIELDS + field) * Integer.BYTES;
+        int start = buffer.getInt(offsetPosition);
+        int end = buffer.getInt(offsetPosition + Integer.BYTES);
+        byte[] bytes = new byte[end - start];
+        ByteBuffer blob = buffer.duplicate();
+        blob.position(blobPosition + start);
+        blob.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Encodes a string of a review in UTF-8.
+     *
+     * @param value The string, possibly null
+     * @return The encoded string, or null for null
+     */
+    private static byte[] encode(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,82 @@
+package com.openclassrooms.tajmahal.data.local;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * Stores the reviews fetched from the API as one {@link ReviewSnapshot} file per restaurant, in the storage of the application.
+ * <p>
+ * Unlike the cache of the local database, which rebuilds its reviews row by row, a snapshot is mapped in memory
+ * and decoded lazily, so the reviews of the previous session are displayed in constant time on startup,
+ * whatever their number.
+ */
+public class ReviewSnapshotStore {
+
+    // The directory holding the snapshot files.
+    private final File directory;
+
+    /**
+     * Constructor for a store keeping its snapshot files in the given directory, created on the first write.
+     *
+     * @param directory The directory of the snapshot files
+     */
+    public ReviewSnapshotStore(@NonNull File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Opens the snapshot of the reviews of the given restaurant.
+     *
+     * @param restaurantId The identifier of the restaurant
+     * @return The reviews of the snapshot, newest first, or null if the restaurant has no readable snapshot
+     */
+    @Nullable
+    public List<Review> open(long restaurantId) {
+        File file = file(restaurantId);
+        if (!file.exists()) {
+            return null;
+        }
+        try {
+            return ReviewSnapshot.open(file);
+        } catch (IOException e) {
+            // A corrupted snapshot is dropped: the reviews are fetched from the API anyway
+            file.delete();
+            return null;
+        }
+    }
+
+    /**
+     * Replaces the snapshot of the reviews of the given restaurant.
+     *
+     * @param restaurantId The identifier of the restaurant
+     * @param reviews      The reviews fetched from the API, newest first
+     * @throws UncheckedIOException if the snapshot cannot be written
+     */
+    public void write(long restaurantId, @NonNull List<Review> reviews) {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new UncheckedIOException(new IOException("Cannot create the review snapshot directory: " + directory));
+        }
+        try {
+            ReviewSnapshot.write(file(restaurantId), reviews);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the snapshot file of the given restaurant.
+     *
+     * @param restaurantId The identifier of the restaurant
+     * @return The snapshot file
+     */
+    private File file(long restaurantId) {
+        return new File(directory, "reviews_" + restaurantId + ".snapshot");
+    }
+}
@@ -0,0 +1,54 @@
+package com.openclassrooms.tajmahal.data.repository;
+
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Immutable list made of immutable lists, one after the other.
+ * <p>
+ * The parts are shared rather than copied, so that a view made of large lists is built in constant time.
+ * Indexed access looks up the part holding the index through the offsets of the parts.
+ */
+final class ConcatenatedList extends AbstractList<Review> implements RandomAccess {
+
+    // The lists making this list, in order.
+    private final List<Review>[] parts;
+
+    // The index of the first review of each part, followed by the size of the whole list.
+    private final int[] offsets;
+
+    /**
+     * Constructs the list made of the given lists, which must not change.
+     *
+     * @param parts The lists, in order.
+     */
+    @SafeVarargs
+    ConcatenatedList(List<Review>... parts) {
+        this.parts = parts;
+        this.offsets = new int[parts.length + 1];
+        for (int i = 0; i < parts.length; i++) {
+            offsets[i + 1] = offsets[i] + parts[i].size();
+        }
+    }
+
+    @Override
+    public Review get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        // The parts are few, so they are scanned rather than bisected
+        int part = 0;
+        while (index >= offsets[part + 1]) {
+            part++;
+        }
+        return parts[part].get(index - offsets[part]);
+    }
+
+    @Override
+    public int size() {
+        return offsets[parts.length];
+    }
+}
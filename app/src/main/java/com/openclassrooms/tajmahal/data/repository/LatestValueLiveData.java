@@ -0,0 +1,85 @@
+package com.openclassrooms.tajmahal.data.repository;
+
+import androidx.arch.core.executor.ArchTaskExecutor;
+import androidx.lifecycle.LiveData;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * LiveData publishing the latest value of a state written from any thread.
+ * <p>
+ * A writer records the new value with {@link #update(Object)} while holding the lock guarding the state, so that the
+ * recorded value is always the latest one, then calls {@link #dispatch()} once the lock is released. On the main thread,
+ * the value is set at once. On another thread, a single dispatch is posted to the main thread, which sets the value
+ * recorded by then: the observers never receive an older value after a newer one, and a burst of updates from the
+ * background is delivered once. A value already delivered is not delivered again.
+ * <p>
+ * The latest value can also be read from any thread with {@link #getLatestValue()}, without waiting for its dispatch.
+ *
+ * @param <T> The type of the published values, which must be immutable.
+ */
+final class LatestValueLiveData<T> extends LiveData<T> {
+
+    // The latest value recorded by the writers, possibly not dispatched yet.
+    private volatile T latestValue;
+
+    // Whether a dispatch has been posted to the main thread and has not run yet.
+    private final AtomicBoolean dispatchPending = new AtomicBoolean();
+
+    // Sets the latest value on the main thread, once the posted dispatch runs.
+    private final Runnable dispatchLatest = () -> {
+        dispatchPending.set(false);
+        setLatestValue();
+    };
+
+    /**
+     * Constructs the LiveData with the given initial value.
+     *
+     * @param initialValue The initial value, delivered to the first observers.
+     */
+    LatestValueLiveData(T initialValue) {
+        super(initialValue);
+        this.latestValue = initialValue;
+    }
+
+    /**
+     * Records the latest value of the state. It is delivered by the next call to {@link #dispatch()}.
+     *
+     * @param value The new value.
+     */
+    void update(T value) {
+        latestValue = value;
+    }
+
+    /**
+     * Returns the latest value recorded, which may not be delivered to the observers yet.
+     *
+     * @return The latest value.
+     */
+    T getLatestValue() {
+        return latestValue;
+    }
+
+    /**
+     * Delivers the latest value to the observers: at once on the main thread, or through a dispatch posted to the
+     * main thread otherwise, unless one is already pending.
+     */
+    void dispatch() {
+        ArchTaskExecutor taskExecutor = ArchTaskExecutor.getInstance();
+        if (taskExecutor.isMainThread()) {
+            setLatestValue();
+        } else if (dispatchPending.compareAndSet(false, true)) {
+            taskExecutor.postToMainThread(dispatchLatest);
+        }
+    }
+
+    /**
+     * Sets the latest value, unless it has been delivered already. Must be called on the main thread.
+     */
+    private void setLatestValue() {
+        T value = latestValue;
+        if (value != getValue()) {
+            setValue(value);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.openclassrooms.tajmahal.data.repository;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Represents the state of a load performed by a repository in the background.
+ * <p>
+ * Repositories expose it through a LiveData, so that the UI can show a progress indicator
+ * while the data is being fetched and report the error if the fetch failed.
+ */
+public final class LoadState {
+
+    /**
+     * The possible statuses of a load.
+     */
+    public enum Status {
+        LOADING,
+        LOADED,
+        ERROR
+    }
+
+    private static final LoadState LOADING = new LoadState(Status.LOADING, null);
+    private static final LoadState LOADED = new LoadState(Status.LOADED, null);
+
+    // Member variables representing attributes of a load state.
+    private final Status status;
+    private final Throwable error;
+
+    private LoadState(Status status, Throwable error) {
+        this.status = status;
+        this.error = error;
+    }
+
+    /**
+     * Returns the state of a load in progress.
+     *
+     * @return The loading state
+     */
+    public static LoadState loading() {
+        return LOADING;
+    }
+
+    /**
+     * Returns the state of a load that completed successfully.
+     *
+     * @return The loaded state
+     */
+    public static LoadState loaded() {
+        return LOADED;
+    }
+
+    /**
+     * Returns the state of a load that failed with the given error.
+     *
+     * @param error The error that made the load fail
+     * @return The error state
+     */
+    public static LoadState error(@NonNull Throwable error) {
+        return new LoadState(Status.ERROR, error);
+    }
+
+    /**
+     * Returns the status of the load.
+     *
+     * @return The status of the load
+     */
+    @NonNull
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Returns the error that made the load fail.
+     *
+     * @return The error, or null if the status is not {@link Status#ERROR}
+     */
+    @Nullable
+    public Throwable getError() {
+        return error;
+    }
+}
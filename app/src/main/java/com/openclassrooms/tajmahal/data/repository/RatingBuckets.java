@@ -0,0 +1,335 @@
+package com.openclassrooms.tajmahal.data.repository;
+
+import androidx.annotation.NonNull;
+
+import com.openclassrooms.tajmahal.data.local.ReviewSnapshot;
+import com.openclassrooms.tajmahal.domain.model.RatingStatistics;
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.ToLongFunction;
+
+/**
+ * The reviews of a restaurant split by rating, each bucket keeping its reviews newest first.
+ * <p>
+ * The buckets are maintained as the reviews are added, like the {@link ReviewStore} they mirror, so that the reviews
+ * with a given rating are a bucket rather than a filter of every review, and the reviews sorted by rating are the
+ * buckets one after the other rather than a sort. Each bucket is a {@link ReviewStore}, whose immutable copy is only
+ * taken once per change: switching from one view to another reuses the copies, without recomputing anything.
+ * <p>
+ * The reviews of the previous session are bucketed by their index in the given list, reading the ratings of a
+ * {@link ReviewSnapshot} from its column of ratings, so that they are not decoded, and are dropped from their bucket
+ * by the same index as they are loaded again. The reviews without a valid rating
+ * are kept in a bucket of their own, listed after the rated reviews.
+ * <p>
+ * A review is found in its bucket by binary search over the key given by the partition, decreasing from the newest
+ * to the oldest review. It is then removed or replaced in place like in the {@link ReviewStore}. A review whose rating
+ * changes leaves a tombstone in its bucket and moves to the bucket of its new rating, where it is inserted at its
+ * position in O(log n), without rebuilding the bucket: it is merged into the bucket by the next compaction.
+ * <p>
+ * The buckets are changed under the lock of the partition owning them, which then calls {@link #publish()}.
+ * The views are read without any lock from the published copies of the buckets, replaced as a whole on each change
+ * along with the views sorted by rating made of them: until the buckets change, the same views are returned.
+ */
+final class RatingBuckets {
+
+    // The bucket of the reviews without a valid rating, the other buckets being indexed by rating.
+    private static final int UNRATED = 0;
+
+    // The reviews of each rating, newest first.
+    private final ReviewStore[] buckets = new ReviewStore[RatingStatistics.MAX_RATING + 1];
+
+    // The sorted rows of the reviews of the previous session held by each bucket, indexed like the buckets.
+    private int[][] previousRows = new int[RatingStatistics.MAX_RATING + 1][0];
+
+    // The immutable copies of the buckets as of the last call to publish, and the views made of them, read by any thread.
+    private volatile Published published;
+
+    /**
+     * Constructs empty buckets.
+     */
+    RatingBuckets() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new ReviewStore();
+        }
+        publish();
+    }
+
+    /**
+     * Adds a review on top of its bucket, as the newest review.
+     *
+     * @param review The review to add.
+     */
+    void addNewest(@NonNull Review review) {
+        buckets[bucketOf(review.getRatingValue())].addNewest(review);
+    }
+
+    /**
+     * Adds the given reviews to their buckets, the list being ordered from the newest to the oldest review.
+     * The reviews are considered older than the reviews already in the buckets.
+     *
+     * @param reviews The reviews to add, newest first.
+     */
+    void addAllNewestFirst(@NonNull List<Review> reviews) {
+        List<List<Review>> split = new ArrayList<>(buckets.length);
+        for (int i = 0; i < buckets.length; i++) {
+            split.add(new ArrayList<>());
+        }
+        for (Review review : reviews) {
+            split.get(bucketOf(review.getRatingValue())).add(review);
+        }
+        for (int i = 0; i < buckets.length; i++) {
+            if (!split.get(i).isEmpty()) {
+                buckets[i].addAllNewestFirst(split.get(i));
+            }
+        }
+    }
+
+    /**
+     * Places the reviews of the previous session below the reviews of their buckets. The list is kept as is,
+     * each bucket holding the positions of its reviews in the list, and must not change.
+     *
+     * @param reviews The reviews of the previous session, newest first.
+     */
+    void setPrevious(@NonNull List<Review> reviews) {
+        ReviewSnapshot snapshot = reviews instanceof ReviewSnapshot ? (ReviewSnapshot) reviews : null;
+        int[] bucketOfReview = new int[reviews.size()];
+        int[] sizes = new int[buckets.length];
+        for (int i = 0; i < bucketOfReview.length; i++) {
+            int rating = snapshot != null ? snapshot.getRatingValue(i) : reviews.get(i).getRatingValue();
+            bucketOfReview[i] = bucketOf(rating);
+            sizes[bucketOfReview[i]]++;
+        }
+        int[][] positions = new int[buckets.length][];
+        for (int i = 0; i < buckets.length; i++) {
+            positions[i] = new int[sizes[i]];
+            sizes[i] = 0;
+        }
+        for (int i = 0; i < bucketOfReview.length; i++) {
+            int bucket = bucketOfReview[i];
+            positions[bucket][sizes[bucket]++] = i;
+        }
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i].setPrevious(new Selection(reviews, positions[i]));
+        }
+        previousRows = positions;
+    }
+
+    /**
+     * Drops a review of the previous session from its bucket.
+     *
+     * @param row    The row of the review in the list given to {@link #setPrevious(List)}.
+     * @param rating The rating of the review.
+     */
+    void dropPrevious(int row, int rating) {
+        int bucket = bucketOf(rating);
+        int position = Arrays.binarySearch(previousRows[bucket], row);
+        if (position >= 0) {
+            buckets[bucket].dropPrevious(position);
+        }
+    }
+
+    /**
+     * Removes a review from its bucket, leaving a tombstone.
+     *
+     * @param review The review to remove.
+     * @param key    The key of the review.
+     * @param keyOf  The function returning the key of a review, decreasing from the newest to the oldest review.
+     */
+    void remove(@NonNull Review review, long key, @NonNull ToLongFunction<Review> keyOf) {
+        ReviewStore bucket = buckets[bucketOf(review.getRatingValue())];
+        bucket.remove(bucket.positionOf(key, keyOf));
+    }
+
+    /**
+     * Replaces a review, in place if its rating is unchanged, or else by moving it to the bucket of its new rating.
+     * The new review is keyed like the review it replaces, and is not known to the given function yet.
+     *
+     * @param review        The review to replace.
+     * @param updatedReview The review replacing it.
+     * @param key           The key of the review.
+     * @param keyOf         The function returning the key of a review, decreasing from the newest to the oldest review.
+     */
+    void replace(@NonNull Review review, @NonNull Review updatedReview, long key, @NonNull ToLongFunction<Review> keyOf) {
+        ReviewStore bucket = buckets[bucketOf(review.getRatingValue())];
+        ReviewStore updatedBucket = buckets[bucketOf(updatedReview.getRatingValue())];
+        int position = bucket.positionOf(key, keyOf);
+        if (bucket == updatedBucket) {
+            bucket.set(position, updatedReview);
+            return;
+        }
+        bucket.remove(position);
+        updatedBucket.add(-updatedBucket.positionOf(key, keyOf) - 1, updatedReview);
+    }
+
+    /**
+     * Returns the number of tombstones left in the buckets, and of reviews moved between them, since their last compaction.
+     *
+     * @return The number of tombstones.
+     */
+    int getTombstoneCount() {
+        int count = 0;
+        for (ReviewStore bucket : buckets) {
+            count += bucket.getTombstoneCount();
+        }
+        return count;
+    }
+
+    /**
+     * Starts a compaction of the current versions of the buckets, in constant time, to be rebuilt without holding any
+     * lock: the buckets are rebuilt without their tombstones, and with the reviews moved to them, their reviews being
+     * left unchanged.
+     *
+     * @return The compaction of each bucket, by rating.
+     * @see ReviewStore#startCompaction()
+     */
+    ReviewStore.Compaction[] startCompaction() {
+        ReviewStore.Compaction[] compactions = new ReviewStore.Compaction[buckets.length];
+        for (int i = 0; i < buckets.length; i++) {
+            compactions[i] = buckets[i].startCompaction();
+        }
+        return compactions;
+    }
+
+    /**
+     * Replaces the buckets by their compacted versions, in constant time. The buckets must not have changed since
+     * the compaction was started.
+     *
+     * @param compactions The compaction of each bucket, by rating, once run.
+     */
+    void finishCompaction(ReviewStore.Compaction[] compactions) {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i].finishCompaction(compactions[i]);
+        }
+    }
+
+    /**
+     * Removes the reviews from the buckets, keeping the reviews of the previous session below them.
+     */
+    void clearAbovePrevious() {
+        for (ReviewStore bucket : buckets) {
+            bucket.clearAbovePrevious();
+        }
+    }
+
+    /**
+     * Removes every review from the buckets.
+     */
+    void clear() {
+        for (ReviewStore bucket : buckets) {
+            bucket.clear();
+        }
+        previousRows = new int[buckets.length][0];
+    }
+
+    /**
+     * Publishes the current content of the buckets to the readers. Each copy is only taken once per change of its
+     * bucket, so that the buckets left unchanged are published as they were, and the views sorted by rating are only
+     * made again if a bucket changed.
+     */
+    @SuppressWarnings("unchecked")
+    void publish() {
+        Published current = published;
+        List<Review>[] copies = new List[buckets.length];
+        boolean changed = current == null;
+        for (int i = 0; i < buckets.length; i++) {
+            copies[i] = buckets[i].snapshot();
+            if (!changed && copies[i] != current.buckets[i]) {
+                changed = true;
+            }
+        }
+        if (changed) {
+            published = new Published(copies);
+        }
+    }
+
+    /**
+     * Returns the published reviews with the given rating.
+     *
+     * @param rating The rating, between {@link RatingStatistics#MIN_RATING} and {@link RatingStatistics#MAX_RATING}.
+     * @return An immutable list of the reviews with this rating, newest first.
+     */
+    List<Review> withRating(int rating) {
+        return published.buckets[rating];
+    }
+
+    /**
+     * Returns the published reviews sorted by rating, the newest first among the reviews with the same rating,
+     * followed by the reviews without a valid rating. The view is made once per change of the buckets.
+     *
+     * @param highestFirst true to list the best rated reviews first; false to list the worst rated reviews first.
+     * @return An immutable list of the reviews sorted by rating.
+     */
+    List<Review> sortedByRating(boolean highestFirst) {
+        Published current = published;
+        return highestFirst ? current.highestFirst : current.lowestFirst;
+    }
+
+    /**
+     * Returns the bucket of the reviews with the given rating.
+     *
+     * @param rating The rating of a review, possibly invalid.
+     * @return The index of the bucket.
+     */
+    private static int bucketOf(int rating) {
+        return rating < RatingStatistics.MIN_RATING || rating > RatingStatistics.MAX_RATING ? UNRATED : rating;
+    }
+
+    /**
+     * The immutable copies of the buckets published together, and the views sorted by rating made of them.
+     */
+    private static final class Published {
+
+        // The copies of the buckets, indexed like the buckets.
+        final List<Review>[] buckets;
+
+        // The reviews sorted by rating, the best rated first and the worst rated first.
+        final List<Review> highestFirst;
+        final List<Review> lowestFirst;
+
+        Published(List<Review>[] buckets) {
+            this.buckets = buckets;
+            this.highestFirst = sortedByRating(buckets, true);
+            this.lowestFirst = sortedByRating(buckets, false);
+        }
+
+        @SuppressWarnings("unchecked")
+        private static List<Review> sortedByRating(List<Review>[] buckets, boolean highestFirst) {
+            List<Review>[] parts = new List[buckets.length];
+            for (int i = 0; i < RatingStatistics.MAX_RATING; i++) {
+                int rating = highestFirst ? RatingStatistics.MAX_RATING - i : RatingStatistics.MIN_RATING + i;
+                parts[i] = buckets[rating];
+            }
+            parts[buckets.length - 1] = buckets[UNRATED];
+            return new ConcatenatedList(parts);
+        }
+    }
+
+    /**
+     * Immutable view of the reviews of a list at the given positions.
+     */
+    private static final class Selection extends AbstractList<Review> implements RandomAccess {
+
+        private final List<Review> reviews;
+        private final int[] positions;
+
+        Selection(List<Review> reviews, int[] positions) {
+            this.reviews = reviews;
+            this.positions = positions;
+        }
+
+        @Override
+        public Review get(int index) {
+            return reviews.get(positions[index]);
+        }
+
+        @Override
+        public int size() {
+            return positions.length;
+        }
+    }
+}
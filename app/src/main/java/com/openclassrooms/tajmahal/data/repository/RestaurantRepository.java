@@ -6,6 +6,12 @@ import androidx.lifecycle.MutableLiveData;
 import com.openclassrooms.tajmahal.data.service.RestaurantApi;
 import com.openclassrooms.tajmahal.domain.model.Restaurant;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
@@ -16,6 +22,8 @@ import javax.inject.Singleton;
  * <p>
  * Typically in an Android app built with architecture components, the repository will handle
  * the logic for deciding whether to fetch data from a network source or use data from a local cache.
+ * Here, the details of the most recently displayed restaurants are kept in memory and only fetched again
+ * once they are stale.
  *
  * @see Restaurant
  * @see RestaurantApi
@@ -23,30 +31,159 @@ import javax.inject.Singleton;
 @Singleton
 public class RestaurantRepository {
 
+    // The duration during which the restaurant details are served from the cache without being fetched again.
+    public static final long CACHE_TIME_TO_LIVE_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    // The number of restaurants whose details are kept in memory, the least recently requested one being evicted first.
+    public static final int MAX_CACHED_RESTAURANTS = 50;
+
     // The API interface instance that will be used for network requests related to restaurant data.
     private final RestaurantApi restaurantApi;
 
+    // The executor running the network calls, off the main thread.
+    private final Executor executor;
+
+    // The clock giving the current time in milliseconds, used to find out whether a cached restaurant is stale.
+    private final LongSupplier clock;
+
+    // The duration during which a cached restaurant is considered fresh, in milliseconds.
+    private final long timeToLiveMillis;
+
+    // The cached restaurants by identifier, in access order. Guarded by this repository.
+    private final Map<Long, CachedRestaurant> cachedRestaurants =
+            new LinkedHashMap<Long, CachedRestaurant>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, CachedRestaurant> eldest) {
+                    return size() > MAX_CACHED_RESTAURANTS;
+                }
+            };
+
+    /**
+     * The cache entry of a restaurant: its details, shared by every observer, and the state of their loading.
+     */
+    private static final class CachedRestaurant {
+
+        // The MutableLiveData object shared by every observer, holding the cached restaurant details.
+        final MutableLiveData<Restaurant> liveDataRestaurant = new MutableLiveData<>();
+
+        // The MutableLiveData object that will be used to emit the state of the loading of the restaurant to the observers.
+        final MutableLiveData<LoadState> liveDataLoadState = new MutableLiveData<>();
+
+        // The time at which the cached restaurant was fetched, in milliseconds.
+        long fetchedAtMillis;
+
+        // Whether the cached restaurant has been fetched at least once.
+        boolean cached;
+
+        // Whether a request to the API is in flight.
+        boolean fetching;
+    }
+
     /**
      * Constructs a new instance of {@link RestaurantRepository} with the given {@link RestaurantApi}.
+     * The restaurant details are cached for {@link #CACHE_TIME_TO_LIVE_MILLIS}.
      *
      * @param restaurantApi The network API interface for fetching restaurant data.
+     * @param executor      The executor running the network calls, off the main thread.
      */
     @Inject
-    public RestaurantRepository(RestaurantApi restaurantApi) {
+    public RestaurantRepository(RestaurantApi restaurantApi, Executor executor) {
+        this(restaurantApi, executor, System::currentTimeMillis, CACHE_TIME_TO_LIVE_MILLIS);
+    }
+
+    /**
+     * Constructs a new instance of {@link RestaurantRepository} with the given clock and cache duration.
+     *
+     * @param restaurantApi    The network API interface for fetching restaurant data.
+     * @param executor         The executor running the network calls, off the main thread.
+     * @param clock            The clock giving the current time in milliseconds.
+     * @param timeToLiveMillis The duration during which a cached restaurant is considered fresh, in milliseconds.
+     */
+    public RestaurantRepository(RestaurantApi restaurantApi, Executor executor, LongSupplier clock, long timeToLiveMillis) {
         this.restaurantApi = restaurantApi;
+        this.executor = executor;
+        this.clock = clock;
+        this.timeToLiveMillis = timeToLiveMillis;
     }
 
     /**
-     * Fetches the restaurant details.
+     * Fetches the details of the given restaurant.
+     * <p>
+     * Every caller gets the same LiveData for a restaurant, holding its cached details. The restaurant is only fetched
+     * from the provided {@link RestaurantApi} when nothing is cached yet or when the cached details are older than
+     * the time to live of the cache. Stale details stay published while they are being revalidated in the background,
+     * and a single request per restaurant is in flight at a time. The progress and the error of the request, if any,
+     * are published through {@link #getLoadState(long)}; on error, the stale details are kept.
      * <p>
-     * This method will make a network call using the provided {@link RestaurantApi} instance
-     * to fetch restaurant data. Note that error handling and any transformations on the data
-     * would need to be managed.
+     * Only the {@link #MAX_CACHED_RESTAURANTS} most recently requested restaurants are cached: the LiveData of
+     * an evicted restaurant is no longer updated, and requesting it again returns a new LiveData.
      *
+     * @param restaurantId The identifier of the restaurant.
      * @return LiveData holding the restaurant details.
      */
-    public LiveData<Restaurant> getRestaurant() {
-        return new MutableLiveData<>(restaurantApi.getRestaurant());
+    public LiveData<Restaurant> getRestaurant(long restaurantId) {
+        CachedRestaurant entry;
+        synchronized (this) {
+            entry = cachedRestaurant(restaurantId);
+            boolean fresh = entry.cached && clock.getAsLong() - entry.fetchedAtMillis < timeToLiveMillis;
+            if (fresh || entry.fetching) {
+                return entry.liveDataRestaurant;
+            }
+            entry.fetching = true;
+        }
+        entry.liveDataLoadState.postValue(LoadState.loading());
+        CachedRestaurant fetchedEntry = entry;
+        executor.execute(() -> fetchRestaurant(restaurantId, fetchedEntry));
+        return entry.liveDataRestaurant;
+    }
+
+    /**
+     * Fetches the details of a restaurant from the API and caches them.
+     * This method runs on the executor of the repository.
+     *
+     * @param restaurantId The identifier of the restaurant.
+     * @param entry        The cache entry of the restaurant.
+     */
+    private void fetchRestaurant(long restaurantId, CachedRestaurant entry) {
+        try {
+            Restaurant restaurant = restaurantApi.getRestaurant(restaurantId);
+            synchronized (this) {
+                entry.fetchedAtMillis = clock.getAsLong();
+                entry.cached = true;
+            }
+            entry.liveDataRestaurant.postValue(restaurant);
+            entry.liveDataLoadState.postValue(LoadState.loaded());
+        } catch (RuntimeException e) {
+            entry.liveDataLoadState.postValue(LoadState.error(e));
+        } finally {
+            synchronized (this) {
+                entry.fetching = false;
+            }
+        }
     }
-}
 
+    /**
+     * Returns the state of the loading of the details of the given restaurant.
+     *
+     * @param restaurantId The identifier of the restaurant.
+     * @return LiveData holding the state of the last load.
+     */
+    public synchronized LiveData<LoadState> getLoadState(long restaurantId) {
+        return cachedRestaurant(restaurantId).liveDataLoadState;
+    }
+
+    /**
+     * Returns the cache entry of the given restaurant, creating it if needed. Must be called with the lock held.
+     *
+     * @param restaurantId The identifier of the restaurant.
+     * @return The cache entry of the restaurant.
+     */
+    private CachedRestaurant cachedRestaurant(long restaurantId) {
+        CachedRestaurant entry = cachedRestaurants.get(restaurantId);
+        if (entry == null) {
+            entry = new CachedRestaurant();
+            cachedRestaurants.put(restaurantId, entry);
+        }
+        return entry;
+    }
+}
@@ -0,0 +1,137 @@
+package com.openclassrooms.tajmahal.data.repository;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Represents the outcome of a batch of reviews submitted to {@link ReviewRepository#addReviews(long, java.util.Collection)}.
+ * <p>
+ * The result tells, for each review of the batch and in the order of the batch, whether it was accepted
+ * or the reason why it was rejected, so that the caller can report the rejected reviews to their author or source.
+ */
+public final class ReviewBatchResult {
+
+    /**
+     * The possible statuses of a review of a batch, or of an updated review.
+     */
+    public enum Status {
+        // The review was added to the reviews of the restaurant.
+        ACCEPTED,
+        // The batch held null instead of a review.
+        MISSING_REVIEW,
+        // The review has no rating.
+        MISSING_RATING,
+        // The rating of the review is not between 1 and 5.
+        INVALID_RATING,
+        // The review has no comment.
+        MISSING_CONTENT,
+        // The review is already in the reviews of the restaurant, or earlier in the batch.
+        DUPLICATE,
+        // The review to update is not among the reviews of the restaurant loaded so far.
+        NOT_FOUND
+    }
+
+    // Member variables representing attributes of a batch result, indexed by position in the batch.
+    private final List<Review> reviews;
+    private final Status[] statuses;
+    private final int acceptedCount;
+
+    /**
+     * Constructor for the result of a batch. The arrays and lists are owned by the result.
+     *
+     * @param reviews  The reviews of the batch, in their submission order
+     * @param statuses The status of each review of the batch
+     */
+    ReviewBatchResult(@NonNull List<Review> reviews, @NonNull Status[] statuses) {
+        this.reviews = Collections.unmodifiableList(reviews);
+        this.statuses = statuses;
+        int accepted = 0;
+        for (Status status : statuses) {
+            if (status == Status.ACCEPTED) {
+                accepted++;
+            }
+        }
+        this.acceptedCount = accepted;
+    }
+
+    /**
+     * Returns the number of reviews of the batch.
+     *
+     * @return The size of the batch
+     */
+    public int size() {
+        return statuses.length;
+    }
+
+    /**
+     * Returns the review at the given position of the batch.
+     *
+     * @param index The position of the review in the batch
+     * @return The review, or null if the batch held null at this position
+     */
+    @Nullable
+    public Review getReview(int index) {
+        return reviews.get(index);
+    }
+
+    /**
+     * Returns the status of the review at the given position of the batch.
+     *
+     * @param index The position of the review in the batch
+     * @return {@link Status#ACCEPTED}, or the reason why the review was rejected
+     */
+    @NonNull
+    public Status getStatus(int index) {
+        return statuses[index];
+    }
+
+    /**
+     * Indicates whether the review at the given position of the batch was accepted.
+     *
+     * @param index The position of the review in the batch
+     * @return true if the review was added; false otherwise
+     */
+    public boolean isAccepted(int index) {
+        return statuses[index] == Status.ACCEPTED;
+    }
+
+    /**
+     * Returns the number of reviews of the batch that were added.
+     *
+     * @return The number of accepted reviews
+     */
+    public int getAcceptedCount() {
+        return acceptedCount;
+    }
+
+    /**
+     * Returns the number of reviews of the batch that were rejected.
+     *
+     * @return The number of rejected reviews
+     */
+    public int getRejectedCount() {
+        return statuses.length - acceptedCount;
+    }
+
+    /**
+     * Returns the reviews of the batch that were added, in their submission order.
+     *
+     * @return The accepted reviews
+     */
+    @NonNull
+    public List<Review> getAcceptedReviews() {
+        List<Review> accepted = new ArrayList<>(acceptedCount);
+        for (int i = 0; i < statuses.length; i++) {
+            if (statuses[i] == Status.ACCEPTED) {
+                accepted.add(reviews.get(i));
+            }
+        }
+        return accepted;
+    }
+}
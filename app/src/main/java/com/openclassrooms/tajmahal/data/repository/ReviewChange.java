@@ -0,0 +1,186 @@
+package com.openclassrooms.tajmahal.data.repository;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A change of the list of reviews of a restaurant, as replayed by {@link ReviewRepository#getChangesSince(long, long)}.
+ * <p>
+ * The positions are those of the list of reviews, newest first, and each change applies to the list as left by
+ * the previous one: a consumer holding a copy of the list keeps it up to date by applying the changes in order,
+ * each in constant time, instead of comparing the whole lists. The sequence number of a change is the version
+ * of the reviews it leads to, as returned by {@link ReviewRepository#getVersion(long)}.
+ * <p>
+ * Changes are immutable, so they can be handed over to any thread.
+ */
+public final class ReviewChange {
+
+    /**
+     * The type of a change.
+     */
+    public enum Type {
+        // A review inserted at the position, the reviews from this position on moving down by one.
+        ADDED,
+        // The review at the position removed, the following reviews moving up by one.
+        REMOVED,
+        // The review at the position replaced by another one.
+        REPLACED,
+        // Several changes made at once, to be applied in order.
+        BATCH,
+        // Every review replaced by the reviews of the change, when the reviews are reloaded or the changes are no longer kept.
+        RESET
+    }
+
+    private final long sequence;
+    private final Type type;
+    private final int position;
+    @Nullable
+    private final Review review;
+    @Nullable
+    private final Review previousReview;
+    private final List<ReviewChange> changes;
+    private final List<Review> reviews;
+
+    private ReviewChange(long sequence, Type type, int position, @Nullable Review review, @Nullable Review previousReview,
+                         List<ReviewChange> changes, List<Review> reviews) {
+        this.sequence = sequence;
+        this.type = type;
+        this.position = position;
+        this.review = review;
+        this.previousReview = previousReview;
+        this.changes = changes;
+        this.reviews = reviews;
+    }
+
+    /**
+     * Makes the insertion of a review.
+     *
+     * @param sequence The sequence number of the change.
+     * @param position The position of the new review.
+     * @param review   The new review.
+     * @return The change.
+     */
+    static ReviewChange added(long sequence, int position, @NonNull Review review) {
+        return new ReviewChange(sequence, Type.ADDED, position, review, null, Collections.<ReviewChange>emptyList(), Collections.<Review>emptyList());
+    }
+
+    /**
+     * Makes the removal of a review.
+     *
+     * @param sequence The sequence number of the change.
+     * @param position The position of the removed review.
+     * @param review   The removed review.
+     * @return The change.
+     */
+    static ReviewChange removed(long sequence, int position, @NonNull Review review) {
+        return new ReviewChange(sequence, Type.REMOVED, position, null, review, Collections.<ReviewChange>emptyList(), Collections.<Review>emptyList());
+    }
+
+    /**
+     * Makes the replacement of a review.
+     *
+     * @param sequence       The sequence number of the change.
+     * @param position       The position of the replaced review.
+     * @param previousReview The replaced review.
+     * @param review         The review replacing it.
+     * @return The change.
+     */
+    static ReviewChange replaced(long sequence, int position, @NonNull Review previousReview, @NonNull Review review) {
+        return new ReviewChange(sequence, Type.REPLACED, position, review, previousReview, Collections.<ReviewChange>emptyList(), Collections.<Review>emptyList());
+    }
+
+    /**
+     * Makes a batch of changes.
+     *
+     * @param sequence The sequence number of the change, shared by the changes of the batch.
+     * @param changes  The changes of the batch, in order, which must not change.
+     * @return The change.
+     */
+    static ReviewChange batch(long sequence, @NonNull List<ReviewChange> changes) {
+        return new ReviewChange(sequence, Type.BATCH, 0, null, null, changes, Collections.<Review>emptyList());
+    }
+
+    /**
+     * Makes the replacement of every review.
+     *
+     * @param sequence The sequence number of the change.
+     * @param reviews  The immutable list of the reviews, newest first.
+     * @return The change.
+     */
+    static ReviewChange reset(long sequence, @NonNull List<Review> reviews) {
+        return new ReviewChange(sequence, Type.RESET, 0, null, null, Collections.<ReviewChange>emptyList(), reviews);
+    }
+
+    /**
+     * Returns the sequence number of the change: the version of the reviews once it is applied.
+     *
+     * @return The sequence number.
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Returns the type of the change.
+     *
+     * @return The type.
+     */
+    @NonNull
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Returns the position of the review added, removed or replaced.
+     *
+     * @return The position in the list of reviews, newest first; 0 for a batch or a reset.
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * Returns the review added, or the review replacing the previous one.
+     *
+     * @return The new review, or null for the other types of change.
+     */
+    @Nullable
+    public Review getReview() {
+        return review;
+    }
+
+    /**
+     * Returns the review removed or replaced.
+     *
+     * @return The previous review, or null for the other types of change.
+     */
+    @Nullable
+    public Review getPreviousReview() {
+        return previousReview;
+    }
+
+    /**
+     * Returns the changes of a batch.
+     *
+     * @return An immutable list of the changes, in order; empty for the other types of change.
+     */
+    @NonNull
+    public List<ReviewChange> getChanges() {
+        return changes;
+    }
+
+    /**
+     * Returns the reviews of a reset.
+     *
+     * @return An immutable list of every review, newest first; empty for the other types of change.
+     */
+    @NonNull
+    public List<Review> getReviews() {
+        return reviews;
+    }
+}
@@ -0,0 +1,185 @@
+package com.openclassrooms.tajmahal.data.repository;
+
+import androidx.annotation.NonNull;
+
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The latest changes of the reviews of a restaurant, kept to be replayed to the consumers that missed them.
+ * <p>
+ * The writers record their changes as they make them, then commit them under the new version of the reviews:
+ * the changes of a commit become a single {@link ReviewChange}, a batch if there are several. Only the last
+ * {@link ReviewRepository#MAX_REPLAYED_CHANGES} commits are kept. A consumer asking for the changes after a
+ * commit that is no longer kept, or that it never saw, receives a reset to the current reviews instead.
+ * <p>
+ * The changes are recorded and committed under the lock of the partition owning the log. Each commit publishes
+ * the committed changes as an immutable array, along with the version and the reviews they lead to, so that the
+ * consumers read them with {@link #since(long)} without any lock, like the reviews themselves. The array is copied
+ * on each commit, in O({@link ReviewRepository#MAX_REPLAYED_CHANGES}).
+ */
+final class ReviewChangeLog {
+
+    // The changes recorded since the last commit, in order.
+    private final List<ReviewChange> pending = new ArrayList<>();
+
+    // Whether every review has been replaced since the last commit, the recorded changes being irrelevant.
+    private boolean resetPending;
+
+    // The committed changes and the reviews they lead to as of the last commit, read by any thread.
+    private volatile Published published;
+
+    /**
+     * Constructs an empty log, from the given version of the reviews.
+     *
+     * @param sequence The version of the reviews, before any change.
+     */
+    ReviewChangeLog(long sequence) {
+        this.published = new Published(sequence, sequence, new ReviewChange[0], Collections.emptyList());
+    }
+
+    /**
+     * Records the insertion of a review.
+     *
+     * @param position The position of the new review.
+     * @param review   The new review.
+     */
+    void added(int position, @NonNull Review review) {
+        if (!resetPending) {
+            pending.add(ReviewChange.added(0, position, review));
+        }
+    }
+
+    /**
+     * Records the removal of a review.
+     *
+     * @param position The position of the removed review.
+     * @param review   The removed review.
+     */
+    void removed(int position, @NonNull Review review) {
+        if (!resetPending) {
+            pending.add(ReviewChange.removed(0, position, review));
+        }
+    }
+
+    /**
+     * Records the replacement of a review.
+     *
+     * @param position       The position of the replaced review.
+     * @param previousReview The replaced review.
+     * @param review         The review replacing it.
+     */
+    void replaced(int position, @NonNull Review previousReview, @NonNull Review review) {
+        if (!resetPending) {
+            pending.add(ReviewChange.replaced(0, position, previousReview, review));
+        }
+    }
+
+    /**
+     * Records the replacement of every review, which makes the changes recorded since the last commit irrelevant.
+     */
+    void reset() {
+        resetPending = true;
+        pending.clear();
+    }
+
+    /**
+     * Commits the changes recorded since the last commit under the given sequence number, and publishes them.
+     *
+     * @param sequence The new version of the reviews.
+     * @param reviews  The reviews once changed, newest first, which must not change.
+     */
+    void commit(long sequence, @NonNull List<Review> reviews) {
+        ReviewChange change;
+        if (resetPending) {
+            change = ReviewChange.reset(sequence, reviews);
+        } else if (pending.size() == 1) {
+            change = withSequence(pending.get(0), sequence);
+        } else {
+            List<ReviewChange> changes = new ArrayList<>(pending.size());
+            for (ReviewChange pendingChange : pending) {
+                changes.add(withSequence(pendingChange, sequence));
+            }
+            change = ReviewChange.batch(sequence, Collections.unmodifiableList(changes));
+        }
+        pending.clear();
+        resetPending = false;
+        Published current = published;
+        ReviewChange[] committed = current.changes;
+        long floor = current.floor;
+        int kept = Math.min(committed.length, ReviewRepository.MAX_REPLAYED_CHANGES - 1);
+        if (kept < committed.length) {
+            floor = committed[committed.length - kept - 1].getSequence();
+        }
+        ReviewChange[] changes = Arrays.copyOfRange(committed, committed.length - kept, committed.length + 1);
+        changes[kept] = change;
+        published = new Published(floor, sequence, changes, reviews);
+    }
+
+    /**
+     * Returns the changes published after the given sequence number, from any thread.
+     *
+     * @param sequence The sequence number of the last change known by the consumer.
+     * @return The changes after the sequence number, oldest first, or a single reset to the reviews published last
+     * if the changes after the sequence number are no longer kept.
+     */
+    @NonNull
+    List<ReviewChange> since(long sequence) {
+        Published current = published;
+        if (sequence >= current.sequence) {
+            return Collections.emptyList();
+        }
+        if (sequence < current.floor) {
+            return Collections.singletonList(ReviewChange.reset(current.sequence, current.reviews));
+        }
+        ReviewChange[] committed = current.changes;
+        int first = committed.length;
+        while (first > 0 && committed[first - 1].getSequence() > sequence) {
+            first--;
+        }
+        return Collections.unmodifiableList(Arrays.asList(committed).subList(first, committed.length));
+    }
+
+    /**
+     * Returns a copy of the given recorded change under the given sequence number.
+     *
+     * @param change   The recorded change.
+     * @param sequence The sequence number of its commit.
+     * @return The committed change.
+     */
+    private static ReviewChange withSequence(ReviewChange change, long sequence) {
+        switch (change.getType()) {
+            case REMOVED:
+                return ReviewChange.removed(sequence, change.getPosition(), change.getPreviousReview());
+            case REPLACED:
+                return ReviewChange.replaced(sequence, change.getPosition(), change.getPreviousReview(), change.getReview());
+            default:
+                return ReviewChange.added(sequence, change.getPosition(), change.getReview());
+        }
+    }
+
+    /**
+     * The committed changes as of a commit, with the version and the reviews they lead to.
+     */
+    private static final class Published {
+        // The sequence number before the oldest committed change: the changes after it can be replayed.
+        final long floor;
+        // The version of the reviews once changed.
+        final long sequence;
+        // The committed changes, oldest first, never changed once published.
+        final ReviewChange[] changes;
+        // The reviews once changed, newest first.
+        final List<Review> reviews;
+
+        Published(long floor, long sequence, ReviewChange[] changes, List<Review> reviews) {
+            this.floor = floor;
+            this.sequence = sequence;
+            this.changes = changes;
+            this.reviews = reviews;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.openclassrooms.tajmahal.data.repository;
+
+import com.openclassrooms.tajmahal.data.local.OutboxDao;
+import com.openclassrooms.tajmahal.data.local.OutboxEntity;
+import com.openclassrooms.tajmahal.data.service.RestaurantApi;
+import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.model.ReviewSubmission;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * The outbox of the reviews written on this device, waiting to be submitted to the API.
+ * <p>
+ * Posting a review only queues it in the local database, which is fast and works offline; the reviews are then
+ * submitted in batches by a background job scheduled through the {@link ReviewSubmissionScheduler}. Each review
+ * is given an idempotency key when it is queued, and keeps it across retries and restarts of the application,
+ * so a review whose acknowledgement was lost is submitted again without ever being published twice.
+ * <p>
+ * The key is derived from the restaurant and the fingerprint of the review, so that a review deleted or updated
+ * before its submission is removed from the outbox or rewritten in place, rather than submitted as first written.
+ * <p>
+ * The methods of the outbox are blocking, so they must be run off the main thread.
+ *
+ * @see RestaurantApi#submitReviews(long, List)
+ */
+@Singleton
+public class ReviewOutbox {
+
+    // The maximum number of reviews read from the outbox, and submitted, at once.
+    public static final int BATCH_SIZE = 50;
+
+    // The API interface instance that will be used to submit the reviews.
+    private final RestaurantApi restaurantApi;
+
+    // The data access object of the outbox table.
+    private final OutboxDao outboxDao;
+
+    // The scheduler of the background submission of the queued reviews.
+    private final ReviewSubmissionScheduler scheduler;
+
+    /**
+     * Constructs the outbox of the reviews.
+     *
+     * @param restaurantApi The network API interface to which the reviews are submitted.
+     * @param outboxDao     The data access object of the outbox table.
+     * @param scheduler     The scheduler of the background submission of the queued reviews.
+     */
+    @Inject
+    public ReviewOutbox(RestaurantApi restaurantApi, OutboxDao outboxDao, ReviewSubmissionScheduler scheduler) {
+        this.restaurantApi = restaurantApi;
+        this.outboxDao = outboxDao;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Queues new reviews of a restaurant for submission, and schedules their submission.
+     *
+     * @param restaurantId The identifier of the reviewed restaurant.
+     * @param reviews      The reviews to submit.
+     */
+    public void enqueue(long restaurantId, List<Review> reviews) {
+        long now = System.currentTimeMillis();
+        List<OutboxEntity> entities = new ArrayList<>(reviews.size());
+        for (Review review : reviews) {
+            entities.add(OutboxEntity.fromReview(restaurantId, review, OutboxEntity.idempotencyKey(restaurantId, review), now));
+        }
+        outboxDao.insertAll(entities);
+        scheduler.scheduleSubmission();
+    }
+
+    /**
+     * Removes a review deleted before its submission from the outbox. Nothing is done if the review has been
+     * submitted already.
+     *
+     * @param restaurantId The identifier of the reviewed restaurant.
+     * @param review       The deleted review.
+     */
+    public void remove(long restaurantId, Review review) {
+        outboxDao.deleteByKey(OutboxEntity.idempotencyKey(restaurantId, review));
+    }
+
+    /**
+     * Rewrites a review updated before its submission, which keeps its place in the outbox under the key of the
+     * updated review. Nothing is done if the review has been submitted already.
+     *
+     * @param restaurantId  The identifier of the reviewed restaurant.
+     * @param review        The review as queued.
+     * @param updatedReview The updated review.
+     */
+    public void replace(long restaurantId, Review review, Review updatedReview) {
+        OutboxEntity entity = OutboxEntity.fromReview(restaurantId, updatedReview,
+                OutboxEntity.idempotencyKey(restaurantId, updatedReview), 0);
+        outboxDao.replaceByKey(OutboxEntity.idempotencyKey(restaurantId, review), entity);
+    }
+
+    /**
+     * Submits the queued reviews to the API, oldest first, one batch per restaurant, until the outbox is empty.
+     * <p>
+     * The reviews acknowledged by the API are removed from the outbox, as are the batches rejected for good
+     * by the API, which would be rejected again by every retry. On any other failure, the submission stops and the
+     * reviews are left in the outbox, to be submitted again with the same idempotency keys.
+     *
+     * @return true if the outbox is empty; false if the submission failed and must be retried later.
+     */
+    public boolean submitQueuedReviews() {
+        while (true) {
+            List<OutboxEntity> queued = outboxDao.getQueuedReviews(BATCH_SIZE);
+            if (queued.isEmpty()) {
+                return true;
+            }
+            Map<Long, List<OutboxEntity>> byRestaurant = new LinkedHashMap<>();
+            for (OutboxEntity entity : queued) {
+                List<OutboxEntity> batch = byRestaurant.get(entity.restaurantId);
+                if (batch == null) {
+                    batch = new ArrayList<>();
+                    byRestaurant.put(entity.restaurantId, batch);
+                }
+                batch.add(entity);
+            }
+            for (Map.Entry<Long, List<OutboxEntity>> batch : byRestaurant.entrySet()) {
+                List<ReviewSubmission> submissions = new ArrayList<>(batch.getValue().size());
+                List<Long> ids = new ArrayList<>(batch.getValue().size());
+                for (OutboxEntity entity : batch.getValue()) {
+                    submissions.add(entity.toSubmission());
+                    ids.add(entity.id);
+                }
+                try {
+                    restaurantApi.submitReviews(batch.getKey(), submissions);
+                } catch (IllegalArgumentException e) {
+                    // The batch is rejected for good: it is dropped rather than blocking the following reviews
+                } catch (RuntimeException e) {
+                    return false;
+                }
+                outboxDao.delete(ids);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of reviews waiting to be submitted.
+     *
+     * @return The size of the outbox.
+     */
+    public int size() {
+        return outboxDao.count();
+    }
+}
@@ -0,0 +1,897 @@
+package com.openclassrooms.tajmahal.data.repository;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.openclassrooms.tajmahal.data.local.ReviewDao;
+import com.openclassrooms.tajmahal.data.local.ReviewEntity;
+import com.openclassrooms.tajmahal.data.local.ReviewSnapshotStore;
+import com.openclassrooms.tajmahal.data.service.RestaurantApi;
+import com.openclassrooms.tajmahal.domain.model.RatingHistogram;
+import com.openclassrooms.tajmahal.domain.model.RatingStatistics;
+import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.model.ReviewPage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
+
+/**
+ * The reviews of a single restaurant, as loaded by the {@link ReviewRepository}.
+ * <p>
+ * A partition holds everything the repository knows about the reviews of one restaurant: the reviews loaded so far,
+ * their hash index, their search index, their buckets by rating, the running rating statistics, the paging cursor,
+ * the log of their latest changes and the LiveData published to the observers.
+ * The partitions never share any state, so the reviews of a restaurant never leak into another one, and a partition
+ * can be dropped as a whole once its restaurant is no longer displayed.
+ * <p>
+ * The writers of a partition are serialized by its lock, so that the writers of different restaurants never contend.
+ * Each writer publishes the immutable snapshots of the reviews, of their buckets, of their search index, of their
+ * changes and of the statistics before releasing the lock: the readers of the reviews never take the lock, they read
+ * the latest snapshots published. The LiveData
+ * objects are only set on the main thread, with the latest snapshots, whichever thread wrote them.
+ * <p>
+ * Each indexed review has a key decreasing from the newest to the oldest review, which never changes: a review to update
+ * or delete is found in the store and in its bucket by binary search over the keys, then replaced in place or removed
+ * by leaving a tombstone, and its rating is removed from the statistics rather than recomputing them. Once the
+ * tombstones reach {@link ReviewRepository#COMPACTION_THRESHOLD}, the store and the buckets are compacted on the executor,
+ * without holding the lock while they are rebuilt.
+ * The reviews of the API deleted or updated on this device are remembered for the session, so that they stay deleted
+ * or updated when the reviews are fetched again. The writes to the local database and to the outbox are submitted under
+ * the lock to a serial executor, so that they run in the order of the changes.
+ *
+ * @see ReviewRepository
+ */
+final class ReviewPartition {
+
+    // The identifier of the restaurant whose reviews are held by this partition.
+    private final long restaurantId;
+
+    // The API interface instance that will be used to fetch the pages of reviews.
+    private final RestaurantApi restaurantApi;
+
+    // The data access object of the local database caching the reviews.
+    private final ReviewDao reviewDao;
+
+    // The outbox in which the reviews written on this device are queued for submission to the API.
+    private final ReviewOutbox reviewOutbox;
+
+    // The store of the snapshots of the reviews fetched from the API, reopened on the next startup.
+    private final ReviewSnapshotStore snapshotStore;
+
+    // The executor running the network and database calls, off the main thread.
+    private final Executor executor;
+
+    // The serial executor writing the reviews to the local database and to the outbox, in the order of the changes.
+    private final Executor writeExecutor;
+
+    // The counter of the versions of the repository, shared by its partitions.
+    private final AtomicLong versionCounter;
+
+    // The version of the reviews and of the statistics published last, read without the lock.
+    private volatile long version;
+
+    // The latest changes of the reviews, replayed to the consumers that missed them.
+    private final ReviewChangeLog changeLog;
+
+    // The LiveData object that will be used to emit the version of the last change of the reviews to the observers.
+    private final LatestValueLiveData<Long> liveDataVersion;
+
+    // The reviews written on this device by key, from the oldest to the newest, kept on top of the reviews of the API.
+    // Keyed like in the hash index, so that a review is replaced or removed in constant time, keeping its order.
+    private final Map<Long, Review> reviewsWrittenLocally;
+
+    // The local store of reviews, newest first, that will be used to store and manipulate review data.
+    private final ReviewStore localReviews;
+
+    // The hash index of the local reviews, used to detect duplicates in constant time and to find the reviews to update or delete.
+    private final Map<Review, IndexedReview> reviewIndex;
+
+    // The key of each indexed review, or Long.MIN_VALUE for the reviews of the previous session, which are not indexed.
+    private final ToLongFunction<Review> keyOf;
+
+    // The keys of the newest and of the oldest indexed reviews.
+    private long newestKey;
+    private long oldestKey;
+
+    // The reviews of the API deleted on this device during the session, skipped when fetched again.
+    private final Set<Review> deletedReviews;
+
+    // The reviews of the API updated on this device during the session, by the review as fetched, replaced when fetched again.
+    private final Map<Review, Review> updatedReviews;
+
+    // Whether the compaction of the store and of the buckets has been handed over to the executor.
+    private boolean compactionScheduled;
+
+    // The inverted index of the local reviews, used to search them by content and author.
+    private final ReviewSearchIndex searchIndex;
+
+    // The local reviews split by rating, used to filter and sort them without scanning them.
+    private final RatingBuckets ratingBuckets;
+
+    // The LiveData object that will be used to emit immutable snapshots of the list of reviews to the observers.
+    private final LatestValueLiveData<List<Review>> liveDataReviews;
+
+    // The running statistics of the ratings, updated each time a review is accepted, updated or deleted.
+    private final RatingStatistics ratingStatistics;
+
+    // Whether the statistics hold the statistics of the API, which count the reviews fetched from it.
+    private boolean statisticsFromApiCounted;
+
+    // The LiveData object that will be used to emit immutable snapshots of the rating statistics to the observers.
+    private final LatestValueLiveData<RatingHistogram> liveDataRatingStatistics;
+
+    // The cursor of the next page of reviews to fetch, or null once every page has been loaded.
+    private String nextCursor;
+
+    // The MutableLiveData object that will be used to emit the state of the loading of the reviews to the observers.
+    private final MutableLiveData<LoadState> liveDataLoadState;
+
+    // Whether there are more pages of reviews to fetch from the API, read without the lock.
+    private volatile boolean hasMoreReviews;
+
+    // Whether a page of reviews is being fetched in the background.
+    private boolean loading;
+
+    // Whether the reviews loaded since the snapshot of the restaurant was last written changed it, rather than only being
+    // fetched in place of its rows.
+    private boolean snapshotStale;
+
+    // Whether the first page of reviews has been fetched from the API, replacing the cached reviews.
+    private boolean firstPageLoaded;
+
+    // Whether the reviews cached in the local database have been published.
+    private boolean cacheLoaded;
+
+    /**
+     * Constructs the empty partition of the given restaurant. Nothing is loaded until {@link #loadNextPage()} is called.
+     *
+     * @param restaurantId   The identifier of the restaurant.
+     * @param restaurantApi  The network API interface for fetching restaurant data.
+     * @param reviewDao      The data access object of the local database caching the reviews.
+     * @param reviewOutbox   The outbox in which the reviews written on this device are queued for submission.
+     * @param snapshotStore  The store of the snapshots of the reviews fetched from the API.
+     * @param executor       The executor running the network and database calls, off the main thread.
+     * @param versionCounter The counter of the versions of the repository, shared by its partitions.
+     */
+    ReviewPartition(long restaurantId, RestaurantApi restaurantApi, ReviewDao reviewDao, ReviewOutbox reviewOutbox,
+                    ReviewSnapshotStore snapshotStore, Executor executor, AtomicLong versionCounter) {
+        this.restaurantId = restaurantId;
+        this.restaurantApi = restaurantApi;
+        this.reviewDao = reviewDao;
+        this.reviewOutbox = reviewOutbox;
+        this.snapshotStore = snapshotStore;
+        this.executor = executor;
+        this.writeExecutor = new SerialExecutor(executor);
+        this.versionCounter = versionCounter;
+        this.version = versionCounter.incrementAndGet();
+        this.changeLog = new ReviewChangeLog(this.version);
+        this.liveDataVersion = new LatestValueLiveData<>(this.version);
+        this.reviewsWrittenLocally = new LinkedHashMap<>();
+        this.localReviews = new ReviewStore();
+        this.reviewIndex = new HashMap<>();
+        this.keyOf = review -> {
+            IndexedReview indexed = reviewIndex.get(review);
+            return indexed == null ? Long.MIN_VALUE : indexed.key;
+        };
+        this.deletedReviews = new HashSet<>();
+        this.updatedReviews = new HashMap<>();
+        this.searchIndex = new ReviewSearchIndex();
+        this.ratingBuckets = new RatingBuckets();
+        this.liveDataReviews = new LatestValueLiveData<>(this.localReviews.snapshot());
+        this.ratingStatistics = new RatingStatistics();
+        this.liveDataRatingStatistics = new LatestValueLiveData<>(RatingHistogram.EMPTY);
+        this.liveDataLoadState = new MutableLiveData<>();
+        this.hasMoreReviews = true;
+    }
+
+    /**
+     * Returns the list of reviews of the restaurant. Reading it has no side effect: the list is only delivered
+     * to the observers when it changes.
+     *
+     * @return LiveData holding the list of reviews.
+     */
+    LiveData<List<Review>> getReviews() {
+        return liveDataReviews;
+    }
+
+    /**
+     * Returns the version of the reviews and of the statistics published last, which changes each time they change.
+     *
+     * @return The version, from the counter of the repository.
+     * @see ReviewRepository#getVersion(long)
+     */
+    long getVersion() {
+        return version;
+    }
+
+    /**
+     * Fetches the next page of reviews from the API in the background. Nothing is fetched while a page is already
+     * being fetched, nor once the last page has been loaded.
+     *
+     * @see ReviewRepository#loadNextPage(long)
+     */
+    void loadNextPage() {
+        synchronized (this) {
+            if (loading || !hasMoreReviews) {
+                return;
+            }
+            loading = true;
+        }
+        liveDataLoadState.postValue(LoadState.loading());
+        executor.execute(this::fetchNextPage);
+    }
+
+    /**
+     * Fetches the next page of reviews from the API. This method runs on the executor of the repository.
+     * <p>
+     * Before the first page, the reviews cached in the local database are published, so that they are displayed without
+     * waiting for the API. The first page then replaces the cached reviews, below the reviews written on this device,
+     * and is cached in turn along with the rating statistics. The reviews of the snapshot of the previous session are
+     * kept below the pages fetched so far rather than replaced by the first page, and their rows are dropped as the same
+     * reviews are fetched again, so that the list keeps its length and its rows while the pages are loaded again. The
+     * rows left once the last page is loaded are the reviews no longer on the API, and are dropped then. The reviews fetched from the API are written to the snapshot
+     * of the restaurant, reopened on the next startup, once the last page is loaded, rather than after each page:
+     * otherwise, see {@link #writeSnapshot()}.
+     */
+    private void fetchNextPage() {
+        try {
+            if (!cacheLoaded) {
+                try {
+                    publishCachedReviews();
+                } catch (RuntimeException e) {
+                    // The cache only shortens the wait for the first page: the reviews are fetched from the API anyway
+                }
+                cacheLoaded = true;
+            }
+            boolean firstPage;
+            String cursor;
+            synchronized (this) {
+                firstPage = !firstPageLoaded;
+                cursor = nextCursor;
+            }
+            RatingStatistics statisticsFromApi = firstPage ? restaurantApi.getRatingStatistics(restaurantId) : null;
+            ReviewPage page = restaurantApi.getReviewsPage(restaurantId, ReviewRepository.PAGE_SIZE, cursor);
+            List<Review> newReviews = null;
+            synchronized (this) {
+                if (firstPage) {
+                    resetToLocalReviews(statisticsFromApi);
+                    this.firstPageLoaded = true;
+                }
+                if (page == null) {
+                    this.hasMoreReviews = false;
+                } else {
+                    // The reviews of the page are the oldest ones, below the reviews loaded so far
+                    // and above the reviews of the previous session
+                    int position = this.localReviews.size() - this.localReviews.previousSize();
+                    newReviews = new ArrayList<>(page.getReviews().size());
+                    for (Review review : page.getReviews()) {
+                        int top = position + newReviews.size();
+                        int dropped = dropPrevious(review, newReviews.size());
+                        Review newReview = indexFetchedReview(review);
+                        if (newReview != null) {
+                            if (newReview != review) {
+                                dropped = Math.max(dropped, dropPrevious(newReview, newReviews.size()));
+                            }
+                            // The snapshot only needs to be written if a review is not fetched in place of its row
+                            if (dropped != top || newReview != review) {
+                                this.snapshotStale = true;
+                            }
+                            this.changeLog.added(top, newReview);
+                            newReviews.add(newReview);
+                        } else if (dropped >= 0) {
+                            this.snapshotStale = true;
+                        }
+                    }
+                    this.localReviews.addAllNewestFirst(newReviews);
+                    this.ratingBuckets.addAllNewestFirst(newReviews);
+                    this.nextCursor = page.getNextCursor();
+                    this.hasMoreReviews = page.hasMore();
+                }
+                if (!this.hasMoreReviews) {
+                    dropAllPrevious();
+                    scheduleSnapshotWrite();
+                }
+                this.liveDataRatingStatistics.update(this.ratingStatistics.snapshot());
+                publishUnderLock();
+                if (firstPage && page != null) {
+                    // Cache the first page after the writes of the changes made so far, and before the next ones
+                    List<Review> firstPageReviews = newReviews;
+                    writeExecutor.execute(() -> {
+                        try {
+                            cacheFirstPage(firstPageReviews);
+                        } catch (RuntimeException e) {
+                            // The reviews are displayed already, they will be fetched again on the next startup
+                        }
+                    });
+                }
+            }
+            dispatchReviews();
+            liveDataRatingStatistics.dispatch();
+            liveDataLoadState.postValue(LoadState.loaded());
+        } catch (RuntimeException e) {
+            liveDataLoadState.postValue(LoadState.error(e));
+        } finally {
+            synchronized (this) {
+                loading = false;
+            }
+        }
+    }
+
+    /**
+     * Writes the reviews fetched from the API so far, followed by the rows of the previous snapshot not fetched again,
+     * to the snapshot of the restaurant, in the background, if the pages loaded since it was last written changed it:
+     * a session loading only the first pages of a large snapshot keeps it whole, and does not write it at all if the
+     * pages hold the same reviews as its first rows. The snapshot is rewritten as a whole, so it is written once the
+     * paging settles rather than after each page: when the last page is loaded, when the partition is evicted and when
+     * the application goes to the background.
+     *
+     * @see ReviewRepository#writeSnapshots()
+     */
+    synchronized void writeSnapshot() {
+        scheduleSnapshotWrite();
+    }
+
+    /**
+     * Hands the writing of the snapshot over to the serial executor, after the writes of the changes made so far,
+     * if the pages loaded since it was last written changed it. Must be called while holding the lock of the partition.
+     */
+    private void scheduleSnapshotWrite() {
+        if (!snapshotStale) {
+            return;
+        }
+        snapshotStale = false;
+        List<Review> loadedReviews = localReviews.loadedReviews();
+        writeExecutor.execute(() -> {
+            try {
+                snapshotStore.write(restaurantId, loadedReviews);
+            } catch (RuntimeException e) {
+                // The previous snapshot, if any, is kept: the reviews are fetched again on the next startup
+            }
+        });
+    }
+
+    /**
+     * Publishes the reviews of the restaurant cached on the device: the reviews written on this device, followed by
+     * the reviews fetched from the API during a previous session. These are read from the snapshot of the restaurant,
+     * which is mapped in memory and decoded lazily, or from the first page cached in the local database if there is
+     * no snapshot. This method runs on the executor of the repository.
+     */
+    private void publishCachedReviews() {
+        List<ReviewEntity> localEntities = reviewDao.getLocalReviews(restaurantId);
+        List<Review> snapshot = snapshotStore.open(restaurantId);
+        List<ReviewEntity> cachedEntities = snapshot == null
+                ? reviewDao.getCachedReviews(restaurantId, ReviewRepository.PAGE_SIZE)
+                : Collections.<ReviewEntity>emptyList();
+        synchronized (this) {
+            if (firstPageLoaded) {
+                return;
+            }
+            // The local reviews are read newest first, and kept from the oldest to the newest,
+            // below the reviews that may have been written since the partition was created.
+            Set<Review> writtenReviews = new HashSet<>();
+            List<Review> written = new ArrayList<>(localEntities.size() + reviewsWrittenLocally.size());
+            for (int i = localEntities.size() - 1; i >= 0; i--) {
+                Review review = localEntities.get(i).toReview();
+                if (writtenReviews.add(review)) {
+                    written.add(review);
+                }
+            }
+            for (Review review : reviewsWrittenLocally.values()) {
+                if (writtenReviews.add(review)) {
+                    written.add(review);
+                }
+            }
+            // The reviews are keyed in order here, then keyed like in the hash index by the reset
+            reviewsWrittenLocally.clear();
+            for (int i = 0; i < written.size(); i++) {
+                reviewsWrittenLocally.put((long) i, written.get(i));
+            }
+            resetToLocalReviews(null);
+            List<Review> cachedReviews = new ArrayList<>(cachedEntities.size());
+            for (ReviewEntity entity : cachedEntities) {
+                Review review = indexFetchedReview(entity.toReview());
+                if (review != null) {
+                    cachedReviews.add(review);
+                }
+            }
+            this.localReviews.addAllNewestFirst(cachedReviews);
+            this.ratingBuckets.addAllNewestFirst(cachedReviews);
+            if (snapshot != null) {
+                this.localReviews.setPrevious(snapshot);
+                this.ratingBuckets.setPrevious(snapshot);
+            }
+            publishUnderLock();
+        }
+        dispatchReviews();
+    }
+
+    /**
+     * Publishes the snapshots of the reviews, of their buckets and of their search index to the readers under a new
+     * version, and commits the changes recorded since the last version along with the reviews, the reviews and their version being delivered to the observers
+     * by {@link #dispatchReviews()}. Must be called while holding the lock of the partition, once the reviews changed.
+     */
+    private void publishUnderLock() {
+        List<Review> reviews = this.localReviews.snapshot();
+        long newVersion = versionCounter.incrementAndGet();
+        this.changeLog.commit(newVersion, reviews);
+        this.ratingBuckets.publish();
+        this.searchIndex.publish();
+        this.liveDataReviews.update(reviews);
+        this.liveDataVersion.update(newVersion);
+        this.version = newVersion;
+    }
+
+    /**
+     * Delivers the reviews and their version published last to the observers. Must be called once the lock is released.
+     */
+    private void dispatchReviews() {
+        liveDataReviews.dispatch();
+        liveDataVersion.dispatch();
+    }
+
+    /**
+     * Resets the local list of reviews and the statistics to the reviews written on this device,
+     * on top of the given statistics of the API. The reviews of the previous session are kept below them.
+     * Must be called while holding the lock of the partition.
+     *
+     * @param statisticsFromApi The rating statistics of the API, or null if not known yet.
+     */
+    private void resetToLocalReviews(RatingStatistics statisticsFromApi) {
+        this.changeLog.reset();
+        this.localReviews.clearAbovePrevious();
+        this.reviewIndex.clear();
+        this.searchIndex.clear();
+        this.ratingBuckets.clearAbovePrevious();
+        this.newestKey = 0;
+        this.oldestKey = 0;
+        this.ratingStatistics.clear();
+        this.statisticsFromApiCounted = statisticsFromApi != null;
+        if (statisticsFromApi != null) {
+            this.ratingStatistics.addAll(statisticsFromApi);
+            // The API still counts the reviews deleted or updated on this device
+            for (Review review : deletedReviews) {
+                this.ratingStatistics.remove(review.getRatingValue());
+            }
+            for (Map.Entry<Review, Review> update : updatedReviews.entrySet()) {
+                this.ratingStatistics.remove(update.getKey().getRatingValue());
+                this.ratingStatistics.record(update.getValue().getRatingValue());
+            }
+        }
+        // The reviews written on this device are keyed again from the first key, in the same order
+        List<Review> written = new ArrayList<>(reviewsWrittenLocally.values());
+        this.reviewsWrittenLocally.clear();
+        for (Review review : written) {
+            this.reviewIndex.put(review, new IndexedReview(++newestKey, true, true, searchIndex.addNewest(review)));
+            this.reviewsWrittenLocally.put(newestKey, review);
+            this.localReviews.addNewest(review);
+            this.ratingBuckets.addNewest(review);
+            this.ratingStatistics.record(review.getRatingValue());
+        }
+    }
+
+    /**
+     * Drops the given review from the reviews of the previous session, if they still hold it, as it is loaded again.
+     * Must be called while holding the lock of the partition, before the reviews of the page are added to the store.
+     *
+     * @param review       The review loaded again.
+     * @param pendingCount The number of reviews of the page recorded as added above the reviews of the previous session,
+     *                     and not added to the store yet.
+     * @return The position of the dropped review in the list, the pending reviews included, or -1 if it was not there.
+     */
+    private int dropPrevious(Review review, int pendingCount) {
+        int row = this.localReviews.previousRowOf(review);
+        if (row < 0) {
+            return -1;
+        }
+        int position = this.localReviews.dropPrevious(row) + pendingCount;
+        this.ratingBuckets.dropPrevious(row, review.getRatingValue());
+        this.changeLog.removed(position, review);
+        return position;
+    }
+
+    /**
+     * Drops the reviews of the previous session left once every page has been loaded, which are no longer on the API.
+     * Must be called while holding the lock of the partition.
+     */
+    private void dropAllPrevious() {
+        if (this.localReviews.previousSize() == 0) {
+            return;
+        }
+        this.localReviews.setPrevious(Collections.emptyList());
+        this.ratingBuckets.setPrevious(Collections.emptyList());
+        this.changeLog.reset();
+        this.snapshotStale = true;
+    }
+
+    /**
+     * Indexes a review fetched from the API, or cached from it, as older than the reviews indexed so far.
+     * The review is skipped if it has been deleted on this device, and replaced if it has been updated.
+     * Must be called while holding the lock of the partition.
+     *
+     * @param review The review, as fetched from the API.
+     * @return The review to add below the reviews, or null if it is a duplicate or has been deleted.
+     */
+    private Review indexFetchedReview(Review review) {
+        if (deletedReviews.contains(review)) {
+            return null;
+        }
+        Review updatedReview = updatedReviews.get(review);
+        Review newReview = updatedReview != null ? updatedReview : review;
+        if (reviewIndex.containsKey(newReview)) {
+            return null;
+        }
+        IndexedReview indexed = new IndexedReview(--oldestKey, false, statisticsFromApiCounted, searchIndex.addOldest(newReview));
+        indexed.original = updatedReview != null ? review : null;
+        reviewIndex.put(newReview, indexed);
+        return newReview;
+    }
+
+    /**
+     * Replaces the reviews of the restaurant cached in the local database by the given first page of reviews of the API.
+     * The insertion times decrease along the page, so that the cached reviews are read back in the same order.
+     *
+     * @param reviews The first page of reviews of the API, newest first.
+     */
+    private void cacheFirstPage(List<Review> reviews) {
+        long now = System.currentTimeMillis();
+        List<ReviewEntity> entities = new ArrayList<>(reviews.size());
+        for (int i = 0; i < reviews.size(); i++) {
+            entities.add(ReviewEntity.fromReview(restaurantId, reviews.get(i), false, now - i));
+        }
+        reviewDao.replaceCachedReviews(restaurantId, entities);
+    }
+
+    /**
+     * Returns the version of the last change of the reviews, delivered each time the reviews change.
+     *
+     * @return LiveData holding the version of the reviews.
+     * @see ReviewRepository#getChangeFeed(long)
+     */
+    LiveData<Long> getChangeFeed() {
+        return liveDataVersion;
+    }
+
+    /**
+     * Returns the changes of the reviews after the given version. The changes published last are read without the lock,
+     * along with the reviews they lead to in case a reset is needed.
+     *
+     * @param sequence The version of the reviews known by the consumer.
+     * @return The changes after this version, oldest first.
+     * @see ReviewRepository#getChangesSince(long, long)
+     */
+    List<ReviewChange> getChangesSince(long sequence) {
+        return changeLog.since(sequence);
+    }
+
+    /**
+     * Indicates whether there are more pages of reviews to fetch from the API.
+     *
+     * @return true if {@link #loadNextPage()} can load more reviews; false otherwise
+     */
+    boolean hasMoreReviews() {
+        return hasMoreReviews;
+    }
+
+    /**
+     * Searches the reviews loaded so far by content and author. The reviews of the snapshot of the previous session,
+     * which are not decoded, are only searchable once replaced by the reviews fetched from the API.
+     * Like the other reads, the search reads the state of the index published last, without the lock.
+     *
+     * @param query The words to search.
+     * @param limit The largest number of reviews to return.
+     * @return The best ranked matching reviews, best first.
+     * @see ReviewSearchIndex#search(String, int)
+     */
+    List<Review> search(String query, int limit) {
+        return searchIndex.search(query, limit);
+    }
+
+    /**
+     * Returns the reviews loaded so far with the given rating, in the given order. The reviews are read from the buckets
+     * by rating, which are maintained as the reviews are added: nothing is filtered nor sorted here. The snapshots
+     * published last are read without the lock, so that reading never waits for a writer.
+     *
+     * @param rating The rating of the reviews, or {@link ReviewRepository#ALL_RATINGS} for every review.
+     * @param sort   The order of the reviews.
+     * @return An immutable list of the reviews.
+     * @see ReviewRepository#getSortedReviews(long, int, ReviewSort)
+     */
+    List<Review> getSortedReviews(int rating, ReviewSort sort) {
+        if (rating != ReviewRepository.ALL_RATINGS) {
+            // The reviews with the same rating are sorted newest first whatever the order
+            return ratingBuckets.withRating(rating);
+        }
+        switch (sort) {
+            case HIGHEST_RATING_FIRST:
+                return ratingBuckets.sortedByRating(true);
+            case LOWEST_RATING_FIRST:
+                return ratingBuckets.sortedByRating(false);
+            default:
+                return liveDataReviews.getLatestValue();
+        }
+    }
+
+    /**
+     * Returns the state of the loading of the reviews.
+     *
+     * @return LiveData holding the state of the last page load.
+     */
+    LiveData<LoadState> getLoadState() {
+        return liveDataLoadState;
+    }
+
+    /**
+     * Returns the running statistics of the ratings, published as immutable snapshots.
+     *
+     * @return LiveData holding the rating statistics.
+     */
+    LiveData<RatingHistogram> getRatingStatistics() {
+        return liveDataRatingStatistics;
+    }
+
+    /**
+     * Adds a batch of new reviews on top of the reviews of the restaurant, each one becoming the newest review,
+     * writes them through to the local database and queues them for submission to the API.
+     * The reviews already there are marked as duplicates.
+     * The list of reviews and the statistics are published once for the whole batch, from any thread.
+     *
+     * @param reviewsToAdd The new reviews to be added to the list.
+     * @param statuses     The status of each review, as validated by the repository; updated for the duplicates.
+     */
+    void addReviews(List<Review> reviewsToAdd, ReviewBatchResult.Status[] statuses) {
+        List<Review> accepted = new ArrayList<>(reviewsToAdd.size());
+        synchronized (this) {
+            for (int i = 0; i < statuses.length; i++) {
+                if (statuses[i] != ReviewBatchResult.Status.ACCEPTED) {
+                    continue;
+                }
+                Review reviewToAdd = reviewsToAdd.get(i);
+
+                // Check if the reviews do not contain the new review, and index it
+                if (localReviews.previousRowOf(reviewToAdd) >= 0 || reviewIndex.containsKey(reviewToAdd)) {
+                    statuses[i] = ReviewBatchResult.Status.DUPLICATE;
+                    continue;
+                }
+                this.reviewIndex.put(reviewToAdd, new IndexedReview(++newestKey, true, true, searchIndex.addNewest(reviewToAdd)));
+
+                // Add the new review to the top of the local list of reviews and record its rating.
+                this.reviewsWrittenLocally.put(newestKey, reviewToAdd);
+                this.changeLog.added(0, reviewToAdd);
+                this.localReviews.addNewest(reviewToAdd);
+                this.ratingBuckets.addNewest(reviewToAdd);
+                this.ratingStatistics.record(reviewToAdd.getRatingValue());
+                accepted.add(reviewToAdd);
+            }
+            if (accepted.isEmpty()) {
+                return;
+            }
+            this.liveDataRatingStatistics.update(this.ratingStatistics.snapshot());
+            publishUnderLock();
+
+            // Write the new reviews through to the local database and queue them for submission to the API, in the
+            // background, before any later update or deletion of these reviews. The insertion times increase along
+            // the batch, so that the reviews are read back newest first.
+            long now = System.currentTimeMillis();
+            List<ReviewEntity> entities = new ArrayList<>(accepted.size());
+            for (int i = 0; i < accepted.size(); i++) {
+                entities.add(ReviewEntity.fromReview(restaurantId, accepted.get(i), true, now + i));
+            }
+            writeExecutor.execute(() -> {
+                reviewDao.insertAll(entities);
+                reviewOutbox.enqueue(restaurantId, accepted);
+            });
+        }
+
+        // Update the LiveData objects with the list of reviews and the statistics, once for the whole batch.
+        dispatchReviews();
+        liveDataRatingStatistics.dispatch();
+    }
+
+    /**
+     * Replaces a review of the restaurant by an updated version, in place: the review keeps its position in the list
+     * and in its bucket, unless its rating changes, and its previous rating is replaced by the new one in the statistics.
+     * The update is written through to the local database and to the outbox. The reviews of the previous session, which are not indexed,
+     * can only be updated once replaced by the reviews fetched from the API.
+     *
+     * @param review        The review to update.
+     * @param updatedReview The updated review, as validated by the repository.
+     * @return {@link ReviewBatchResult.Status#ACCEPTED} if the review was updated, {@link ReviewBatchResult.Status#NOT_FOUND}
+     * if it is not among the reviews loaded so far, or {@link ReviewBatchResult.Status#DUPLICATE} if the updated review
+     * is already there.
+     */
+    ReviewBatchResult.Status updateReview(Review review, Review updatedReview) {
+        synchronized (this) {
+            IndexedReview indexed = reviewIndex.get(review);
+            if (indexed == null) {
+                return ReviewBatchResult.Status.NOT_FOUND;
+            }
+            if (updatedReview.equals(review)) {
+                return ReviewBatchResult.Status.ACCEPTED;
+            }
+            if (localReviews.previousRowOf(updatedReview) >= 0 || reviewIndex.containsKey(updatedReview)) {
+                return ReviewBatchResult.Status.DUPLICATE;
+            }
+
+            // Replace the review where it is, the buckets being searched while the review is still indexed
+            int position = this.localReviews.positionOf(indexed.key, keyOf);
+            this.changeLog.replaced(position, review, updatedReview);
+            this.localReviews.set(position, updatedReview);
+            this.ratingBuckets.replace(review, updatedReview, indexed.key, keyOf);
+            indexed.searchId = this.searchIndex.replace(indexed.searchId, updatedReview);
+            this.reviewIndex.remove(review);
+            this.reviewIndex.put(updatedReview, indexed);
+            if (indexed.counted) {
+                this.ratingStatistics.remove(review.getRatingValue());
+                this.ratingStatistics.record(updatedReview.getRatingValue());
+            }
+            boolean local = indexed.local;
+            if (local) {
+                this.reviewsWrittenLocally.put(indexed.key, updatedReview);
+            } else {
+                // Remember the update of the review of the API, which keeps sending the review as it was
+                Review original = indexed.original != null ? indexed.original : review;
+                if (updatedReview.equals(original)) {
+                    this.updatedReviews.remove(original);
+                    indexed.original = null;
+                } else {
+                    this.updatedReviews.put(original, updatedReview);
+                    indexed.original = original;
+                }
+            }
+            this.liveDataRatingStatistics.update(this.ratingStatistics.snapshot());
+            publishUnderLock();
+            scheduleCompaction();
+
+            // Write the update through to the local database, in the background, and rewrite the review written on
+            // this device in the outbox, so that it is submitted as updated if it has not been submitted yet.
+            ReviewEntity entity = ReviewEntity.fromReview(restaurantId, updatedReview, local, 0);
+            writeExecutor.execute(() -> {
+                reviewDao.replaceReview(restaurantId, review.getFingerprint(), entity);
+                if (local) {
+                    reviewOutbox.replace(restaurantId, review, updatedReview);
+                }
+            });
+        }
+        dispatchReviews();
+        liveDataRatingStatistics.dispatch();
+        return ReviewBatchResult.Status.ACCEPTED;
+    }
+
+    /**
+     * Deletes a review of the restaurant by leaving a tombstone in the list and in its bucket, the following reviews
+     * moving up without being shifted, and removes its rating from the statistics. The deletion is written through
+     * to the local database and to the outbox. The reviews of the previous session, which are not indexed, can only be deleted once
+     * replaced by the reviews fetched from the API.
+     *
+     * @param review The review to delete.
+     * @return true if the review was deleted; false if it is not among the reviews loaded so far.
+     */
+    boolean deleteReview(Review review) {
+        synchronized (this) {
+            IndexedReview indexed = reviewIndex.get(review);
+            if (indexed == null) {
+                return false;
+            }
+            int position = this.localReviews.positionOf(indexed.key, keyOf);
+            this.changeLog.removed(position, review);
+            this.localReviews.remove(position);
+            this.ratingBuckets.remove(review, indexed.key, keyOf);
+            this.searchIndex.remove(indexed.searchId);
+            this.reviewIndex.remove(review);
+            if (indexed.counted) {
+                this.ratingStatistics.remove(review.getRatingValue());
+            }
+            boolean local = indexed.local;
+            if (local) {
+                this.reviewsWrittenLocally.remove(indexed.key);
+            } else {
+                // Remember the deletion of the review of the API, which keeps sending the review as it was
+                Review original = indexed.original != null ? indexed.original : review;
+                this.updatedReviews.remove(original);
+                this.deletedReviews.add(original);
+            }
+            this.liveDataRatingStatistics.update(this.ratingStatistics.snapshot());
+            publishUnderLock();
+            scheduleCompaction();
+
+            // Delete the review from the local database, in the background, and remove the review written on this
+            // device from the outbox, so that it is not submitted if it has not been submitted yet.
+            writeExecutor.execute(() -> {
+                reviewDao.deleteReview(restaurantId, review.getFingerprint());
+                if (local) {
+                    reviewOutbox.remove(restaurantId, review);
+                }
+            });
+        }
+        dispatchReviews();
+        liveDataRatingStatistics.dispatch();
+        return true;
+    }
+
+    /**
+     * Hands the compaction of the store, of the buckets and of the search index over to the executor once their
+     * tombstones, or the reviews removed from the search index, reach {@link ReviewRepository#COMPACTION_THRESHOLD}.
+     * Must be called while holding the lock of the partition.
+     */
+    private void scheduleCompaction() {
+        if (compactionScheduled
+                || (localReviews.getTombstoneCount() + ratingBuckets.getTombstoneCount() < ReviewRepository.COMPACTION_THRESHOLD
+                && searchIndex.getRemovedCount() < ReviewRepository.COMPACTION_THRESHOLD)) {
+            return;
+        }
+        compactionScheduled = true;
+        executor.execute(this::compact);
+    }
+
+    /**
+     * Rebuilds the store and the buckets without their tombstones, and the search index without the postings of the
+     * removed reviews. This method runs on the executor of the repository.
+     * <p>
+     * The compaction only holds the lock to capture the current versions of the store, of the buckets and of the search
+     * index, in constant time, along with the version of the reviews. It then rebuilds them without the lock, in O(n),
+     * the versions captured being immutable, and takes the lock again to swap the rebuilt versions in, in constant time,
+     * if the reviews have not changed meanwhile: otherwise the rebuilt versions are dropped, and the compaction is
+     * started again from the current reviews. The reviews, their positions, their keys and their identifiers in the
+     * search index are left unchanged: the writers never wait for the rebuild, and the readers keep reading
+     * the snapshots published last.
+     */
+    private void compact() {
+        long startVersion;
+        ReviewStore.Compaction storeCompaction;
+        ReviewStore.Compaction[] bucketCompactions;
+        ReviewSearchIndex.Compaction searchCompaction;
+        synchronized (this) {
+            startVersion = version;
+            storeCompaction = localReviews.startCompaction();
+            bucketCompactions = ratingBuckets.startCompaction();
+            searchCompaction = searchIndex.startCompaction();
+        }
+        storeCompaction.run();
+        for (ReviewStore.Compaction bucketCompaction : bucketCompactions) {
+            bucketCompaction.run();
+        }
+        searchCompaction.run();
+        synchronized (this) {
+            compactionScheduled = false;
+            if (version == startVersion) {
+                localReviews.finishCompaction(storeCompaction);
+                ratingBuckets.finishCompaction(bucketCompactions);
+                searchIndex.finishCompaction(searchCompaction);
+            } else {
+                scheduleCompaction();
+            }
+        }
+    }
+
+    /**
+     * What the partition knows about a review of its hash index.
+     */
+    private static final class IndexedReview {
+        // The key of the review, under which it is found in the store and in its bucket.
+        final long key;
+        // Whether the review was written on this device, rather than fetched from the API.
+        final boolean local;
+        // Whether the rating of the review is counted in the statistics.
+        final boolean counted;
+        // The identifier of the review in the search index, kept by its compactions.
+        int searchId;
+        // The review as fetched from the API if it has been updated on this device; null otherwise.
+        Review original;
+
+        IndexedReview(long key, boolean local, boolean counted, int searchId) {
+            this.key = key;
+            this.local = local;
+            this.counted = counted;
+            this.searchId = searchId;
+        }
+    }
+}
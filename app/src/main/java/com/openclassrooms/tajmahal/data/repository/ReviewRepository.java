@@ -2,14 +2,22 @@ package com.openclassrooms.tajmahal.data.repository;
 
 
 import androidx.lifecycle.LiveData;
-import androidx.lifecycle.MutableLiveData;
 
+import com.openclassrooms.tajmahal.data.local.ReviewDao;
+import com.openclassrooms.tajmahal.data.local.ReviewSnapshotStore;
 import com.openclassrooms.tajmahal.data.service.RestaurantApi;
+import com.openclassrooms.tajmahal.domain.model.RatingHistogram;
+import com.openclassrooms.tajmahal.domain.model.RatingStatistics;
 import com.openclassrooms.tajmahal.domain.model.Review;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -20,129 +28,448 @@ import javax.inject.Singleton;
  * for coordinating data operations from data sources such as network APIs, databases, etc.
  * <p>
  * In an Android app built with architecture components, the repository handles the logic for fetching, caching, and updating data.
- * This repository class manages the list of reviews for a restaurant, fetches the initial list of reviews from the provided {@link RestaurantApi},
- * and provides methods for adding new reviews to the list.
+ * This repository class manages the lists of reviews of the restaurants, fetches the reviews page by page from the provided {@link RestaurantApi},
+ * and provides methods for loading the next page, adding new reviews to the list, and updating or deleting them.
+ * <p>
+ * The reviews of each restaurant are held by their own {@link ReviewPartition}, created the first time the restaurant is requested.
+ * Only the partitions of the {@link #MAX_LOADED_RESTAURANTS} most recently requested restaurants are kept in memory, so browsing
+ * through the restaurants of the chain never accumulates their reviews.
+ * <p>
+ * The reviews are persisted in a local database through the provided {@link ReviewDao}: reviews added on this device are written through
+ * to it, and the first page of the API is cached in it. When a restaurant is requested, its cached reviews are published first, then refreshed
+ * from the API in the background. The reviews added on this device are also queued in the {@link ReviewOutbox}, from which they are submitted
+ * to the API in the background, so adding a review returns at once, even offline.
+ * <p>
+ * The reviews fetched from the API are also written to a snapshot file per restaurant through the provided {@link ReviewSnapshotStore},
+ * once the paging settles: when the last page is loaded, when the restaurant is evicted and on {@link #writeSnapshots()}.
+ * On the next startup, the snapshot is mapped in memory and published instead of the first page cached in the database, its reviews being
+ * decoded as they are displayed, so that every review fetched during the previous session shows up at once, whatever their number.
+ * <p>
+ * The repository can be used from any thread. The writers of a restaurant are serialized by its partition, while the lists of reviews
+ * are read from the immutable snapshots published by the last writer, without waiting for the writers. The LiveData objects are always
+ * updated on the main thread, with the latest snapshots.
  *
  * @see Review
  * @see RestaurantApi
+ * @see ReviewDao
+ * @see ReviewOutbox
+ * @see ReviewSnapshotStore
  */
 @Singleton
 public class ReviewRepository {
 
-    // The local list of reviews that will be used to store and manipulate review data.
-    private final List<Review> localReviews;
+    // The number of reviews fetched from the API for each page.
+    public static final int PAGE_SIZE = 20;
+
+    // The number of restaurants whose reviews are kept in memory, the least recently requested one being evicted first.
+    public static final int MAX_LOADED_RESTAURANTS = 8;
+
+    // The number of changes of the reviews of a restaurant kept to be replayed, a reset being replayed instead of older ones.
+    public static final int MAX_REPLAYED_CHANGES = 256;
+
+    // The number of tombstones left by the deleted reviews of a restaurant, and by the reviews moved to another rating,
+    // from which its reviews are compacted in the background.
+    public static final int COMPACTION_THRESHOLD = 64;
+
+    // The rating filter keeping every review, whatever its rating.
+    public static final int ALL_RATINGS = 0;
+
+    // The version of the reviews of a restaurant that are not loaded, the versions of the reviews starting at 1.
+    public static final long NO_VERSION = 0;
+
+    // The API interface instance that will be used to fetch the pages of reviews.
+    private final RestaurantApi restaurantApi;
+
+    // The data access object of the local database caching the reviews.
+    private final ReviewDao reviewDao;
+
+    // The outbox in which the reviews written on this device are queued for submission to the API.
+    private final ReviewOutbox reviewOutbox;
+
+    // The store of the snapshots of the reviews fetched from the API, reopened on the next startup.
+    private final ReviewSnapshotStore snapshotStore;
+
+    // The executor running the network and database calls, off the main thread.
+    private final Executor executor;
+
+    // The counter of the versions of the reviews, shared by the partitions so that a version is never reused.
+    private final AtomicLong versionCounter = new AtomicLong();
 
-    // The MutableLiveData object that will be used to emit the updated list of reviews to the observers.
-    private final MutableLiveData<List<Review>> liveDataReviews;
+    // The partitions of the loaded restaurants by identifier, in access order. Guarded by this repository.
+    private final Map<Long, ReviewPartition> partitions =
+            new LinkedHashMap<Long, ReviewPartition>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, ReviewPartition> eldest) {
+                    if (size() <= MAX_LOADED_RESTAURANTS) {
+                        return false;
+                    }
+                    // Keep the reviews fetched for the evicted restaurant for the next startup
+                    eldest.getValue().writeSnapshot();
+                    return true;
+                }
+            };
 
     /**
-     * Constructs a new instance of {@link RestaurantRepository} with the given {@link RestaurantApi}.
+     * Constructs a new instance of {@link ReviewRepository} with the given {@link RestaurantApi}.
      * <p>
-     * This constructor initializes the local list of reviews and the LiveData object holding the list of reviews.
-     * It also fetches the initial list of reviews from the provided {@link RestaurantApi} and stores it in the local list.
+     * Nothing is loaded by this constructor, so that the injection never blocks. The reviews of a restaurant start loading,
+     * on the given executor, the first time the restaurant is requested: the reviews cached on the device are published,
+     * then the rating statistics and the first page of reviews are fetched from the provided {@link RestaurantApi}.
+     * The following pages are only fetched on demand, with {@link #loadNextPage(long)}.
      *
      * @param restaurantApi The network API interface for fetching restaurant data.
+     * @param reviewDao     The data access object of the local database caching the reviews.
+     * @param reviewOutbox  The outbox in which the reviews written on this device are queued for submission.
+     * @param snapshotStore The store of the snapshots of the reviews fetched from the API.
+     * @param executor      The executor running the network and database calls, off the main thread.
      */
     @Inject
-    public ReviewRepository(RestaurantApi restaurantApi) {
+    public ReviewRepository(RestaurantApi restaurantApi, ReviewDao reviewDao, ReviewOutbox reviewOutbox,
+                            ReviewSnapshotStore snapshotStore, Executor executor) {
         if (restaurantApi == null) {
             throw new IllegalArgumentException("restaurantApi cannot be null");
         }
-        this.localReviews = new ArrayList<>();
-        this.liveDataReviews = new MutableLiveData<>();
-        List<Review> reviewsFromApi = restaurantApi.getReviews();
-        if (reviewsFromApi != null) {
-            this.localReviews.addAll(reviewsFromApi);
-            this.liveDataReviews.setValue(this.localReviews);
+        if (reviewDao == null) {
+            throw new IllegalArgumentException("reviewDao cannot be null");
+        }
+        if (reviewOutbox == null) {
+            throw new IllegalArgumentException("reviewOutbox cannot be null");
+        }
+        if (snapshotStore == null) {
+            throw new IllegalArgumentException("snapshotStore cannot be null");
         }
+        if (executor == null) {
+            throw new IllegalArgumentException("executor cannot be null");
+        }
+        this.restaurantApi = restaurantApi;
+        this.reviewDao = reviewDao;
+        this.reviewOutbox = reviewOutbox;
+        this.snapshotStore = snapshotStore;
+        this.executor = executor;
     }
 
+    /**
+     * Returns the partition of the given restaurant, creating it and starting the loading of its first page if needed.
+     *
+     * @param restaurantId The identifier of the restaurant.
+     * @return The partition of the restaurant.
+     */
+    private ReviewPartition partition(long restaurantId) {
+        ReviewPartition partition;
+        synchronized (this) {
+            partition = partitions.get(restaurantId);
+            if (partition != null) {
+                return partition;
+            }
+            partition = new ReviewPartition(restaurantId, restaurantApi, reviewDao, reviewOutbox, snapshotStore, executor, versionCounter);
+            partitions.put(restaurantId, partition);
+        }
+        partition.loadNextPage();
+        return partition;
+    }
 
     /**
-     * Returns the list of reviews.
+     * Writes the reviews fetched from the API for the loaded restaurants to their snapshots, in the background, for the
+     * restaurants whose pages have been loaded since. This method is called when the application goes to the background,
+     * as the process may then be killed without notice.
+     */
+    public void writeSnapshots() {
+        List<ReviewPartition> loadedPartitions;
+        synchronized (this) {
+            loadedPartitions = new ArrayList<>(partitions.values());
+        }
+        for (ReviewPartition partition : loadedPartitions) {
+            partition.writeSnapshot();
+        }
+    }
+
+    /**
+     * Returns the list of reviews of the given restaurant.
      * <p>
-     * If the list of reviews has not been fetched yet, this method will make a network call
-     * using the provided {@link RestaurantApi} instance to fetch review data and store it in a local list.
-     * If the list of reviews has already been fetched, this method will return the local list.
-     * Note that error handling and any transformations on the data would need to be managed.
+     * If the reviews of the restaurant have not been requested yet, this method starts fetching them in the background
+     * using the provided {@link RestaurantApi} instance, and the LiveData is updated once they are loaded.
+     * Reading the reviews has no side effect: the observers are only notified when the reviews change.
      *
+     * @param restaurantId The identifier of the restaurant.
      * @return LiveData holding the list of reviews.
      */
-    public LiveData<List<Review>> getReviews() {
-        liveDataReviews.setValue(this.localReviews);
-
-        // Set the value of liveDataReviews to the local list of reviews
-        return liveDataReviews;
+    public LiveData<List<Review>> getReviews(long restaurantId) {
+        return partition(restaurantId).getReviews();
     }
 
     /**
-     * Adds a new review to the local list of reviews.
+     * Fetches the next page of reviews of the given restaurant from the API and appends it at the end of its list of reviews.
+     * <p>
+     * The page is fetched in the background and the updated list is published to the main thread, so this method
+     * can be called from the main thread. Reviews of the page that are already in the list (for instance reviews
+     * added since the first page was fetched) are skipped. Nothing is fetched while a page is already being fetched,
+     * nor once the last page has been loaded.
      *
-     * @param reviewToAdd The new review to be added to the list.
+     * @param restaurantId The identifier of the restaurant.
      */
-    public void addReview(Review reviewToAdd) {
-
-        // Check if the localReviews list is not null
-        if (localReviews != null) {
+    public void loadNextPage(long restaurantId) {
+        partition(restaurantId).loadNextPage();
+    }
 
-            // Check if the new review contains a rate
-            if (!Objects.isNull(reviewToAdd.getRating())) {
+    /**
+     * Returns the version of the reviews of the given restaurant and of their statistics. The version increases
+     * each time they change, and is never reused, even by another restaurant: a consumer deriving data from the
+     * reviews can skip its work as long as the version is the one it derived its data from.
+     * <p>
+     * The version is published after the reviews, so that reading the version before the reviews never
+     * associates an older version with newer reviews.
+     *
+     * @param restaurantId The identifier of the restaurant.
+     * @return The version of the reviews of the restaurant.
+     */
+    public long getVersion(long restaurantId) {
+        return partition(restaurantId).getVersion();
+    }
 
-                // Check if the localReviews list contains the review
-                boolean reviewAlreadyExist = false;
-                for (int i = 0; i < localReviews.size(); i++) {
-                    if (reviewToAdd.equals(localReviews.get(i))) {
-                        reviewAlreadyExist = true;
-                        break;
-                    }
+    /**
+     * Returns the version of the reviews of the given restaurant if they are loaded, like {@link #getVersion(long)},
+     * without any side effect: the reviews of a restaurant that is not loaded, or that has been evicted, are not loaded
+     * again, and the restaurant does not become the most recently requested one.
+     *
+     * @param restaurantId The identifier of the restaurant.
+     * @return The version of the reviews of the restaurant, or {@link #NO_VERSION} if they are not loaded.
+     */
+    public long peekVersion(long restaurantId) {
+        synchronized (this) {
+            // The partitions are walked rather than read with get, which would move the restaurant in the access order
+            for (Map.Entry<Long, ReviewPartition> entry : partitions.entrySet()) {
+                if (entry.getKey() == restaurantId) {
+                    return entry.getValue().getVersion();
                 }
+            }
+        }
+        return NO_VERSION;
+    }
 
-                // Check if the local list does not contain the new review
-                if (!reviewAlreadyExist) {
+    /**
+     * Returns the feed of the changes of the reviews of the given restaurant: the version of their last change,
+     * delivered on the main thread each time the reviews change. Since the deliveries may be merged when the reviews
+     * change quickly, a consumer reads the changes themselves with {@link #getChangesSince(long, long)}, from the
+     * last version it applied, so that no change is ever missed.
+     *
+     * @param restaurantId The identifier of the restaurant.
+     * @return LiveData holding the version of the last change of the reviews.
+     */
+    public LiveData<Long> getChangeFeed(long restaurantId) {
+        return partition(restaurantId).getChangeFeed();
+    }
 
-                    // Check if the new review contains a comment
-                    if (!reviewToAdd.getContent().isEmpty()) {
+    /**
+     * Returns the changes of the reviews of the given restaurant after the given version, to be applied in order to
+     * the list of reviews of that version. Each addition, and each review of a page, is replayed as an insertion at
+     * its position, and the additions made at once as a batch. The first reviews, and the reviews reloaded from the API,
+     * are replayed as a reset to the current reviews, as are the changes no longer kept or after an unknown version:
+     * a consumer starting from version 0 receives the current reviews.
+     * <p>
+     * Each change has a sequence number, which is the version of the reviews it leads to: the consumer only
+     * has to keep the sequence number of the last change it applied.
+     *
+     * @param restaurantId The identifier of the restaurant.
+     * @param sequence     The sequence number of the last change applied by the consumer, or 0 if none.
+     * @return The changes after the sequence number, oldest first; empty if the consumer is up to date.
+     */
+    public List<ReviewChange> getChangesSince(long restaurantId, long sequence) {
+        return partition(restaurantId).getChangesSince(sequence);
+    }
 
-                        // Check if the new reviews rate is between 1 and 5 and not empty
-                        if (reviewToAdd.getRating() >= 1 && reviewToAdd.getRating() <= 5) {
+    /**
+     * Indicates whether there are more pages of reviews of the given restaurant to fetch from the API.
+     *
+     * @param restaurantId The identifier of the restaurant.
+     * @return true if {@link #loadNextPage(long)} can load more reviews; false otherwise
+     */
+    public boolean hasMoreReviews(long restaurantId) {
+        return partition(restaurantId).hasMoreReviews();
+    }
 
-                            // Add the new review to the top of the local list of reviews and update the LiveData object with it.
-                            this.localReviews.add(0, reviewToAdd);
-                            liveDataReviews.setValue(this.localReviews);
+    /**
+     * Searches the reviews of the given restaurant loaded so far, by content and author. Each word of the query matches
+     * the words of the reviews starting with it, regardless of case and accents, and the reviews matching every word
+     * are returned best ranked first. The search runs on the in-memory index of the reviews as published last, without
+     * waiting for the writers of the reviews, so it can be called from the main thread as the user types.
+     *
+     * @param restaurantId The identifier of the restaurant.
+     * @param query        The words to search.
+     * @param limit        The largest number of reviews to return.
+     * @return The matching reviews, best first; empty if the query holds no word to search.
+     * @throws IllegalArgumentException if the query is null or the limit is not positive.
+     * @see ReviewSearchIndex
+     */
+    public List<Review> searchReviews(long restaurantId, String query, int limit) {
+        if (query == null) {
+            throw new IllegalArgumentException("query cannot be null");
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        return partition(restaurantId).search(query, limit);
+    }
 
-                            // UNIT TEST newReviewFirst : Uncomment the two following lines and comment the two previous lines to check the validity of the test.
-                            this.localReviews.add(reviewToAdd);
-                            liveDataReviews.setValue(this.localReviews);
+    /**
+     * Returns the reviews of the given restaurant loaded so far, keeping only the reviews with the given rating,
+     * in the given order. The reviews are kept split by rating as they are added, so the filtered and sorted reviews
+     * are read from these buckets rather than filtered and sorted on each call, and the same immutable list is returned
+     * until the reviews change: it can be called from the main thread each time the user switches views.
+     *
+     * @param restaurantId The identifier of the restaurant.
+     * @param rating       The rating of the reviews to keep, or {@link #ALL_RATINGS} to keep every review.
+     * @param sort         The order of the reviews.
+     * @return An immutable list of the reviews.
+     * @throws IllegalArgumentException if the rating is neither {@link #ALL_RATINGS} nor between 1 and 5, or the order is null.
+     */
+    public List<Review> getSortedReviews(long restaurantId, int rating, ReviewSort sort) {
+        if (rating != ALL_RATINGS && (rating < RatingStatistics.MIN_RATING || rating > RatingStatistics.MAX_RATING)) {
+            throw new IllegalArgumentException("rating must be between 1 and 5");
+        }
+        if (sort == null) {
+            throw new IllegalArgumentException("sort cannot be null");
+        }
+        return partition(restaurantId).getSortedReviews(rating, sort);
+    }
 
+    /**
+     * Returns the state of the loading of the reviews of the given restaurant.
+     *
+     * @param restaurantId The identifier of the restaurant.
+     * @return LiveData holding the state of the last page load.
+     */
+    public LiveData<LoadState> getLoadState(long restaurantId) {
+        return partition(restaurantId).getLoadState();
+    }
 
-                        } else {
+    /**
+     * Returns the running statistics of the ratings of the given restaurant.
+     * <p>
+     * The statistics are updated in constant time each time a review is accepted by {@link #addReview(long, Review)},
+     * so observers never have to walk through the list of reviews to compute them.
+     * Each update is published as an immutable snapshot.
+     *
+     * @param restaurantId The identifier of the restaurant.
+     * @return LiveData holding the rating statistics.
+     */
+    public LiveData<RatingHistogram> getRatingStatistics(long restaurantId) {
+        return partition(restaurantId).getRatingStatistics();
+    }
 
-                            // UNIT TESTS newReviewRate Under1 / Over5 / IsEmpty : Uncomment the two following lines to check the validity of the test.
-                            this.localReviews.add(0, reviewToAdd);
-                            liveDataReviews.setValue(this.localReviews);
-                        }
+    /**
+     * Adds a new review to the list of reviews of the given restaurant.
+     * <p>
+     * The review is rejected if it has no rating, if its rating is not between 1 and 5, if it has no comment
+     * or if it already exists in the list of this restaurant. The duplicate check relies on a hash index of the reviews,
+     * so it is performed in constant time whatever the number of reviews.
+     *
+     * @param restaurantId The identifier of the reviewed restaurant.
+     * @param reviewToAdd  The new review to be added to the list.
+     */
+    public void addReview(long restaurantId, Review reviewToAdd) {
+        addReviews(restaurantId, Collections.singletonList(reviewToAdd));
+    }
 
-                    } else {
+    /**
+     * Adds a batch of new reviews to the list of reviews of the given restaurant, for instance reviews imported
+     * from a partner feed or queued while offline.
+     * <p>
+     * Each review is validated and deduplicated as by {@link #addReview(long, Review)}, duplicates within the batch
+     * included, the reviews being added in the order of the batch so that the last one ends up on top of the list.
+     * Whatever the size of the batch, the updated list of reviews and the updated statistics are published once,
+     * and the accepted reviews are written to the local database and queued for submission in a single insertion each.
+     *
+     * @param restaurantId The identifier of the reviewed restaurant.
+     * @param reviewsToAdd The new reviews to be added to the list.
+     * @return The status of each review of the batch, accepted or rejected with the reason.
+     */
+    public ReviewBatchResult addReviews(long restaurantId, Collection<Review> reviewsToAdd) {
+        if (reviewsToAdd == null) {
+            throw new IllegalArgumentException("reviewsToAdd cannot be null");
+        }
+        List<Review> reviews = new ArrayList<>(reviewsToAdd);
+        ReviewBatchResult.Status[] statuses = new ReviewBatchResult.Status[reviews.size()];
+        boolean anyValid = false;
+        for (int i = 0; i < statuses.length; i++) {
+            statuses[i] = validate(reviews.get(i));
+            anyValid |= statuses[i] == ReviewBatchResult.Status.ACCEPTED;
+        }
+        if (anyValid) {
+            partition(restaurantId).addReviews(reviews, statuses);
+        }
+        return new ReviewBatchResult(reviews, statuses);
+    }
 
-                        // UNIT TEST newReviewCommentIsEmpty : Uncomment the two following lines to check the validity of the test.
-                        this.localReviews.add(0, reviewToAdd);
-                        liveDataReviews.setValue(this.localReviews);
-                    }
+    /**
+     * Updates a review of the given restaurant, for instance when its author edits it or a moderator amends it.
+     * <p>
+     * The updated review is validated as by {@link #addReview(long, Review)}. It replaces the review in place, without
+     * shifting the other reviews, and the rating of the review is replaced in the statistics, which are adjusted
+     * rather than recomputed. The update is published to the observers and replayed by the change feed as a
+     * {@link ReviewChange.Type#REPLACED} change.
+     *
+     * @param restaurantId  The identifier of the reviewed restaurant.
+     * @param review        The review to update, among the reviews loaded so far.
+     * @param updatedReview The updated review.
+     * @return {@link ReviewBatchResult.Status#ACCEPTED} if the review was updated, or the reason why it was not.
+     */
+    public ReviewBatchResult.Status updateReview(long restaurantId, Review review, Review updatedReview) {
+        if (review == null) {
+            throw new IllegalArgumentException("review cannot be null");
+        }
+        ReviewBatchResult.Status status = validate(updatedReview);
+        if (status != ReviewBatchResult.Status.ACCEPTED) {
+            return status;
+        }
+        return partition(restaurantId).updateReview(review, updatedReview);
+    }
 
-                } else {
+    /**
+     * Deletes a review of the given restaurant, for instance when its author retracts it or a moderator removes it.
+     * <p>
+     * The review leaves a tombstone instead of shifting the reviews after it, and its rating is removed from the
+     * statistics, which are adjusted rather than recomputed. Once the tombstones reach {@link #COMPACTION_THRESHOLD},
+     * the reviews of the restaurant are compacted in the background. The deletion is published to the observers and
+     * replayed by the change feed as a {@link ReviewChange.Type#REMOVED} change.
+     *
+     * @param restaurantId The identifier of the reviewed restaurant.
+     * @param review       The review to delete, among the reviews loaded so far.
+     * @return true if the review was deleted; false if it is not among the reviews loaded so far.
+     */
+    public boolean deleteReview(long restaurantId, Review review) {
+        if (review == null) {
+            throw new IllegalArgumentException("review cannot be null");
+        }
+        return partition(restaurantId).deleteReview(review);
+    }
 
-                    // UNIT TEST newReviewAlreadyExist : Uncomment the two following lines to check the validity of the test.
-                    this.localReviews.add(0, reviewToAdd);
-                    liveDataReviews.setValue(this.localReviews);
-                }
+    /**
+     * Checks that a new review can be added, regardless of the reviews already in the list.
+     *
+     * @param reviewToAdd The new review.
+     * @return {@link ReviewBatchResult.Status#ACCEPTED} if the review is valid, or the reason why it is rejected.
+     */
+    private static ReviewBatchResult.Status validate(Review reviewToAdd) {
+        if (reviewToAdd == null) {
+            return ReviewBatchResult.Status.MISSING_REVIEW;
+        }
 
-            } else {
+        // Check if the new review contains a rate
+        int rating = reviewToAdd.getRatingValue();
+        if (rating == Review.NO_RATING) {
+            return ReviewBatchResult.Status.MISSING_RATING;
+        }
 
-                // UNIT TESTS newReviewRateIsEmpty : Uncomment the two following lines to check the validity of the test.
-                this.localReviews.add(0, reviewToAdd);
-                liveDataReviews.setValue(this.localReviews);
-            }
+        // Check if the new reviews rate is between 1 and 5
+        if (rating < 1 || rating > 5) {
+            return ReviewBatchResult.Status.INVALID_RATING;
+        }
 
+        // Check if the new review contains a comment
+        String content = reviewToAdd.getContent();
+        if (content == null || content.isEmpty()) {
+            return ReviewBatchResult.Status.MISSING_CONTENT;
         }
+        return ReviewBatchResult.Status.ACCEPTED;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,740 @@
+package com.openclassrooms.tajmahal.data.repository;
+
+import androidx.annotation.NonNull;
+
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-memory inverted index over the content and the author of the reviews, for the full-text search of the reviews.
+ * <p>
+ * The text is split into terms folded to lower case without accents, so that "deçu" finds "Déçus".
+ * Each term maps to its postings: the reviews containing it and the number of occurrences. The terms are kept sorted,
+ * so that each word of a query is also matched as a prefix of the indexed terms. A search only reads the postings of
+ * the matching terms, never the text of the reviews.
+ * <p>
+ * A review matches a query if it matches every word of the query. The matching reviews are ranked by a TF-IDF score:
+ * a word weighs more if it is rare among the reviews, if it occurs several times in the review, if it matches
+ * the author rather than the content, and if it matches a whole term rather than a prefix. Reviews with the same score
+ * are ranked newest first.
+ * <p>
+ * The index is updated incrementally as the reviews are added, like the {@link ReviewStore}. A removed review is
+ * marked as removed by its identifier, its postings being left in place and skipped by the searches, and
+ * a replaced review is removed then indexed anew with the same recency. The rarity of the terms is weighed against
+ * the reviews left only. Once enough reviews are removed, {@link #compact()} drops their reviews and their postings,
+ * along with the terms left without any review, like the compaction of the store. The identifiers of the reviews
+ * left are kept, so that nothing referring to them needs to be updated, and the compaction can be built without
+ * holding the lock of the partition, see {@link #startCompaction()}: the slot of a removed review is only reused once
+ * the index is cleared.
+ * <p>
+ * The index is written under the lock of the partition owning it, which then calls {@link #publish()}, and searched
+ * without any lock from the state published last, like the reviews. The writers only append: the identifiers increase
+ * along the postings and the reviews, so that a published state is the identifiers below its limit, and a removal is
+ * stamped with the publication making it visible. The arrays full are replaced by larger copies, and the compaction and
+ * {@link #clear()} build new ones, so that the slots of a published state are never written again but to stamp
+ * a removal. The searches running at the same time share nothing but the published state: each one takes its own
+ * buffers.
+ */
+public final class ReviewSearchIndex {
+
+    // The shortest indexed term: shorter words, mostly elided articles such as the "l" of "l'endroit", are ignored.
+    public static final int MIN_TERM_LENGTH = 2;
+
+    // The weight of a term matching the author, relative to a term matching the content.
+    private static final float AUTHOR_WEIGHT = 2f;
+
+    // The weight of a term matching a query word as a prefix only, relative to a term matching the whole word.
+    private static final float PREFIX_WEIGHT = 0.5f;
+
+    // The weight of the occurrences of a term in a review, 1 + ln(occurrences), precomputed for the usual numbers of occurrences.
+    private static final float[] OCCURRENCE_WEIGHTS = new float[16];
+
+    static {
+        for (int count = 1; count < OCCURRENCE_WEIGHTS.length; count++) {
+            OCCURRENCE_WEIGHTS[count] = 1 + (float) Math.log(count);
+        }
+    }
+
+    /**
+     * The reviews containing a term, in the order in which they were indexed.
+     * The entries are only appended, and read by the searches up to the size read before them.
+     */
+    private static final class Postings {
+        // The identifiers of the reviews containing the term, increasing, each followed by the number of occurrences
+        // of the term in the review. Replaced by a larger copy when full.
+        volatile int[] entries;
+        // The number of reviews containing the term, the removed reviews included until the compaction.
+        volatile int size;
+
+        Postings(int[] entries, int size) {
+            this.entries = entries;
+            this.size = size;
+        }
+
+        void add(int review) {
+            int[] entries = this.entries;
+            int last = 2 * (size - 1);
+            if (entries[last] == review) {
+                // The review being indexed is not published yet: its entry can still be changed
+                entries[last + 1]++;
+                return;
+            }
+            if (last + 2 == entries.length) {
+                entries = Arrays.copyOf(entries, entries.length * 2);
+                this.entries = entries;
+            }
+            entries[last + 2] = review;
+            entries[last + 3] = 1;
+            size = size + 1;
+        }
+    }
+
+    /**
+     * A term matching a word of a query, with its postings as of the searched state and the weight of its occurrences.
+     */
+    private static final class Match {
+        final int[] entries;
+        final int size;
+        final float weight;
+
+        Match(int[] entries, int size, float weight) {
+            this.entries = entries;
+            this.size = size;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * A compaction of the state of the index as of its start, see {@link #startCompaction()}.
+     */
+    public static final class Compaction {
+
+        private final Review[] reviews;
+        private final int[] removedAt;
+        private final int limit;
+        private final int removedCount;
+        private final NavigableMap<String, Postings> contentTerms;
+        private final NavigableMap<String, Postings> authorTerms;
+        private Review[] compactedReviews;
+        private NavigableMap<String, Postings> compactedContentTerms;
+        private NavigableMap<String, Postings> compactedAuthorTerms;
+
+        private Compaction(Review[] reviews, int[] removedAt, int limit, int removedCount,
+                           NavigableMap<String, Postings> contentTerms, NavigableMap<String, Postings> authorTerms) {
+            this.reviews = reviews;
+            this.removedAt = removedAt;
+            this.limit = limit;
+            this.removedCount = removedCount;
+            this.contentTerms = contentTerms;
+            this.authorTerms = authorTerms;
+        }
+
+        /**
+         * Builds the reviews without the removed ones, and the dictionaries without their postings, without any lock.
+         */
+        public void run() {
+            if (removedCount == 0) {
+                return;
+            }
+            compactedReviews = reviews.clone();
+            for (int id = 0; id < limit; id++) {
+                if (removedAt[id] != 0) {
+                    compactedReviews[id] = null;
+                }
+            }
+            compactedContentTerms = compacted(contentTerms);
+            compactedAuthorTerms = compacted(authorTerms);
+        }
+
+        /**
+         * Builds a copy of a dictionary without the postings of the removed reviews, and without the terms left
+         * without any.
+         *
+         * @param dictionary The postings of the terms of a field of the reviews.
+         * @return The compacted dictionary.
+         */
+        private NavigableMap<String, Postings> compacted(NavigableMap<String, Postings> dictionary) {
+            NavigableMap<String, Postings> compacted = new ConcurrentSkipListMap<>();
+            for (Map.Entry<String, Postings> entry : dictionary.entrySet()) {
+                Postings postings = entry.getValue();
+                int size = postings.size;
+                int[] entries = postings.entries;
+                size = sizeBelow(entries, size, limit);
+                int[] newEntries = new int[Math.max(4, 2 * size)];
+                int newSize = 0;
+                for (int i = 0; i < 2 * size; i += 2) {
+                    if (removedAt[entries[i]] == 0) {
+                        newEntries[2 * newSize] = entries[i];
+                        newEntries[2 * newSize + 1] = entries[i + 1];
+                        newSize++;
+                    }
+                }
+                if (newSize > 0) {
+                    compacted.put(entry.getKey(), new Postings(newEntries, newSize));
+                }
+            }
+            return compacted;
+        }
+    }
+
+    /**
+     * The state of the index as of a publication, searched without any lock.
+     */
+    private static final class Published {
+        // The indexed reviews and their recency by identifier, valid below the limit.
+        final Review[] reviews;
+        final int[] recency;
+        // The publication from which each review is removed, by identifier; 0 for the reviews never removed.
+        final int[] removedAt;
+        // The identifiers of the reviews indexed as of the publication are below the limit.
+        final int limit;
+        // The number of reviews left as of the publication.
+        final int size;
+        // The number of the publication.
+        final int sequence;
+        final NavigableMap<String, Postings> contentTerms;
+        final NavigableMap<String, Postings> authorTerms;
+
+        Published(Review[] reviews, int[] recency, int[] removedAt, int limit, int size, int sequence,
+                  NavigableMap<String, Postings> contentTerms, NavigableMap<String, Postings> authorTerms) {
+            this.reviews = reviews;
+            this.recency = recency;
+            this.removedAt = removedAt;
+            this.limit = limit;
+            this.size = size;
+            this.sequence = sequence;
+            this.contentTerms = contentTerms;
+            this.authorTerms = authorTerms;
+        }
+
+        boolean isRemoved(int review) {
+            int removal = removedAt[review];
+            return removal != 0 && removal <= sequence;
+        }
+    }
+
+    /**
+     * The buffers of a search, indexed by review identifier and reused from one search to the next.
+     * The mark of a review is the base of the current search plus the number of words it matched so far,
+     * so that the marks left by the previous searches, below the base, need no clearing.
+     */
+    private static final class SearchBuffers {
+        int[] marks = new int[0];
+        float[] scores = new float[0];
+        int[] candidates = new int[0];
+        int base;
+
+        /**
+         * Sizes the buffers to the number of reviews, and starts a new search.
+         *
+         * @param size      The number of identifiers of the searched reviews.
+         * @param wordCount The number of words of the query.
+         * @return The base of the marks of the new search, above every mark left by the previous searches.
+         */
+        int prepare(int size, int wordCount) {
+            if (marks.length < size || base > Integer.MAX_VALUE - wordCount - 1) {
+                int capacity = Math.max(size, marks.length * 2);
+                marks = new int[capacity];
+                scores = new float[capacity];
+                candidates = new int[capacity];
+                base = 0;
+            }
+            // The marks of the previous search are at most its base plus its number of words
+            int searchBase = base + 1;
+            base = searchBase + wordCount;
+            return searchBase;
+        }
+    }
+
+    // The indexed reviews, their recency (the lower, the newer) and the publication removing them, by identifier.
+    private Review[] reviews = new Review[16];
+    private int[] recency = new int[16];
+    private int[] removedAt = new int[16];
+
+    // The number of identifiers given so far, removed reviews included.
+    private int idCount;
+
+    // The number of reviews left.
+    private int reviewCount;
+
+    // The number of reviews removed since the last compaction.
+    private int removedCount;
+
+    // The recency of the newest and of the oldest indexed reviews.
+    private int newest;
+    private int oldest = -1;
+
+    // The postings of the terms of the content and of the author of the reviews, sorted by term.
+    private NavigableMap<String, Postings> contentTerms = new ConcurrentSkipListMap<>();
+    private NavigableMap<String, Postings> authorTerms = new ConcurrentSkipListMap<>();
+
+    // The number of publications so far.
+    private int sequence;
+
+    // The state of the index published last, read by the searches.
+    private volatile Published published;
+
+    // The buffers left by the last search, taken by the next one; a search running meanwhile makes its own.
+    private final AtomicReference<SearchBuffers> spareBuffers = new AtomicReference<>();
+
+    /**
+     * Constructs an empty index, published as such.
+     */
+    public ReviewSearchIndex() {
+        publish();
+    }
+
+    /**
+     * Indexes a review older than the reviews already indexed.
+     *
+     * @param review The review to index.
+     * @return The identifier of the review in the index.
+     */
+    public int addOldest(@NonNull Review review) {
+        return add(review, ++oldest);
+    }
+
+    /**
+     * Indexes a review newer than the reviews already indexed.
+     *
+     * @param review The review to index.
+     * @return The identifier of the review in the index.
+     */
+    public int addNewest(@NonNull Review review) {
+        return add(review, --newest);
+    }
+
+    /**
+     * Removes a review from the index, in constant time: the searches skip it from the next publication on.
+     *
+     * @param id The identifier of the review, as returned when it was indexed.
+     */
+    public void remove(int id) {
+        if (removedAt[id] == 0) {
+            removedAt[id] = sequence + 1;
+            reviewCount--;
+            removedCount++;
+        }
+    }
+
+    /**
+     * Replaces a review of the index by another one, ranked with the same recency.
+     *
+     * @param id     The identifier of the review to replace, as returned when it was indexed.
+     * @param review The review replacing it.
+     * @return The identifier of the new review in the index.
+     */
+    public int replace(int id, @NonNull Review review) {
+        remove(id);
+        return add(review, recency[id]);
+    }
+
+    /**
+     * Returns the number of reviews removed since the last compaction, whose postings are still in the index.
+     *
+     * @return The number of removed reviews.
+     */
+    public int getRemovedCount() {
+        return removedCount;
+    }
+
+    /**
+     * Drops the removed reviews and their postings, in O(n + number of postings), and the terms left without any review.
+     * The reviews left keep their identifiers and their recency.
+     */
+    public void compact() {
+        Compaction compaction = startCompaction();
+        compaction.run();
+        finishCompaction(compaction);
+    }
+
+    /**
+     * Starts a compaction of the current state of the index, in constant time. The compaction is then run without
+     * holding any lock, as it only reads the identifiers below the limit of that state, which the writers never change
+     * but to remove them, and swapped in by {@link #finishCompaction}.
+     *
+     * @return The compaction, to be run.
+     */
+    @NonNull
+    public Compaction startCompaction() {
+        return new Compaction(reviews, removedAt, idCount, removedCount, contentTerms, authorTerms);
+    }
+
+    /**
+     * Replaces the reviews and the dictionaries by their compacted versions, in constant time, and publishes them.
+     * The index must not have changed since the compaction was started: the caller checks it, and starts a new
+     * compaction otherwise.
+     *
+     * @param compaction The compaction, once run.
+     */
+    public void finishCompaction(@NonNull Compaction compaction) {
+        if (compaction.removedCount == 0) {
+            return;
+        }
+        reviews = compaction.compactedReviews;
+        contentTerms = compaction.compactedContentTerms;
+        authorTerms = compaction.compactedAuthorTerms;
+        removedCount = 0;
+        publish();
+    }
+
+    /**
+     * Removes every review from the index. The searches keep searching the state published last until the next publication.
+     */
+    public void clear() {
+        reviews = new Review[16];
+        recency = new int[16];
+        removedAt = new int[16];
+        idCount = 0;
+        reviewCount = 0;
+        removedCount = 0;
+        contentTerms = new ConcurrentSkipListMap<>();
+        authorTerms = new ConcurrentSkipListMap<>();
+        newest = 0;
+        oldest = -1;
+    }
+
+    /**
+     * Returns the number of indexed reviews.
+     *
+     * @return The number of reviews.
+     */
+    public int size() {
+        return reviewCount;
+    }
+
+    /**
+     * Publishes the current state of the index to the searches, in constant time.
+     */
+    public void publish() {
+        published = new Published(reviews, recency, removedAt, idCount, size(), ++sequence, contentTerms, authorTerms);
+    }
+
+    /**
+     * Searches the reviews matching every word of the given query, each word matching a whole term or a prefix.
+     * The search reads the state of the index published last, from any thread, without any lock.
+     *
+     * @param query The words to search, in any case and with or without accents.
+     * @param limit The largest number of reviews to return.
+     * @return The best ranked matching reviews, best first; empty if the query holds no word to search.
+     */
+    @NonNull
+    public List<Review> search(@NonNull String query, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("The limit must be positive");
+        }
+        List<String> words = new ArrayList<>(new LinkedHashSet<>(terms(query)));
+        Published state = published;
+        if (words.isEmpty() || state.size == 0) {
+            return Collections.emptyList();
+        }
+        // The rarest words are matched first, as they give the fewest candidates
+        List<List<Match>> matches = new ArrayList<>(words.size());
+        int[] order = new int[words.size()];
+        long[] frequencies = new long[words.size()];
+        for (int i = 0; i < words.size(); i++) {
+            List<Match> wordMatches = new ArrayList<>();
+            long frequency = prefixMatches(state, state.contentTerms, words.get(i), 1f, wordMatches)
+                    + prefixMatches(state, state.authorTerms, words.get(i), AUTHOR_WEIGHT, wordMatches);
+            if (frequency == 0) {
+                return Collections.emptyList();
+            }
+            matches.add(wordMatches);
+            frequencies[i] = frequency << 16 | i;
+        }
+        Arrays.sort(frequencies);
+        for (int i = 0; i < order.length; i++) {
+            order[i] = (int) (frequencies[i] & 0xFFFF);
+        }
+
+        SearchBuffers buffers = spareBuffers.getAndSet(null);
+        if (buffers == null) {
+            buffers = new SearchBuffers();
+        }
+        try {
+            int base = buffers.prepare(state.limit, order.length);
+            int[] marks = buffers.marks;
+            float[] scores = buffers.scores;
+            int[] candidates = buffers.candidates;
+            int candidateCount = 0;
+            for (int step = 0; step < order.length; step++) {
+                // The reviews matching the previous words are marked at least base + step
+                int matched = base + step;
+                for (Match match : matches.get(order[step])) {
+                    int[] entries = match.entries;
+                    float weight = match.weight;
+                    for (int i = 0; i < 2 * match.size; i += 2) {
+                        int review = entries[i];
+                        int mark = marks[review];
+                        if (mark < matched) {
+                            if (step > 0 || state.isRemoved(review)) {
+                                // The review misses one of the rarer words, or has been removed
+                                continue;
+                            }
+                            scores[review] = 0;
+                            candidates[candidateCount++] = review;
+                        }
+                        marks[review] = matched + 1;
+                        scores[review] += weight * occurrenceWeight(entries[i + 1]);
+                    }
+                }
+            }
+            return topReviews(state, buffers, candidateCount, base + order.length, limit);
+        } finally {
+            spareBuffers.set(buffers);
+        }
+    }
+
+    /**
+     * Splits the given text into its terms, folded to lower case without accents.
+     * The words shorter than {@link #MIN_TERM_LENGTH} are ignored.
+     *
+     * @param text The text, possibly null.
+     * @return The terms of the text, in their order in the text.
+     */
+    @NonNull
+    public static List<String> terms(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return terms;
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder term = new StringBuilder();
+        for (int i = 0; i <= decomposed.length(); i++) {
+            char c = i < decomposed.length() ? decomposed.charAt(i) : ' ';
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                // The accents are decomposed from their letter, and dropped
+                continue;
+            }
+            if (c == 'œ' || c == 'Œ') {
+                term.append("oe");
+            } else if (c == 'æ' || c == 'Æ') {
+                term.append("ae");
+            } else if (Character.isLetterOrDigit(c)) {
+                term.append(Character.toLowerCase(c));
+            } else {
+                if (term.length() >= MIN_TERM_LENGTH) {
+                    terms.add(term.toString());
+                }
+                term.setLength(0);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Indexes a review with the given recency.
+     *
+     * @param review  The review to index.
+     * @param recency The recency of the review, lower for newer reviews.
+     * @return The identifier of the review in the index.
+     */
+    private int add(Review review, int recency) {
+        int id = idCount;
+        if (id == reviews.length) {
+            reviews = Arrays.copyOf(reviews, id * 2);
+            this.recency = Arrays.copyOf(this.recency, id * 2);
+            removedAt = Arrays.copyOf(removedAt, id * 2);
+        }
+        reviews[id] = review;
+        this.recency[id] = recency;
+        index(contentTerms, review.getContent(), id);
+        index(authorTerms, review.getAuthor(), id);
+        idCount++;
+        reviewCount++;
+        return id;
+    }
+
+    /**
+     * Adds the terms of the given text to the postings of a dictionary.
+     *
+     * @param dictionary The postings of the terms of a field of the reviews.
+     * @param text       The text of the field.
+     * @param review     The identifier of the review.
+     */
+    private static void index(NavigableMap<String, Postings> dictionary, String text, int review) {
+        for (String term : terms(text)) {
+            Postings postings = dictionary.get(term);
+            if (postings == null) {
+                dictionary.put(term, new Postings(new int[]{review, 1, 0, 0}, 1));
+            } else {
+                postings.add(review);
+            }
+        }
+    }
+
+    /**
+     * Collects the terms of a dictionary starting with the given word, weighted by their rarity and
+     * by whether they match the whole word. The postings are read up to the limit of the searched state: the terms
+     * indexed since then, and the reviews added to their postings, are left out.
+     *
+     * @param state       The searched state of the index.
+     * @param dictionary  The postings of the terms of a field of the reviews.
+     * @param word        The word of the query.
+     * @param fieldWeight The weight of the field of the dictionary.
+     * @param matches     The list receiving the matching terms.
+     * @return The total number of postings of the matching terms.
+     */
+    private static long prefixMatches(Published state, NavigableMap<String, Postings> dictionary, String word,
+                                      float fieldWeight, List<Match> matches) {
+        long frequency = 0;
+        NavigableMap<String, Postings> prefixed = dictionary.subMap(word, true, word + Character.MAX_VALUE, false);
+        for (Map.Entry<String, Postings> entry : prefixed.entrySet()) {
+            Postings postings = entry.getValue();
+            // The size is read before the entries, which then hold at least as many reviews
+            int size = postings.size;
+            int[] entries = postings.entries;
+            size = sizeBelow(entries, size, state.limit);
+            if (size == 0) {
+                continue;
+            }
+            float weight = fieldWeight * idf(state.size, size) * (entry.getKey().length() == word.length() ? 1f : PREFIX_WEIGHT);
+            matches.add(new Match(entries, size, weight));
+            frequency += size;
+        }
+        return frequency;
+    }
+
+    /**
+     * Returns the number of entries of postings below the given identifier, found by binary search.
+     *
+     * @param entries The entries of the postings, identifiers increasing.
+     * @param size    The number of entries to search.
+     * @param limit   The identifier.
+     * @return The number of entries whose identifier is below the limit.
+     */
+    private static int sizeBelow(int[] entries, int size, int limit) {
+        if (size == 0 || entries[2 * (size - 1)] < limit) {
+            return size;
+        }
+        int low = 0;
+        int high = size - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (entries[2 * middle] < limit) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the inverse document frequency of a term: the rarer the term among the reviews left, the higher.
+     *
+     * @param reviewCount The number of reviews left.
+     * @param frequency   The number of reviews containing the term, the removed reviews included until the compaction.
+     * @return The weight of the term.
+     */
+    private static float idf(int reviewCount, int frequency) {
+        return (float) Math.log(1 + (double) reviewCount / frequency);
+    }
+
+    /**
+     * Returns the weight of the occurrences of a term in a review, growing slower than the number of occurrences.
+     *
+     * @param count The number of occurrences of the term in the review.
+     * @return 1 + ln(count).
+     */
+    private static float occurrenceWeight(int count) {
+        return count < OCCURRENCE_WEIGHTS.length ? OCCURRENCE_WEIGHTS[count] : 1 + (float) Math.log(count);
+    }
+
+    /**
+     * Selects the best ranked candidates matching every word, with a bounded heap holding the worst selected review on top.
+     *
+     * @param state          The searched state of the index.
+     * @param buffers        The buffers of the search.
+     * @param candidateCount The number of candidates.
+     * @param fullMatch      The mark of the candidates matching every word of the query.
+     * @param limit          The largest number of reviews to return.
+     * @return The selected reviews, best first.
+     */
+    private static List<Review> topReviews(Published state, SearchBuffers buffers, int candidateCount, int fullMatch, int limit) {
+        float[] scores = buffers.scores;
+        int[] recency = state.recency;
+        int[] heap = new int[Math.min(limit, candidateCount)];
+        int heapSize = 0;
+        for (int i = 0; i < candidateCount; i++) {
+            int review = buffers.candidates[i];
+            if (buffers.marks[review] != fullMatch) {
+                continue;
+            }
+            if (heapSize < heap.length) {
+                heap[heapSize] = review;
+                siftUp(heap, heapSize++, scores, recency);
+            } else if (heap.length > 0 && ranksBefore(review, heap[0], scores, recency)) {
+                heap[0] = review;
+                siftDown(heap, heapSize, scores, recency);
+            }
+        }
+        Review[] top = new Review[heapSize];
+        while (heapSize > 0) {
+            top[--heapSize] = state.reviews[heap[0]];
+            heap[0] = heap[heapSize];
+            siftDown(heap, heapSize, scores, recency);
+        }
+        return Arrays.asList(top);
+    }
+
+    /**
+     * Indicates whether a review ranks before another one: higher score first, then newest first.
+     *
+     * @param review  The identifier of the review.
+     * @param other   The identifier of the other review.
+     * @param scores  The scores of the reviews, by identifier.
+     * @param recency The recency of the reviews, by identifier.
+     * @return true if the review ranks before the other one; false otherwise
+     */
+    private static boolean ranksBefore(int review, int other, float[] scores, int[] recency) {
+        if (scores[review] != scores[other]) {
+            return scores[review] > scores[other];
+        }
+        return recency[review] < recency[other];
+    }
+
+    private static void siftUp(int[] heap, int index, float[] scores, int[] recency) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (!ranksBefore(heap[parent], heap[index], scores, recency)) {
+                return;
+            }
+            swap(heap, parent, index);
+            index = parent;
+        }
+    }
+
+    private static void siftDown(int[] heap, int size, float[] scores, int[] recency) {
+        int index = 0;
+        while (true) {
+            int worst = index;
+            for (int child = 2 * index + 1; child <= 2 * index + 2 && child < size; child++) {
+                if (ranksBefore(heap[worst], heap[child], scores, recency)) {
+                    worst = child;
+                }
+            }
+            if (worst == index) {
+                return;
+            }
+            swap(heap, index, worst);
+            index = worst;
+        }
+    }
+
+    private static void swap(int[] heap, int i, int j) {
+        int review = heap[i];
+        heap[i] = heap[j];
+        heap[j] = review;
+    }
+}
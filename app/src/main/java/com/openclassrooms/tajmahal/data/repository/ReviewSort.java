@@ -0,0 +1,15 @@
+package com.openclassrooms.tajmahal.data.repository;
+
+/**
+ * The orders in which the reviews of a restaurant can be listed.
+ *
+ * @see ReviewRepository#getSortedReviews(long, int, ReviewSort)
+ */
+public enum ReviewSort {
+    // The newest review first, as published by the repository.
+    NEWEST_FIRST,
+    // The best rated reviews first, the newest first among the reviews with the same rating.
+    HIGHEST_RATING_FIRST,
+    // The worst rated reviews first, the newest first among the reviews with the same rating.
+    LOWEST_RATING_FIRST
+}
@@ -0,0 +1,716 @@
+package com.openclassrooms.tajmahal.data.repository;
+
+import androidx.annotation.NonNull;
+
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.ToLongFunction;
+
+/**
+ * Storage for the reviews of the restaurant, built for newest-first reads.
+ * <p>
+ * The reviews added after the store was loaded are kept in an append-only log, the newest review being
+ * at the end of the log, while the reviews loaded from the API are kept in their newest-first order.
+ * The store is exposed as a {@link List} reading the log in reverse followed by the loaded reviews,
+ * so that index 0 is the newest review. Adding a review is therefore an append instead of shifting the whole list.
+ * <p>
+ * The log and the loaded reviews are {@link ReviewVector} versions, replaced by a new version on each change rather
+ * than changed: an append costs O(log n) and shares the rest of the previous version. An immutable snapshot of the
+ * store is thus made of the current versions in constant time, whatever the number of reviews, and indexed access
+ * (as done by the RecyclerView adapter) walks a tree no more than a few levels deep.
+ * <p>
+ * A review is replaced in place with {@link #set(int, Review)}, which copies the path to the review in its version.
+ * A review is removed with {@link #remove(int)}, which leaves a tombstone on its slot instead of shifting the reviews
+ * after it: the tombstones of the log and of the loaded reviews are kept as sorted arrays of slots, and a position is
+ * translated into a slot by a binary search over them. A review is inserted with {@link #add(int, Review)} next to the
+ * slots of its neighbours, without shifting the reviews after it either: the inserted reviews are kept in a small array
+ * along with their anchors, the slots they are inserted before, and a position is translated by a binary search over
+ * them as well. The tombstones and the inserted reviews are merged into the versions by {@link #compact()}, which
+ * rebuilds the versions, once they make the translation worth it. The versions being immutable, the rebuild can also
+ * run without holding the lock of the store, see {@link #startCompaction()}.
+ * <p>
+ * The reviews of the previous session can be placed below the loaded reviews with {@link #setPrevious(List)}.
+ * They are kept as the given immutable list, typically a {@link com.openclassrooms.tajmahal.data.local.ReviewSnapshot}
+ * decoding its reviews lazily, and the snapshots of the store share it rather than copying it. As the reviews of the
+ * previous session are loaded again, their rows are dropped with {@link #dropPrevious(int)}: the rows dropped from the
+ * top of the list only move its start, the rows dropped below it are kept as sorted tombstones, like in the versions.
+ * <p>
+ * The store is filled from a background thread while the UI reads it, so its methods are synchronized.
+ */
+public class ReviewStore extends AbstractList<Review> {
+
+    // The append-only log of the reviews added to the store, from the oldest to the newest.
+    private Part log = Part.EMPTY;
+
+    // The reviews loaded in the store, from the newest to the oldest.
+    private Part loaded = Part.EMPTY;
+
+    // The immutable reviews of the previous session, from the newest to the oldest, older than the loaded reviews.
+    private List<Review> previous = Collections.emptyList();
+
+    // The number of rows dropped from the top of the reviews of the previous session.
+    private int previousStart;
+
+    // The sorted rows dropped from the reviews of the previous session below their start.
+    private int[] previousDropped = Part.NO_SLOTS;
+
+    // The last immutable copy of the store, shared until the store changes, or null if the store changed since.
+    private List<Review> cachedSnapshot;
+
+    /**
+     * Adds the given reviews to the store, the list being ordered from the newest to the oldest review.
+     * The reviews are considered older than the reviews already in the store.
+     *
+     * @param reviews The reviews to add, newest first.
+     */
+    public synchronized void addAllNewestFirst(@NonNull List<Review> reviews) {
+        loaded = loaded.appendedAll(reviews);
+        modCount++;
+        cachedSnapshot = null;
+    }
+
+    /**
+     * Adds a review on top of the store, as the newest review.
+     *
+     * @param review The review to add.
+     */
+    public synchronized void addNewest(@NonNull Review review) {
+        log = log.appended(review);
+        modCount++;
+        cachedSnapshot = null;
+    }
+
+    /**
+     * Places the reviews of the previous session below the reviews of the store. The list is kept as is, and must not change.
+     *
+     * @param reviews The reviews of the previous session, newest first.
+     */
+    public synchronized void setPrevious(@NonNull List<Review> reviews) {
+        previous = reviews;
+        previousStart = 0;
+        previousDropped = Part.NO_SLOTS;
+        modCount++;
+        cachedSnapshot = null;
+    }
+
+    /**
+     * Returns the row of the given review among the reviews of the previous session still in the store,
+     * in constant time if they are a {@link com.openclassrooms.tajmahal.data.local.ReviewSnapshot}.
+     *
+     * @param review The review to look up.
+     * @return The row of the review in the list given to {@link #setPrevious(List)}, or -1 if the store does not hold it.
+     */
+    public synchronized int previousRowOf(@NonNull Review review) {
+        if (previous.isEmpty()) {
+            return -1;
+        }
+        int row = previous.indexOf(review);
+        return row < previousStart || Arrays.binarySearch(previousDropped, row) >= 0 ? -1 : row;
+    }
+
+    /**
+     * Drops a row of the reviews of the previous session, the following reviews moving up by one without being shifted.
+     *
+     * @param row The row of the review in the list given to {@link #setPrevious(List)}.
+     * @return The position the review had in the store, or -1 if the row was dropped already.
+     */
+    public synchronized int dropPrevious(int row) {
+        if (row < previousStart || row >= previous.size() || Arrays.binarySearch(previousDropped, row) >= 0) {
+            return -1;
+        }
+        int position = log.size() + loaded.size() + liveBefore(previousDropped, row) - previousStart;
+        if (row == previousStart) {
+            // The reviews loaded again in order only move the start, along with the rows dropped right after it
+            previousStart++;
+            int dropped = 0;
+            while (dropped < previousDropped.length && previousDropped[dropped] == previousStart) {
+                previousStart++;
+                dropped++;
+            }
+            if (dropped > 0) {
+                previousDropped = Arrays.copyOfRange(previousDropped, dropped, previousDropped.length);
+            }
+        } else {
+            previousDropped = withTombstone(previousDropped, row);
+        }
+        modCount++;
+        cachedSnapshot = null;
+        return position;
+    }
+
+    /**
+     * Returns the number of reviews of the previous session still in the store, below the other reviews.
+     *
+     * @return The number of reviews of the previous session.
+     */
+    public synchronized int previousSize() {
+        return previous.size() - previousStart - previousDropped.length;
+    }
+
+    /**
+     * Removes the reviews added on top of the store and the loaded reviews, keeping the reviews of the previous session
+     * below them.
+     */
+    public synchronized void clearAbovePrevious() {
+        log = Part.EMPTY;
+        loaded = Part.EMPTY;
+        modCount++;
+        cachedSnapshot = null;
+    }
+
+    /**
+     * Returns the reviews loaded in the store followed by the reviews of the previous session still in the store,
+     * without the reviews added on top of it.
+     *
+     * @return An immutable list of the loaded reviews, newest first.
+     */
+    public synchronized List<Review> loadedReviews() {
+        List<Review> previousReviews = previousView();
+        if (previousReviews.isEmpty()) {
+            return loaded.view(false);
+        }
+        return new ConcatenatedList(loaded.view(false), previousReviews);
+    }
+
+    /**
+     * Replaces the review at the given position, in O(log n), the other reviews keeping their positions.
+     * The reviews of the previous session cannot be replaced.
+     *
+     * @param index  The position of the review, from the newest to the oldest.
+     * @param review The review replacing it.
+     * @return The replaced review.
+     */
+    @Override
+    public synchronized Review set(int index, @NonNull Review review) {
+        checkIndex(index);
+        Review previousReview;
+        int logSize = log.size();
+        if (index < logSize) {
+            previousReview = log.get(logSize - 1 - index);
+            log = log.with(logSize - 1 - index, review);
+        } else if (index < logSize + loaded.size()) {
+            previousReview = loaded.get(index - logSize);
+            loaded = loaded.with(index - logSize, review);
+        } else {
+            throw new IllegalArgumentException("The reviews of the previous session cannot be changed");
+        }
+        cachedSnapshot = null;
+        return previousReview;
+    }
+
+    /**
+     * Removes the review at the given position by leaving a tombstone on its slot, the following reviews moving up
+     * by one without being shifted. The reviews of the previous session cannot be removed.
+     *
+     * @param index The position of the review, from the newest to the oldest.
+     * @return The removed review.
+     */
+    @Override
+    public synchronized Review remove(int index) {
+        checkIndex(index);
+        Review removed;
+        int logSize = log.size();
+        if (index < logSize) {
+            removed = log.get(logSize - 1 - index);
+            log = log.without(logSize - 1 - index);
+        } else if (index < logSize + loaded.size()) {
+            removed = loaded.get(index - logSize);
+            loaded = loaded.without(index - logSize);
+        } else {
+            throw new IllegalArgumentException("The reviews of the previous session cannot be changed");
+        }
+        modCount++;
+        cachedSnapshot = null;
+        return removed;
+    }
+
+    /**
+     * Inserts a review at the given position, above the reviews of the previous session, the following reviews moving
+     * down by one without being shifted. The review is anchored to the slot of the review following it, and merged
+     * into the versions by the next compaction: the insertion costs O(log n), plus a copy of the reviews inserted
+     * since the last compaction.
+     *
+     * @param index  The position of the new review, from the newest to the oldest.
+     * @param review The review to insert.
+     */
+    @Override
+    public synchronized void add(int index, @NonNull Review review) {
+        int logSize = log.size();
+        if (index < 0 || index > logSize + loaded.size()) {
+            throw new IllegalArgumentException("A review cannot be inserted among the reviews of the previous session");
+        }
+        if (index < logSize) {
+            log = log.inserted(logSize - index, review);
+        } else {
+            loaded = loaded.inserted(index - logSize, review);
+        }
+        modCount++;
+        cachedSnapshot = null;
+    }
+
+    /**
+     * Returns the number of tombstones left by the removed reviews, and of reviews inserted, since the last compaction.
+     *
+     * @return The number of tombstones and inserted reviews.
+     */
+    public synchronized int getTombstoneCount() {
+        return log.changeCount() + loaded.changeCount();
+    }
+
+    /**
+     * Rebuilds the log and the loaded reviews without their tombstones, and with their inserted reviews, in O(n).
+     * The reviews and their positions are left unchanged, as is the last copy of the store.
+     */
+    public synchronized void compact() {
+        Compaction compaction = startCompaction();
+        compaction.run();
+        finishCompaction(compaction);
+    }
+
+    /**
+     * Starts a compaction of the current versions of the log and of the loaded reviews, in constant time. The compaction
+     * is then run without holding any lock, the versions being immutable, and swapped in by {@link #finishCompaction}.
+     *
+     * @return The compaction, to be run.
+     */
+    @NonNull
+    public synchronized Compaction startCompaction() {
+        return new Compaction(log, loaded);
+    }
+
+    /**
+     * Replaces the log and the loaded reviews by their compacted versions, in constant time. The store must not have
+     * changed since the compaction was started: the caller checks it, and starts a new compaction otherwise.
+     *
+     * @param compaction The compaction, once run.
+     */
+    public synchronized void finishCompaction(@NonNull Compaction compaction) {
+        log = compaction.compactedLog;
+        loaded = compaction.compactedLoaded;
+    }
+
+    /**
+     * Finds the position of a review by binary search, the reviews of the store being ordered by a key
+     * decreasing from the newest to the oldest review, such as the order in which they were added.
+     *
+     * @param key   The key of the review to find.
+     * @param keyOf The function returning the key of a review of the store.
+     * @return The position of the review with this key if any; otherwise (-(insertion position) - 1),
+     * the insertion position being the position of the first review with a lower key.
+     */
+    public synchronized int positionOf(long key, @NonNull ToLongFunction<Review> keyOf) {
+        int low = 0;
+        int high = size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long middleKey = keyOf.applyAsLong(get(middle));
+            if (middleKey > key) {
+                low = middle + 1;
+            } else if (middleKey < key) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * Removes every review from the store.
+     */
+    @Override
+    public synchronized void clear() {
+        log = Part.EMPTY;
+        loaded = Part.EMPTY;
+        previous = Collections.emptyList();
+        previousStart = 0;
+        previousDropped = Part.NO_SLOTS;
+        modCount++;
+        cachedSnapshot = null;
+    }
+
+    /**
+     * Returns an immutable copy of the store, newest review first.
+     * <p>
+     * The copy is taken atomically, so it never mixes reviews from two states of the store,
+     * and it can be handed over to the UI while the store keeps being updated.
+     * The copy shares the current versions of the log and of the loaded reviews, and the reviews of the previous
+     * session, rather than copying them: it is made in constant time, and the reviews of the previous session are not decoded.
+     * The copy is only made once per state of the store: until the store changes, the same copy is returned.
+     *
+     * @return An immutable list of the reviews of the store.
+     */
+    public synchronized List<Review> snapshot() {
+        if (cachedSnapshot == null) {
+            cachedSnapshot = copy();
+        }
+        return cachedSnapshot;
+    }
+
+    /**
+     * Makes an immutable list of the current state of the store, newest review first.
+     *
+     * @return An immutable list of the reviews of the store.
+     */
+    private List<Review> copy() {
+        List<Review> reviews = log.view(true);
+        List<Review> loadedReviews = loaded.view(false);
+        List<Review> previousReviews = previousView();
+        if (reviews.isEmpty() && previousReviews.isEmpty()) {
+            return loadedReviews;
+        }
+        if (previousReviews.isEmpty()) {
+            return new ConcatenatedList(reviews, loadedReviews);
+        }
+        return new ConcatenatedList(reviews, loadedReviews, previousReviews);
+    }
+
+    /**
+     * Returns an immutable view of the reviews of the previous session still in the store.
+     *
+     * @return The view, or the list given to {@link #setPrevious(List)} itself if no row has been dropped.
+     */
+    private List<Review> previousView() {
+        if (previousStart == 0 && previousDropped.length == 0) {
+            return previous;
+        }
+        return new PreviousView(previous, previousStart, previousDropped);
+    }
+
+    /**
+     * Returns the review at the given position, position 0 being the newest review.
+     *
+     * @param index The position of the review, from the newest to the oldest.
+     * @return The review at this position.
+     */
+    @Override
+    public synchronized Review get(int index) {
+        checkIndex(index);
+        int logSize = log.size();
+        if (index < logSize) {
+            return log.get(logSize - 1 - index);
+        }
+        int loadedSize = loaded.size();
+        if (index < logSize + loadedSize) {
+            return loaded.get(index - logSize);
+        }
+        return previous.get(liveSlot(previousDropped, previousStart + index - logSize - loadedSize));
+    }
+
+    /**
+     * Returns the number of reviews in the store.
+     *
+     * @return The number of reviews.
+     */
+    @Override
+    public synchronized int size() {
+        return log.size() + loaded.size() + previousSize();
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+    }
+
+    /**
+     * A compaction of the versions of the log and of the loaded reviews as of its start, see {@link #startCompaction()}.
+     */
+    public static final class Compaction {
+
+        private final Part log;
+        private final Part loaded;
+        private Part compactedLog;
+        private Part compactedLoaded;
+
+        private Compaction(Part log, Part loaded) {
+            this.log = log;
+            this.loaded = loaded;
+        }
+
+        /**
+         * Rebuilds the versions without their tombstones, and with their inserted reviews, in O(n), without any lock.
+         */
+        public void run() {
+            compactedLog = log.compacted();
+            compactedLoaded = loaded.compacted();
+        }
+    }
+
+    /**
+     * Immutable version of a part of the store: the slots of a {@link ReviewVector}, the tombstones of its removed
+     * reviews and the reviews inserted between its slots since the last compaction. A change makes a new version,
+     * sharing the arrays left unchanged with the previous one.
+     * <p>
+     * An inserted review is kept along with its anchor, the slot it is inserted before. The inserted reviews are kept in
+     * order, the i-th one being at position i + (number of live slots before its anchor) in the part. Since the slots
+     * are only appended after the existing ones, and the tombstones stay until the compaction, the positions of the
+     * inserted reviews move along with the other reviews without updating the anchors.
+     */
+    private static final class Part {
+
+        // The tombstones or the inserted reviews of a part without any.
+        static final int[] NO_SLOTS = new int[0];
+        private static final Review[] NO_REVIEWS = new Review[0];
+
+        // The empty part, from which every part starts.
+        static final Part EMPTY = new Part(ReviewVector.EMPTY, NO_SLOTS, NO_SLOTS, NO_REVIEWS);
+
+        // The reviews of the part, in their order of addition.
+        final ReviewVector slots;
+
+        // The sorted slots holding a removed review.
+        final int[] tombstones;
+
+        // The slot before which each inserted review is, in the order of the inserted reviews.
+        final int[] anchors;
+
+        // The reviews inserted between the slots, in order.
+        final Review[] inserted;
+
+        private Part(ReviewVector slots, int[] tombstones, int[] anchors, Review[] inserted) {
+            this.slots = slots;
+            this.tombstones = tombstones;
+            this.anchors = anchors;
+            this.inserted = inserted;
+        }
+
+        int size() {
+            return slots.size() - tombstones.length + inserted.length;
+        }
+
+        int changeCount() {
+            return tombstones.length + inserted.length;
+        }
+
+        Part appended(Review review) {
+            return new Part(slots.appended(review), tombstones, anchors, inserted);
+        }
+
+        Part appendedAll(List<Review> reviews) {
+            return new Part(slots.appendedAll(reviews), tombstones, anchors, inserted);
+        }
+
+        Review get(int index) {
+            int location = locate(index);
+            return location < 0 ? inserted[-location - 1] : slots.get(location);
+        }
+
+        Part with(int index, Review review) {
+            int location = locate(index);
+            if (location >= 0) {
+                return new Part(slots.with(location, review), tombstones, anchors, inserted);
+            }
+            Review[] copy = inserted.clone();
+            copy[-location - 1] = review;
+            return new Part(slots, tombstones, anchors, copy);
+        }
+
+        Part without(int index) {
+            int location = locate(index);
+            if (location >= 0) {
+                return new Part(slots, withTombstone(tombstones, location), anchors, inserted);
+            }
+            int removed = -location - 1;
+            int[] newAnchors = new int[anchors.length - 1];
+            Review[] newInserted = new Review[inserted.length - 1];
+            System.arraycopy(anchors, 0, newAnchors, 0, removed);
+            System.arraycopy(anchors, removed + 1, newAnchors, removed, newAnchors.length - removed);
+            System.arraycopy(inserted, 0, newInserted, 0, removed);
+            System.arraycopy(inserted, removed + 1, newInserted, removed, newInserted.length - removed);
+            return new Part(slots, tombstones, newAnchors, newInserted);
+        }
+
+        /**
+         * Inserts a review at the given position, anchoring it to the slot of the first live review after it.
+         *
+         * @param index  The position of the new review in the part, from its first slot.
+         * @param review The review to insert.
+         * @return The new version of the part.
+         */
+        Part inserted(int index, Review review) {
+            int before = insertedBefore(index);
+            int liveIndex = index - before;
+            int anchor = liveIndex < slots.size() - tombstones.length ? liveSlot(tombstones, liveIndex) : slots.size();
+            int[] newAnchors = new int[anchors.length + 1];
+            Review[] newInserted = new Review[inserted.length + 1];
+            System.arraycopy(anchors, 0, newAnchors, 0, before);
+            System.arraycopy(anchors, before, newAnchors, before + 1, anchors.length - before);
+            System.arraycopy(inserted, 0, newInserted, 0, before);
+            System.arraycopy(inserted, before, newInserted, before + 1, inserted.length - before);
+            newAnchors[before] = anchor;
+            newInserted[before] = review;
+            return new Part(slots, tombstones, newAnchors, newInserted);
+        }
+
+        Part compacted() {
+            if (changeCount() == 0) {
+                return this;
+            }
+            return new Part(ReviewVector.EMPTY.appendedAll(view(false)), NO_SLOTS, NO_SLOTS, NO_REVIEWS);
+        }
+
+        /**
+         * Returns an immutable view of the reviews of the part.
+         *
+         * @param reversed true to read the part from its last slot; false to read it from its first slot.
+         * @return The view, or the slots themselves if the part has no tombstone nor inserted review and is read in order.
+         */
+        List<Review> view(boolean reversed) {
+            if (changeCount() == 0) {
+                return reversed ? slots.reversed() : slots;
+            }
+            return new PartView(this, reversed);
+        }
+
+        /**
+         * Returns the number of inserted reviews before the given position, found by binary search.
+         *
+         * @param index The position in the part, from its first slot.
+         * @return The number of inserted reviews at a lower position.
+         */
+        private int insertedBefore(int index) {
+            int low = 0;
+            int high = anchors.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (middle + liveBefore(tombstones, anchors[middle]) < index) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Translates a position of the part into the review holding it.
+         *
+         * @param index The position in the part, from its first slot.
+         * @return The slot of the review if it is in the slots; otherwise (-(index of the inserted review) - 1).
+         */
+        private int locate(int index) {
+            int before = insertedBefore(index);
+            if (before < anchors.length && before + liveBefore(tombstones, anchors[before]) == index) {
+                return -before - 1;
+            }
+            return liveSlot(tombstones, index - before);
+        }
+    }
+
+    /**
+     * Returns the number of live reviews in the slots before the given one.
+     *
+     * @param tombstones The sorted slots of the removed reviews.
+     * @param slot       The slot.
+     * @return The number of slots before it without a tombstone.
+     */
+    private static int liveBefore(int[] tombstones, int slot) {
+        int found = Arrays.binarySearch(tombstones, slot);
+        return slot - (found >= 0 ? found : -found - 1);
+    }
+
+    /**
+     * Returns the slot of the review at the given position among the reviews left in a version.
+     * The number of tombstones before the slot is found by binary search, the slot of the j-th tombstone
+     * being followed by (slot - j) live reviews.
+     *
+     * @param tombstones The sorted slots of the removed reviews.
+     * @param liveIndex  The position of the review among the reviews left, from the first slot.
+     * @return The slot of the review.
+     */
+    private static int liveSlot(int[] tombstones, int liveIndex) {
+        int low = 0;
+        int high = tombstones.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (tombstones[middle] - middle <= liveIndex) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return liveIndex + low;
+    }
+
+    /**
+     * Returns a copy of the given tombstones with a new one, leaving the given array unchanged
+     * for the copies of the store sharing it.
+     *
+     * @param tombstones The sorted slots of the removed reviews.
+     * @param slot       The slot of the newly removed review.
+     * @return The sorted slots, the new one included.
+     */
+    private static int[] withTombstone(int[] tombstones, int slot) {
+        int insertion = -Arrays.binarySearch(tombstones, slot) - 1;
+        int[] copy = new int[tombstones.length + 1];
+        System.arraycopy(tombstones, 0, copy, 0, insertion);
+        copy[insertion] = slot;
+        System.arraycopy(tombstones, insertion, copy, insertion + 1, tombstones.length - insertion);
+        return copy;
+    }
+
+    /**
+     * Immutable view of the reviews of a version of a part.
+     */
+    private static final class PartView extends AbstractList<Review> implements RandomAccess {
+
+        private final Part part;
+        private final boolean reversed;
+
+        PartView(Part part, boolean reversed) {
+            this.part = part;
+            this.reversed = reversed;
+        }
+
+        @Override
+        public Review get(int index) {
+            int size = size();
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return part.get(reversed ? size - 1 - index : index);
+        }
+
+        @Override
+        public int size() {
+            return part.size();
+        }
+    }
+
+    /**
+     * Immutable view of the reviews of the previous session left once rows have been dropped.
+     */
+    private static final class PreviousView extends AbstractList<Review> implements RandomAccess {
+
+        private final List<Review> reviews;
+        private final int start;
+        private final int[] dropped;
+
+        PreviousView(List<Review> reviews, int start, int[] dropped) {
+            this.reviews = reviews;
+            this.start = start;
+            this.dropped = dropped;
+        }
+
+        @Override
+        public Review get(int index) {
+            int size = size();
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            // The rows before the start count as tombstones below every dropped row
+            return reviews.get(liveSlot(dropped, start + index));
+        }
+
+        @Override
+        public int size() {
+            return reviews.size() - start - dropped.length;
+        }
+    }
+}
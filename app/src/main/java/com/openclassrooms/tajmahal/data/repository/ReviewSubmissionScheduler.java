@@ -0,0 +1,16 @@
+package com.openclassrooms.tajmahal.data.repository;
+
+/**
+ * Schedules the submission of the reviews queued in the {@link ReviewOutbox}.
+ * <p>
+ * The implementation runs {@link ReviewOutbox#submitQueuedReviews()} in the background, once the network
+ * is available, and runs it again with a growing delay as long as it reports that reviews are left to submit.
+ */
+public interface ReviewSubmissionScheduler {
+
+    /**
+     * Schedules the submission of the queued reviews. Scheduling it while a submission is pending or running
+     * makes sure that the reviews queued in the meantime are submitted as well.
+     */
+    void scheduleSubmission();
+}
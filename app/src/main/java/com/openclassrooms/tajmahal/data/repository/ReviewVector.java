@@ -0,0 +1,241 @@
+package com.openclassrooms.tajmahal.data.repository;
+
+import androidx.annotation.NonNull;
+
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Immutable list of reviews, changed by making a new version that shares the structure of the previous one.
+ * <p>
+ * The reviews are held in a tree of arrays of {@value #WIDTH} elements, the leaves holding the reviews in order, followed
+ * by a tail of up to {@value #WIDTH} reviews not in the tree yet. Appending a review copies the tail only, or once every
+ * {@value #WIDTH} reviews the path from the root to the new leaf: a new version costs O(log n), the log being in base
+ * {@value #WIDTH}, and every other node is shared with the previous version. Replacing a review copies its path likewise.
+ * Indexed access walks down the tree, which is no more than four levels deep for a million reviews.
+ * <p>
+ * Since a version never changes once made, it can be handed over to any thread, which never sees it torn.
+ */
+final class ReviewVector extends AbstractList<Review> implements RandomAccess {
+
+    // The number of bits of an index consumed by each level of the tree.
+    private static final int BITS = 5;
+
+    // The number of elements of each node of the tree.
+    private static final int WIDTH = 1 << BITS;
+
+    // The mask extracting the position of an index within a node.
+    private static final int MASK = WIDTH - 1;
+
+    // The empty list, from which every version starts.
+    static final ReviewVector EMPTY = new ReviewVector(0, BITS, new Object[0], new Object[0]);
+
+    // The number of reviews of this version.
+    private final int size;
+
+    // The number of bits of an index above the leaves of the tree, a multiple of BITS.
+    private final int shift;
+
+    // The root of the tree: its inner nodes hold arrays of nodes, its leaves hold arrays of reviews.
+    private final Object[] root;
+
+    // The last reviews, not in the tree yet.
+    private final Object[] tail;
+
+    private ReviewVector(int size, int shift, Object[] root, Object[] tail) {
+        this.size = size;
+        this.shift = shift;
+        this.root = root;
+        this.tail = tail;
+    }
+
+    /**
+     * Returns the index of the first review of the tail, the reviews before it being in the tree.
+     *
+     * @return The number of reviews in the tree.
+     */
+    private int tailOffset() {
+        return size < WIDTH ? 0 : ((size - 1) >>> BITS) << BITS;
+    }
+
+    /**
+     * Returns a new version of this list, with the given review appended.
+     *
+     * @param review The review to append.
+     * @return The new version; this version is left unchanged.
+     */
+    @NonNull
+    ReviewVector appended(@NonNull Review review) {
+        int tailLength = size - tailOffset();
+        if (tailLength < WIDTH) {
+            Object[] newTail = Arrays.copyOf(tail, tailLength + 1);
+            newTail[tailLength] = review;
+            return new ReviewVector(size + 1, shift, root, newTail);
+        }
+
+        // The tail is full: it becomes a leaf of the tree, growing a new root if the tree is full
+        Object[] newRoot;
+        int newShift = shift;
+        if ((size >>> BITS) > (1 << shift)) {
+            newRoot = new Object[]{root, newPath(shift, tail)};
+            newShift += BITS;
+        } else {
+            newRoot = pushTail(shift, root, tail);
+        }
+        return new ReviewVector(size + 1, newShift, newRoot, new Object[]{review});
+    }
+
+    /**
+     * Returns a new version of this list, with the review at the given index replaced. Only the path from the root
+     * to the leaf holding the review is copied, or the tail.
+     *
+     * @param index  The index of the review to replace.
+     * @param review The review replacing it.
+     * @return The new version; this version is left unchanged.
+     */
+    @NonNull
+    ReviewVector with(int index, @NonNull Review review) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        if (index >= tailOffset()) {
+            Object[] newTail = tail.clone();
+            newTail[index & MASK] = review;
+            return new ReviewVector(size, shift, root, newTail);
+        }
+        return new ReviewVector(size, shift, replaceInTree(shift, root, index, review), tail);
+    }
+
+    /**
+     * Copies the path from the given node to the leaf holding the given index, replacing the review at this index.
+     *
+     * @param level  The number of bits of an index above the children of the node.
+     * @param node   The node, left unchanged.
+     * @param index  The index of the review to replace.
+     * @param review The review replacing it.
+     * @return The copy of the node.
+     */
+    private static Object[] replaceInTree(int level, Object[] node, int index, Review review) {
+        Object[] copy = node.clone();
+        if (level == 0) {
+            copy[index & MASK] = review;
+        } else {
+            int child = (index >>> level) & MASK;
+            copy[child] = replaceInTree(level - BITS, (Object[]) node[child], index, review);
+        }
+        return copy;
+    }
+
+    /**
+     * Returns a new version of this list, with the given reviews appended in order.
+     * The tail is filled a whole chunk at a time, rather than copied for each review.
+     *
+     * @param reviews The reviews to append.
+     * @return The new version; this version is left unchanged.
+     */
+    @NonNull
+    ReviewVector appendedAll(@NonNull List<Review> reviews) {
+        ReviewVector vector = this;
+        int i = 0;
+        while (i < reviews.size()) {
+            int tailLength = vector.size - vector.tailOffset();
+            if (tailLength == WIDTH) {
+                vector = vector.appended(reviews.get(i++));
+                continue;
+            }
+            int count = Math.min(WIDTH - tailLength, reviews.size() - i);
+            Object[] newTail = Arrays.copyOf(vector.tail, tailLength + count);
+            for (int j = 0; j < count; j++) {
+                newTail[tailLength + j] = reviews.get(i + j);
+            }
+            vector = new ReviewVector(vector.size + count, vector.shift, vector.root, newTail);
+            i += count;
+        }
+        return vector;
+    }
+
+    /**
+     * Copies the path from the given node to the leaf receiving the full tail, sharing every other node.
+     *
+     * @param level    The number of bits of an index above the children of the node.
+     * @param parent   The node, left unchanged.
+     * @param tailNode The full tail, becoming a leaf.
+     * @return The copy of the node.
+     */
+    private Object[] pushTail(int level, Object[] parent, Object[] tailNode) {
+        int child = ((size - 1) >>> level) & MASK;
+        Object[] node = Arrays.copyOf(parent, Math.max(parent.length, child + 1));
+        if (level == BITS) {
+            node[child] = tailNode;
+        } else if (child < parent.length) {
+            node[child] = pushTail(level - BITS, (Object[]) parent[child], tailNode);
+        } else {
+            node[child] = newPath(level - BITS, tailNode);
+        }
+        return node;
+    }
+
+    /**
+     * Makes the path of new nodes from the given level down to the given leaf.
+     *
+     * @param level The number of bits of an index above the children of the top node.
+     * @param leaf  The leaf.
+     * @return The top node of the path.
+     */
+    private static Object[] newPath(int level, Object[] leaf) {
+        return level == 0 ? leaf : new Object[]{newPath(level - BITS, leaf)};
+    }
+
+    /**
+     * Returns a view of this list in reverse order, the last review appended coming first.
+     *
+     * @return An immutable list of the same reviews, from the last to the first.
+     */
+    @NonNull
+    List<Review> reversed() {
+        return new Reversed();
+    }
+
+    @Override
+    public Review get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        if (index >= tailOffset()) {
+            return (Review) tail[index & MASK];
+        }
+        Object[] node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Object[]) node[(index >>> level) & MASK];
+        }
+        return (Review) node[index & MASK];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Immutable view of the list in reverse order.
+     */
+    private final class Reversed extends AbstractList<Review> implements RandomAccess {
+
+        @Override
+        public Review get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return ReviewVector.this.get(size - 1 - index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.openclassrooms.tajmahal.data.repository;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+
+/**
+ * Executor running its tasks one at a time, in the order they are submitted, on a shared executor.
+ * <p>
+ * Each partition writes its reviews to the local database and to the outbox through its own serial executor, so that
+ * the writes of a restaurant reach the database in the order of the changes, while the writes of different restaurants
+ * still run in parallel on the threads of the shared executor. A task is handed over to the shared executor only once
+ * the previous one has run, so no thread is held while the tasks wait.
+ */
+final class SerialExecutor implements Executor {
+
+    // The shared executor running the tasks.
+    private final Executor executor;
+
+    // The tasks waiting for the active one to run, oldest first.
+    private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+
+    // The task handed over to the shared executor, or null if no task is running.
+    private Runnable active;
+
+    /**
+     * Constructs a serial executor running its tasks on the given executor.
+     *
+     * @param executor The shared executor running the tasks.
+     */
+    SerialExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Queues the given task, which runs once the tasks submitted before it have run.
+     *
+     * @param task The task to run.
+     */
+    @Override
+    public synchronized void execute(@NonNull Runnable task) {
+        tasks.add(() -> {
+            try {
+                task.run();
+            } finally {
+                scheduleNext();
+            }
+        });
+        if (active == null) {
+            scheduleNext();
+        }
+    }
+
+    /**
+     * Hands the oldest waiting task over to the shared executor, if any.
+     */
+    private synchronized void scheduleNext() {
+        active = tasks.poll();
+        if (active != null) {
+            executor.execute(active);
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package com.openclassrooms.tajmahal.data.service;
 
+import com.openclassrooms.tajmahal.domain.model.RatingStatistics;
 import com.openclassrooms.tajmahal.domain.model.Restaurant;
 import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.model.ReviewPage;
+import com.openclassrooms.tajmahal.domain.model.ReviewSubmission;
 
 import java.util.List;
 
@@ -20,7 +23,8 @@ import java.util.List;
  * An interface contains behaviors that a class implements.
  * </p>
  * <p>
- * Here, {@link RestaurantApi} provides a method to get details of a restaurant.
+ * Here, {@link RestaurantApi} provides methods to get the details and the reviews of the restaurants of the chain,
+ * each restaurant being designated by its identifier.
  * </p>
  *
  * @see Restaurant
@@ -34,9 +38,10 @@ public interface RestaurantApi {
      * implementing class, fetching the required restaurant information.
      * </p>
      *
+     * @param restaurantId The identifier of the restaurant.
      * @return The {@link Restaurant} object containing all the details of the restaurant.
      */
-    Restaurant getRestaurant();
+    Restaurant getRestaurant(long restaurantId);
 
     /**
      * Retrieves the reviews of the restaurant.
@@ -45,9 +50,51 @@ public interface RestaurantApi {
      * implementing class, fetching the list of the existing reviews.
      * </p>
      *
+     * @param restaurantId The identifier of the restaurant.
      * @return The {@link List<Review>} object containing all the details of reviews.
      */
-    List<Review> getReviews();
+    List<Review> getReviews(long restaurantId);
+
+    /**
+     * Retrieves one page of the reviews of the restaurant.
+     * <p>
+     * The reviews are returned from the newest to the oldest. The first page is fetched with a null cursor,
+     * the following ones with the cursor of the previous page, so that only the reviews actually displayed
+     * have to be loaded in memory.
+     * </p>
+     *
+     * @param restaurantId The identifier of the restaurant.
+     * @param pageSize     The maximum number of reviews of the page.
+     * @param cursor       The cursor returned with the previous page, or null to fetch the first page.
+     * @return The {@link ReviewPage} holding the reviews and the cursor of the next page.
+     */
+    ReviewPage getReviewsPage(long restaurantId, int pageSize, String cursor);
+
+    /**
+     * Retrieves the rating statistics of all the reviews of the restaurant.
+     * <p>
+     * As the reviews are loaded page by page, the statistics of the whole set of reviews are
+     * computed by the data source rather than from the reviews loaded in memory.
+     * </p>
+     *
+     * @param restaurantId The identifier of the restaurant.
+     * @return The {@link RatingStatistics} of all the reviews.
+     */
+    RatingStatistics getRatingStatistics(long restaurantId);
+
+    /**
+     * Submits a batch of new reviews of the restaurant.
+     * <p>
+     * The call is idempotent: the submissions whose idempotency key has already been accepted are ignored,
+     * so a batch can safely be submitted again when the previous attempt failed or its acknowledgement was lost.
+     * The batch is acknowledged as a whole when this method returns normally.
+     * </p>
+     *
+     * @param restaurantId The identifier of the restaurant.
+     * @param submissions  The reviews to submit, with their idempotency keys.
+     * @throws IllegalArgumentException if the batch is rejected and must not be submitted again.
+     */
+    void submitReviews(long restaurantId, List<ReviewSubmission> submissions);
 
 
 }
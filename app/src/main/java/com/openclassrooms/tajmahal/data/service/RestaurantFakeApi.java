@@ -1,10 +1,18 @@
 package com.openclassrooms.tajmahal.data.service;
 
+import com.openclassrooms.tajmahal.domain.model.RatingStatistics;
 import com.openclassrooms.tajmahal.domain.model.Restaurant;
 import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.model.ReviewPage;
+import com.openclassrooms.tajmahal.domain.model.ReviewSubmission;
 
+import java.util.AbstractList;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.inject.Singleton;
 
@@ -23,7 +31,9 @@ import javax.inject.Singleton;
  * we are using hardcoded values.
  *
  * <p>
- * This class returns details of a specific restaurant, "Taj Mahal", with pre-defined attributes.
+ * This class simulates a chain of {@link #RESTAURANT_COUNT} restaurants, the first one being the "Taj Mahal"
+ * with pre-defined attributes. Besides the hard-coded sample reviews, it simulates a large set of reviews
+ * generated on demand for each restaurant, so that paging can be exercised without holding every review in memory.
  * </p>
  *
  * @see Restaurant
@@ -32,6 +42,42 @@ import javax.inject.Singleton;
 @Singleton
 public class RestaurantFakeApi implements RestaurantApi {
 
+    // The identifier of the Taj Mahal, the first restaurant of the chain.
+    public static final long TAJ_MAHAL_ID = 1;
+
+    // The number of restaurants of the chain, identified from 1 to RESTAURANT_COUNT.
+    public static final int RESTAURANT_COUNT = 200;
+
+    // The total number of reviews simulated by the fake API for each restaurant, sample reviews included.
+    public static final int TOTAL_REVIEWS = 5000;
+
+    // The shift between the reviews of two consecutive restaurants, so that each restaurant lists them in its own order.
+    private static final int REVIEW_SHIFT = 37;
+
+    // First names, last names and comments combined to generate the reviews following the sample ones.
+    private static final String[] FIRST_NAMES = {"Aarav", "Camille", "Lucas", "Priya", "Hugo", "Inès", "Rohan", "Léa", "Nathan", "Ananya",
+            "Louis", "Chloé", "Arjun", "Manon", "Jules", "Kavya", "Gabriel", "Zoé", "Vikram", "Sarah"};
+    private static final String[] LAST_NAMES = {"Martin", "Sharma", "Bernard", "Patel", "Dubois", "Gupta", "Thomas", "Kumar", "Robert", "Mehta",
+            "Richard", "Iyer", "Petit", "Reddy", "Durand", "Nair", "Leroy", "Das", "Moreau", "Joshi", "Simon", "Rao", "Laurent", "Singh", "Lefèvre"};
+    private static final String[] COMMENTS = {
+            "Le butter chicken est excellent, nous reviendrons.",
+            "Service un peu lent mais les plats valent l'attente.",
+            "Naans délicieux et biryani très parfumé.",
+            "Portions généreuses et prix raisonnables.",
+            "Décor agréable, personnel souriant et attentionné.",
+            "Trop épicé à mon goût, mais bien préparé.",
+            "Le lassi à la mangue est une merveille !",
+            "Déçu par le curry d'agneau, la viande était sèche.",
+            "Idéal pour un déjeuner rapide entre collègues.",
+            "Une très belle découverte, je recommande vivement."};
+    private static final int[] RATINGS = {5, 4, 5, 3, 4, 5, 2, 4, 1, 5, 4, 3};
+
+    // The rating statistics of the whole set of reviews, the same for every restaurant, computed on the first request.
+    private RatingStatistics ratingStatistics;
+
+    // The reviews submitted for each restaurant, by idempotency key, in their submission order. Guarded by this API.
+    private final Map<Long, Map<String, Review>> submittedReviews = new HashMap<>();
+
     List<Review> reviews = Arrays.asList(
             new Review("Ranjit Singh", "https://xsgames.co/randomusers/assets/avatars/male/71.jpg", "Service très rapide et nourriture délicieuse, nous mangeons ici chaque week-end, c'est très rapide et savoureux. Continuez ainsi!", 5),
             new Review("Martyna Siddeswara", "https://xsgames.co/randomusers/assets/avatars/female/31.jpg", "Un service excellent et des plats incroyablement savoureux. Nous sommes vraiment satisfaits de notre expérience au restaurant.", 4),
@@ -42,35 +88,199 @@ public class RestaurantFakeApi implements RestaurantApi {
 
 
     /**
-     * Retrieves a hard-coded {@link Restaurant} object for the "Taj Mahal".
+     * Retrieves a hard-coded {@link Restaurant} object for a restaurant of the chain.
      * <p>
      * This method simulates an API call by immediately returning a Restaurant object
-     * with pre-defined attributes. The object represents the "Taj Mahal" restaurant
-     * with specific details.
+     * with pre-defined attributes. The first restaurant is the "Taj Mahal" with specific details,
+     * the other restaurants of the chain only differing from it by their name and address.
      * </p>
      *
-     * @return The hard-coded {@link Restaurant} object for the "Taj Mahal".
+     * @param restaurantId The identifier of the restaurant, between 1 and {@link #RESTAURANT_COUNT}.
+     * @return The hard-coded {@link Restaurant} object for this restaurant.
      */
     @Override
-    public Restaurant getRestaurant() {
-        return new Restaurant("Taj Mahal", "Indien", "11h30 - 14h30・18h30 - 22h00",
-                "12 Avenue de la Brique - 75010 Paris", "http://www.tajmahal.fr", "06 12 34 56 78",
+    public Restaurant getRestaurant(long restaurantId) {
+        checkRestaurantId(restaurantId);
+        if (restaurantId == TAJ_MAHAL_ID) {
+            return new Restaurant(TAJ_MAHAL_ID, "Taj Mahal", "Indien", "11h30 - 14h30・18h30 - 22h00",
+                    "12 Avenue de la Brique - 75010 Paris", "http://www.tajmahal.fr", "06 12 34 56 78",
+                    true, true);
+        }
+        return new Restaurant(restaurantId, "Taj Mahal " + restaurantId, "Indien", "11h30 - 14h30・18h30 - 22h00",
+                restaurantId + " Rue du Faubourg Saint-Denis - 75010 Paris", "http://www.tajmahal.fr", "06 12 34 56 78",
                 true, true);
     }
 
 
     /**
-     * Retrieves a hard-coded {@link Review} object for the "Taj Mahal".
+     * Retrieves the {@link Review} list for a restaurant of the chain.
+     * <p>
+     * This method simulates an API call by immediately returning the whole list of reviews.
+     * For the "Taj Mahal", the hard-coded sample reviews are followed by the generated ones.
+     * </p>
+     *
+     * @param restaurantId The identifier of the restaurant, between 1 and {@link #RESTAURANT_COUNT}.
+     * @return The list {@link Review} for this restaurant.
+     */
+    @Override
+    public List<Review> getReviews(long restaurantId) {
+        return new ArrayList<>(reviewsOf(restaurantId));
+    }
+
+    /**
+     * Retrieves one page of the {@link Review} list for a restaurant of the chain.
      * <p>
-     * This method simulates an API call by immediately returning a Review list
-     * with pre-defined attributes.
+     * This method simulates a paged API call. The cursor is the position of the first review of the page,
+     * encoded as a string.
      * </p>
      *
-     * @return The hard-coded list {@link Review} for the "Taj Mahal".
+     * @param restaurantId The identifier of the restaurant, between 1 and {@link #RESTAURANT_COUNT}.
+     * @param pageSize     The maximum number of reviews of the page.
+     * @param cursor       The cursor returned with the previous page, or null to fetch the first page.
+     * @return The {@link ReviewPage} holding the reviews and the cursor of the next page.
+     */
+    @Override
+    public ReviewPage getReviewsPage(long restaurantId, int pageSize, String cursor) {
+        List<Review> reviews = reviewsOf(restaurantId);
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("pageSize must be positive");
+        }
+        int from = parseCursor(cursor);
+        int to = Math.min(from + pageSize, TOTAL_REVIEWS);
+        List<Review> page = new ArrayList<>(reviews.subList(from, to));
+        return new ReviewPage(page, to < TOTAL_REVIEWS ? String.valueOf(to) : null);
+    }
+
+    /**
+     * Retrieves the rating statistics of all the {@link Review} of a restaurant of the chain.
+     *
+     * @param restaurantId The identifier of the restaurant, between 1 and {@link #RESTAURANT_COUNT}.
+     * @return A copy of the {@link RatingStatistics} of all the reviews.
      */
     @Override
-    public List<Review> getReviews() {
-        return reviews;
+    public synchronized RatingStatistics getRatingStatistics(long restaurantId) {
+        checkRestaurantId(restaurantId);
+        if (ratingStatistics == null) {
+            ratingStatistics = new RatingStatistics();
+            for (int i = 0; i < TOTAL_REVIEWS; i++) {
+                ratingStatistics.record(generateReview(i).getRatingValue());
+            }
+        }
+        return new RatingStatistics(ratingStatistics);
+    }
+
+    /**
+     * Accepts a batch of reviews of a restaurant of the chain.
+     * <p>
+     * This method simulates an idempotent API call: the reviews are kept by idempotency key, so a submission sent again
+     * is ignored. The submitted reviews are held for moderation, and are not part of the reviews listed by the API.
+     * </p>
+     *
+     * @param restaurantId The identifier of the restaurant, between 1 and {@link #RESTAURANT_COUNT}.
+     * @param submissions  The reviews to submit, with their idempotency keys.
+     */
+    @Override
+    public synchronized void submitReviews(long restaurantId, List<ReviewSubmission> submissions) {
+        checkRestaurantId(restaurantId);
+        Map<String, Review> reviews = submittedReviews.get(restaurantId);
+        if (reviews == null) {
+            reviews = new LinkedHashMap<>();
+            submittedReviews.put(restaurantId, reviews);
+        }
+        for (ReviewSubmission submission : submissions) {
+            if (!reviews.containsKey(submission.getIdempotencyKey())) {
+                reviews.put(submission.getIdempotencyKey(), submission.getReview());
+            }
+        }
+    }
+
+    /**
+     * Returns the reviews submitted for a restaurant of the chain, each one being kept once whatever the number of retries.
+     *
+     * @param restaurantId The identifier of the restaurant.
+     * @return The submitted reviews, in their submission order.
+     */
+    public synchronized List<Review> getSubmittedReviews(long restaurantId) {
+        Map<String, Review> reviews = submittedReviews.get(restaurantId);
+        return reviews == null ? new ArrayList<>() : new ArrayList<>(reviews.values());
+    }
+
+    /**
+     * Returns the reviews of the given restaurant, generated on demand from their position.
+     * The reviews of the Taj Mahal start with the sample reviews; the other restaurants list the same reviews,
+     * shifted according to their identifier.
+     *
+     * @param restaurantId The identifier of the restaurant.
+     * @return The reviews of the restaurant, newest first.
+     */
+    private List<Review> reviewsOf(long restaurantId) {
+        checkRestaurantId(restaurantId);
+        final int shift = (int) ((restaurantId - TAJ_MAHAL_ID) * REVIEW_SHIFT % TOTAL_REVIEWS);
+        return new AbstractList<Review>() {
+            @Override
+            public Review get(int index) {
+                return generateReview((index + shift) % TOTAL_REVIEWS);
+            }
+
+            @Override
+            public int size() {
+                return TOTAL_REVIEWS;
+            }
+        };
+    }
+
+    /**
+     * Checks that the given identifier designates a restaurant of the chain.
+     *
+     * @param restaurantId The identifier of the restaurant.
+     * @throws IllegalArgumentException if there is no restaurant with this identifier.
+     */
+    private static void checkRestaurantId(long restaurantId) {
+        if (restaurantId < TAJ_MAHAL_ID || restaurantId >= TAJ_MAHAL_ID + RESTAURANT_COUNT) {
+            throw new IllegalArgumentException("Unknown restaurant: " + restaurantId);
+        }
+    }
+
+    /**
+     * Returns the review at the given position of the simulated set of reviews.
+     * The first positions hold the hard-coded sample reviews, the following ones are generated
+     * by combining names and comments, each combination being unique.
+     *
+     * @param index The position of the review, 0 being the newest review.
+     * @return The review at this position.
+     */
+    private Review generateReview(int index) {
+        if (index < reviews.size()) {
+            return reviews.get(index);
+        }
+        int i = index - reviews.size();
+        int nameIndex = i % (FIRST_NAMES.length * LAST_NAMES.length);
+        String author = FIRST_NAMES[nameIndex % FIRST_NAMES.length] + " " + LAST_NAMES[nameIndex / FIRST_NAMES.length];
+        String gender = i % 2 == 0 ? "female" : "male";
+        String avatarUrl = "https://xsgames.co/randomusers/assets/avatars/" + gender + "/" + (nameIndex % 75) + ".jpg";
+        String content = COMMENTS[(i / (FIRST_NAMES.length * LAST_NAMES.length)) % COMMENTS.length];
+        return new Review(author, avatarUrl, content, RATINGS[i % RATINGS.length]);
+    }
+
+    /**
+     * Converts a cursor to the position of the first review of the page.
+     *
+     * @param cursor The cursor of the page, or null for the first page.
+     * @return The position of the first review of the page.
+     */
+    private static int parseCursor(String cursor) {
+        if (cursor == null) {
+            return 0;
+        }
+        try {
+            int from = Integer.parseInt(cursor);
+            if (from < 0 || from > TOTAL_REVIEWS) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            return from;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
     }
 
 }
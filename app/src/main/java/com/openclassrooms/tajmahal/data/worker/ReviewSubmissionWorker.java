@@ -0,0 +1,68 @@
+package com.openclassrooms.tajmahal.data.worker;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.openclassrooms.tajmahal.data.repository.ReviewOutbox;
+
+import dagger.hilt.EntryPoint;
+import dagger.hilt.InstallIn;
+import dagger.hilt.android.EntryPointAccessors;
+import dagger.hilt.components.SingletonComponent;
+
+/**
+ * Background job submitting the reviews queued in the {@link ReviewOutbox} to the API.
+ * <p>
+ * The job is scheduled by {@link WorkManagerSubmissionScheduler}, which only runs it once the network is available.
+ * When the submission fails, the job asks WorkManager to retry it with an exponential backoff; the reviews stay
+ * in the outbox meanwhile, even if the application is stopped.
+ */
+public class ReviewSubmissionWorker extends Worker {
+
+    /**
+     * Gives the worker, which is created by WorkManager rather than by Hilt, access to the outbox of the application.
+     */
+    @EntryPoint
+    @InstallIn(SingletonComponent.class)
+    public interface ReviewOutboxEntryPoint {
+
+        /**
+         * Returns the singleton outbox of the reviews.
+         *
+         * @return The outbox of the reviews
+         */
+        ReviewOutbox reviewOutbox();
+    }
+
+    /**
+     * Constructor that WorkManager will use to create an instance of the worker.
+     *
+     * @param context      The application context.
+     * @param workerParams The parameters of the job.
+     */
+    public ReviewSubmissionWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
+        super(context, workerParams);
+    }
+
+    /**
+     * Submits the queued reviews, on a background thread of WorkManager.
+     *
+     * @return success once the outbox is empty; retry if the submission failed.
+     */
+    @NonNull
+    @Override
+    public Result doWork() {
+        ReviewOutbox reviewOutbox = EntryPointAccessors
+                .fromApplication(getApplicationContext(), ReviewOutboxEntryPoint.class)
+                .reviewOutbox();
+        try {
+            return reviewOutbox.submitQueuedReviews() ? Result.success() : Result.retry();
+        } catch (RuntimeException e) {
+            // The outbox could not be read: the reviews are still queued and will be submitted by the retry
+            return Result.retry();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.openclassrooms.tajmahal.data.worker;
+
+import android.content.Context;
+
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+
+import com.openclassrooms.tajmahal.data.repository.ReviewSubmissionScheduler;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Schedules the submission of the queued reviews with WorkManager.
+ * <p>
+ * A single unique job submits the reviews: scheduling the submission while the job is pending or running appends
+ * a new run after it, so the reviews queued in the meantime are never left behind, and the job survives the restarts
+ * of the application.
+ */
+public class WorkManagerSubmissionScheduler implements ReviewSubmissionScheduler {
+
+    // The name of the unique job submitting the reviews.
+    public static final String WORK_NAME = "review_submission";
+
+    // The delay before the first retry of a failed submission, doubled at each following retry.
+    private static final long BACKOFF_DELAY_SECONDS = 30;
+
+    // The application context, from which WorkManager is obtained.
+    private final Context context;
+
+    /**
+     * Constructs the scheduler of the submission of the reviews.
+     *
+     * @param context The application context.
+     */
+    public WorkManagerSubmissionScheduler(Context context) {
+        this.context = context;
+    }
+
+    @Override
+    public void scheduleSubmission() {
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(ReviewSubmissionWorker.class)
+                .setConstraints(new Constraints.Builder()
+                        .setRequiredNetworkType(NetworkType.CONNECTED)
+                        .build())
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, BACKOFF_DELAY_SECONDS, TimeUnit.SECONDS)
+                .build();
+        WorkManager.getInstance(context).enqueueUniqueWork(WORK_NAME, ExistingWorkPolicy.APPEND_OR_REPLACE, request);
+    }
+}
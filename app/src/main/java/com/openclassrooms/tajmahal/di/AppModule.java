@@ -1,13 +1,28 @@
 package com.openclassrooms.tajmahal.di;
 
+import android.content.Context;
+
+import androidx.room.Room;
+
+import com.openclassrooms.tajmahal.data.local.OutboxDao;
+import com.openclassrooms.tajmahal.data.local.ReviewDao;
+import com.openclassrooms.tajmahal.data.local.ReviewDatabase;
+import com.openclassrooms.tajmahal.data.local.ReviewSnapshotStore;
+import com.openclassrooms.tajmahal.data.repository.ReviewSubmissionScheduler;
 import com.openclassrooms.tajmahal.data.service.RestaurantApi;
 import com.openclassrooms.tajmahal.data.service.RestaurantFakeApi;
+import com.openclassrooms.tajmahal.data.worker.WorkManagerSubmissionScheduler;
+
+import java.io.File;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 import javax.inject.Singleton;
 
 import dagger.Module;
 import dagger.Provides;
 import dagger.hilt.InstallIn;
+import dagger.hilt.android.qualifiers.ApplicationContext;
 import dagger.hilt.components.SingletonComponent;
 
 /**
@@ -19,6 +34,12 @@ import dagger.hilt.components.SingletonComponent;
 @InstallIn(SingletonComponent.class)
 public class AppModule {
 
+    // The number of threads of the background executor.
+    private static final int BACKGROUND_THREADS = 2;
+
+    // The directory of the review snapshots, in the storage of the application.
+    private static final String SNAPSHOT_DIRECTORY = "review_snapshots";
+
     /**
      * Provides a singleton instance of the RestaurantApi. In this example,
      * a fake implementation of the API is being used, which can be helpful
@@ -31,4 +52,77 @@ public class AppModule {
     public RestaurantApi provideRestaurantApi() {
         return new RestaurantFakeApi();
     }
+
+    /**
+     * Provides the singleton local database of the application, caching the reviews on the device.
+     *
+     * @param context The application context.
+     * @return The singleton instance of the ReviewDatabase.
+     */
+    @Provides
+    @Singleton
+    public ReviewDatabase provideReviewDatabase(@ApplicationContext Context context) {
+        return Room.databaseBuilder(context, ReviewDatabase.class, ReviewDatabase.NAME)
+                .addMigrations(ReviewDatabase.MIGRATION_1_2, ReviewDatabase.MIGRATION_2_3)
+                .build();
+    }
+
+    /**
+     * Provides the data access object for the reviews stored in the local database.
+     *
+     * @param database The local database of the application.
+     * @return The ReviewDao of the database.
+     */
+    @Provides
+    public ReviewDao provideReviewDao(ReviewDatabase database) {
+        return database.reviewDao();
+    }
+
+    /**
+     * Provides the data access object for the reviews waiting in the local database to be submitted to the API.
+     *
+     * @param database The local database of the application.
+     * @return The OutboxDao of the database.
+     */
+    @Provides
+    public OutboxDao provideOutboxDao(ReviewDatabase database) {
+        return database.outboxDao();
+    }
+
+    /**
+     * Provides the store of the snapshots of the reviews, kept in the storage of the application.
+     *
+     * @param context The application context.
+     * @return The singleton instance of the ReviewSnapshotStore.
+     */
+    @Provides
+    @Singleton
+    public ReviewSnapshotStore provideReviewSnapshotStore(@ApplicationContext Context context) {
+        return new ReviewSnapshotStore(new File(context.getFilesDir(), SNAPSHOT_DIRECTORY));
+    }
+
+    /**
+     * Provides the scheduler of the submission of the reviews queued in the outbox, backed by WorkManager
+     * so that the reviews are submitted once the network is available, even after the application is stopped.
+     *
+     * @param context The application context.
+     * @return The scheduler of the submission of the reviews.
+     */
+    @Provides
+    @Singleton
+    public ReviewSubmissionScheduler provideReviewSubmissionScheduler(@ApplicationContext Context context) {
+        return new WorkManagerSubmissionScheduler(context);
+    }
+
+    /**
+     * Provides the executor on which the repositories perform their network and database calls,
+     * so that they never block the main thread.
+     *
+     * @return A singleton executor backed by a small pool of background threads.
+     */
+    @Provides
+    @Singleton
+    public Executor provideBackgroundExecutor() {
+        return Executors.newFixedThreadPool(BACKGROUND_THREADS);
+    }
 }
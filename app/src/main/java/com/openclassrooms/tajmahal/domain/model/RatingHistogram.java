@@ -0,0 +1,131 @@
+package com.openclassrooms.tajmahal.domain.model;
+
+/**
+ * Immutable snapshot of the rating statistics of the restaurant reviews.
+ * <p>
+ * The number of ratings per star is held in a primitive array, and every accessor computes its value
+ * from primitive counters, so reading the histogram never boxes nor allocates. A new snapshot is taken
+ * each time the statistics change, with {@link RatingStatistics#snapshot()}, and can then be shared freely
+ * between threads.
+ */
+public final class RatingHistogram {
+
+    // The highest number of decimals to which the average rating can be rounded.
+    public static final int MAX_AVERAGE_DECIMALS = 6;
+
+    // The powers of ten by which the average rating is scaled before being rounded, indexed by number of decimals.
+    private static final long[] POWERS_OF_TEN = {1, 10, 100, 1_000, 10_000, 100_000, 1_000_000};
+
+    // The histogram of a restaurant without any rating.
+    public static final RatingHistogram EMPTY = new RatingHistogram(new int[RatingStatistics.MAX_RATING - RatingStatistics.MIN_RATING + 1], 0, 0);
+
+    // The number of ratings for each star rating, index 0 holding the 1 star ratings. Never modified.
+    private final int[] ratingCounts;
+
+    // The total number of ratings.
+    private final int totalRatings;
+
+    // The sum of all the ratings.
+    private final long ratingSum;
+
+    /**
+     * Constructor for a snapshot of rating statistics. The array of counts is owned by the snapshot.
+     *
+     * @param ratingCounts The number of ratings for each star rating, index 0 holding the 1 star ratings
+     * @param totalRatings The total number of ratings
+     * @param ratingSum    The sum of all the ratings
+     */
+    RatingHistogram(int[] ratingCounts, int totalRatings, long ratingSum) {
+        this.ratingCounts = ratingCounts;
+        this.totalRatings = totalRatings;
+        this.ratingSum = ratingSum;
+    }
+
+    /**
+     * Returns the total number of ratings.
+     *
+     * @return The total number of ratings
+     */
+    public int getTotalRatings() {
+        return totalRatings;
+    }
+
+    /**
+     * Returns the sum of all the ratings.
+     *
+     * @return The sum of the ratings
+     */
+    public long getRatingSum() {
+        return ratingSum;
+    }
+
+    /**
+     * Returns the number of ratings for the given star rating.
+     *
+     * @param rating The star rating, between 1 and 5
+     * @return The number of ratings for this star rating
+     */
+    public int getRatingCount(int rating) {
+        if (rating < RatingStatistics.MIN_RATING || rating > RatingStatistics.MAX_RATING) {
+            return 0;
+        }
+        return ratingCounts[rating - RatingStatistics.MIN_RATING];
+    }
+
+    /**
+     * Returns the share of the ratings for the given star rating, rounded to the nearest percent.
+     *
+     * @param rating The star rating, between 1 and 5
+     * @return The percentage of ratings for this star rating, between 0 and 100
+     */
+    public int getRatingPercentage(int rating) {
+        return percentage(getRatingCount(rating), totalRatings);
+    }
+
+    /**
+     * Returns the exact average of the ratings, computed from their sum and their number.
+     *
+     * @return The average rating, or 0 if there is no rating
+     */
+    public double getAverageRating() {
+        if (totalRatings == 0) {
+            return 0;
+        }
+        return (double) ratingSum / totalRatings;
+    }
+
+    /**
+     * Returns the average of the ratings rounded half up to the given number of decimals, for display purposes.
+     * <p>
+     * The rounding is performed in integer arithmetic on the sum and the number of ratings, so that an average
+     * lying exactly halfway between two displayed values, such as 4.25, is always rounded up.
+     *
+     * @param decimals The number of decimals, between 0 and {@link #MAX_AVERAGE_DECIMALS}
+     * @return The rounded average rating, or 0 if there is no rating
+     */
+    public float getRoundedAverageRating(int decimals) {
+        if (decimals < 0 || decimals > MAX_AVERAGE_DECIMALS) {
+            throw new IllegalArgumentException("The number of decimals must be between 0 and " + MAX_AVERAGE_DECIMALS);
+        }
+        if (totalRatings == 0) {
+            return 0;
+        }
+        long scale = POWERS_OF_TEN[decimals];
+        long scaledAverage = (2 * ratingSum * scale + totalRatings) / (2L * totalRatings);
+        return (float) scaledAverage / scale;
+    }
+
+    /**
+     * Computes the share of a count in a total, rounded half up to the nearest percent, in integer arithmetic.
+     *
+     * @param count The count
+     * @param total The total, 0 giving a percentage of 0
+     * @return The percentage, between 0 and 100
+     */
+    static int percentage(int count, int total) {
+        if (total == 0) {
+            return 0;
+        }
+        return (int) ((200L * count + total) / (2L * total));
+    }
+}
@@ -0,0 +1,165 @@
+package com.openclassrooms.tajmahal.domain.model;
+
+import java.util.Arrays;
+
+/**
+ * Keeps running statistics about the ratings of the restaurant reviews.
+ * <p>
+ * Instead of walking through the whole list of reviews each time the details screen is displayed,
+ * the counters (number of ratings, sum of the ratings and number of ratings per star) are updated
+ * each time a review is recorded or removed. Every value exposed by this class is therefore computed in constant time,
+ * whatever the number of reviews.
+ * <p>
+ * The statistics are published as immutable {@link RatingHistogram} snapshots, taken with {@link #snapshot()}.
+ */
+public class RatingStatistics {
+
+    // The lowest rating a review can have.
+    public static final int MIN_RATING = 1;
+
+    // The highest rating a review can have.
+    public static final int MAX_RATING = 5;
+
+    // The number of ratings for each star rating, index 0 holding the 1 star ratings.
+    private final int[] ratingCounts = new int[MAX_RATING - MIN_RATING + 1];
+
+    // The total number of ratings recorded.
+    private int totalRatings;
+
+    // The sum of all the ratings recorded.
+    private long ratingSum;
+
+    /**
+     * Constructor for empty rating statistics.
+     */
+    public RatingStatistics() {
+    }
+
+    /**
+     * Copy constructor, creating statistics holding the same counters as the given statistics.
+     *
+     * @param other The statistics to copy
+     */
+    public RatingStatistics(RatingStatistics other) {
+        System.arraycopy(other.ratingCounts, 0, ratingCounts, 0, ratingCounts.length);
+        totalRatings = other.totalRatings;
+        ratingSum = other.ratingSum;
+    }
+
+    /**
+     * Records a new rating in the statistics.
+     * Ratings outside of the range {@link #MIN_RATING} - {@link #MAX_RATING} are ignored.
+     *
+     * @param rating The rating to record
+     */
+    public void record(int rating) {
+        if (rating < MIN_RATING || rating > MAX_RATING) {
+            return;
+        }
+        ratingCounts[rating - MIN_RATING]++;
+        totalRatings++;
+        ratingSum += rating;
+    }
+
+    /**
+     * Removes a rating recorded in the statistics, when its review is deleted or its rating is changed.
+     * Ratings outside of the range {@link #MIN_RATING} - {@link #MAX_RATING}, or never recorded, are ignored.
+     *
+     * @param rating The rating to remove
+     */
+    public void remove(int rating) {
+        if (rating < MIN_RATING || rating > MAX_RATING || ratingCounts[rating - MIN_RATING] == 0) {
+            return;
+        }
+        ratingCounts[rating - MIN_RATING]--;
+        totalRatings--;
+        ratingSum -= rating;
+    }
+
+    /**
+     * Adds the counters of the given statistics to these statistics.
+     *
+     * @param other The statistics to add
+     */
+    public void addAll(RatingStatistics other) {
+        for (int i = 0; i < ratingCounts.length; i++) {
+            ratingCounts[i] += other.ratingCounts[i];
+        }
+        totalRatings += other.totalRatings;
+        ratingSum += other.ratingSum;
+    }
+
+    /**
+     * Resets every counter of the statistics to zero.
+     */
+    public void clear() {
+        Arrays.fill(ratingCounts, 0);
+        totalRatings = 0;
+        ratingSum = 0;
+    }
+
+    /**
+     * Takes an immutable snapshot of the statistics, which is not affected by the ratings recorded afterwards.
+     *
+     * @return The snapshot of the statistics
+     */
+    public RatingHistogram snapshot() {
+        if (totalRatings == 0) {
+            return RatingHistogram.EMPTY;
+        }
+        return new RatingHistogram(ratingCounts.clone(), totalRatings, ratingSum);
+    }
+
+    /**
+     * Returns the total number of ratings recorded.
+     *
+     * @return The total number of ratings
+     */
+    public int getTotalRatings() {
+        return totalRatings;
+    }
+
+    /**
+     * Returns the sum of all the ratings recorded.
+     *
+     * @return The sum of the ratings
+     */
+    public long getRatingSum() {
+        return ratingSum;
+    }
+
+    /**
+     * Returns the number of ratings recorded for the given star rating.
+     *
+     * @param rating The star rating, between 1 and 5
+     * @return The number of ratings for this star rating
+     */
+    public int getRatingCount(int rating) {
+        if (rating < MIN_RATING || rating > MAX_RATING) {
+            return 0;
+        }
+        return ratingCounts[rating - MIN_RATING];
+    }
+
+    /**
+     * Returns the share of the ratings recorded for the given star rating, rounded to the nearest percent.
+     *
+     * @param rating The star rating, between 1 and 5
+     * @return The percentage of ratings for this star rating, between 0 and 100
+     */
+    public int getRatingPercentage(int rating) {
+        return RatingHistogram.percentage(getRatingCount(rating), totalRatings);
+    }
+
+    /**
+     * Returns the exact average of the ratings recorded, computed from their sum and their number.
+     *
+     * @return The average rating, or 0 if no rating has been recorded
+     */
+    public double getAverageRating() {
+        if (totalRatings == 0) {
+            return 0;
+        }
+        return (double) ratingSum / totalRatings;
+    }
+}
@@ -6,7 +6,7 @@ import java.util.Objects;
 /**
  * Represents a restaurant and its various attributes.
  * <p>
- * This class models a restaurant with its name, type (e.g., Indian, Italian), operational hours,
+ * This class models a restaurant with its identifier, name, type (e.g., Indian, Italian), operational hours,
  * address, website, phone number, and availability of dine-in and take-away options.
  * </p>
  * <p>
@@ -15,13 +15,14 @@ import java.util.Objects;
  * <p>
  * Example:
  * <pre>
- * Restaurant tajMahal = new Restaurant("Taj Mahal", "Indian", "11h30 - 22h00",
+ * Restaurant tajMahal = new Restaurant(1, "Taj Mahal", "Indian", "11h30 - 22h00",
  *                                      "123 Street", "http://tajmahal.com", "1234567890", true, false);
  * </pre>
  */
 public class Restaurant {
 
     // Member variables representing attributes of a restaurant.
+    private long id;
     private String name;
     private String type;
     private String hours;
@@ -35,6 +36,7 @@ public class Restaurant {
     /**
      * Constructor for the Restaurant class.
      *
+     * @param id          The identifier of the restaurant among the restaurants of the chain.
      * @param name        The name of the restaurant.
      * @param type        The type or cuisine of the restaurant (e.g., Indian, Italian).
      * @param hours       The operational hours of the restaurant.
@@ -44,7 +46,8 @@ public class Restaurant {
      * @param dineIn      A boolean indicating if dine-in is available.
      * @param takeAway    A boolean indicating if take-away service is available.
      */
-    public Restaurant(String name, String type, String hours, String address, String website, String phoneNumber, boolean dineIn, boolean takeAway) {
+    public Restaurant(long id, String name, String type, String hours, String address, String website, String phoneNumber, boolean dineIn, boolean takeAway) {
+        this.id = id;
         this.name = name;
         this.type = type;
         this.hours = hours;
@@ -60,12 +63,20 @@ public class Restaurant {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Restaurant that = (Restaurant) o;
-        return dineIn == that.dineIn && takeAway == that.takeAway && Objects.equals(name, that.name) && Objects.equals(type, that.type) && Objects.equals(hours, that.hours) && Objects.equals(address, that.address) && Objects.equals(website, that.website) && Objects.equals(phoneNumber, that.phoneNumber);
+        return id == that.id && dineIn == that.dineIn && takeAway == that.takeAway && Objects.equals(name, that.name) && Objects.equals(type, that.type) && Objects.equals(hours, that.hours) && Objects.equals(address, that.address) && Objects.equals(website, that.website) && Objects.equals(phoneNumber, that.phoneNumber);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(name, type, hours, address, website, phoneNumber, dineIn, takeAway);
+        return Objects.hash(id, name, type, hours, address, website, phoneNumber, dineIn, takeAway);
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
     }
 
     public String getName() {
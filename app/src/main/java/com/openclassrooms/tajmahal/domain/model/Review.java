@@ -1,16 +1,39 @@
 package com.openclassrooms.tajmahal.domain.model;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Objects;
 
 /**
  * Represents a review for the restaurant.
+ * <p>
+ * Reviews are immutable and kept compact, as the lists of reviews are the largest objects held by the app:
+ * the rating is a primitive, the author names and avatar URLs, repeated across many reviews, are shared through
+ * a {@link StringPool}, and long contents are kept encoded in UTF-8, which is about half the size of a string
+ * of accented text, and only decoded when read.
  */
-public class Review {
+public final class Review {
+    // The value of the rating of a review without rating.
+    public static final int NO_RATING = Integer.MIN_VALUE;
+
+    // The length from which the content is kept encoded in UTF-8 rather than as a string.
+    static final int ENCODED_CONTENT_LENGTH = 64;
+
+    // Parameters of the 64-bit FNV-1a hash function used to compute the fingerprint of a review.
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    // The pool sharing the author names and avatar URLs of all the reviews.
+    private static final StringPool STRING_POOL = new StringPool();
+
     // Member variables representing attributes of a review.
     private final String author;
     private final String avatarUrl;
-    private final String content;
-    private final Integer rating;
+    // Either the content as a string, or the content encoded in UTF-8 if it is long.
+    private final Object content;
+    private final int rating;
+    // The fingerprint of the review, computed once as it is read for each bind and each diff of the list of reviews.
+    private final long fingerprint;
 
     /**
      * Constructor for the review class.
@@ -18,13 +41,26 @@ public class Review {
      * @param author    The author of the review
      * @param avatarUrl The URL of the author's avatar
      * @param content   The content of the review
-     * @param rating    The rating of the review, between 1 and 5
+     * @param rating    The rating of the review, between 1 and 5, or null if the review has no rating
      */
     public Review(String author, String avatarUrl, String content, Integer rating) {
-        this.author = author;
-        this.avatarUrl = avatarUrl;
-        this.content = content;
+        this(author, avatarUrl, content, rating == null ? NO_RATING : rating);
+    }
+
+    /**
+     * Constructor for the review class, taking the rating as a primitive.
+     *
+     * @param author    The author of the review
+     * @param avatarUrl The URL of the author's avatar
+     * @param content   The content of the review
+     * @param rating    The rating of the review, between 1 and 5, or {@link #NO_RATING} if the review has no rating
+     */
+    public Review(String author, String avatarUrl, String content, int rating) {
+        this.author = STRING_POOL.intern(author);
+        this.avatarUrl = STRING_POOL.intern(avatarUrl);
+        this.content = encode(content);
         this.rating = rating;
+        this.fingerprint = computeFingerprint();
     }
 
     /**
@@ -46,23 +82,131 @@ public class Review {
     }
 
     /**
-     * Returns the content of the review.
+     * Returns the content of the review. A long content is decoded on each call, so callers needing it
+     * several times should keep the returned string. It is read once per bind of its row, and once by the search
+     * index when the review is indexed, the searches reading the postings only: a decoded copy is not kept, as it
+     * would take back the memory the encoding saves.
      *
      * @return The content of the review
      */
     public String getContent() {
-        return content;
+        if (content instanceof byte[]) {
+            return new String((byte[]) content, StandardCharsets.UTF_8);
+        }
+        return (String) content;
     }
 
     /**
      * Returns the rating of the review.
      *
-     * @return The rating of the review
+     * @return The rating of the review, or null if the review has no rating
      */
     public Integer getRating() {
+        return rating == NO_RATING ? null : rating;
+    }
+
+    /**
+     * Returns the rating of the review as a primitive, without boxing it.
+     *
+     * @return The rating of the review, or {@link #NO_RATING} if the review has no rating
+     */
+    public int getRatingValue() {
         return rating;
     }
 
+    /**
+     * Returns a 64-bit fingerprint of the review, computed from its author, avatar URL, content and rating.
+     * <p>
+     * Two equal reviews have the same fingerprint. Being wider than {@link #hashCode()}, the fingerprint
+     * is unlikely to collide even across large sets of reviews, and is used as the stable identity of a review,
+     * for instance as the stable ID of its row in the list of reviews.
+     *
+     * @return The fingerprint of the review
+     */
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Computes the fingerprint of the review from its fields, using the FNV-1a hash function.
+     *
+     * @return The fingerprint of the review
+     */
+    private long computeFingerprint() {
+        long fingerprint = FNV_OFFSET_BASIS;
+        fingerprint = fingerprint(fingerprint, author);
+        fingerprint = fingerprint(fingerprint, avatarUrl);
+        if (content instanceof byte[]) {
+            fingerprint = fingerprint(fingerprint, (byte[]) content);
+        } else {
+            fingerprint = fingerprint(fingerprint, (String) content);
+        }
+        fingerprint = (fingerprint ^ (rating == NO_RATING ? -1 : rating)) * FNV_PRIME;
+        return fingerprint;
+    }
+
+    /**
+     * Mixes the characters of the given string into the fingerprint, using the FNV-1a hash function.
+     *
+     * @param fingerprint The fingerprint computed so far
+     * @param value       The string to mix in, possibly null
+     * @return The updated fingerprint
+     */
+    private static long fingerprint(long fingerprint, String value) {
+        if (value == null) {
+            return (fingerprint ^ 0xFF) * FNV_PRIME;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            fingerprint = (fingerprint ^ value.charAt(i)) * FNV_PRIME;
+        }
+        // Separates the fields, so that moving characters from one field to the next changes the fingerprint
+        return (fingerprint ^ 0xFE) * FNV_PRIME;
+    }
+
+    /**
+     * Mixes the characters of the given UTF-8 encoded string into the fingerprint, decoding them on the fly,
+     * so that the fingerprint of a review does not depend on how its content is kept.
+     *
+     * @param fingerprint The fingerprint computed so far
+     * @param value       The string encoded in UTF-8, without surrogate characters
+     * @return The updated fingerprint
+     */
+    private static long fingerprint(long fingerprint, byte[] value) {
+        int i = 0;
+        while (i < value.length) {
+            int b = value[i++] & 0xFF;
+            int c;
+            if (b < 0x80) {
+                c = b;
+            } else if (b < 0xE0) {
+                c = (b & 0x1F) << 6 | (value[i++] & 0x3F);
+            } else {
+                c = (b & 0x0F) << 12 | (value[i++] & 0x3F) << 6 | (value[i++] & 0x3F);
+            }
+            fingerprint = (fingerprint ^ c) * FNV_PRIME;
+        }
+        return (fingerprint ^ 0xFE) * FNV_PRIME;
+    }
+
+    /**
+     * Encodes a long content in UTF-8. Short contents, and contents holding characters outside of
+     * the Basic Multilingual Plane, such as emojis, are kept as strings.
+     *
+     * @param content The content of the review, possibly null
+     * @return The content as it is kept by the review
+     */
+    private static Object encode(String content) {
+        if (content == null || content.length() < ENCODED_CONTENT_LENGTH) {
+            return content;
+        }
+        for (int i = 0; i < content.length(); i++) {
+            if (Character.isSurrogate(content.charAt(i))) {
+                return content;
+            }
+        }
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+
     /**
      * Compares this review to the specified object.
      * The result is true if and only if the argument is not null and is a Review object that contains the same author, avatar URL, content and rating as this review.
@@ -79,9 +223,27 @@ public class Review {
             return false;
         }
         Review other = (Review) obj;
-        return Objects.equals(getRating(), other.getRating()) &&
-                Objects.equals(getAuthor(), other.getAuthor()) &&
-                Objects.equals(getAvatarUrl(), other.getAvatarUrl()) &&
-                Objects.equals(getContent(), other.getContent());
+        // Reviews with different fingerprints differ, which rejects most unequal reviews without comparing their fields.
+        // A content is always kept the same way, so equal contents are either equal strings or equal encodings
+        return fingerprint == other.fingerprint &&
+                rating == other.rating &&
+                Objects.equals(author, other.author) &&
+                Objects.equals(avatarUrl, other.avatarUrl) &&
+                Objects.deepEquals(content, other.content);
+    }
+
+    /**
+     * Returns a hash code value for this review, consistent with {@link #equals(Object)}.
+     * Two reviews with the same author, avatar URL, content and rating have the same hash code,
+     * which allows reviews to be stored in hashed collections.
+     *
+     * @return The hash code of the review
+     */
+    @Override
+    public int hashCode() {
+        int hash = Objects.hashCode(author);
+        hash = 31 * hash + Objects.hashCode(avatarUrl);
+        hash = 31 * hash + (content instanceof byte[] ? Arrays.hashCode((byte[]) content) : Objects.hashCode(content));
+        return 31 * hash + rating;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,59 @@
+package com.openclassrooms.tajmahal.domain.model;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Represents a page of reviews returned by the API.
+ * <p>
+ * The reviews are ordered from the newest to the oldest. The cursor of the page is an opaque token
+ * to give back to the API to fetch the following page, and is null when there are no more reviews to load.
+ */
+public class ReviewPage {
+    // Member variables representing attributes of a page of reviews.
+    private final List<Review> reviews;
+    private final String nextCursor;
+
+    /**
+     * Constructor for the ReviewPage class.
+     *
+     * @param reviews    The reviews of the page, newest first
+     * @param nextCursor The cursor of the next page, or null if this page is the last one
+     */
+    public ReviewPage(@NonNull List<Review> reviews, @Nullable String nextCursor) {
+        this.reviews = Collections.unmodifiableList(reviews);
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Returns the reviews of the page.
+     *
+     * @return The reviews of the page, newest first
+     */
+    @NonNull
+    public List<Review> getReviews() {
+        return reviews;
+    }
+
+    /**
+     * Returns the cursor to use to fetch the next page.
+     *
+     * @return The cursor of the next page, or null if this page is the last one
+     */
+    @Nullable
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * Indicates whether there are more reviews to load after this page.
+     *
+     * @return true if another page can be fetched; false otherwise
+     */
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,47 @@
+package com.openclassrooms.tajmahal.domain.model;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Represents a review submitted to the API, along with its idempotency key.
+ * <p>
+ * The key is generated once, when the review is queued for submission, and sent again with every retry.
+ * The API ignores the submissions whose key it has already accepted, so a review is never published twice
+ * even if the acknowledgement of a submission was lost.
+ */
+public class ReviewSubmission {
+    // Member variables representing attributes of a submission.
+    private final String idempotencyKey;
+    private final Review review;
+
+    /**
+     * Constructor for the ReviewSubmission class.
+     *
+     * @param idempotencyKey The key identifying the submission across retries
+     * @param review         The submitted review
+     */
+    public ReviewSubmission(@NonNull String idempotencyKey, @NonNull Review review) {
+        this.idempotencyKey = idempotencyKey;
+        this.review = review;
+    }
+
+    /**
+     * Returns the key identifying the submission across retries.
+     *
+     * @return The idempotency key
+     */
+    @NonNull
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    /**
+     * Returns the submitted review.
+     *
+     * @return The review
+     */
+    @NonNull
+    public Review getReview() {
+        return review;
+    }
+}
@@ -0,0 +1,103 @@
+package com.openclassrooms.tajmahal.domain.model;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pool of strings, so that equal strings read from different sources share a single instance.
+ * <p>
+ * The reviews of a restaurant repeat the same author names and avatar URLs a lot, and each review read from
+ * the API or from the database comes with its own copy of them. Going through the pool keeps one copy per value.
+ * The pool only holds weak references: a value no longer used by any review is reclaimed by the garbage collector,
+ * and its entry is dropped on the next call, so the pool never grows beyond the strings in use.
+ * <p>
+ * The pool is shared by the reviews of all the restaurants, built on the threads of the repository, so it is backed
+ * by a {@link ConcurrentHashMap} rather than a synchronized map: interning a value already pooled takes no lock.
+ */
+public final class StringPool {
+
+    // The canonical instance of each pooled value, each entry being its own key.
+    private final ConcurrentHashMap<Entry, Entry> values = new ConcurrentHashMap<>();
+
+    // The entries whose value has been reclaimed by the garbage collector, to be removed from the pool.
+    private final ReferenceQueue<String> reclaimed = new ReferenceQueue<>();
+
+    /**
+     * Weak reference to a pooled value, equal to the entries of an equal value as long as the value is reachable.
+     */
+    private static final class Entry extends WeakReference<String> {
+
+        // The hash code of the value, kept to find the entry once the value has been reclaimed.
+        private final int hash;
+
+        Entry(String value, ReferenceQueue<String> queue) {
+            super(value, queue);
+            this.hash = value.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Entry)) {
+                return false;
+            }
+            // A reclaimed entry is only equal to itself, so that it can still be removed
+            String value = get();
+            return value != null && value.equals(((Entry) obj).get());
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Returns the canonical instance of the given string, adding it to the pool if it is not pooled yet.
+     *
+     * @param value The string, possibly null
+     * @return A string equal to the given one, shared by all the callers asking for this value; null for null
+     */
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        removeReclaimed();
+        Entry entry = new Entry(value, reclaimed);
+        while (true) {
+            Entry pooled = values.putIfAbsent(entry, entry);
+            if (pooled == null) {
+                return value;
+            }
+            String canonical = pooled.get();
+            if (canonical != null) {
+                return canonical;
+            }
+            // The pooled value has just been reclaimed: drop its entry and pool the given value instead
+            values.remove(pooled, pooled);
+        }
+    }
+
+    /**
+     * Returns the number of distinct values currently held by the pool.
+     *
+     * @return The number of pooled values
+     */
+    public int size() {
+        removeReclaimed();
+        return values.size();
+    }
+
+    /**
+     * Removes the entries whose value has been reclaimed by the garbage collector.
+     */
+    private void removeReclaimed() {
+        Object entry;
+        while ((entry = reclaimed.poll()) != null) {
+            values.remove(entry, entry);
+        }
+    }
+}
@@ -6,9 +6,12 @@ import android.view.View;
 import androidx.appcompat.app.AppCompatActivity;
 
 import com.openclassrooms.tajmahal.R;
+import com.openclassrooms.tajmahal.data.repository.ReviewRepository;
 import com.openclassrooms.tajmahal.databinding.ActivityMainBinding;
 import com.openclassrooms.tajmahal.ui.restaurant.DetailsFragment;
 
+import javax.inject.Inject;
+
 import dagger.hilt.android.AndroidEntryPoint;
 
 @AndroidEntryPoint
@@ -16,6 +19,10 @@ public class MainActivity extends AppCompatActivity {
 
     private ActivityMainBinding binding;
 
+    // The repository of the reviews, whose snapshots are written when the application goes to the background.
+    @Inject
+    ReviewRepository reviewRepository;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -29,4 +36,11 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
+    @Override
+    protected void onStop() {
+        super.onStop();
+        // The process may be killed in the background: keep the reviews fetched so far for the next startup
+        reviewRepository.writeSnapshots();
+    }
+
 }
\ No newline at end of file
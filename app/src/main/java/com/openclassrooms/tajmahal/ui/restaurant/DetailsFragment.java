@@ -19,10 +19,11 @@ import androidx.fragment.app.FragmentTransaction;
 import androidx.lifecycle.ViewModelProvider;
 
 import com.openclassrooms.tajmahal.R;
+import com.openclassrooms.tajmahal.data.repository.LoadState;
 import com.openclassrooms.tajmahal.databinding.FragmentDetailsBinding;
+import com.openclassrooms.tajmahal.domain.model.RatingHistogram;
 import com.openclassrooms.tajmahal.domain.model.Restaurant;
 
-import java.util.List;
 import java.util.Locale;
 
 import dagger.hilt.android.AndroidEntryPoint;
@@ -38,6 +39,9 @@ import dagger.hilt.android.AndroidEntryPoint;
 @AndroidEntryPoint
 public class DetailsFragment extends Fragment {
 
+    // Key of the argument holding the identifier of the displayed restaurant
+    private static final String ARG_RESTAURANT_ID = "restaurant_id";
+
     private FragmentDetailsBinding binding;
     private DetailsViewModel detailsViewModel;
 
@@ -86,21 +90,24 @@ public class DetailsFragment extends Fragment {
         setupUI();
         // Prepares the ViewModel for the fragment
         setupViewModel();
-        // Observes changes in the restaurant data and updates the UI accordingly
-        detailsViewModel.getTajMahalRestaurant().observe(requireActivity(), this::updateUIWithRestaurant);
+        // Observes changes in the restaurant data and updates the UI accordingly, as long as the view of the fragment exists.
+        // The observers are removed with the view, so that replacing the fragment never leaves them behind.
+        detailsViewModel.getRestaurant().observe(getViewLifecycleOwner(), this::updateUIWithRestaurant);
+        // Observes the state of the loading of the restaurant data and reports errors
+        detailsViewModel.getRestaurantLoadState().observe(getViewLifecycleOwner(), this::updateUIWithLoadState);
         // Observes changes in totalRatings and updates the UI accordingly
-        detailsViewModel.getTajMahalTotalRatings().observe(requireActivity(), this::updateUIWithTotalRatings);
+        detailsViewModel.getTotalRatings().observe(getViewLifecycleOwner(), this::updateUIWithTotalRatings);
         // Observes changes in ratingCount and updates the UI accordingly
-        detailsViewModel.getTajMahalRatingCount().observe(requireActivity(), this::updateUIWithRatingCount);
+        detailsViewModel.getRatingCount().observe(getViewLifecycleOwner(), this::updateUIWithRatingCount);
         // Observes changes in averageRating and updates the UI accordingly
-        detailsViewModel.getTajMahalAverageRating().observe(requireActivity(), this::updateUIWithAverageRating);
+        detailsViewModel.getAverageRating().observe(getViewLifecycleOwner(), this::updateUIWithAverageRating);
 
         binding.buttonLeaveReview.setEnabled(true);
         binding.buttonLeaveReview.setOnClickListener(new View.OnClickListener() {
 
             /**
              * This method is called when the buttonLeaveReview button is clicked.
-             * It replaces the current fragment with a new instance of ReviewFragment in the UI.
+             * It replaces the current fragment with a new instance of ReviewFragment for the same restaurant in the UI.
              *
              * @param view The view that was clicked.
              */
@@ -108,7 +115,7 @@ public class DetailsFragment extends Fragment {
             public void onClick(View view) {
                 FragmentManager fragmentManager = getParentFragmentManager();
                 FragmentTransaction fragmentTransaction = fragmentManager.beginTransaction();
-                ReviewFragment reviewFragment = new ReviewFragment();
+                ReviewFragment reviewFragment = ReviewFragment.newInstance(detailsViewModel.getRestaurantId());
                 fragmentTransaction.replace(R.id.container, reviewFragment);
                 fragmentTransaction.commit();
             }
@@ -119,10 +126,15 @@ public class DetailsFragment extends Fragment {
     }
 
     /**
-     * Initializes the ViewModel for this activity.
+     * Initializes the ViewModel for this activity, displaying the restaurant given in the arguments of the fragment.
+     * The ViewModel is scoped to the activity, so that the details screen and the review screen share the same one,
+     * and it outlives the fragments replacing each other.
      */
     private void setupViewModel() {
-        detailsViewModel = new ViewModelProvider(this).get(DetailsViewModel.class);
+        detailsViewModel = new ViewModelProvider(requireActivity()).get(DetailsViewModel.class);
+        Bundle arguments = getArguments();
+        detailsViewModel.selectRestaurant(arguments == null ? DetailsViewModel.DEFAULT_RESTAURANT_ID
+                : arguments.getLong(ARG_RESTAURANT_ID, DetailsViewModel.DEFAULT_RESTAURANT_ID));
     }
 
     /**
@@ -162,6 +174,17 @@ public class DetailsFragment extends Fragment {
         binding.buttonWebsite.setOnClickListener(v -> openBrowser(restaurant.getWebsite()));
     }
 
+    /**
+     * Reports the failure of the loading of the restaurant data.
+     *
+     * @param loadState The state of the last load of the restaurant data.
+     */
+    private void updateUIWithLoadState(LoadState loadState) {
+        if (loadState.getStatus() == LoadState.Status.ERROR) {
+            Toast.makeText(requireActivity(), R.string.error_loading_restaurant, Toast.LENGTH_SHORT).show();
+        }
+    }
+
     /**
      * Updates the UI components with the provided ratings data.
      *
@@ -175,14 +198,14 @@ public class DetailsFragment extends Fragment {
     /**
      * Updates the UI components with the provided ratings data.
      *
-     * @param ratingCount The ratingCount object containing details to be displayed.
+     * @param ratingCount The histogram of the ratings, whose percentages are displayed in the progress bars.
      */
-    private void updateUIWithRatingCount(List<Integer> ratingCount) {
-        binding.pbRateValue5.setProgress(ratingCount.get(4));
-        binding.pbRateValue4.setProgress(ratingCount.get(3));
-        binding.pbRateValue3.setProgress(ratingCount.get(2));
-        binding.pbRateValue2.setProgress(ratingCount.get(1));
-        binding.pbRateValue1.setProgress(ratingCount.get(0));
+    private void updateUIWithRatingCount(RatingHistogram ratingCount) {
+        binding.pbRateValue5.setProgress(ratingCount.getRatingPercentage(5));
+        binding.pbRateValue4.setProgress(ratingCount.getRatingPercentage(4));
+        binding.pbRateValue3.setProgress(ratingCount.getRatingPercentage(3));
+        binding.pbRateValue2.setProgress(ratingCount.getRatingPercentage(2));
+        binding.pbRateValue1.setProgress(ratingCount.getRatingPercentage(1));
     }
 
     /**
@@ -191,7 +214,7 @@ public class DetailsFragment extends Fragment {
      * @param averageRating The averageRating object containing details to be displayed.
      */
     private void updateUIWithAverageRating(Float averageRating) {
-        binding.tvRestaurantRate.setText(String.format(Locale.getDefault(), "%.1f", averageRating));
+        binding.tvRestaurantRate.setText(String.format(Locale.getDefault(), "%." + DetailsViewModel.AVERAGE_RATING_DECIMALS + "f", averageRating));
         binding.rbRestaurant.setRating(averageRating);
     }
 
@@ -244,12 +267,26 @@ public class DetailsFragment extends Fragment {
     }
 
     /**
-     * This method is used to create a new instance of DetailsFragment.
+     * This method is used to create a new instance of DetailsFragment displaying the Taj Mahal.
      *
      * @return a new instance of DetailsFragment.
      */
     public static DetailsFragment newInstance() {
-        return new DetailsFragment();
+        return newInstance(DetailsViewModel.DEFAULT_RESTAURANT_ID);
+    }
+
+    /**
+     * This method is used to create a new instance of DetailsFragment displaying the given restaurant.
+     *
+     * @param restaurantId The identifier of the restaurant to display.
+     * @return a new instance of DetailsFragment.
+     */
+    public static DetailsFragment newInstance(long restaurantId) {
+        Bundle arguments = new Bundle();
+        arguments.putLong(ARG_RESTAURANT_ID, restaurantId);
+        DetailsFragment fragment = new DetailsFragment();
+        fragment.setArguments(arguments);
+        return fragment;
     }
 
 }
\ No newline at end of file
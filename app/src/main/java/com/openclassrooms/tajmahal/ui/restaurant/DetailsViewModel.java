@@ -3,18 +3,20 @@ package com.openclassrooms.tajmahal.ui.restaurant;
 import android.content.Context;
 
 import androidx.lifecycle.LiveData;
-import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.MediatorLiveData;
 import androidx.lifecycle.ViewModel;
 
 import com.openclassrooms.tajmahal.R;
+import com.openclassrooms.tajmahal.data.repository.LoadState;
 import com.openclassrooms.tajmahal.data.repository.RestaurantRepository;
 import com.openclassrooms.tajmahal.data.repository.ReviewRepository;
+import com.openclassrooms.tajmahal.data.repository.ReviewSort;
+import com.openclassrooms.tajmahal.domain.model.RatingHistogram;
 import com.openclassrooms.tajmahal.domain.model.Restaurant;
 import com.openclassrooms.tajmahal.domain.model.Review;
 
 import java.util.ArrayList;
 import java.util.Calendar;
-import java.util.Collections;
 import java.util.List;
 
 import javax.inject.Inject;
@@ -26,16 +28,77 @@ import dagger.hilt.android.lifecycle.HiltViewModel;
  * It communicates with the {@link RestaurantRepository} and {@link ReviewRepository} to fetch restaurant and reviews details and provides
  * utility methods related to the restaurant UI and review UI.
  * <p>
+ * The ViewModel displays the restaurant selected with {@link #selectRestaurant(long)}. Its LiveData objects stay the same
+ * whatever the selected restaurant, as they follow the LiveData of the repositories for the selected restaurant.
+ * <p>
+ * The ViewModel is scoped to the activity and shared by both fragments, which observe its LiveData objects with the lifecycle
+ * of their view. Each fragment going back and forth between the screens therefore adds observers to the same LiveData objects
+ * and removes them with its view, so that the number of observers does not grow along the session.
+ * <p>
+ * The reviews displayed by the review screen are either all the reviews, or the reviews matching the query set with
+ * {@link #searchReviews(String)}, searched again each time the reviews change. They can be restricted to a rating with
+ * {@link #filterReviews(int)} and sorted with {@link #sortReviews(ReviewSort)}, the repository keeping the reviews
+ * split by rating so that switching views does not filter nor sort every review again.
+ * <p>
  * This ViewModel is integrated with Hilt for dependency injection.
  */
 @HiltViewModel
 public class DetailsViewModel extends ViewModel {
 
+    // The number of decimals to which the average rating is displayed.
+    public static final int AVERAGE_RATING_DECIMALS = 1;
+
+    // The identifier of the restaurant displayed when none is specified: the Taj Mahal.
+    public static final long DEFAULT_RESTAURANT_ID = 1;
+
+    // The largest number of reviews found by a search.
+    public static final int SEARCH_RESULTS_LIMIT = 100;
+
+    // The identifier of the selected restaurant, before any selection.
+    private static final long NO_RESTAURANT = 0;
+
     private final RestaurantRepository restaurantRepository;
     private final ReviewRepository reviewRepository;
 
+    // The identifier of the restaurant displayed by the ViewModel.
+    private long restaurantId = NO_RESTAURANT;
+
+    // The data of the selected restaurant, following the LiveData of the repositories for this restaurant.
+    private final MediatorLiveData<Restaurant> restaurant = new MediatorLiveData<>();
+    private final MediatorLiveData<LoadState> restaurantLoadState = new MediatorLiveData<>();
+    private final MediatorLiveData<List<Review>> reviews = new MediatorLiveData<>();
+    private final MediatorLiveData<LoadState> reviewsLoadState = new MediatorLiveData<>();
+    private final MediatorLiveData<RatingHistogram> ratingStatistics = new MediatorLiveData<>();
+
+    // The LiveData of the repositories currently followed, for the selected restaurant.
+    private LiveData<Restaurant> restaurantSource;
+    private LiveData<LoadState> restaurantLoadStateSource;
+    private LiveData<List<Review>> reviewsSource;
+    private LiveData<LoadState> reviewsLoadStateSource;
+    private LiveData<RatingHistogram> ratingStatisticsSource;
+
+    // The query searched in the reviews, empty to display all the reviews.
+    private String searchQuery = "";
+
+    // The rating of the displayed reviews, or ReviewRepository.ALL_RATINGS to display every review.
+    private int ratingFilter = ReviewRepository.ALL_RATINGS;
+
+    // The order of the displayed reviews, unless searching.
+    private ReviewSort reviewSort = ReviewSort.NEWEST_FIRST;
+
+    // The reviews displayed: all the reviews, or the reviews matching the search query, filtered by rating.
+    private final MediatorLiveData<List<Review>> displayedReviews = new MediatorLiveData<>();
+
+    // The version of the reviews from which the displayed reviews were derived.
+    private long displayedReviewsVersion = ReviewRepository.NO_VERSION;
+
+    // Cached rating aggregates, derived in constant time from the running statistics of the repository.
+    private final MediatorLiveData<Integer> totalRatings = new MediatorLiveData<>();
+    private final MediatorLiveData<Float> averageRating = new MediatorLiveData<>();
+
     /**
      * Constructor that Hilt will use to create an instance of MainViewModel.
+     * Nothing is loaded until a restaurant is selected with {@link #selectRestaurant(long)}.
      *
      * @param restaurantRepository The repository which will provide restaurant data.
      * @param reviewRepository     The repository which will provide review data.
@@ -44,95 +107,281 @@ public class DetailsViewModel extends ViewModel {
     public DetailsViewModel(RestaurantRepository restaurantRepository, ReviewRepository reviewRepository) {
         this.restaurantRepository = restaurantRepository;
         this.reviewRepository = reviewRepository;
+
+        totalRatings.addSource(ratingStatistics, statistics -> totalRatings.setValue(statistics.getTotalRatings()));
+        averageRating.addSource(ratingStatistics, statistics -> averageRating.setValue(toDisplayedAverageRating(statistics)));
+        displayedReviews.addSource(reviews, allReviews -> {
+            // The reviews are delivered again each time the review screen observes them: nothing to derive if they did not change.
+            // The version is peeked, so that the reviews of a restaurant evicted meanwhile are not loaded again here
+            if (reviewRepository.peekVersion(getRestaurantId()) != displayedReviewsVersion) {
+                updateDisplayedReviews();
+            }
+        });
     }
 
     /**
-     * Fetches the details of the Taj Mahal restaurant.
+     * Selects the restaurant displayed by the ViewModel, and starts loading its details and its reviews.
+     * Selecting the restaurant already displayed keeps its reviews as they are while the repository keeps them loaded,
+     * but requests its details again, so that they are revalidated in the background once stale. If the repository
+     * evicted its reviews meanwhile, they are loaded again and followed from then on.
      *
-     * @return LiveData object containing the details of the Taj Mahal restaurant.
+     * @param restaurantId The identifier of the restaurant.
      */
-    public LiveData<Restaurant> getTajMahalRestaurant() {
-        return restaurantRepository.getRestaurant();
+    public void selectRestaurant(long restaurantId) {
+        this.restaurantId = restaurantId;
+        // The repositories return the same LiveData while the details are cached and the reviews are loaded, in which
+        // case the sources are kept; the LiveData of the reviews of a restaurant evicted meanwhile are new ones
+        restaurantSource = follow(restaurant, restaurantSource, restaurantRepository.getRestaurant(restaurantId));
+        restaurantLoadStateSource = follow(restaurantLoadState, restaurantLoadStateSource, restaurantRepository.getLoadState(restaurantId));
+        reviewsSource = follow(reviews, reviewsSource, reviewRepository.getReviews(restaurantId));
+        reviewsLoadStateSource = follow(reviewsLoadState, reviewsLoadStateSource, reviewRepository.getLoadState(restaurantId));
+        ratingStatisticsSource = follow(ratingStatistics, ratingStatisticsSource, reviewRepository.getRatingStatistics(restaurantId));
     }
 
     /**
-     * Fetches the list of reviews of the Taj Mahal restaurant.
+     * Makes the given MediatorLiveData follow a new source instead of the previous one.
      *
-     * @return LiveData object containing the list of reviews of the Taj Mahal restaurant.
+     * @param mediator  The LiveData exposed by the ViewModel.
+     * @param oldSource The source followed until now, or null.
+     * @param newSource The source to follow.
+     * @param <T>       The type of the data.
+     * @return The new source.
      */
-    public LiveData<List<Review>> getTajMahalReviews() {
-        return reviewRepository.getReviews();
+    private static <T> LiveData<T> follow(MediatorLiveData<T> mediator, LiveData<T> oldSource, LiveData<T> newSource) {
+        if (oldSource == newSource) {
+            return newSource;
+        }
+        if (oldSource != null) {
+            mediator.removeSource(oldSource);
+        }
+        mediator.addSource(newSource, mediator::setValue);
+        return newSource;
     }
 
     /**
-     * Retrieves the total number of ratings for the Taj Mahal restaurant.
+     * Returns the identifier of the selected restaurant.
      *
-     * @return a MutableLiveData object containing the total number of ratings for the Taj Mahal restaurant.
+     * @return The identifier of the restaurant displayed by the ViewModel.
+     * @throws IllegalStateException if no restaurant has been selected yet.
      */
-    public MutableLiveData<Integer> getTajMahalTotalRatings() {
-        MutableLiveData<Integer> totalRatingsLiveData = new MutableLiveData<>();
-        List<Review> reviews = reviewRepository.getReviews().getValue();
-        int totalRatings = 0;
-        // The total number of reviews is retrieved
-        if (reviews != null) {
-            totalRatings = reviews.size();
+    public long getRestaurantId() {
+        if (restaurantId == NO_RESTAURANT) {
+            throw new IllegalStateException("No restaurant selected");
         }
-        totalRatingsLiveData.setValue(totalRatings);
-        return totalRatingsLiveData;
+        return restaurantId;
+    }
+
+    /**
+     * Fetches the details of the selected restaurant.
+     *
+     * @return LiveData object containing the details of the selected restaurant.
+     */
+    public LiveData<Restaurant> getRestaurant() {
+        return restaurant;
     }
 
     /**
-     * Retrieves the rating count details for the Taj Mahal restaurant.
+     * Fetches the list of reviews of the selected restaurant.
      *
-     * @return a MutableLiveData object containing a list of integers representing the rating count details for the Taj Mahal restaurant.
-     * Each integer corresponds to the number of ratings for a particular star rating.
+     * @return LiveData object containing the list of reviews of the selected restaurant.
      */
-    public MutableLiveData<List<Integer>> getTajMahalRatingCount() {
-        MutableLiveData<List<Integer>> ratingCountLiveData = new MutableLiveData<>();
-        List<Review> reviews = reviewRepository.getReviews().getValue();
-        List<Integer> ratingCount = new ArrayList<>(Collections.nCopies(5, 0));
-        Integer totalRatings = getTajMahalTotalRatings().getValue();
+    public LiveData<List<Review>> getReviews() {
+        return reviews;
+    }
 
-        if (reviews != null) {
-            // The list is iterated through
-            for (Review review : reviews) {
-                int rating = review.getRating();
-                // For ratings between 1 and 5 stars, the corresponding counter is increased by 1
-                if (rating >= 1 && rating <= 5) {
-                    ratingCount.set(rating - 1, ratingCount.get(rating - 1) + 1);
-                }
-            }
+    /**
+     * Fetches the reviews to display: all the reviews of the selected restaurant, or the reviews matching the search query.
+     *
+     * @return LiveData object containing the reviews to display.
+     */
+    public LiveData<List<Review>> getDisplayedReviews() {
+        return displayedReviews;
+    }
+
+    /**
+     * Searches the reviews of the selected restaurant by content and author, and displays the matching reviews,
+     * best ranked first. The search is run again each time the reviews change, until the query is cleared.
+     *
+     * @param query The words to search; empty or null to display all the reviews again.
+     */
+    public void searchReviews(String query) {
+        String trimmedQuery = query == null ? "" : query.trim();
+        if (trimmedQuery.equals(searchQuery)) {
+            return;
         }
-        // The list is iterated through
-        for (int i = 0; i < ratingCount.size(); i++) {
-            // The value is converted to a percentage for display purposes in the progress bars
-            if (ratingCount.get(i) != 0 && totalRatings != null) {
-                ratingCount.set(i, Math.round((float) ratingCount.get(i) / totalRatings * 100));
-            }
+        searchQuery = trimmedQuery;
+        updateDisplayedReviews();
+    }
+
+    /**
+     * Displays only the reviews with the given rating, or every review again.
+     *
+     * @param rating The rating of the reviews to display, or {@link ReviewRepository#ALL_RATINGS} to display every review.
+     */
+    public void filterReviews(int rating) {
+        if (rating == ratingFilter) {
+            return;
         }
-        ratingCountLiveData.setValue(ratingCount);
-        return ratingCountLiveData;
+        ratingFilter = rating;
+        updateDisplayedReviews();
     }
 
     /**
-     * Retrieves the details of the Taj Mahal average rating.
+     * Returns the rating of the displayed reviews.
      *
-     * @return a MutableLiveData object containing the Taj Mahal reviews average rating.
+     * @return The rating of the displayed reviews, or {@link ReviewRepository#ALL_RATINGS} if every review is displayed.
      */
-    public MutableLiveData<Float> getTajMahalAverageRating() {
-        MutableLiveData<Float> averageRatingLiveData = new MutableLiveData<>();
-        List<Integer> ratingCount = getTajMahalRatingCount().getValue();
-        float averageRating = 0;
-        // The list is iterated through
-        if (ratingCount != null) {
-            for (int i = 0; i < ratingCount.size(); i++) {
-                averageRating += (float) (i + 1) * ratingCount.get(i);
+    public int getRatingFilter() {
+        return ratingFilter;
+    }
+
+    /**
+     * Sorts the displayed reviews in the given order. The results of a search stay ranked by relevance.
+     *
+     * @param sort The order of the displayed reviews.
+     */
+    public void sortReviews(ReviewSort sort) {
+        if (sort == reviewSort) {
+            return;
+        }
+        reviewSort = sort;
+        updateDisplayedReviews();
+    }
+
+    /**
+     * Returns the order of the displayed reviews.
+     *
+     * @return The order of the displayed reviews, unless searching.
+     */
+    public ReviewSort getReviewSort() {
+        return reviewSort;
+    }
+
+    /**
+     * Returns the query searched in the reviews.
+     *
+     * @return The words searched, or an empty string if all the reviews are displayed.
+     */
+    public String getSearchQuery() {
+        return searchQuery;
+    }
+
+    /**
+     * Indicates whether the displayed reviews are the results of a search.
+     *
+     * @return true if a search query is set; false if all the reviews are displayed
+     */
+    public boolean isSearching() {
+        return !searchQuery.isEmpty();
+    }
+
+    /**
+     * Publishes the reviews to display, searching the reviews again if a search query is set.
+     * The filtered and sorted reviews are read from the repository, which keeps them split by rating.
+     * The version of the reviews is read first, so that it is never newer than the displayed reviews.
+     */
+    private void updateDisplayedReviews() {
+        displayedReviewsVersion = reviewRepository.peekVersion(getRestaurantId());
+        if (!searchQuery.isEmpty()) {
+            displayedReviews.setValue(withRatingFilter(reviewRepository.searchReviews(getRestaurantId(), searchQuery, SEARCH_RESULTS_LIMIT)));
+        } else {
+            displayedReviews.setValue(reviewRepository.getSortedReviews(getRestaurantId(), ratingFilter, reviewSort));
+        }
+    }
+
+    /**
+     * Keeps the search results with the rating of the displayed reviews.
+     *
+     * @param results The results of a search, best first.
+     * @return The results with the rating of the displayed reviews, best first.
+     */
+    private List<Review> withRatingFilter(List<Review> results) {
+        if (ratingFilter == ReviewRepository.ALL_RATINGS) {
+            return results;
+        }
+        List<Review> filtered = new ArrayList<>(results.size());
+        for (Review review : results) {
+            if (review.getRatingValue() == ratingFilter) {
+                filtered.add(review);
             }
-            // Calculation of the weighted average of the reviews
-            averageRating = (float) Math.round(averageRating / 100 * 10) / 10;
-            averageRatingLiveData.setValue(averageRating);
         }
-        return averageRatingLiveData;
+        return filtered;
+    }
+
+    /**
+     * Retrieves the state of the loading of the details of the selected restaurant.
+     *
+     * @return LiveData object containing the state of the last load of the restaurant details.
+     */
+    public LiveData<LoadState> getRestaurantLoadState() {
+        return restaurantLoadState;
+    }
+
+    /**
+     * Retrieves the state of the loading of the reviews of the selected restaurant.
+     *
+     * @return LiveData object containing the state of the last load of reviews.
+     */
+    public LiveData<LoadState> getReviewsLoadState() {
+        return reviewsLoadState;
+    }
+
+    /**
+     * Loads the next page of reviews of the selected restaurant, if any.
+     * The reviews are emitted through the LiveData returned by {@link #getReviews()}.
+     * Nothing is loaded while searching, as the search results are not paged.
+     */
+    public void loadMoreReviews() {
+        if (isSearching()) {
+            return;
+        }
+        long restaurantId = getRestaurantId();
+        if (reviewRepository.hasMoreReviews(restaurantId)) {
+            reviewRepository.loadNextPage(restaurantId);
+        }
+    }
+
+    /**
+     * Retrieves the total number of ratings for the selected restaurant.
+     *
+     * @return a LiveData object containing the total number of ratings for the selected restaurant.
+     */
+    public LiveData<Integer> getTotalRatings() {
+        return totalRatings;
+    }
+
+    /**
+     * Retrieves the rating count details for the selected restaurant.
+     * <p>
+     * The immutable histogram published by the repository is exposed as is: its counts and percentages are
+     * read from primitive counters, without any list to allocate each time a review is added.
+     *
+     * @return a LiveData object containing the histogram of the ratings of the selected restaurant.
+     */
+    public LiveData<RatingHistogram> getRatingCount() {
+        return ratingStatistics;
+    }
+
+    /**
+     * Retrieves the details of the average rating of the selected restaurant.
+     * <p>
+     * The average is computed exactly from the running sum and number of ratings, then rounded
+     * to {@link #AVERAGE_RATING_DECIMALS} decimals.
+     *
+     * @return a LiveData object containing the average rating of the reviews of the selected restaurant.
+     */
+    public LiveData<Float> getAverageRating() {
+        return averageRating;
+    }
+
+    /**
+     * Rounds the average rating of the statistics to the displayed number of decimals.
+     *
+     * @param statistics The rating statistics of the restaurant.
+     * @return The average rating rounded to {@link #AVERAGE_RATING_DECIMALS} decimals.
+     */
+    private static float toDisplayedAverageRating(RatingHistogram statistics) {
+        return statistics.getRoundedAverageRating(AVERAGE_RATING_DECIMALS);
     }
 
     /**
@@ -174,12 +423,12 @@ public class DetailsViewModel extends ViewModel {
     }
 
     /**
-     * Adds a new review to the list of reviews for the restaurant.
+     * Adds a new review to the list of reviews of the selected restaurant.
      *
      * @param review The review object containing the details of the review to be added.
      */
     public void addReview(Review review) {
-        reviewRepository.addReview(review);
+        reviewRepository.addReview(getRestaurantId(), review);
     }
 
 }
\ No newline at end of file
@@ -12,6 +12,7 @@ import android.view.ViewGroup;
 import android.view.Window;
 import android.widget.RatingBar;
 import android.widget.TextView;
+import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -21,12 +22,18 @@ import androidx.fragment.app.FragmentManager;
 import androidx.fragment.app.FragmentTransaction;
 import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
-import com.bumptech.glide.Glide;
+import com.google.android.material.chip.Chip;
+import com.google.android.material.chip.ChipGroup;
 import com.google.android.material.textfield.TextInputEditText;
 import com.openclassrooms.tajmahal.R;
+import com.openclassrooms.tajmahal.data.repository.LoadState;
+import com.openclassrooms.tajmahal.data.repository.ReviewRepository;
+import com.openclassrooms.tajmahal.data.repository.ReviewSort;
 import com.openclassrooms.tajmahal.databinding.FragmentReviewBinding;
 import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.views.AvatarLoader;
 import com.openclassrooms.tajmahal.views.ReviewAdapter;
 
 import java.util.List;
@@ -41,6 +48,15 @@ import dagger.hilt.android.AndroidEntryPoint;
 @AndroidEntryPoint
 public class ReviewFragment extends Fragment {
 
+    // Key of the argument holding the identifier of the reviewed restaurant
+    private static final String ARG_RESTAURANT_ID = "restaurant_id";
+
+    // Number of reviews remaining below the last visible one under which the next page of reviews is loaded
+    private static final int LOAD_MORE_THRESHOLD = 5;
+
+    // Number of reviews below the last visible one whose avatar is preloaded while the user scrolls
+    private static final int AVATAR_PRELOAD_AHEAD = 10;
+
     // Binding object instance corresponding to the fragment_review.xml layout
     private FragmentReviewBinding binding;
 
@@ -50,11 +66,36 @@ public class ReviewFragment extends Fragment {
     // URL for the avatar image
     private String avatarUrl;
 
+    // Loader of the avatars of the reviewers, bound to the lifecycle of the fragment
+    private AvatarLoader avatarLoader;
+
+    // Adapter displaying the reviews, kept for the whole lifetime of the fragment
+    private ReviewAdapter reviewAdapter;
+
     /**
-     * Initializes the ViewModel for this activity.
+     * Initializes the ViewModel for this activity, displaying the restaurant given in the arguments of the fragment.
+     * The ViewModel is scoped to the activity, so that the details screen and the review screen share the same one,
+     * and it outlives the fragments replacing each other.
      */
     private void setupViewModel() {
-        detailsViewModel = new ViewModelProvider(this).get(DetailsViewModel.class);
+        detailsViewModel = new ViewModelProvider(requireActivity()).get(DetailsViewModel.class);
+        Bundle arguments = getArguments();
+        detailsViewModel.selectRestaurant(arguments == null ? DetailsViewModel.DEFAULT_RESTAURANT_ID
+                : arguments.getLong(ARG_RESTAURANT_ID, DetailsViewModel.DEFAULT_RESTAURANT_ID));
+    }
+
+    /**
+     * This method is used to create a new instance of ReviewFragment for the given restaurant.
+     *
+     * @param restaurantId The identifier of the reviewed restaurant.
+     * @return a new instance of ReviewFragment.
+     */
+    public static ReviewFragment newInstance(long restaurantId) {
+        Bundle arguments = new Bundle();
+        arguments.putLong(ARG_RESTAURANT_ID, restaurantId);
+        ReviewFragment fragment = new ReviewFragment();
+        fragment.setArguments(arguments);
+        return fragment;
     }
 
     /**
@@ -67,6 +108,8 @@ public class ReviewFragment extends Fragment {
     @Override
     public void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        avatarLoader = new AvatarLoader(this);
+        reviewAdapter = new ReviewAdapter(avatarLoader);
     }
 
     /**
@@ -102,15 +145,24 @@ public class ReviewFragment extends Fragment {
         setupViewModel();
         // Sets up user interface components
         setupUI();
-        // Observes changes in the reviews data and updates the UI accordingly
-        detailsViewModel.getTajMahalReviews().observe(requireActivity(), this::updateUIWithReviews);
+        // Sets up the list of reviews, loading the next page of reviews while the user scrolls
+        setupReviewList();
+        // Observes changes in the displayed reviews, all of them or the search results, and updates the UI accordingly,
+        // as long as the view of the fragment exists. The observers are removed with the view.
+        detailsViewModel.getDisplayedReviews().observe(getViewLifecycleOwner(), this::updateUIWithReviews);
+        // Observes the state of the loading of the reviews and reports errors
+        detailsViewModel.getReviewsLoadState().observe(getViewLifecycleOwner(), this::updateUIWithLoadState);
         binding.tvRestaurantNameInReview.setText(getString(R.string.restaurant_name));
+        // Observes the details of the reviewed restaurant and displays its name
+        detailsViewModel.getRestaurant().observe(getViewLifecycleOwner(), restaurant -> {
+            if (restaurant != null) {
+                binding.tvRestaurantNameInReview.setText(restaurant.getName());
+            }
+        });
         binding.buttonBack.setEnabled(true);
         binding.tvNewReviewName.setText(getString(R.string.new_reviewers_name));
         this.avatarUrl = "https://s3-alpha-sig.figma.com/img/02e6/6d63/e35d4fc4ab41421bdc4ea8ec50940749?Expires=1714348800&Key-Pair-Id=APKAQ4GOSFWCVNEHN3O4&Signature=kMBgvHNZs3pb4gMB8uACW-mXV-Wbo2gfLwtfkCN~8LNpAGpafP5DSMu76ucdJ5B6OJkx8C5bxGKJESzwpnk7pKAqbAiUqdJVFm7kDCg5lMRFXt1Wf2U9EVonpsMUiY2-C2QGHMUJwQGGDFdov3RWDH2HV0gJIMM7-OK4Iag0e0sijV0qmGve8Uo1arI6IV-yLBrfkYUxOpy23swcUmY85EcaW1hNpv1RoMvQYlwtlsrGBysgQuq0K48saCS94gYFSAH8jv2KACACo1pXFhWVWMQ5yOXPY6CCnH4JZXvLDl~NU9xRhmkKXkwIPSrkbjhtA4-D9MPS7JSDQ1PG6Kx1Fw__";
-        Glide.with(binding.getRoot())
-                .load(avatarUrl)
-                .into(binding.ivNewReviewAvatar);
+        avatarLoader.load(avatarUrl, binding.ivNewReviewAvatar);
         binding.buttonValidate.setEnabled(true);
         binding.buttonValidate.setText(getString(R.string.button_validate));
         binding.buttonValidate.setChipBackgroundColor(ColorStateList.valueOf(ContextCompat.getColor(requireContext(), R.color.grey)));
@@ -120,11 +172,11 @@ public class ReviewFragment extends Fragment {
         });
 
         // Sets an OnClickListener for the back button. When clicked, it replaces the current fragment with the DetailsFragment
-        // by using a FragmentTransaction, allowing the user to navigate back to the details view.
+        // of the same restaurant by using a FragmentTransaction, allowing the user to navigate back to the details view.
         binding.buttonBack.setOnClickListener(v -> {
             FragmentManager fragmentManager = getParentFragmentManager();
             FragmentTransaction fragmentTransaction = fragmentManager.beginTransaction();
-            DetailsFragment detailsFragment = new DetailsFragment();
+            DetailsFragment detailsFragment = DetailsFragment.newInstance(detailsViewModel.getRestaurantId());
             fragmentTransaction.replace(R.id.container, detailsFragment);
             fragmentTransaction.commit();
         });
@@ -145,7 +197,60 @@ public class ReviewFragment extends Fragment {
             }
         });
         binding.rbNewReviewRate.setOnRatingBarChangeListener((ratingBar, rating, fromUser) -> updateButtonState());
+        // Searches the reviews as the user types, starting from the query kept by the ViewModel, which outlives the view
+        binding.tietSearchReviews.setText(detailsViewModel.getSearchQuery());
+        binding.tietSearchReviews.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                detailsViewModel.searchReviews(s.toString());
+            }
+        });
+        // Filters and sorts the reviews as the chips are checked, each chip holding its rating or its order in its tag.
+        // The chips are first checked as in the ViewModel, which outlives the view.
+        checkChipWithTag(binding.cgRatingFilters, String.valueOf(detailsViewModel.getRatingFilter()));
+        checkChipWithTag(binding.cgReviewSorts, detailsViewModel.getReviewSort().name());
+        binding.cgRatingFilters.setOnCheckedStateChangeListener((group, checkedIds) -> {
+            Chip chip = group.findViewById(group.getCheckedChipId());
+            detailsViewModel.filterReviews(chip == null ? ReviewRepository.ALL_RATINGS : Integer.parseInt((String) chip.getTag()));
+        });
+        binding.cgReviewSorts.setOnCheckedStateChangeListener((group, checkedIds) -> {
+            Chip chip = group.findViewById(group.getCheckedChipId());
+            detailsViewModel.sortReviews(chip == null ? ReviewSort.NEWEST_FIRST : ReviewSort.valueOf((String) chip.getTag()));
+        });
+
+    }
 
+    /**
+     * This method is called when the view of the fragment is destroyed.
+     * The adapter outlives the view, so it is detached from the RecyclerView to release the view hierarchy.
+     */
+    @Override
+    public void onDestroyView() {
+        binding.fragmentReviewRecyclerView.setAdapter(null);
+        super.onDestroyView();
+    }
+
+    /**
+     * Checks the chip of the given group holding the given tag.
+     *
+     * @param group The group of chips.
+     * @param tag   The tag of the chip to check.
+     */
+    private static void checkChipWithTag(ChipGroup group, String tag) {
+        View chip = group.findViewWithTag(tag);
+        if (chip != null) {
+            group.check(chip.getId());
+        }
     }
 
     /**
@@ -199,9 +304,38 @@ public class ReviewFragment extends Fragment {
      */
     private void updateUIWithReviews(List<Review> reviews) {
         Log.d("ReviewFragment", "Number of reviews: " + reviews.size());
-        binding.fragmentReviewRecyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
-        ReviewAdapter adapter = new ReviewAdapter(reviews);
-        binding.fragmentReviewRecyclerView.setAdapter(adapter);
+        reviewAdapter.submitList(reviews);
+    }
+
+    /**
+     * Reports the failure of the loading of the reviews.
+     *
+     * @param loadState The state of the last load of reviews.
+     */
+    private void updateUIWithLoadState(LoadState loadState) {
+        if (loadState.getStatus() == LoadState.Status.ERROR) {
+            Toast.makeText(requireActivity(), R.string.error_loading_reviews, Toast.LENGTH_SHORT).show();
+        }
+    }
+
+    /**
+     * Sets up the RecyclerView displaying the reviews.
+     * The next page of reviews is requested when the user scrolls close to the end of the reviews already loaded,
+     * and the avatars of the next reviews are preloaded ahead of the scroll.
+     */
+    private void setupReviewList() {
+        LinearLayoutManager layoutManager = new LinearLayoutManager(getContext());
+        binding.fragmentReviewRecyclerView.setLayoutManager(layoutManager);
+        binding.fragmentReviewRecyclerView.setAdapter(reviewAdapter);
+        binding.fragmentReviewRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (dy > 0 && layoutManager.findLastVisibleItemPosition() >= layoutManager.getItemCount() - LOAD_MORE_THRESHOLD) {
+                    detailsViewModel.loadMoreReviews();
+                }
+            }
+        });
+        binding.fragmentReviewRecyclerView.addOnScrollListener(avatarLoader.newPreloader(reviewAdapter, AVATAR_PRELOAD_AHEAD));
     }
 
     /**
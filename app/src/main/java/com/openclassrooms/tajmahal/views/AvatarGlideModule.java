@@ -0,0 +1,53 @@
+package com.openclassrooms.tajmahal.views;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+
+import com.bumptech.glide.GlideBuilder;
+import com.bumptech.glide.annotation.GlideModule;
+import com.bumptech.glide.load.engine.cache.InternalCacheDiskCacheFactory;
+import com.bumptech.glide.load.engine.cache.LruResourceCache;
+import com.bumptech.glide.load.engine.cache.MemorySizeCalculator;
+import com.bumptech.glide.module.AppGlideModule;
+
+/**
+ * Configuration of Glide for the application.
+ * <p>
+ * The memory cache is bounded to a few screens worth of images, which is plenty for the small avatars
+ * of the review list, and the disk cache keeps the down-sampled avatars requested by {@link AvatarLoader}.
+ */
+@GlideModule
+public final class AvatarGlideModule extends AppGlideModule {
+
+    // The size of the memory cache, in number of screens worth of pixels.
+    private static final float MEMORY_CACHE_SCREENS = 2;
+
+    // The size of the disk cache, in bytes.
+    private static final long DISK_CACHE_SIZE_BYTES = 50L * 1024 * 1024;
+
+    /**
+     * Bounds the memory and disk caches of Glide.
+     *
+     * @param context The application context.
+     * @param builder The builder of the Glide singleton.
+     */
+    @Override
+    public void applyOptions(@NonNull Context context, @NonNull GlideBuilder builder) {
+        MemorySizeCalculator calculator = new MemorySizeCalculator.Builder(context)
+                .setMemoryCacheScreens(MEMORY_CACHE_SCREENS)
+                .build();
+        builder.setMemoryCache(new LruResourceCache(calculator.getMemoryCacheSize()));
+        builder.setDiskCache(new InternalCacheDiskCacheFactory(context, DISK_CACHE_SIZE_BYTES));
+    }
+
+    /**
+     * Disables the lookup of the Glide modules declared in the manifest, as none are declared.
+     *
+     * @return false
+     */
+    @Override
+    public boolean isManifestParsingEnabled() {
+        return false;
+    }
+}
@@ -0,0 +1,167 @@
+package com.openclassrooms.tajmahal.views;
+
+import android.graphics.drawable.Drawable;
+import android.widget.ImageView;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.fragment.app.Fragment;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.ListPreloader;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.integration.recyclerview.RecyclerViewPreloader;
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.DecodeFormat;
+import com.bumptech.glide.load.engine.DiskCacheStrategy;
+import com.bumptech.glide.load.engine.GlideException;
+import com.bumptech.glide.request.RequestListener;
+import com.bumptech.glide.request.RequestOptions;
+import com.bumptech.glide.request.target.Target;
+import com.bumptech.glide.request.target.ViewTarget;
+import com.bumptech.glide.util.FixedPreloadSizeProvider;
+import com.openclassrooms.tajmahal.R;
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Loads the avatars of the reviewers.
+ * <p>
+ * Every avatar is requested with the same fixed size and options: it is down-sampled to the size of the avatar view
+ * and cached on disk at that size, so that scrolling through the reviews only decodes small images. As every request
+ * of a given URL has the same cache key, Glide serves the avatars shared by several reviews from its memory cache
+ * and merges the concurrent loads of the same avatar into a single one.
+ */
+public class AvatarLoader {
+
+    private final RequestManager requestManager;
+
+    // The size of the avatars, in pixels.
+    private final int avatarSize;
+
+    // The options shared by every avatar request, so that the requests of a URL hit the same cache entries.
+    private final RequestOptions avatarOptions;
+
+    // Forgets the avatar of an image view whose load failed, so that binding its row again retries the load.
+    private final RequestListener<Drawable> forgetFailedAvatar = new RequestListener<Drawable>() {
+        @Override
+        public boolean onLoadFailed(@Nullable GlideException e, @Nullable Object model, @NonNull Target<Drawable> target, boolean isFirstResource) {
+            if (target instanceof ViewTarget) {
+                ImageView imageView = (ImageView) ((ViewTarget<?, ?>) target).getView();
+                if (Objects.equals(imageView.getTag(R.id.avatar_url), model)) {
+                    imageView.setTag(R.id.avatar_url, null);
+                }
+            }
+            // Let Glide display the error drawable
+            return false;
+        }
+
+        @Override
+        public boolean onResourceReady(@NonNull Drawable resource, @NonNull Object model, Target<Drawable> target, @NonNull DataSource dataSource, boolean isFirstResource) {
+            return false;
+        }
+    };
+
+    /**
+     * Constructor for an avatar loader bound to the lifecycle of the given fragment.
+     *
+     * @param fragment The fragment displaying the avatars.
+     */
+    public AvatarLoader(@NonNull Fragment fragment) {
+        this(Glide.with(fragment), fragment.getResources().getDimensionPixelSize(R.dimen.review_avatar_size));
+    }
+
+    /**
+     * Constructor for an avatar loader using the given request manager.
+     *
+     * @param requestManager The Glide request manager.
+     * @param avatarSize     The size of the avatars, in pixels.
+     */
+    public AvatarLoader(@NonNull RequestManager requestManager, int avatarSize) {
+        this.requestManager = requestManager;
+        this.avatarSize = avatarSize;
+        this.avatarOptions = new RequestOptions()
+                .override(avatarSize)
+                .centerCrop()
+                .format(DecodeFormat.PREFER_RGB_565)
+                .diskCacheStrategy(DiskCacheStrategy.RESOURCE)
+                .placeholder(R.drawable.avatar_placeholder)
+                .error(R.drawable.avatar_placeholder);
+    }
+
+    /**
+     * Creates the request of the given avatar, shared by the loads and the preloads.
+     *
+     * @param avatarUrl The URL of the avatar.
+     * @return The request of the avatar.
+     */
+    @NonNull
+    public RequestBuilder<Drawable> request(@Nullable String avatarUrl) {
+        return requestManager.load(avatarUrl).apply(avatarOptions);
+    }
+
+    /**
+     * Loads the given avatar into the image view.
+     * Nothing is done if the image view already displays or loads this avatar, e.g. when a row is bound again
+     * to the same review. An avatar whose load failed is loaded again on the next call.
+     *
+     * @param avatarUrl The URL of the avatar.
+     * @param imageView The image view displaying the avatar.
+     */
+    public void load(@Nullable String avatarUrl, @NonNull ImageView imageView) {
+        if (avatarUrl != null && Objects.equals(imageView.getTag(R.id.avatar_url), avatarUrl)) {
+            return;
+        }
+        imageView.setTag(R.id.avatar_url, avatarUrl);
+        request(avatarUrl).listener(forgetFailedAvatar).into(imageView);
+    }
+
+    /**
+     * Cancels the load of the avatar of the image view and releases its image.
+     *
+     * @param imageView The image view displaying the avatar.
+     */
+    public void clear(@NonNull ImageView imageView) {
+        imageView.setTag(R.id.avatar_url, null);
+        requestManager.clear(imageView);
+    }
+
+    /**
+     * Creates a scroll listener preloading the avatars of the reviews about to be displayed by the adapter.
+     *
+     * @param reviewAdapter The adapter displaying the reviews.
+     * @param maxPreload    The number of reviews ahead of the visible ones whose avatar is preloaded.
+     * @return The scroll listener to add to the RecyclerView displaying the reviews.
+     */
+    @NonNull
+    public RecyclerViewPreloader<String> newPreloader(@NonNull ReviewAdapter reviewAdapter, int maxPreload) {
+        ListPreloader.PreloadModelProvider<String> modelProvider = new ListPreloader.PreloadModelProvider<String>() {
+            @NonNull
+            @Override
+            public List<String> getPreloadItems(int position) {
+                List<Review> reviews = reviewAdapter.getCurrentList();
+                if (position < 0 || position >= reviews.size()) {
+                    return Collections.emptyList();
+                }
+                String avatarUrl = reviews.get(position).getAvatarUrl();
+                // Consecutive reviews with the same avatar only preload it once.
+                if (avatarUrl == null || position > 0 && avatarUrl.equals(reviews.get(position - 1).getAvatarUrl())) {
+                    return Collections.emptyList();
+                }
+                return Collections.singletonList(avatarUrl);
+            }
+
+            @Nullable
+            @Override
+            public RequestBuilder<?> getPreloadRequestBuilder(@NonNull String avatarUrl) {
+                return request(avatarUrl);
+            }
+        };
+        return new RecyclerViewPreloader<>(requestManager, modelProvider,
+                new FixedPreloadSizeProvider<>(avatarSize, avatarSize), maxPreload);
+    }
+}
@@ -4,27 +4,52 @@ import android.view.LayoutInflater;
 import android.view.ViewGroup;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.bumptech.glide.Glide;
 import com.openclassrooms.tajmahal.databinding.FragmentReviewItemBinding;
 import com.openclassrooms.tajmahal.domain.model.Review;
 
-import java.util.List;
-
 /**
  * Adapter class for the RecyclerView that displays a list of reviews.
+ * <p>
+ * The lists of reviews submitted with {@link #submitList(java.util.List)} are compared with the displayed one
+ * on a background thread, so that only the rows that actually changed are notified (a single insert when a review
+ * is added). Each row has a stable ID derived from the fingerprint of its review.
+ * <p>
+ * The avatars are loaded by an {@link AvatarLoader}, and released when their row is recycled.
  */
-public class ReviewAdapter extends RecyclerView.Adapter<ReviewAdapter.ViewHolder> {
-    private final List<Review> mData;
+public class ReviewAdapter extends ListAdapter<Review, ReviewAdapter.ViewHolder> {
+
+    /**
+     * Compares two reviews to find the rows that changed between two lists of reviews.
+     * Two reviews are the same row when they have the same fingerprint, even if they are distinct instances.
+     */
+    public static final DiffUtil.ItemCallback<Review> DIFF_CALLBACK = new DiffUtil.ItemCallback<Review>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Review oldItem, @NonNull Review newItem) {
+            return oldItem.getFingerprint() == newItem.getFingerprint();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Review oldItem, @NonNull Review newItem) {
+            return oldItem.equals(newItem);
+        }
+    };
+
+    private final AvatarLoader avatarLoader;
 
     /**
      * Constructor for the ReviewAdapter.
+     * The reviews to display are then provided with {@link #submitList(java.util.List)}.
      *
-     * @param data List of reviews to display in the RecyclerView.
+     * @param avatarLoader The loader of the avatars of the reviewers.
      */
-    public ReviewAdapter(List<Review> data) {
-        this.mData = data;
+    public ReviewAdapter(AvatarLoader avatarLoader) {
+        super(DIFF_CALLBACK);
+        this.avatarLoader = avatarLoader;
+        setHasStableIds(true);
     }
 
     // Create new views (invoked by the layout manager)
@@ -41,7 +66,7 @@ public class ReviewAdapter extends RecyclerView.Adapter<ReviewAdapter.ViewHolder
     @Override
     public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
         FragmentReviewItemBinding binding = FragmentReviewItemBinding.inflate(LayoutInflater.from(parent.getContext()), parent, false);
-        return new ViewHolder(binding);
+        return new ViewHolder(binding, avatarLoader);
     }
 
     // Replace the contents of a view (invoked by the layout manager)
@@ -53,21 +78,30 @@ public class ReviewAdapter extends RecyclerView.Adapter<ReviewAdapter.ViewHolder
      * @param position The position of the item within the adapter's data set.
      */
     @Override
-    public void onBindViewHolder(ViewHolder holder, int position) {
-        Review review = mData.get(position);
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        Review review = getItem(position);
         holder.bind(review);
     }
 
-    // Return the size of your dataset (invoked by the layout manager)
+    /**
+     * Releases the avatar of a row that scrolled out of the screen, so that its image can be reused.
+     *
+     * @param holder The ViewHolder being recycled.
+     */
+    @Override
+    public void onViewRecycled(@NonNull ViewHolder holder) {
+        holder.recycle();
+    }
 
     /**
-     * Returns the total number of items in the data set held by the adapter.
+     * Returns the stable ID of the row at the given position, derived from the fingerprint of its review.
      *
-     * @return The total number of items in the data set.
+     * @param position The position of the item within the adapter's data set.
+     * @return The stable ID of the row.
      */
     @Override
-    public int getItemCount() {
-        return mData.size();
+    public long getItemId(int position) {
+        return getItem(position).getFingerprint();
     }
 
     /**
@@ -75,15 +109,18 @@ public class ReviewAdapter extends RecyclerView.Adapter<ReviewAdapter.ViewHolder
      */
     public static class ViewHolder extends RecyclerView.ViewHolder {
         private final FragmentReviewItemBinding binding;
+        private final AvatarLoader avatarLoader;
 
         /**
          * Constructs a new ViewHolder instance with the given FragmentReviewItemBinding.
          *
-         * @param binding The FragmentReviewItemBinding object that contains the views for a single review item.
+         * @param binding      The FragmentReviewItemBinding object that contains the views for a single review item.
+         * @param avatarLoader The loader of the avatars of the reviewers.
          */
-        public ViewHolder(FragmentReviewItemBinding binding) {
+        public ViewHolder(FragmentReviewItemBinding binding, AvatarLoader avatarLoader) {
             super(binding.getRoot());
             this.binding = binding;
+            this.avatarLoader = avatarLoader;
         }
 
         /**
@@ -92,12 +129,17 @@ public class ReviewAdapter extends RecyclerView.Adapter<ReviewAdapter.ViewHolder
          * @param review The review object containing the data to bind.
          */
         public void bind(Review review) {
-            Glide.with(binding.getRoot())
-                    .load(review.getAvatarUrl())
-                    .into(binding.ivItemReviewAvatar);
+            avatarLoader.load(review.getAvatarUrl(), binding.ivItemReviewAvatar);
             binding.tvItemReviewName.setText(review.getAuthor());
-            binding.rbItemReviewRate.setRating(review.getRating());
+            binding.rbItemReviewRate.setRating(review.getRatingValue());
             binding.tvItemReviewComment.setText(review.getContent());
         }
+
+        /**
+         * Releases the avatar displayed by the ViewHolder.
+         */
+        void recycle() {
+            avatarLoader.clear(binding.ivItemReviewAvatar);
+        }
     }
 }
\ No newline at end of file
@@ -5,11 +5,22 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.lifecycle.LiveData;
+
+import com.openclassrooms.tajmahal.data.local.ReviewDao;
+import com.openclassrooms.tajmahal.data.local.ReviewSnapshotStore;
+import com.openclassrooms.tajmahal.data.repository.ReviewBatchResult;
+import com.openclassrooms.tajmahal.data.repository.ReviewOutbox;
 import com.openclassrooms.tajmahal.data.repository.ReviewRepository;
 import com.openclassrooms.tajmahal.data.service.RestaurantFakeApi;
+import com.openclassrooms.tajmahal.domain.model.RatingHistogram;
+import com.openclassrooms.tajmahal.domain.model.RatingStatistics;
 import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.model.ReviewPage;
 
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
@@ -19,6 +30,7 @@ import org.robolectric.RobolectricTestRunner;
 import org.robolectric.annotation.Config;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 
@@ -31,10 +43,17 @@ import java.util.Objects;
 @RunWith(RobolectricTestRunner.class)
 @Config(application = TajMahalApplication.class, manifest = "src/main/AndroidManifest.xml")
 public class AddReviewUnitTest {
+    // The identifier of the restaurant whose reviews are tested.
+    private static final long TAJ_MAHAL = RestaurantFakeApi.TAJ_MAHAL_ID;
+
     @Mock
     private RestaurantFakeApi fakeApi;
     private ReviewRepository reviewRepository;
 
+    // Executes the LiveData updates synchronously, as the repository publishes them with postValue.
+    @Rule
+    public InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+
     /**
      * Set up the test environment.
      * This method is called before each test method is executed.
@@ -52,8 +71,15 @@ public class AddReviewUnitTest {
         reviews.add(new Review("David John", "https://xsgames.co/randomusers/assets/avatars/male/67.jpg", "Les currys manquaient de diversité de saveurs et semblaient tous à base de tomates. Malgré les évaluations élevées que nous avons vues et nos attentes, nous avons été déçus.", 2));
         reviews.add(new Review("Emilie Hood", "https://xsgames.co/randomusers/assets/avatars/female/20.jpg", "Très bon restaurant Indien ! Je recommande.", 4));
 
-        Mockito.when(fakeApi.getReviews()).thenReturn(reviews);
-        reviewRepository = new ReviewRepository(fakeApi);
+        //Create the rating statistics of the reviews for the test
+        RatingStatistics ratingStatistics = new RatingStatistics();
+        for (Review review : reviews) {
+            ratingStatistics.record(review.getRating());
+        }
+
+        Mockito.when(fakeApi.getRatingStatistics(TAJ_MAHAL)).thenReturn(ratingStatistics);
+        Mockito.when(fakeApi.getReviewsPage(Mockito.eq(TAJ_MAHAL), Mockito.anyInt(), Mockito.isNull())).thenReturn(new ReviewPage(reviews, null));
+        reviewRepository = new ReviewRepository(fakeApi, Mockito.mock(ReviewDao.class), Mockito.mock(ReviewOutbox.class), Mockito.mock(ReviewSnapshotStore.class), Runnable::run);
     }
 
     /**
@@ -79,10 +105,10 @@ public class AddReviewUnitTest {
         Review newReview = createReview("Ranjit Singh", "https://xsgames.co/randomusers/assets/avatars/male/71.jpg", "Service très rapide et nourriture délicieuse, nous mangeons ici chaque week-end, c'est très rapide et savoureux. Continuez ainsi!", 5);
 
         // Add the new review to the repository.
-        reviewRepository.addReview(newReview);
+        reviewRepository.addReview(TAJ_MAHAL, newReview);
 
         // Retrieves the review objects from the reviewRepository and stores them in the reviews variable.
-        List<Review> reviews = reviewRepository.getReviews().getValue();
+        List<Review> reviews = reviewRepository.getReviews(TAJ_MAHAL).getValue();
 
         // The assertNotNull() method will throw an AssertionError if the review list is null.
         assertNotNull(reviews);
@@ -109,10 +135,10 @@ public class AddReviewUnitTest {
         Review newReview = createReview("John Tester", "https://xsgames.co/randomusers/assets/avatars/male/2.jpg", "This is the content of the new review.", 1);
 
         // Add the new review to the repository.
-        reviewRepository.addReview(newReview);
+        reviewRepository.addReview(TAJ_MAHAL, newReview);
 
         // Retrieves the review objects from the reviewRepository and stores them in the reviews variable.
-        List<Review> reviews = reviewRepository.getReviews().getValue();
+        List<Review> reviews = reviewRepository.getReviews(TAJ_MAHAL).getValue();
 
         // The assertNotNull() method will throw an AssertionError if the review list is null.
         assertNotNull(reviews);
@@ -124,6 +150,41 @@ public class AddReviewUnitTest {
         System.out.println("The test 'newReviewFirst' was executed successfully.");
     }
 
+    /**
+     * This method checks if a new review is added exactly once to the list.
+     */
+    @Test
+    public void newReviewAddedOnce() {
+
+        // Create a random new review
+        Review newReview = createReview("John Tester", "https://xsgames.co/randomusers/assets/avatars/male/2.jpg", "This is the content of the new review.", 1);
+
+        // Retrieves the number of reviews before adding the new review.
+        int sizeBefore = Objects.requireNonNull(reviewRepository.getReviews(TAJ_MAHAL).getValue()).size();
+
+        // Add the new review to the repository.
+        reviewRepository.addReview(TAJ_MAHAL, newReview);
+
+        // Retrieves the review objects from the reviewRepository and stores them in the reviews variable.
+        List<Review> reviews = reviewRepository.getReviews(TAJ_MAHAL).getValue();
+
+        // The assertNotNull() method will throw an AssertionError if the review list is null.
+        assertNotNull(reviews);
+
+        // The assertEquals() method will throw an AssertionError if the new review has not been added exactly once.
+        assertEquals("The new review should be added only once", sizeBefore + 1, reviews.size());
+        int occurrences = 0;
+        for (Review review : reviews) {
+            if (newReview.equals(review)) {
+                occurrences++;
+            }
+        }
+        assertEquals("The new review should appear only once in the list", 1, occurrences);
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'newReviewAddedOnce' was executed successfully.");
+    }
+
     /**
      * This method checks if the new review can be added without comment.
      */
@@ -134,10 +195,10 @@ public class AddReviewUnitTest {
         Review review = createReview("John Tester", "https://xsgames.co/randomusers/assets/avatars/male/2.jpg", "", 1);
 
         // Add the new review to the repository.
-        reviewRepository.addReview(review);
+        reviewRepository.addReview(TAJ_MAHAL, review);
 
         // Retrieves the review objects from the reviewRepository and stores them in the reviews variable.
-        List<Review> reviews = reviewRepository.getReviews().getValue();
+        List<Review> reviews = reviewRepository.getReviews(TAJ_MAHAL).getValue();
 
         // The assertNotNull() method will throw an AssertionError if the review list is null.
         assertNotNull(reviews);
@@ -162,10 +223,10 @@ public class AddReviewUnitTest {
         Review review = createReview("John Tester", "https://xsgames.co/randomusers/assets/avatars/male/2.jpg", "This is the content of the new review.", null);
 
         // Add the new review to the repository.
-        reviewRepository.addReview(review);
+        reviewRepository.addReview(TAJ_MAHAL, review);
 
         // Retrieves the review objects from the reviewRepository and stores them in the reviews variable.
-        List<Review> reviews = reviewRepository.getReviews().getValue();
+        List<Review> reviews = reviewRepository.getReviews(TAJ_MAHAL).getValue();
 
         // The assertNotNull() method will throw an AssertionError if the review list is null.
         assertNotNull(reviews);
@@ -189,10 +250,10 @@ public class AddReviewUnitTest {
         Review review = createReview("John Tester", "https://xsgames.co/randomusers/assets/avatars/male/2.jpg", "This is the content of the new review.", 0);
 
         // Add the new review to the repository.
-        reviewRepository.addReview(review);
+        reviewRepository.addReview(TAJ_MAHAL, review);
 
         // Retrieves the review objects from the reviewRepository and stores them in the reviews variable.
-        List<Review> reviews = reviewRepository.getReviews().getValue();
+        List<Review> reviews = reviewRepository.getReviews(TAJ_MAHAL).getValue();
 
         // The assertNotNull() method will throw an AssertionError if the review list is null.
         assertNotNull(reviews);
@@ -214,10 +275,10 @@ public class AddReviewUnitTest {
         Review review = createReview("John Tester", "https://xsgames.co/randomusers/assets/avatars/male/2.jpg", "This is the content of the new review.", 6);
 
         // Add the new review to the repository.
-        reviewRepository.addReview(review);
+        reviewRepository.addReview(TAJ_MAHAL, review);
 
         // Retrieves the review objects from the reviewRepository and stores them in the reviews variable.
-        List<Review> reviews = reviewRepository.getReviews().getValue();
+        List<Review> reviews = reviewRepository.getReviews(TAJ_MAHAL).getValue();
 
         // The assertNotNull() method will throw an AssertionError if the review list is null.
         assertNotNull(reviews);
@@ -228,4 +289,181 @@ public class AddReviewUnitTest {
         // Print a message if the test is executed without errors
         System.out.println("The test 'newReviewRateOver5' was executed successfully.");
     }
+
+    /**
+     * This method checks that two equal reviews have the same hash code, so that duplicates are found by the hash index.
+     */
+    @Test
+    public void equalReviewsHaveSameHashCode() {
+
+        // Create two distinct instances of the same review
+        Review review = createReview("John Tester", "https://xsgames.co/randomusers/assets/avatars/male/2.jpg", "This is the content of the new review.", 3);
+        Review sameReview = createReview("John Tester", "https://xsgames.co/randomusers/assets/avatars/male/2.jpg", "This is the content of the new review.", 3);
+
+        // The assertEquals() method will throw an AssertionError if the hash codes differ.
+        assertEquals("Equal reviews should have the same hash code", review.hashCode(), sameReview.hashCode());
+
+        // The assertEquals() method will throw an AssertionError if the fingerprints, used as stable IDs, differ.
+        assertEquals("Equal reviews should have the same fingerprint", review.getFingerprint(), sameReview.getFingerprint());
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'equalReviewsHaveSameHashCode' was executed successfully.");
+    }
+
+    /**
+     * This method checks that each review of a batch is accepted or rejected with the right reason.
+     */
+    @Test
+    public void batchReportsStatusOfEachReview() {
+
+        // Create a batch mixing valid reviews, invalid reviews and duplicates
+        Review firstReview = createReview("John Tester", "https://xsgames.co/randomusers/assets/avatars/male/2.jpg", "This is the content of the new review.", 3);
+        Review secondReview = createReview("Jane Tester", "https://xsgames.co/randomusers/assets/avatars/female/2.jpg", "This is the content of another review.", 4);
+        List<Review> batch = Arrays.asList(
+                firstReview,
+                createReview("Ranjit Singh", "https://xsgames.co/randomusers/assets/avatars/male/71.jpg", "Service très rapide et nourriture délicieuse, nous mangeons ici chaque week-end, c'est très rapide et savoureux. Continuez ainsi!", 5),
+                createReview("John Tester", "https://xsgames.co/randomusers/assets/avatars/male/2.jpg", "This is the content of the new review.", null),
+                createReview("John Tester", "https://xsgames.co/randomusers/assets/avatars/male/2.jpg", "This is the content of the new review.", 0),
+                createReview("John Tester", "https://xsgames.co/randomusers/assets/avatars/male/2.jpg", "", 3),
+                null,
+                firstReview,
+                secondReview);
+
+        // Add the batch to the repository.
+        ReviewBatchResult result = reviewRepository.addReviews(TAJ_MAHAL, batch);
+
+        // The assertEquals() method will throw an AssertionError if a review has not the expected status.
+        assertEquals(Arrays.asList(
+                ReviewBatchResult.Status.ACCEPTED,
+                ReviewBatchResult.Status.DUPLICATE,
+                ReviewBatchResult.Status.MISSING_RATING,
+                ReviewBatchResult.Status.INVALID_RATING,
+                ReviewBatchResult.Status.MISSING_CONTENT,
+                ReviewBatchResult.Status.MISSING_REVIEW,
+                ReviewBatchResult.Status.DUPLICATE,
+                ReviewBatchResult.Status.ACCEPTED), statuses(result));
+        assertEquals(2, result.getAcceptedCount());
+        assertEquals(6, result.getRejectedCount());
+        assertEquals(Arrays.asList(firstReview, secondReview), result.getAcceptedReviews());
+
+        // The assertEquals() method will throw an AssertionError if the accepted reviews are not on top of the list, the last one first.
+        List<Review> reviews = reviewRepository.getReviews(TAJ_MAHAL).getValue();
+        assertNotNull(reviews);
+        assertEquals(Arrays.asList(secondReview, firstReview), reviews.subList(0, 2));
+        assertEquals(7, reviews.size());
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'batchReportsStatusOfEachReview' was executed successfully.");
+    }
+
+    /**
+     * This method checks that a batch of reviews updates the observers of the reviews and of the statistics only once.
+     */
+    @Test
+    public void batchPublishesOnce() {
+
+        // Observe the reviews and the statistics, counting the updates
+        LiveData<List<Review>> reviews = reviewRepository.getReviews(TAJ_MAHAL);
+        LiveData<RatingHistogram> statistics = reviewRepository.getRatingStatistics(TAJ_MAHAL);
+        int[] updates = new int[2];
+        reviews.observeForever(value -> updates[0]++);
+        statistics.observeForever(value -> updates[1]++);
+        updates[0] = 0;
+        updates[1] = 0;
+
+        // Add a batch of a thousand new reviews to the repository.
+        List<Review> batch = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            batch.add(createReview("Tester " + i, "https://xsgames.co/randomusers/assets/avatars/male/2.jpg", "This is the content of the new review.", i % 5 + 1));
+        }
+        ReviewBatchResult result = reviewRepository.addReviews(TAJ_MAHAL, batch);
+
+        // The assertEquals() method will throw an AssertionError if the observers have been updated more than once.
+        assertEquals(1000, result.getAcceptedCount());
+        assertEquals("The reviews should be published once", 1, updates[0]);
+        assertEquals("The statistics should be published once", 1, updates[1]);
+        assertEquals(1005, Objects.requireNonNull(statistics.getValue()).getTotalRatings());
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'batchPublishesOnce' was executed successfully.");
+    }
+
+    /**
+     * This method checks that reading the reviews notifies nobody, and that the version of the reviews only changes
+     * when a review is accepted.
+     */
+    @Test
+    public void readsHaveNoSideEffects() {
+
+        // Observe the reviews, counting the updates
+        int[] updates = new int[1];
+        reviewRepository.getReviews(TAJ_MAHAL).observeForever(value -> updates[0]++);
+        updates[0] = 0;
+        long version = reviewRepository.getVersion(TAJ_MAHAL);
+
+        // Read the reviews several times, as each screen does.
+        for (int i = 0; i < 10; i++) {
+            assertEquals(5, Objects.requireNonNull(reviewRepository.getReviews(TAJ_MAHAL).getValue()).size());
+            reviewRepository.getRatingStatistics(TAJ_MAHAL);
+        }
+        assertEquals("Reading the reviews should not notify the observers", 0, updates[0]);
+        assertEquals("Reading the reviews should not change their version", version, reviewRepository.getVersion(TAJ_MAHAL));
+
+        // A duplicate review changes nothing, while a new review changes the version.
+        reviewRepository.addReview(TAJ_MAHAL, Objects.requireNonNull(reviewRepository.getReviews(TAJ_MAHAL).getValue()).get(0));
+        assertEquals(version, reviewRepository.getVersion(TAJ_MAHAL));
+        reviewRepository.addReview(TAJ_MAHAL, createReview("John Tester", "https://xsgames.co/randomusers/assets/avatars/male/2.jpg", "This is the content of the new review.", 3));
+        assertTrue("The version should increase with the reviews", reviewRepository.getVersion(TAJ_MAHAL) > version);
+        assertEquals(1, updates[0]);
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'readsHaveNoSideEffects' was executed successfully.");
+    }
+
+    /**
+     * This method checks that a new review can be searched as soon as it is added, before the reviews of the API.
+     */
+    @Test
+    public void newReviewIsSearchable() {
+
+        // The reviews of the API are searchable whatever the accents of the query
+        assertEquals(Arrays.asList("David John"), authors(reviewRepository.searchReviews(TAJ_MAHAL, "currys DECUS", 10)));
+
+        // Add a new review to the repository, with the same words as a review of the API.
+        reviewRepository.addReview(TAJ_MAHAL, createReview("John Tester", "https://xsgames.co/randomusers/assets/avatars/male/2.jpg", "Des currys délicieux, nous ne sommes pas déçus.", 5));
+
+        // The assertEquals() method will throw an AssertionError if the new review is not found first.
+        assertEquals(Arrays.asList("John Tester", "David John"), authors(reviewRepository.searchReviews(TAJ_MAHAL, "curry deçu", 10)));
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'newReviewIsSearchable' was executed successfully.");
+    }
+
+    /**
+     * Returns the authors of the given reviews.
+     *
+     * @param reviews The reviews
+     * @return The authors, in the order of the reviews
+     */
+    private static List<String> authors(List<Review> reviews) {
+        List<String> authors = new ArrayList<>(reviews.size());
+        for (Review review : reviews) {
+            authors.add(review.getAuthor());
+        }
+        return authors;
+    }
+
+    /**
+     * Returns the status of each review of a batch.
+     *
+     * @param result The result of the batch
+     * @return The statuses, in the order of the batch
+     */
+    private static List<ReviewBatchResult.Status> statuses(ReviewBatchResult result) {
+        List<ReviewBatchResult.Status> statuses = new ArrayList<>(result.size());
+        for (int i = 0; i < result.size(); i++) {
+            statuses.add(result.getStatus(i));
+        }
+        return statuses;
+    }
 }
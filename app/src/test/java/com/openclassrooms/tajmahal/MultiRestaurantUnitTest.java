@@ -0,0 +1,201 @@
+package com.openclassrooms.tajmahal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.lifecycle.LiveData;
+
+import com.openclassrooms.tajmahal.data.local.ReviewDao;
+import com.openclassrooms.tajmahal.data.local.ReviewSnapshotStore;
+import com.openclassrooms.tajmahal.data.repository.RestaurantRepository;
+import com.openclassrooms.tajmahal.data.repository.ReviewOutbox;
+import com.openclassrooms.tajmahal.data.repository.ReviewRepository;
+import com.openclassrooms.tajmahal.data.service.RestaurantApi;
+import com.openclassrooms.tajmahal.data.service.RestaurantFakeApi;
+import com.openclassrooms.tajmahal.domain.model.Restaurant;
+import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.ui.restaurant.DetailsViewModel;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * This class represents a unit test for the support of several restaurants.
+ * It executes on the development machine (host) and uses the fake API to simulate the server.
+ *
+ * @see <a href="http://d.android.com/tools/testing">Testing documentation</a>
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(application = TajMahalApplication.class, manifest = "src/main/AndroidManifest.xml")
+public class MultiRestaurantUnitTest {
+
+    // The identifiers of two restaurants of the chain.
+    private static final long TAJ_MAHAL = RestaurantFakeApi.TAJ_MAHAL_ID;
+    private static final long OTHER_RESTAURANT = TAJ_MAHAL + 1;
+
+    private RestaurantApi api;
+    private ReviewRepository reviewRepository;
+
+    // Executes the LiveData updates synchronously, as the repository publishes them with postValue.
+    @Rule
+    public InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+
+    /**
+     * Set up the test environment.
+     * This method is called before each test method is executed.
+     * It initializes a new ReviewRepository with a spy of the fake API.
+     */
+    @Before
+    public void setup() {
+        api = Mockito.spy(new RestaurantFakeApi());
+        reviewRepository = new ReviewRepository(api, Mockito.mock(ReviewDao.class), Mockito.mock(ReviewOutbox.class), Mockito.mock(ReviewSnapshotStore.class), Runnable::run);
+    }
+
+    /**
+     * This method checks that a review added to a restaurant is neither listed nor counted for another restaurant.
+     */
+    @Test
+    public void reviewsArePartitionedByRestaurant() {
+        Review newReview = new Review("John Tester", "https://xsgames.co/randomusers/assets/avatars/male/2.jpg", "This is the content of the new review.", 3);
+        int otherTotalBefore = Objects.requireNonNull(reviewRepository.getRatingStatistics(OTHER_RESTAURANT).getValue()).getTotalRatings();
+
+        reviewRepository.addReview(TAJ_MAHAL, newReview);
+
+        List<Review> tajMahalReviews = reviewRepository.getReviews(TAJ_MAHAL).getValue();
+        List<Review> otherReviews = reviewRepository.getReviews(OTHER_RESTAURANT).getValue();
+        assertEquals(newReview, Objects.requireNonNull(tajMahalReviews).get(0));
+        assertFalse("The review should only be listed for its restaurant", Objects.requireNonNull(otherReviews).contains(newReview));
+        assertEquals(RestaurantFakeApi.TOTAL_REVIEWS + 1,
+                Objects.requireNonNull(reviewRepository.getRatingStatistics(TAJ_MAHAL).getValue()).getTotalRatings());
+        assertEquals(otherTotalBefore,
+                Objects.requireNonNull(reviewRepository.getRatingStatistics(OTHER_RESTAURANT).getValue()).getTotalRatings());
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'reviewsArePartitionedByRestaurant' was executed successfully.");
+    }
+
+    /**
+     * This method checks that peeking the version of the reviews of a restaurant neither loads them nor keeps them
+     * in memory, and that it returns their version once they are loaded.
+     */
+    @Test
+    public void peekingVersionLoadsNothing() {
+        assertEquals(ReviewRepository.NO_VERSION, reviewRepository.peekVersion(TAJ_MAHAL));
+        Mockito.verify(api, Mockito.never()).getRatingStatistics(TAJ_MAHAL);
+
+        reviewRepository.getReviews(TAJ_MAHAL);
+        assertEquals(reviewRepository.getVersion(TAJ_MAHAL), reviewRepository.peekVersion(TAJ_MAHAL));
+        for (int i = 1; i < ReviewRepository.MAX_LOADED_RESTAURANTS; i++) {
+            reviewRepository.getReviews(TAJ_MAHAL + i);
+        }
+
+        // The restaurant peeked stays the least recently requested one, evicted by the next one
+        assertNotEquals(ReviewRepository.NO_VERSION, reviewRepository.peekVersion(TAJ_MAHAL));
+        reviewRepository.getReviews(TAJ_MAHAL + ReviewRepository.MAX_LOADED_RESTAURANTS);
+        assertEquals(ReviewRepository.NO_VERSION, reviewRepository.peekVersion(TAJ_MAHAL));
+        Mockito.verify(api, Mockito.times(1)).getRatingStatistics(TAJ_MAHAL);
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'peekingVersionLoadsNothing' was executed successfully.");
+    }
+
+    /**
+     * This method checks that the reviews of a recently requested restaurant stay in memory, and that the reviews
+     * of the least recently requested restaurant are dropped once too many restaurants are loaded.
+     */
+    @Test
+    public void leastRecentlyRequestedRestaurantIsEvicted() {
+        reviewRepository.getReviews(TAJ_MAHAL);
+        reviewRepository.getReviews(TAJ_MAHAL);
+        Mockito.verify(api, Mockito.times(1)).getRatingStatistics(TAJ_MAHAL);
+
+        for (int i = 1; i <= ReviewRepository.MAX_LOADED_RESTAURANTS; i++) {
+            reviewRepository.getReviews(TAJ_MAHAL + i);
+        }
+        Mockito.verify(api, Mockito.times(1)).getRatingStatistics(TAJ_MAHAL + ReviewRepository.MAX_LOADED_RESTAURANTS);
+
+        reviewRepository.getReviews(TAJ_MAHAL);
+        Mockito.verify(api, Mockito.times(2)).getRatingStatistics(TAJ_MAHAL);
+        reviewRepository.getReviews(TAJ_MAHAL + ReviewRepository.MAX_LOADED_RESTAURANTS);
+        Mockito.verify(api, Mockito.times(1)).getRatingStatistics(TAJ_MAHAL + ReviewRepository.MAX_LOADED_RESTAURANTS);
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'leastRecentlyRequestedRestaurantIsEvicted' was executed successfully.");
+    }
+
+    /**
+     * This method checks that reselecting a restaurant whose reviews have been evicted meanwhile follows
+     * the reviews loaded again, rather than the ones of the evicted restaurant.
+     */
+    @Test
+    public void reselectedEvictedRestaurantFollowsItsNewReviews() {
+        DetailsViewModel viewModel = new DetailsViewModel(new RestaurantRepository(api, Runnable::run), reviewRepository);
+        viewModel.getReviews().observeForever(reviews -> {
+        });
+        viewModel.selectRestaurant(TAJ_MAHAL);
+
+        // Loading as many other restaurants as the repository keeps evicts the Taj Mahal
+        for (int i = 1; i <= ReviewRepository.MAX_LOADED_RESTAURANTS; i++) {
+            reviewRepository.getReviews(TAJ_MAHAL + i);
+        }
+        viewModel.selectRestaurant(TAJ_MAHAL);
+
+        Review newReview = new Review("John Tester", "https://xsgames.co/randomusers/assets/avatars/male/2.jpg", "This is the content of the new review.", 3);
+        reviewRepository.addReview(TAJ_MAHAL, newReview);
+        assertEquals(newReview, Objects.requireNonNull(viewModel.getReviews().getValue()).get(0));
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'reselectedEvictedRestaurantFollowsItsNewReviews' was executed successfully.");
+    }
+
+    /**
+     * This method checks that the details of each restaurant are cached separately.
+     */
+    @Test
+    public void restaurantDetailsAreCachedPerRestaurant() {
+        RestaurantRepository restaurantRepository = new RestaurantRepository(api, Runnable::run);
+
+        LiveData<Restaurant> tajMahal = restaurantRepository.getRestaurant(TAJ_MAHAL);
+        LiveData<Restaurant> otherRestaurant = restaurantRepository.getRestaurant(OTHER_RESTAURANT);
+
+        assertNotSame(tajMahal, otherRestaurant);
+        assertSame(tajMahal, restaurantRepository.getRestaurant(TAJ_MAHAL));
+        assertEquals(TAJ_MAHAL, Objects.requireNonNull(tajMahal.getValue()).getId());
+        assertEquals("Taj Mahal", tajMahal.getValue().getName());
+        assertEquals(OTHER_RESTAURANT, Objects.requireNonNull(otherRestaurant.getValue()).getId());
+        Mockito.verify(api, Mockito.times(1)).getRestaurant(TAJ_MAHAL);
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'restaurantDetailsAreCachedPerRestaurant' was executed successfully.");
+    }
+
+    /**
+     * This method checks that the fake API rejects the identifiers of restaurants outside of the chain.
+     */
+    @Test
+    public void unknownRestaurantIsRejected() {
+        try {
+            api.getReviewsPage(TAJ_MAHAL + RestaurantFakeApi.RESTAURANT_COUNT, ReviewRepository.PAGE_SIZE, null);
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("Unknown restaurant"));
+
+            // Print a message if the test is executed without errors
+            System.out.println("The test 'unknownRestaurantIsRejected' was executed successfully.");
+            return;
+        }
+        throw new AssertionError("The restaurant should be rejected");
+    }
+}
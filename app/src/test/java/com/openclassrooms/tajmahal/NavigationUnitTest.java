@@ -0,0 +1,226 @@
+package com.openclassrooms.tajmahal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+import androidx.annotation.NonNull;
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.LifecycleRegistry;
+import androidx.lifecycle.ViewModel;
+import androidx.lifecycle.ViewModelProvider;
+import androidx.lifecycle.ViewModelStore;
+
+import com.openclassrooms.tajmahal.data.local.ReviewDao;
+import com.openclassrooms.tajmahal.data.local.ReviewSnapshotStore;
+import com.openclassrooms.tajmahal.data.repository.RestaurantRepository;
+import com.openclassrooms.tajmahal.data.repository.ReviewOutbox;
+import com.openclassrooms.tajmahal.data.repository.ReviewRepository;
+import com.openclassrooms.tajmahal.data.service.RestaurantFakeApi;
+import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.ui.restaurant.DetailsViewModel;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Objects;
+
+/**
+ * This class represents a unit test for the observation of the ViewModel by the fragments, as they replace each other.
+ * It executes on the development machine (host) and uses the fake API to simulate the server.
+ * <p>
+ * Each screen is simulated by the lifecycle of the view of its fragment, observing the same LiveData objects as the fragment.
+ *
+ * @see <a href="http://d.android.com/tools/testing">Testing documentation</a>
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(application = TajMahalApplication.class, manifest = "src/main/AndroidManifest.xml")
+public class NavigationUnitTest {
+
+    // The identifier of the displayed restaurant.
+    private static final long TAJ_MAHAL = RestaurantFakeApi.TAJ_MAHAL_ID;
+
+    // The number of times the user goes from one screen to the other.
+    private static final int NAVIGATIONS = 100;
+
+    private RestaurantRepository restaurantRepository;
+    private ReviewRepository reviewRepository;
+
+    // The ViewModels of the activity, shared by its fragments.
+    private ViewModelStore activityViewModels;
+
+    // The number of updates received by the observers of the screens.
+    private int updates;
+
+    // Executes the LiveData updates synchronously, as the repositories publish them with postValue.
+    @Rule
+    public InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+
+    /**
+     * The lifecycle of the view of a fragment, from its creation to its destruction when the fragment is replaced.
+     */
+    private static final class ViewLifecycle implements LifecycleOwner {
+        private final LifecycleRegistry lifecycle = new LifecycleRegistry(this);
+
+        @NonNull
+        @Override
+        public Lifecycle getLifecycle() {
+            return lifecycle;
+        }
+
+        void resume() {
+            lifecycle.setCurrentState(Lifecycle.State.RESUMED);
+        }
+
+        void destroy() {
+            lifecycle.setCurrentState(Lifecycle.State.DESTROYED);
+        }
+    }
+
+    /**
+     * Set up the test environment.
+     * This method is called before each test method is executed.
+     * It initializes the repositories with the fake API, and an empty store of the ViewModels of the activity.
+     */
+    @Before
+    public void setup() {
+        RestaurantFakeApi api = new RestaurantFakeApi();
+        restaurantRepository = new RestaurantRepository(api, Runnable::run);
+        reviewRepository = new ReviewRepository(api, Mockito.mock(ReviewDao.class), Mockito.mock(ReviewOutbox.class), Mockito.mock(ReviewSnapshotStore.class), Runnable::run);
+        activityViewModels = new ViewModelStore();
+    }
+
+    /**
+     * Returns the ViewModel of the activity, as done by the fragments, creating it the first time.
+     *
+     * @return The ViewModel shared by the fragments.
+     */
+    private DetailsViewModel activityViewModel() {
+        return new ViewModelProvider(activityViewModels, new ViewModelProvider.Factory() {
+            @NonNull
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T extends ViewModel> T create(@NonNull Class<T> modelClass) {
+                return (T) new DetailsViewModel(restaurantRepository, reviewRepository);
+            }
+        }).get(DetailsViewModel.class);
+    }
+
+    /**
+     * Opens a screen of the Taj Mahal as its fragment does.
+     *
+     * @param viewModel     The ViewModel of the activity.
+     * @param detailsScreen true to open the details of the restaurant; false to open the review screen.
+     * @return The lifecycle of the view of the fragment, resumed.
+     */
+    private ViewLifecycle openScreen(DetailsViewModel viewModel, boolean detailsScreen) {
+        return openScreen(viewModel, detailsScreen, TAJ_MAHAL);
+    }
+
+    /**
+     * Opens a screen as its fragment does: selects the restaurant given in the arguments of the fragment, and observes
+     * the ViewModel with the lifecycle of the view of the fragment.
+     *
+     * @param viewModel     The ViewModel of the activity.
+     * @param detailsScreen true to open the details of the restaurant; false to open the review screen.
+     * @param restaurantId  The identifier of the restaurant given in the arguments of the fragment.
+     * @return The lifecycle of the view of the fragment, resumed.
+     */
+    private ViewLifecycle openScreen(DetailsViewModel viewModel, boolean detailsScreen, long restaurantId) {
+        ViewLifecycle view = new ViewLifecycle();
+        viewModel.selectRestaurant(restaurantId);
+        viewModel.getRestaurant().observe(view, restaurant -> updates++);
+        if (detailsScreen) {
+            viewModel.getRestaurantLoadState().observe(view, loadState -> updates++);
+            viewModel.getTotalRatings().observe(view, totalRatings -> updates++);
+            viewModel.getRatingCount().observe(view, ratingCount -> updates++);
+            viewModel.getAverageRating().observe(view, averageRating -> updates++);
+        } else {
+            viewModel.getDisplayedReviews().observe(view, reviews -> updates++);
+            viewModel.getReviewsLoadState().observe(view, loadState -> updates++);
+        }
+        view.resume();
+        return view;
+    }
+
+    /**
+     * This method checks that going back and forth between the screens a hundred times leaves a single observer
+     * on each LiveData object: a new review updates each rating aggregate once, whatever the number of navigations.
+     */
+    @Test
+    public void observersStayConstantAcrossNavigations() {
+        DetailsViewModel viewModel = activityViewModel();
+        ViewLifecycle view = openScreen(viewModel, true);
+        for (int i = 1; i <= NAVIGATIONS; i++) {
+            // The fragment of the other screen replaces the current one, whose view is destroyed
+            view.destroy();
+            assertSame("The fragments should share the ViewModel of the activity", viewModel, activityViewModel());
+            view = openScreen(viewModel, i % 2 == 0);
+        }
+
+        // After an even number of navigations, the details of the restaurant are displayed
+        updates = 0;
+        reviewRepository.addReview(TAJ_MAHAL, new Review("John Tester", "https://xsgames.co/randomusers/assets/avatars/male/2.jpg", "This is the content of the new review.", 3));
+        assertEquals("The total, the histogram and the average should each be updated once", 3, updates);
+
+        // Once the last view is destroyed, nothing observes the ViewModel nor the repositories any more
+        view.destroy();
+        assertFalse(viewModel.getRestaurant().hasObservers());
+        assertFalse(viewModel.getTotalRatings().hasObservers());
+        assertFalse(viewModel.getDisplayedReviews().hasObservers());
+        assertFalse(reviewRepository.getRatingStatistics(TAJ_MAHAL).hasObservers());
+        assertFalse(reviewRepository.getReviews(TAJ_MAHAL).hasObservers());
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'observersStayConstantAcrossNavigations' was executed successfully.");
+    }
+
+    /**
+     * This method checks that going back and forth between the screens of a restaurant other than the Taj Mahal
+     * keeps displaying this restaurant, each screen opening the other one with the restaurant of the ViewModel.
+     */
+    @Test
+    public void navigationKeepsRestaurant() {
+        long otherRestaurant = TAJ_MAHAL + 2;
+        DetailsViewModel viewModel = activityViewModel();
+        ViewLifecycle view = openScreen(viewModel, true, otherRestaurant);
+        for (int i = 1; i <= 4; i++) {
+            // Each screen passes the restaurant of the ViewModel to the fragment of the other screen, back button included
+            long restaurantId = viewModel.getRestaurantId();
+            view.destroy();
+            view = openScreen(viewModel, i % 2 == 0, restaurantId);
+            assertEquals(otherRestaurant, viewModel.getRestaurantId());
+            assertEquals(otherRestaurant, Objects.requireNonNull(viewModel.getRestaurant().getValue()).getId());
+        }
+        view.destroy();
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'navigationKeepsRestaurant' was executed successfully.");
+    }
+
+    /**
+     * This method checks that the review screen opened again displays the reviews at once, from the shared ViewModel.
+     */
+    @Test
+    public void reopenedScreenShowsCurrentReviews() {
+        DetailsViewModel viewModel = activityViewModel();
+        openScreen(viewModel, false).destroy();
+        openScreen(viewModel, true).destroy();
+
+        updates = 0;
+        ViewLifecycle view = openScreen(viewModel, false);
+        assertEquals("The restaurant, the reviews and their load state should be delivered once", 3, updates);
+        assertFalse(Objects.requireNonNull(viewModel.getDisplayedReviews().getValue()).isEmpty());
+        view.destroy();
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'reopenedScreenShowsCurrentReviews' was executed successfully.");
+    }
+}
@@ -0,0 +1,191 @@
+package com.openclassrooms.tajmahal;
+
+import static org.junit.Assert.assertEquals;
+
+import com.openclassrooms.tajmahal.domain.model.RatingHistogram;
+import com.openclassrooms.tajmahal.domain.model.RatingStatistics;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+/**
+ * This class represents a property-based unit test for the rating aggregates.
+ * Random datasets of ratings are recorded, and the aggregates are compared with a brute-force computation
+ * over the same ratings. It executes on the development machine (host).
+ *
+ * @see <a href="http://d.android.com/tools/testing">Testing documentation</a>
+ */
+public class RatingAverageUnitTest {
+
+    // The seed of the random datasets, fixed so that a failure can be reproduced.
+    private static final long SEED = 20240501L;
+
+    // The number of random datasets checked by each test.
+    private static final int DATASETS = 200;
+
+    // The largest number of ratings of a random dataset.
+    private static final int MAX_DATASET_SIZE = 20_000;
+
+    /**
+     * Generates a random dataset of ratings, skewed towards a random star rating,
+     * including some ratings outside of the valid range.
+     *
+     * @param random The random generator.
+     * @param size   The number of ratings.
+     * @return The ratings.
+     */
+    private static int[] randomRatings(Random random, int size) {
+        int favoriteRating = RatingStatistics.MIN_RATING + random.nextInt(RatingStatistics.MAX_RATING);
+        int[] ratings = new int[size];
+        for (int i = 0; i < size; i++) {
+            int draw = random.nextInt(10);
+            if (draw == 0) {
+                ratings[i] = random.nextInt(9) - 2;
+            } else if (draw < 5) {
+                ratings[i] = favoriteRating;
+            } else {
+                ratings[i] = RatingStatistics.MIN_RATING + random.nextInt(RatingStatistics.MAX_RATING);
+            }
+        }
+        return ratings;
+    }
+
+    /**
+     * Computes the average of the valid ratings, rounded half up to the given number of decimals, by brute force.
+     *
+     * @param ratings  The ratings.
+     * @param decimals The number of decimals.
+     * @return The rounded average, or 0 if there is no valid rating.
+     */
+    private static BigDecimal referenceAverage(int[] ratings, int decimals) {
+        long sum = 0;
+        int count = 0;
+        for (int rating : ratings) {
+            if (rating >= RatingStatistics.MIN_RATING && rating <= RatingStatistics.MAX_RATING) {
+                sum += rating;
+                count++;
+            }
+        }
+        if (count == 0) {
+            return BigDecimal.ZERO.setScale(decimals);
+        }
+        return BigDecimal.valueOf(sum).divide(BigDecimal.valueOf(count), decimals, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * This method checks that the counters match a brute-force count of the random datasets.
+     */
+    @Test
+    public void countersMatchBruteForce() {
+        Random random = new Random(SEED);
+        for (int dataset = 0; dataset < DATASETS; dataset++) {
+            int[] ratings = randomRatings(random, random.nextInt(MAX_DATASET_SIZE));
+            RatingStatistics statistics = new RatingStatistics();
+            int[] counts = new int[RatingStatistics.MAX_RATING + 1];
+            long sum = 0;
+            int total = 0;
+            for (int rating : ratings) {
+                statistics.record(rating);
+                if (rating >= RatingStatistics.MIN_RATING && rating <= RatingStatistics.MAX_RATING) {
+                    counts[rating]++;
+                    sum += rating;
+                    total++;
+                }
+            }
+
+            RatingHistogram histogram = statistics.snapshot();
+            assertEquals(total, histogram.getTotalRatings());
+            assertEquals(sum, histogram.getRatingSum());
+            for (int rating = RatingStatistics.MIN_RATING; rating <= RatingStatistics.MAX_RATING; rating++) {
+                assertEquals(counts[rating], histogram.getRatingCount(rating));
+            }
+            assertEquals(total == 0 ? 0 : (double) sum / total, histogram.getAverageRating(), 0);
+        }
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'countersMatchBruteForce' was executed successfully.");
+    }
+
+    /**
+     * This method checks that the rounded average matches the brute-force average rounded half up,
+     * for every supported number of decimals.
+     */
+    @Test
+    public void roundedAverageMatchesBruteForce() {
+        Random random = new Random(SEED);
+        for (int dataset = 0; dataset < DATASETS; dataset++) {
+            int[] ratings = randomRatings(random, random.nextInt(MAX_DATASET_SIZE));
+            RatingStatistics statistics = new RatingStatistics();
+            for (int rating : ratings) {
+                statistics.record(rating);
+            }
+
+            RatingHistogram histogram = statistics.snapshot();
+            for (int decimals = 0; decimals <= RatingHistogram.MAX_AVERAGE_DECIMALS; decimals++) {
+                assertEquals("Average of dataset " + dataset + " rounded to " + decimals + " decimals",
+                        referenceAverage(ratings, decimals).floatValue(), histogram.getRoundedAverageRating(decimals), 0);
+            }
+        }
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'roundedAverageMatchesBruteForce' was executed successfully.");
+    }
+
+    /**
+     * This method checks that averages lying exactly halfway between two displayed values are rounded up.
+     */
+    @Test
+    public void halfwayAveragesAreRoundedUp() {
+        // 7 ratings of 5 and 13 ratings of 4 give an average of 87 / 20 = 4.35, which has no exact binary representation.
+        RatingStatistics statistics = new RatingStatistics();
+        for (int i = 0; i < 7; i++) {
+            statistics.record(5);
+        }
+        for (int i = 0; i < 13; i++) {
+            statistics.record(4);
+        }
+        RatingHistogram histogram = statistics.snapshot();
+
+        assertEquals(4.35, histogram.getAverageRating(), 1e-12);
+        assertEquals(4.4f, histogram.getRoundedAverageRating(1), 0);
+        assertEquals(4.0f, histogram.getRoundedAverageRating(0), 0);
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'halfwayAveragesAreRoundedUp' was executed successfully.");
+    }
+
+    /**
+     * This method checks that merging statistics gives the same aggregates as recording every rating,
+     * and that a single large dataset is aggregated exactly.
+     */
+    @Test
+    public void mergedStatisticsMatchBruteForce() {
+        Random random = new Random(SEED);
+        int[] ratings = randomRatings(random, 1_000_000);
+        RatingStatistics first = new RatingStatistics();
+        RatingStatistics second = new RatingStatistics();
+        for (int i = 0; i < ratings.length; i++) {
+            (i % 3 == 0 ? first : second).record(ratings[i]);
+        }
+        first.addAll(second);
+
+        RatingHistogram histogram = first.snapshot();
+        for (int decimals = 0; decimals <= RatingHistogram.MAX_AVERAGE_DECIMALS; decimals++) {
+            assertEquals(referenceAverage(ratings, decimals).floatValue(), histogram.getRoundedAverageRating(decimals), 0);
+        }
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'mergedStatisticsMatchBruteForce' was executed successfully.");
+    }
+
+    /**
+     * This method checks that an unsupported number of decimals is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void unsupportedPrecisionIsRejected() {
+        RatingHistogram.EMPTY.getRoundedAverageRating(RatingHistogram.MAX_AVERAGE_DECIMALS + 1);
+    }
+}
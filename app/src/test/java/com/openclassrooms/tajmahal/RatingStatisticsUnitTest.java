@@ -0,0 +1,122 @@
+package com.openclassrooms.tajmahal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import com.openclassrooms.tajmahal.domain.model.RatingHistogram;
+import com.openclassrooms.tajmahal.domain.model.RatingStatistics;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * This class represents a unit test for the running rating statistics.
+ * It executes on the development machine (host).
+ *
+ * @see <a href="http://d.android.com/tools/testing">Testing documentation</a>
+ */
+public class RatingStatisticsUnitTest {
+    private RatingStatistics ratingStatistics;
+
+    /**
+     * Set up the test environment.
+     * This method is called before each test method is executed.
+     * It records the ratings of the sample reviews of the restaurant.
+     */
+    @Before
+    public void setup() {
+        ratingStatistics = new RatingStatistics();
+        ratingStatistics.record(5);
+        ratingStatistics.record(4);
+        ratingStatistics.record(5);
+        ratingStatistics.record(2);
+        ratingStatistics.record(4);
+    }
+
+    /**
+     * This method checks that the counters are updated for each recorded rating.
+     */
+    @Test
+    public void countersAreUpdated() {
+        assertEquals(5, ratingStatistics.getTotalRatings());
+        assertEquals(20, ratingStatistics.getRatingSum());
+        assertEquals(0, ratingStatistics.getRatingCount(1));
+        assertEquals(1, ratingStatistics.getRatingCount(2));
+        assertEquals(2, ratingStatistics.getRatingCount(4));
+        assertEquals(2, ratingStatistics.getRatingCount(5));
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'countersAreUpdated' was executed successfully.");
+    }
+
+    /**
+     * This method checks that ratings outside of the range 1 - 5 are not recorded.
+     */
+    @Test
+    public void invalidRatingsAreIgnored() {
+        ratingStatistics.record(0);
+        ratingStatistics.record(6);
+
+        assertEquals(5, ratingStatistics.getTotalRatings());
+        assertEquals(20, ratingStatistics.getRatingSum());
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'invalidRatingsAreIgnored' was executed successfully.");
+    }
+
+    /**
+     * This method checks the percentages and the average computed from the counters.
+     */
+    @Test
+    public void percentagesAndAverage() {
+        assertEquals(40, ratingStatistics.getRatingPercentage(5));
+        assertEquals(20, ratingStatistics.getRatingPercentage(2));
+        assertEquals(0, ratingStatistics.getRatingPercentage(3));
+        assertEquals(4.0f, ratingStatistics.getAverageRating(), 0.0001f);
+        assertEquals(0f, new RatingStatistics().getAverageRating(), 0f);
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'percentagesAndAverage' was executed successfully.");
+    }
+
+    /**
+     * This method checks that a snapshot holds the statistics at the time it was taken, whatever is recorded afterwards.
+     */
+    @Test
+    public void snapshotIsImmutable() {
+        RatingHistogram histogram = ratingStatistics.snapshot();
+        ratingStatistics.record(1);
+        ratingStatistics.clear();
+
+        assertEquals(5, histogram.getTotalRatings());
+        assertEquals(2, histogram.getRatingCount(4));
+        assertEquals(40, histogram.getRatingPercentage(5));
+        assertEquals(0, histogram.getRatingPercentage(1));
+        assertEquals(4.0f, histogram.getAverageRating(), 0.0001f);
+        assertSame(RatingHistogram.EMPTY, ratingStatistics.snapshot());
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'snapshotIsImmutable' was executed successfully.");
+    }
+
+    /**
+     * This method checks that the percentages are rounded half up to the nearest percent.
+     */
+    @Test
+    public void percentagesAreRounded() {
+        RatingStatistics statistics = new RatingStatistics();
+        statistics.record(1);
+        for (int i = 0; i < 7; i++) {
+            statistics.record(5);
+        }
+        RatingHistogram histogram = statistics.snapshot();
+
+        // 1 / 8 = 12.5 % and 7 / 8 = 87.5 %
+        assertEquals(13, histogram.getRatingPercentage(1));
+        assertEquals(88, histogram.getRatingPercentage(5));
+        assertEquals(0, histogram.getRatingPercentage(0));
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'percentagesAreRounded' was executed successfully.");
+    }
+}
@@ -0,0 +1,193 @@
+package com.openclassrooms.tajmahal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.openclassrooms.tajmahal.data.repository.LoadState;
+import com.openclassrooms.tajmahal.data.repository.RestaurantRepository;
+import com.openclassrooms.tajmahal.data.repository.ReviewRepository;
+import com.openclassrooms.tajmahal.data.service.RestaurantApi;
+import com.openclassrooms.tajmahal.domain.model.Restaurant;
+import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.ui.restaurant.DetailsViewModel;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * This class represents a unit test for the cache of the restaurant details.
+ * It executes on the development machine (host) and uses a mock API to simulate the server.
+ *
+ * @see <a href="http://d.android.com/tools/testing">Testing documentation</a>
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(application = TajMahalApplication.class, manifest = "src/main/AndroidManifest.xml")
+public class RestaurantCacheUnitTest {
+    private static final long TIME_TO_LIVE = 1000;
+
+    // The identifier of the restaurant whose details are tested.
+    private static final long TAJ_MAHAL = 1;
+
+    private RestaurantApi api;
+    private List<Runnable> pendingTasks;
+    private long now;
+    private RestaurantRepository restaurantRepository;
+
+    private final Restaurant tajMahal = new Restaurant(TAJ_MAHAL, "Taj Mahal", "Indien", "11h30 - 14h30・18h30 - 22h00",
+            "12 Avenue de la Brique - 75010 Paris", "http://www.tajmahal.fr", "06 12 34 56 78", true, true);
+
+    // Executes the LiveData updates synchronously, as the repository publishes them with postValue.
+    @Rule
+    public InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+
+    /**
+     * Set up the test environment.
+     * This method is called before each test method is executed.
+     * It initializes a new RestaurantRepository with a mock API, a manual clock and an executor queuing its tasks.
+     */
+    @Before
+    public void setup() {
+        api = Mockito.mock(RestaurantApi.class);
+        Mockito.when(api.getRestaurant(TAJ_MAHAL)).thenReturn(tajMahal);
+        pendingTasks = new ArrayList<>();
+        now = 0;
+        restaurantRepository = new RestaurantRepository(api, pendingTasks::add, () -> now, TIME_TO_LIVE);
+    }
+
+    /**
+     * Runs the tasks queued on the executor.
+     */
+    private void runPendingTasks() {
+        List<Runnable> tasks = new ArrayList<>(pendingTasks);
+        pendingTasks.clear();
+        for (Runnable task : tasks) {
+            task.run();
+        }
+    }
+
+    /**
+     * This method checks that every caller shares the same LiveData and that a single request is in flight.
+     */
+    @Test
+    public void singleRequestInFlight() {
+        LiveData<Restaurant> first = restaurantRepository.getRestaurant(TAJ_MAHAL);
+        LiveData<Restaurant> second = restaurantRepository.getRestaurant(TAJ_MAHAL);
+        runPendingTasks();
+
+        assertSame(first, second);
+        assertEquals(tajMahal, first.getValue());
+        Mockito.verify(api, Mockito.times(1)).getRestaurant(TAJ_MAHAL);
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'singleRequestInFlight' was executed successfully.");
+    }
+
+    /**
+     * This method checks that fresh details are served from the cache without a new request.
+     */
+    @Test
+    public void freshDetailsAreNotFetchedAgain() {
+        restaurantRepository.getRestaurant(TAJ_MAHAL);
+        runPendingTasks();
+        now = TIME_TO_LIVE - 1;
+        restaurantRepository.getRestaurant(TAJ_MAHAL);
+
+        assertEquals(0, pendingTasks.size());
+        Mockito.verify(api, Mockito.times(1)).getRestaurant(TAJ_MAHAL);
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'freshDetailsAreNotFetchedAgain' was executed successfully.");
+    }
+
+    /**
+     * This method checks that stale details stay published while they are revalidated.
+     */
+    @Test
+    public void staleDetailsAreRevalidated() {
+        LiveData<Restaurant> restaurant = restaurantRepository.getRestaurant(TAJ_MAHAL);
+        runPendingTasks();
+        now = TIME_TO_LIVE;
+        restaurantRepository.getRestaurant(TAJ_MAHAL);
+
+        assertEquals("The stale details should stay published", tajMahal, restaurant.getValue());
+        assertEquals(1, pendingTasks.size());
+        runPendingTasks();
+        Mockito.verify(api, Mockito.times(2)).getRestaurant(TAJ_MAHAL);
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'staleDetailsAreRevalidated' was executed successfully.");
+    }
+
+    /**
+     * This method checks that selecting the restaurant already displayed revalidates its stale details,
+     * while its reviews keep being followed as they are.
+     */
+    @Test
+    public void reselectedRestaurantIsRevalidated() {
+        ReviewRepository reviewRepository = Mockito.mock(ReviewRepository.class);
+        MutableLiveData<List<Review>> reviews = new MutableLiveData<>();
+        Mockito.when(reviewRepository.getReviews(TAJ_MAHAL)).thenReturn(reviews);
+        Mockito.when(reviewRepository.getLoadState(TAJ_MAHAL)).thenReturn(new MutableLiveData<>());
+        Mockito.when(reviewRepository.getRatingStatistics(TAJ_MAHAL)).thenReturn(new MutableLiveData<>());
+        DetailsViewModel viewModel = new DetailsViewModel(restaurantRepository, reviewRepository);
+        viewModel.getRestaurant().observeForever(restaurant -> {
+        });
+        viewModel.getReviews().observeForever(list -> {
+        });
+        viewModel.selectRestaurant(TAJ_MAHAL);
+        runPendingTasks();
+
+        // Fresh details are not fetched again
+        viewModel.selectRestaurant(TAJ_MAHAL);
+        assertEquals(0, pendingTasks.size());
+
+        // Stale details are revalidated, and stay displayed meanwhile
+        now = TIME_TO_LIVE;
+        viewModel.selectRestaurant(TAJ_MAHAL);
+        assertEquals(tajMahal, viewModel.getRestaurant().getValue());
+        assertEquals(1, pendingTasks.size());
+        runPendingTasks();
+        Mockito.verify(api, Mockito.times(2)).getRestaurant(TAJ_MAHAL);
+
+        // The reviews are still followed from the same LiveData
+        List<Review> newReviews = Collections.emptyList();
+        reviews.setValue(newReviews);
+        assertSame(newReviews, viewModel.getReviews().getValue());
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'reselectedRestaurantIsRevalidated' was executed successfully.");
+    }
+
+    /**
+     * This method checks that a failed revalidation keeps the stale details and reports the error.
+     */
+    @Test
+    public void failedRevalidationKeepsStaleDetails() {
+        LiveData<Restaurant> restaurant = restaurantRepository.getRestaurant(TAJ_MAHAL);
+        runPendingTasks();
+        now = TIME_TO_LIVE;
+        Mockito.when(api.getRestaurant(TAJ_MAHAL)).thenThrow(new IllegalStateException("Network unavailable"));
+        restaurantRepository.getRestaurant(TAJ_MAHAL);
+        runPendingTasks();
+
+        assertEquals(tajMahal, restaurant.getValue());
+        assertEquals(LoadState.Status.ERROR, Objects.requireNonNull(restaurantRepository.getLoadState(TAJ_MAHAL).getValue()).getStatus());
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'failedRevalidationKeepsStaleDetails' was executed successfully.");
+    }
+}
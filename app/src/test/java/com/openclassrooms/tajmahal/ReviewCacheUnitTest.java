@@ -0,0 +1,287 @@
+package com.openclassrooms.tajmahal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+
+import com.openclassrooms.tajmahal.data.local.ReviewDao;
+import com.openclassrooms.tajmahal.data.local.ReviewEntity;
+import com.openclassrooms.tajmahal.data.local.ReviewSnapshotStore;
+import com.openclassrooms.tajmahal.data.repository.LoadState;
+import com.openclassrooms.tajmahal.data.repository.ReviewOutbox;
+import com.openclassrooms.tajmahal.data.repository.ReviewRepository;
+import com.openclassrooms.tajmahal.data.repository.ReviewSort;
+import com.openclassrooms.tajmahal.data.service.RestaurantApi;
+import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.model.ReviewPage;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * This class represents a unit test for the local cache of the reviews.
+ * It executes on the development machine (host) and uses mocks to simulate the server and the local database.
+ *
+ * @see <a href="http://d.android.com/tools/testing">Testing documentation</a>
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(application = TajMahalApplication.class, manifest = "src/main/AndroidManifest.xml")
+public class ReviewCacheUnitTest {
+    // The identifier of the restaurant whose reviews are tested.
+    private static final long TAJ_MAHAL = 1;
+
+    private RestaurantApi api;
+    private ReviewDao reviewDao;
+    private ReviewOutbox reviewOutbox;
+    private ReviewSnapshotStore snapshotStore;
+
+    // A review written on this device during a previous session.
+    private final Review localReview = new Review("Manon Garcia", "https://xsgames.co/randomusers/assets/avatars/female/1.jpg", "Toujours aussi bon.", 5);
+
+    // A review fetched from the API during a previous session.
+    private final Review cachedReview = new Review("Emilie Hood", "https://xsgames.co/randomusers/assets/avatars/female/20.jpg", "Très bon restaurant Indien ! Je recommande.", 4);
+
+    // Executes the LiveData updates synchronously, as the repository publishes them with postValue.
+    @Rule
+    public InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+
+    // The storage of the application, holding the snapshots of the reviews.
+    @Rule
+    public TemporaryFolder storage = new TemporaryFolder();
+
+    /**
+     * Set up the test environment.
+     * This method is called before each test method is executed.
+     * It fills the mock database with a local review and a cached review, and opens an empty snapshot store.
+     */
+    @Before
+    public void setup() {
+        api = Mockito.mock(RestaurantApi.class);
+        reviewDao = Mockito.mock(ReviewDao.class);
+        reviewOutbox = Mockito.mock(ReviewOutbox.class);
+        snapshotStore = new ReviewSnapshotStore(storage.getRoot());
+        Mockito.when(reviewDao.getLocalReviews(TAJ_MAHAL)).thenReturn(Collections.singletonList(ReviewEntity.fromReview(TAJ_MAHAL, localReview, true, 2)));
+        Mockito.when(reviewDao.getCachedReviews(Mockito.eq(TAJ_MAHAL), Mockito.anyInt())).thenReturn(Collections.singletonList(ReviewEntity.fromReview(TAJ_MAHAL, cachedReview, false, 1)));
+    }
+
+    /**
+     * This method checks that the cached reviews are displayed even if the API cannot be reached.
+     */
+    @Test
+    public void cachedReviewsShownWhenApiFails() {
+        Mockito.when(api.getReviewsPage(Mockito.eq(TAJ_MAHAL), Mockito.anyInt(), Mockito.isNull())).thenThrow(new IllegalStateException("Network unavailable"));
+        ReviewRepository reviewRepository = new ReviewRepository(api, reviewDao, reviewOutbox, snapshotStore, Runnable::run);
+
+        List<Review> reviews = reviewRepository.getReviews(TAJ_MAHAL).getValue();
+        assertEquals(Arrays.asList(localReview, cachedReview), reviews);
+        assertEquals(LoadState.Status.ERROR, Objects.requireNonNull(reviewRepository.getLoadState(TAJ_MAHAL).getValue()).getStatus());
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'cachedReviewsShownWhenApiFails' was executed successfully.");
+    }
+
+    /**
+     * This method checks that the first page of the API replaces the cached reviews, below the local reviews,
+     * and is cached in turn.
+     */
+    @Test
+    public void firstPageReplacesCachedReviews() {
+        Review freshReview = new Review("Ranjit Singh", "https://xsgames.co/randomusers/assets/avatars/male/71.jpg", "Service très rapide et nourriture délicieuse.", 5);
+        Mockito.when(api.getReviewsPage(Mockito.eq(TAJ_MAHAL), Mockito.anyInt(), Mockito.isNull())).thenReturn(new ReviewPage(Collections.singletonList(freshReview), null));
+        ReviewRepository reviewRepository = new ReviewRepository(api, reviewDao, reviewOutbox, snapshotStore, Runnable::run);
+
+        List<Review> reviews = reviewRepository.getReviews(TAJ_MAHAL).getValue();
+        assertEquals(Arrays.asList(localReview, freshReview), reviews);
+        Mockito.verify(reviewDao).replaceCachedReviews(Mockito.eq(TAJ_MAHAL), Mockito.anyList());
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'firstPageReplacesCachedReviews' was executed successfully.");
+    }
+
+    /**
+     * This method checks that a new review is written through to the local database and queued for submission.
+     */
+    @Test
+    public void newReviewWrittenThrough() {
+        Mockito.when(api.getReviewsPage(Mockito.eq(TAJ_MAHAL), Mockito.anyInt(), Mockito.isNull())).thenReturn(new ReviewPage(Collections.emptyList(), null));
+        ReviewRepository reviewRepository = new ReviewRepository(api, reviewDao, reviewOutbox, snapshotStore, Runnable::run);
+        Review newReview = new Review("John Tester", "https://xsgames.co/randomusers/assets/avatars/male/2.jpg", "This is the content of the new review.", 3);
+
+        reviewRepository.addReview(TAJ_MAHAL, newReview);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ReviewEntity>> entities = ArgumentCaptor.forClass((Class<List<ReviewEntity>>) (Class<?>) List.class);
+        Mockito.verify(reviewDao).insertAll(entities.capture());
+        assertEquals(1, entities.getValue().size());
+        ReviewEntity entity = entities.getValue().get(0);
+        assertEquals(newReview, entity.toReview());
+        assertTrue("The new review should be stored as a local review", entity.local);
+        assertEquals(TAJ_MAHAL, entity.restaurantId);
+        Mockito.verify(reviewOutbox).enqueue(TAJ_MAHAL, Collections.singletonList(newReview));
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'newReviewWrittenThrough' was executed successfully.");
+    }
+
+    /**
+     * This method checks that the snapshot of the previous session is displayed below the local reviews
+     * instead of the first page cached in the database, even if the API cannot be reached.
+     */
+    @Test
+    public void snapshotShownOnStartup() {
+        Review olderReview = new Review("Ranjit Singh", "https://xsgames.co/randomusers/assets/avatars/male/71.jpg", "Service très rapide et nourriture délicieuse.", 5);
+        snapshotStore.write(TAJ_MAHAL, Arrays.asList(cachedReview, olderReview));
+        Mockito.when(api.getReviewsPage(Mockito.eq(TAJ_MAHAL), Mockito.anyInt(), Mockito.isNull())).thenThrow(new IllegalStateException("Network unavailable"));
+        ReviewRepository reviewRepository = new ReviewRepository(api, reviewDao, reviewOutbox, snapshotStore, Runnable::run);
+
+        List<Review> reviews = reviewRepository.getReviews(TAJ_MAHAL).getValue();
+        assertEquals(Arrays.asList(localReview, cachedReview, olderReview), reviews);
+        Mockito.verify(reviewDao, Mockito.never()).getCachedReviews(Mockito.anyLong(), Mockito.anyInt());
+
+        // A review of the snapshot is a duplicate, although the snapshot is not indexed
+        assertEquals(0, reviewRepository.addReviews(TAJ_MAHAL, Collections.singletonList(olderReview)).getAcceptedCount());
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'snapshotShownOnStartup' was executed successfully.");
+    }
+
+    /**
+     * This method checks that the snapshot of the previous session stays below the pages fetched from the API, its rows
+     * being dropped as their reviews are fetched again, and that the rows left once the last page is loaded are dropped.
+     */
+    @Test
+    public void snapshotKeptBelowFetchedPages() {
+        List<Review> snapshot = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            snapshot.add(new Review("Tester " + i, "https://xsgames.co/randomusers/assets/avatars/male/" + i + ".jpg", "Review " + i, i % 5 + 1));
+        }
+        snapshotStore.write(TAJ_MAHAL, snapshot);
+        Review freshReview = new Review("Ranjit Singh", "https://xsgames.co/randomusers/assets/avatars/male/71.jpg", "Service très rapide et nourriture délicieuse.", 5);
+        Mockito.when(api.getReviewsPage(Mockito.eq(TAJ_MAHAL), Mockito.anyInt(), Mockito.isNull()))
+                .thenReturn(new ReviewPage(Arrays.asList(snapshot.get(0), freshReview, snapshot.get(2)), "1"));
+        Mockito.when(api.getReviewsPage(Mockito.eq(TAJ_MAHAL), Mockito.anyInt(), Mockito.eq("1")))
+                .thenReturn(new ReviewPage(Collections.singletonList(snapshot.get(3)), "2"));
+        Mockito.when(api.getReviewsPage(Mockito.eq(TAJ_MAHAL), Mockito.anyInt(), Mockito.eq("2")))
+                .thenReturn(new ReviewPage(Collections.singletonList(snapshot.get(1)), null));
+        ReviewRepository reviewRepository = new ReviewRepository(api, reviewDao, reviewOutbox, snapshotStore, Runnable::run);
+
+        // The first page is fetched above the rows of the snapshot it does not hold
+        List<Review> reviews = new ArrayList<>(reviewRepository.getReviews(TAJ_MAHAL).getValue());
+        assertEquals(Arrays.asList(localReview, snapshot.get(0), freshReview, snapshot.get(2),
+                snapshot.get(1), snapshot.get(3), snapshot.get(4), snapshot.get(5)), reviews);
+        List<Review> sorted = reviewRepository.getSortedReviews(TAJ_MAHAL, ReviewRepository.ALL_RATINGS, ReviewSort.HIGHEST_RATING_FIRST);
+        assertEquals(reviews.size(), sorted.size());
+        assertEquals(new HashSet<>(reviews), new HashSet<>(sorted));
+
+        // A review fetched again out of order leaves its row, which the changes replay
+        long version = reviewRepository.getVersion(TAJ_MAHAL);
+        reviewRepository.loadNextPage(TAJ_MAHAL);
+        ReviewChangeFeedUnitTest.apply(reviews, reviewRepository.getChangesSince(TAJ_MAHAL, version));
+        assertEquals(Arrays.asList(localReview, snapshot.get(0), freshReview, snapshot.get(2), snapshot.get(3),
+                snapshot.get(1), snapshot.get(4), snapshot.get(5)), reviews);
+        assertEquals(reviews, reviewRepository.getReviews(TAJ_MAHAL).getValue());
+
+        // The rows left once the last page is loaded are no longer on the API
+        reviewRepository.loadNextPage(TAJ_MAHAL);
+        assertEquals(Arrays.asList(localReview, snapshot.get(0), freshReview, snapshot.get(2), snapshot.get(3), snapshot.get(1)),
+                reviewRepository.getReviews(TAJ_MAHAL).getValue());
+        assertEquals(6, reviewRepository.getSortedReviews(TAJ_MAHAL, ReviewRepository.ALL_RATINGS, ReviewSort.LOWEST_RATING_FIRST).size());
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'snapshotKeptBelowFetchedPages' was executed successfully.");
+    }
+
+    /**
+     * This method checks that a session loading only the first page of a snapshot keeps the rest of the snapshot:
+     * the snapshot is left as is if the page holds its first rows, and is written with its other rows otherwise.
+     */
+    @Test
+    public void firstPageKeepsRestOfSnapshot() {
+        List<Review> snapshot = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            snapshot.add(new Review("Tester " + i, "https://xsgames.co/randomusers/assets/avatars/male/" + i + ".jpg", "Review " + i, i % 5 + 1));
+        }
+        snapshotStore.write(TAJ_MAHAL, snapshot);
+        ReviewSnapshotStore store = Mockito.spy(snapshotStore);
+
+        // A first page holding the first rows of the snapshot leaves it unchanged
+        Mockito.when(api.getReviewsPage(Mockito.eq(TAJ_MAHAL), Mockito.anyInt(), Mockito.isNull()))
+                .thenReturn(new ReviewPage(snapshot.subList(0, 2), "1"));
+        ReviewRepository reviewRepository = new ReviewRepository(api, reviewDao, reviewOutbox, store, Runnable::run);
+        reviewRepository.getReviews(TAJ_MAHAL);
+        reviewRepository.writeSnapshots();
+        Mockito.verify(store, Mockito.never()).write(Mockito.eq(TAJ_MAHAL), Mockito.anyList());
+        assertEquals(snapshot, store.open(TAJ_MAHAL));
+
+        // A first page with a new review is written above the rows of the snapshot not fetched again
+        Review freshReview = new Review("Ranjit Singh", "https://xsgames.co/randomusers/assets/avatars/male/71.jpg", "Service très rapide et nourriture délicieuse.", 5);
+        Mockito.when(api.getReviewsPage(Mockito.eq(TAJ_MAHAL), Mockito.anyInt(), Mockito.isNull()))
+                .thenReturn(new ReviewPage(Arrays.asList(freshReview, snapshot.get(0)), "1"));
+        reviewRepository = new ReviewRepository(api, reviewDao, reviewOutbox, store, Runnable::run);
+        reviewRepository.getReviews(TAJ_MAHAL);
+        reviewRepository.writeSnapshots();
+        List<Review> expected = new ArrayList<>(snapshot);
+        expected.add(0, freshReview);
+        assertEquals(expected, store.open(TAJ_MAHAL));
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'firstPageKeepsRestOfSnapshot' was executed successfully.");
+    }
+
+    /**
+     * This method checks that the reviews of the pages fetched from the API are written to the snapshot once the paging
+     * settles, rather than after each page, without the reviews written on this device.
+     */
+    @Test
+    public void loadedPagesAreSnapshotted() {
+        Review firstReview = new Review("Ranjit Singh", "https://xsgames.co/randomusers/assets/avatars/male/71.jpg", "Service très rapide et nourriture délicieuse.", 5);
+        Review secondReview = new Review("David John", "https://xsgames.co/randomusers/assets/avatars/male/67.jpg", "Les currys manquaient de diversité de saveurs.", 2);
+        Mockito.when(api.getReviewsPage(Mockito.eq(TAJ_MAHAL), Mockito.anyInt(), Mockito.isNull())).thenReturn(new ReviewPage(Collections.singletonList(firstReview), "1"));
+        Mockito.when(api.getReviewsPage(Mockito.eq(TAJ_MAHAL), Mockito.anyInt(), Mockito.eq("1"))).thenReturn(new ReviewPage(Collections.singletonList(secondReview), null));
+        ReviewSnapshotStore store = Mockito.spy(snapshotStore);
+        ReviewRepository reviewRepository = new ReviewRepository(api, reviewDao, reviewOutbox, store, Runnable::run);
+
+        // A page followed by more pages is only written when the application goes to the background
+        reviewRepository.getReviews(TAJ_MAHAL);
+        assertNull(store.open(TAJ_MAHAL));
+        reviewRepository.writeSnapshots();
+        assertEquals(Collections.singletonList(firstReview), store.open(TAJ_MAHAL));
+        reviewRepository.writeSnapshots();
+        Mockito.verify(store, Mockito.times(1)).write(Mockito.eq(TAJ_MAHAL), Mockito.anyList());
+
+        // The last page is written at once
+        reviewRepository.loadNextPage(TAJ_MAHAL);
+        assertEquals(Arrays.asList(firstReview, secondReview), store.open(TAJ_MAHAL));
+        reviewRepository.writeSnapshots();
+        Mockito.verify(store, Mockito.times(2)).write(Mockito.eq(TAJ_MAHAL), Mockito.anyList());
+
+        // The snapshot of an evicted restaurant is written as it leaves the memory
+        for (long restaurantId = TAJ_MAHAL + 1; restaurantId <= TAJ_MAHAL + ReviewRepository.MAX_LOADED_RESTAURANTS; restaurantId++) {
+            Mockito.when(api.getReviewsPage(Mockito.eq(restaurantId), Mockito.anyInt(), Mockito.isNull()))
+                    .thenReturn(new ReviewPage(Collections.singletonList(firstReview), "1"));
+            reviewRepository.getReviews(restaurantId);
+        }
+        assertNull(store.open(TAJ_MAHAL + 1));
+        reviewRepository.getReviews(TAJ_MAHAL);
+        assertEquals(Collections.singletonList(firstReview), store.open(TAJ_MAHAL + 1));
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'loadedPagesAreSnapshotted' was executed successfully.");
+    }
+}
@@ -0,0 +1,189 @@
+package com.openclassrooms.tajmahal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+
+import com.openclassrooms.tajmahal.data.local.ReviewDao;
+import com.openclassrooms.tajmahal.data.local.ReviewSnapshotStore;
+import com.openclassrooms.tajmahal.data.repository.ReviewChange;
+import com.openclassrooms.tajmahal.data.repository.ReviewOutbox;
+import com.openclassrooms.tajmahal.data.repository.ReviewRepository;
+import com.openclassrooms.tajmahal.data.service.RestaurantApi;
+import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.model.ReviewPage;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * This class represents a unit test for the feed of the changes of the reviews, replayed from a sequence number.
+ * It executes on the development machine (host) and uses mocks to simulate the server and the local database.
+ *
+ * @see <a href="http://d.android.com/tools/testing">Testing documentation</a>
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(application = TajMahalApplication.class, manifest = "src/main/AndroidManifest.xml")
+public class ReviewChangeFeedUnitTest {
+    // The identifier of the restaurant whose reviews are tested.
+    private static final long TAJ_MAHAL = 1;
+
+    // The reviews of the two pages of the API, newest first.
+    private final List<Review> firstPage = Arrays.asList(review("Ranjit Singh", 5), review("Martyna Siddeswara", 4));
+    private final List<Review> secondPage = Arrays.asList(review("David John", 2), review("Emilie Hood", 4));
+
+    private ReviewRepository reviewRepository;
+
+    // Executes the LiveData updates synchronously, as the repository publishes them with postValue.
+    @Rule
+    public InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+
+    /**
+     * Creates a review of the given author and rating.
+     *
+     * @param author The author of the review
+     * @param rating The rating of the review
+     * @return The review
+     */
+    private static Review review(String author, int rating) {
+        return new Review(author, "https://xsgames.co/randomusers/assets/avatars/male/2.jpg", "Review of " + author, rating);
+    }
+
+    /**
+     * Set up the test environment.
+     * This method is called before each test method is executed.
+     * It makes the mock API return two pages of reviews, and loads the first one into a new repository.
+     */
+    @Before
+    public void setup() {
+        RestaurantApi api = Mockito.mock(RestaurantApi.class);
+        Mockito.when(api.getReviewsPage(Mockito.eq(TAJ_MAHAL), Mockito.anyInt(), Mockito.isNull())).thenReturn(new ReviewPage(firstPage, "2"));
+        Mockito.when(api.getReviewsPage(Mockito.eq(TAJ_MAHAL), Mockito.anyInt(), Mockito.eq("2"))).thenReturn(new ReviewPage(secondPage, null));
+        reviewRepository = new ReviewRepository(api, Mockito.mock(ReviewDao.class), Mockito.mock(ReviewOutbox.class), Mockito.mock(ReviewSnapshotStore.class), Runnable::run);
+        reviewRepository.getReviews(TAJ_MAHAL);
+    }
+
+    /**
+     * Applies the given changes in order to a copy of the reviews, as a consumer of the feed would.
+     *
+     * @param reviews The reviews, newest first, updated by the changes
+     * @param changes The changes to apply, oldest first
+     */
+    static void apply(List<Review> reviews, List<ReviewChange> changes) {
+        for (ReviewChange change : changes) {
+            switch (change.getType()) {
+                case ADDED:
+                    reviews.add(change.getPosition(), change.getReview());
+                    break;
+                case REMOVED:
+                    reviews.remove(change.getPosition());
+                    break;
+                case REPLACED:
+                    reviews.set(change.getPosition(), change.getReview());
+                    break;
+                case BATCH:
+                    apply(reviews, change.getChanges());
+                    break;
+                case RESET:
+                    reviews.clear();
+                    reviews.addAll(change.getReviews());
+                    break;
+            }
+        }
+    }
+
+    /**
+     * This method checks that a consumer replaying the changes from a version ends up with the current reviews,
+     * each addition and each page being replayed as insertions at their positions.
+     */
+    @Test
+    public void changesAreReplayedInOrder() {
+        long version = reviewRepository.getVersion(TAJ_MAHAL);
+        List<Review> reviews = new ArrayList<>(Objects.requireNonNull(reviewRepository.getReviews(TAJ_MAHAL).getValue()));
+
+        Review newReview = review("Manon Garcia", 3);
+        reviewRepository.addReview(TAJ_MAHAL, newReview);
+        reviewRepository.addReviews(TAJ_MAHAL, Arrays.asList(review("Jean Tester", 1), review("Lea Tester", 5)));
+        reviewRepository.loadNextPage(TAJ_MAHAL);
+
+        List<ReviewChange> changes = reviewRepository.getChangesSince(TAJ_MAHAL, version);
+        assertEquals(3, changes.size());
+        assertEquals(ReviewChange.Type.ADDED, changes.get(0).getType());
+        assertEquals(0, changes.get(0).getPosition());
+        assertEquals(newReview, changes.get(0).getReview());
+        assertEquals(ReviewChange.Type.BATCH, changes.get(1).getType());
+        assertEquals(2, changes.get(1).getChanges().size());
+        assertEquals(ReviewChange.Type.BATCH, changes.get(2).getType());
+        assertEquals("The reviews of the next page should be inserted at the end", 5, changes.get(2).getChanges().get(0).getPosition());
+        for (int i = 1; i < changes.size(); i++) {
+            assertTrue("The sequence numbers should increase", changes.get(i).getSequence() > changes.get(i - 1).getSequence());
+        }
+        assertEquals(reviewRepository.getVersion(TAJ_MAHAL), changes.get(changes.size() - 1).getSequence());
+
+        apply(reviews, changes);
+        assertEquals(reviewRepository.getReviews(TAJ_MAHAL).getValue(), reviews);
+        assertEquals(0, reviewRepository.getChangesSince(TAJ_MAHAL, changes.get(2).getSequence()).size());
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'changesAreReplayedInOrder' was executed successfully.");
+    }
+
+    /**
+     * This method checks that a late subscriber, or a subscriber too far behind, receives a reset to the current reviews.
+     */
+    @Test
+    public void lateSubscriberIsReset() {
+        List<ReviewChange> changes = reviewRepository.getChangesSince(TAJ_MAHAL, 0);
+        assertEquals(1, changes.size());
+        assertEquals(ReviewChange.Type.RESET, changes.get(0).getType());
+        assertEquals(firstPage, changes.get(0).getReviews());
+
+        // A subscriber missing more changes than are kept is reset too
+        long version = reviewRepository.getVersion(TAJ_MAHAL);
+        List<Review> reviews = new ArrayList<>(firstPage);
+        for (int i = 0; i <= ReviewRepository.MAX_REPLAYED_CHANGES; i++) {
+            reviewRepository.addReview(TAJ_MAHAL, review("Tester " + i, i % 5 + 1));
+        }
+        changes = reviewRepository.getChangesSince(TAJ_MAHAL, version);
+        assertEquals(1, changes.size());
+        assertEquals(ReviewChange.Type.RESET, changes.get(0).getType());
+        apply(reviews, changes);
+        assertEquals(reviewRepository.getReviews(TAJ_MAHAL).getValue(), reviews);
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'lateSubscriberIsReset' was executed successfully.");
+    }
+
+    /**
+     * This method checks that the feed delivers the sequence number of the last change, from which the changes are read.
+     */
+    @Test
+    public void feedDeliversLastSequence() {
+        List<Long> sequences = new ArrayList<>();
+        reviewRepository.getChangeFeed(TAJ_MAHAL).observeForever(sequences::add);
+        long first = sequences.get(0);
+
+        reviewRepository.addReview(TAJ_MAHAL, review("Manon Garcia", 3));
+        assertEquals(2, sequences.size());
+        assertEquals(reviewRepository.getVersion(TAJ_MAHAL), (long) sequences.get(1));
+        assertEquals(1, reviewRepository.getChangesSince(TAJ_MAHAL, first).size());
+
+        // A rejected review changes nothing
+        reviewRepository.addReview(TAJ_MAHAL, review("Manon Garcia", 3));
+        assertEquals(2, sequences.size());
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'feedDeliversLastSequence' was executed successfully.");
+    }
+}
@@ -0,0 +1,415 @@
+package com.openclassrooms.tajmahal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import androidx.annotation.NonNull;
+import androidx.arch.core.executor.ArchTaskExecutor;
+import androidx.arch.core.executor.TaskExecutor;
+
+import com.openclassrooms.tajmahal.data.local.ReviewDao;
+import com.openclassrooms.tajmahal.data.local.ReviewSnapshotStore;
+import com.openclassrooms.tajmahal.data.repository.ReviewBatchResult;
+import com.openclassrooms.tajmahal.data.repository.ReviewOutbox;
+import com.openclassrooms.tajmahal.data.repository.ReviewRepository;
+import com.openclassrooms.tajmahal.data.repository.ReviewSort;
+import com.openclassrooms.tajmahal.data.service.RestaurantApi;
+import com.openclassrooms.tajmahal.domain.model.RatingHistogram;
+import com.openclassrooms.tajmahal.domain.model.RatingStatistics;
+import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.model.ReviewPage;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class represents a unit test for the use of the review repository from several threads at once.
+ * It executes on the development machine (host) and uses mocks to simulate the server and the local database.
+ * <p>
+ * The thread running the test plays the main thread: the tasks posted to the main thread are queued, and only run
+ * when the test drains the queue, as the main looper would.
+ *
+ * @see <a href="http://d.android.com/tools/testing">Testing documentation</a>
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(application = TajMahalApplication.class, manifest = "src/main/AndroidManifest.xml")
+public class ReviewConcurrencyUnitTest {
+    // The identifier of the restaurant whose reviews are tested.
+    private static final long TAJ_MAHAL = 1;
+
+    // The number of threads adding reviews at the same time.
+    private static final int WRITERS = 8;
+
+    // The number of distinct reviews added by the writers, each one by two writers.
+    private static final int NEW_REVIEWS = 4000;
+
+    // The number of reviews added by a writer in a single batch, every other review being added on its own.
+    private static final int BATCH_SIZE = 5;
+
+    // The number of reviews added then updated or deleted by the writers, racing the compactions.
+    private static final int COMPACTED_REVIEWS = 2000;
+
+    // The reviews of the API.
+    private final List<Review> apiReviews = Arrays.asList(review("Ranjit Singh", 5), review("Martyna Siddeswara", 4), review("David John", 2));
+
+    // The thread playing the main thread, and the tasks posted to it.
+    private Thread mainThread;
+    private final Queue<Runnable> mainThreadTasks = new ConcurrentLinkedQueue<>();
+
+    private ReviewRepository reviewRepository;
+
+    /**
+     * Creates a review of the given author and rating.
+     *
+     * @param author The author of the review
+     * @param rating The rating of the review
+     * @return The review
+     */
+    private static Review review(String author, int rating) {
+        return new Review(author, "https://xsgames.co/randomusers/assets/avatars/male/2.jpg", "Review of " + author, rating);
+    }
+
+    /**
+     * Set up the test environment.
+     * This method is called before each test method is executed.
+     * It makes the thread of the test the main thread, and loads the reviews of the mock API into a new repository.
+     */
+    @Before
+    public void setup() {
+        mainThread = Thread.currentThread();
+        ArchTaskExecutor.getInstance().setDelegate(new TaskExecutor() {
+            @Override
+            public void executeOnDiskIO(@NonNull Runnable runnable) {
+                runnable.run();
+            }
+
+            @Override
+            public void postToMainThread(@NonNull Runnable runnable) {
+                mainThreadTasks.add(runnable);
+            }
+
+            @Override
+            public boolean isMainThread() {
+                return Thread.currentThread() == mainThread;
+            }
+        });
+
+        reviewRepository = newRepository(Runnable::run);
+        reviewRepository.getReviews(TAJ_MAHAL);
+        runMainThreadTasks();
+    }
+
+    /**
+     * Creates a repository of the reviews of the mock API.
+     *
+     * @param executor The executor of the repository.
+     * @return The repository, nothing being loaded yet
+     */
+    private ReviewRepository newRepository(Executor executor) {
+        RestaurantApi api = Mockito.mock(RestaurantApi.class);
+        RatingStatistics ratingStatistics = new RatingStatistics();
+        for (Review review : apiReviews) {
+            ratingStatistics.record(review.getRatingValue());
+        }
+        Mockito.when(api.getRatingStatistics(TAJ_MAHAL)).thenReturn(ratingStatistics);
+        Mockito.when(api.getReviewsPage(Mockito.eq(TAJ_MAHAL), Mockito.anyInt(), Mockito.isNull())).thenReturn(new ReviewPage(apiReviews, null));
+        return new ReviewRepository(api, Mockito.mock(ReviewDao.class), Mockito.mock(ReviewOutbox.class), Mockito.mock(ReviewSnapshotStore.class), executor);
+    }
+
+    /**
+     * Waits for the tasks handed over to the executor of the repository, and for the tasks they handed over in turn.
+     *
+     * @param pendingTasks The number of tasks handed over and not run yet.
+     */
+    private static void awaitTasks(AtomicInteger pendingTasks) throws InterruptedException {
+        while (pendingTasks.get() > 0) {
+            Thread.sleep(1);
+        }
+    }
+
+    /**
+     * Restores the default executor of the architecture components.
+     */
+    @After
+    public void tearDown() {
+        ArchTaskExecutor.getInstance().setDelegate(null);
+    }
+
+    /**
+     * Runs the tasks posted to the main thread so far, as the main looper would.
+     */
+    private void runMainThreadTasks() {
+        Runnable task;
+        while ((task = mainThreadTasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    /**
+     * Starts the writers, each adding its share of the new reviews along with the share of the next writer,
+     * so that every new review is added twice, by two writers racing each other.
+     *
+     * @param start    The barrier releasing the writers at once.
+     * @param done     The latch counted down by each writer once it is done.
+     * @param accepted The number of reviews accepted by the repository.
+     * @param failure  The first error thrown by a writer.
+     */
+    private void startWriters(CyclicBarrier start, CountDownLatch done, LongAdder accepted, AtomicReference<Throwable> failure) {
+        for (int w = 0; w < WRITERS; w++) {
+            int writer = w;
+            new Thread(() -> {
+                try {
+                    start.await();
+                    List<Review> batch = new ArrayList<>(BATCH_SIZE);
+                    boolean single = false;
+                    for (int i = 0; i < NEW_REVIEWS; i++) {
+                        int owner = i % WRITERS;
+                        if (owner != writer && owner != (writer + 1) % WRITERS) {
+                            continue;
+                        }
+                        Review newReview = review("Author " + i, i % 5 + 1);
+                        single = !single;
+                        if (single) {
+                            // A single review, as added by the review screen
+                            accepted.add(reviewRepository.addReviews(TAJ_MAHAL, Collections.singletonList(newReview)).getAcceptedCount());
+                            continue;
+                        }
+                        batch.add(newReview);
+                        if (batch.size() == BATCH_SIZE) {
+                            accepted.add(reviewRepository.addReviews(TAJ_MAHAL, batch).getAcceptedCount());
+                            batch.clear();
+                        }
+                    }
+                    accepted.add(reviewRepository.addReviews(TAJ_MAHAL, batch).getAcceptedCount());
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    done.countDown();
+                }
+            }, "Writer " + writer).start();
+        }
+    }
+
+    /**
+     * This method checks that reviews added by many threads at once are neither lost nor duplicated,
+     * while other threads keep reading consistent snapshots of the reviews.
+     */
+    @Test
+    public void concurrentWritersLoseNoReview() throws Exception {
+        CyclicBarrier start = new CyclicBarrier(WRITERS + 2);
+        CountDownLatch done = new CountDownLatch(WRITERS);
+        LongAdder accepted = new LongAdder();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        startWriters(start, done, accepted, failure);
+
+        // Two readers check that the reviews only grow, that the view by rating matches the list of every review,
+        // and search the reviews and read their changes while the writers index them
+        AtomicBoolean writing = new AtomicBoolean(true);
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < 2; r++) {
+            Thread reader = new Thread(() -> {
+                try {
+                    start.await();
+                    int lastSize = 0;
+                    while (writing.get()) {
+                        List<Review> reviews = reviewRepository.getSortedReviews(TAJ_MAHAL, ReviewRepository.ALL_RATINGS, ReviewSort.NEWEST_FIRST);
+                        List<Review> sorted = reviewRepository.getSortedReviews(TAJ_MAHAL, ReviewRepository.ALL_RATINGS, ReviewSort.HIGHEST_RATING_FIRST);
+                        assertTrue("The reviews should never shrink", reviews.size() >= lastSize);
+                        assertTrue("A later view should hold at least as many reviews", sorted.size() >= reviews.size());
+                        lastSize = reviews.size();
+                        List<Review> found = reviewRepository.searchReviews(TAJ_MAHAL, "review author", 20);
+                        assertTrue("The searches should only return indexed reviews", found.size() <= 20 && !found.contains(null));
+                        assertFalse(reviewRepository.getChangesSince(TAJ_MAHAL, 0).isEmpty());
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            }, "Reader " + r);
+            reader.start();
+            readers.add(reader);
+        }
+        done.await();
+        writing.set(false);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+
+        List<Review> reviews = reviewRepository.getSortedReviews(TAJ_MAHAL, ReviewRepository.ALL_RATINGS, ReviewSort.NEWEST_FIRST);
+        assertEquals("Every review should be accepted once", NEW_REVIEWS, accepted.sum());
+        assertEquals("Every review should be added once", apiReviews.size() + NEW_REVIEWS, reviews.size());
+        assertEquals("No review should be listed twice", reviews.size(), new HashSet<>(reviews).size());
+        int bucketed = 0;
+        for (int rating = RatingStatistics.MIN_RATING; rating <= RatingStatistics.MAX_RATING; rating++) {
+            bucketed += reviewRepository.getSortedReviews(TAJ_MAHAL, rating, ReviewSort.NEWEST_FIRST).size();
+        }
+        assertEquals(reviews.size(), bucketed);
+        assertEquals(Collections.singletonList(review("Author " + (NEW_REVIEWS - 1), 5)),
+                reviewRepository.searchReviews(TAJ_MAHAL, "author " + (NEW_REVIEWS - 1), 20));
+
+        // The statistics are published on the main thread, once the posted dispatch runs
+        runMainThreadTasks();
+        RatingHistogram histogram = reviewRepository.getRatingStatistics(TAJ_MAHAL).getValue();
+        assertNotNull(histogram);
+        assertEquals(apiReviews.size() + NEW_REVIEWS, histogram.getTotalRatings());
+        assertEquals(NEW_REVIEWS / 5 + 1, histogram.getRatingCount(5));
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'concurrentWritersLoseNoReview' was executed successfully.");
+    }
+
+    /**
+     * This method checks that the reviews added from other threads are delivered to the observers on the main thread
+     * only, never older than a review delivered before, and that the last delivered list is the final one.
+     */
+    @Test
+    public void reviewsArePublishedOnMainThread() throws Exception {
+        List<Integer> deliveredSizes = new ArrayList<>();
+        AtomicBoolean offMainThread = new AtomicBoolean();
+        reviewRepository.getReviews(TAJ_MAHAL).observeForever(reviews -> {
+            offMainThread.compareAndSet(false, Thread.currentThread() != mainThread);
+            deliveredSizes.add(reviews.size());
+        });
+
+        CyclicBarrier start = new CyclicBarrier(WRITERS + 1);
+        CountDownLatch done = new CountDownLatch(WRITERS);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        startWriters(start, done, new LongAdder(), failure);
+        start.await();
+        while (done.getCount() > 0) {
+            runMainThreadTasks();
+        }
+        runMainThreadTasks();
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+
+        assertFalse("The observers should only be called on the main thread", offMainThread.get());
+        for (int i = 1; i < deliveredSizes.size(); i++) {
+            assertTrue("An older list should never be delivered after a newer one", deliveredSizes.get(i) > deliveredSizes.get(i - 1));
+        }
+        assertEquals(apiReviews.size() + NEW_REVIEWS, (int) deliveredSizes.get(deliveredSizes.size() - 1));
+        assertSame(reviewRepository.getSortedReviews(TAJ_MAHAL, ReviewRepository.ALL_RATINGS, ReviewSort.NEWEST_FIRST), reviewRepository.getReviews(TAJ_MAHAL).getValue());
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'reviewsArePublishedOnMainThread' was executed successfully.");
+    }
+
+    /**
+     * This method checks that the compactions run on the executor while the writers keep updating and deleting reviews
+     * leave the reviews, their buckets and their search index as if every change had been made one after the other.
+     */
+    @Test
+    public void compactionsRaceTheWriters() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        AtomicInteger pendingTasks = new AtomicInteger();
+        reviewRepository = newRepository(task -> {
+            pendingTasks.incrementAndGet();
+            pool.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    pendingTasks.decrementAndGet();
+                }
+            });
+        });
+        reviewRepository.getReviews(TAJ_MAHAL);
+        awaitTasks(pendingTasks);
+        List<Review> added = new ArrayList<>();
+        for (int i = 0; i < COMPACTED_REVIEWS; i++) {
+            added.add(review("Author " + i, i % 5 + 1));
+        }
+        assertEquals(COMPACTED_REVIEWS, reviewRepository.addReviews(TAJ_MAHAL, added).getAcceptedCount());
+
+        // Each writer deletes every other review of its share and updates the others, each change possibly starting
+        // a compaction on the executor
+        CyclicBarrier start = new CyclicBarrier(WRITERS);
+        CountDownLatch done = new CountDownLatch(WRITERS);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        for (int w = 0; w < WRITERS; w++) {
+            int writer = w;
+            new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = writer; i < COMPACTED_REVIEWS; i += WRITERS) {
+                        if (i % 2 == 0) {
+                            assertTrue(reviewRepository.deleteReview(TAJ_MAHAL, added.get(i)));
+                        } else {
+                            assertEquals(ReviewBatchResult.Status.ACCEPTED, reviewRepository.updateReview(TAJ_MAHAL, added.get(i), updated(added.get(i))));
+                        }
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    done.countDown();
+                }
+            }, "Writer " + w).start();
+        }
+        done.await();
+        awaitTasks(pendingTasks);
+        pool.shutdown();
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+
+        List<Review> expected = new ArrayList<>();
+        for (int i = COMPACTED_REVIEWS - 1; i >= 0; i--) {
+            if (i % 2 != 0) {
+                expected.add(updated(added.get(i)));
+            }
+        }
+        expected.addAll(apiReviews);
+        assertEquals(expected, reviewRepository.getSortedReviews(TAJ_MAHAL, ReviewRepository.ALL_RATINGS, ReviewSort.NEWEST_FIRST));
+        for (int rating = RatingStatistics.MIN_RATING; rating <= RatingStatistics.MAX_RATING; rating++) {
+            List<Review> withRating = new ArrayList<>();
+            for (Review review : expected) {
+                if (review.getRatingValue() == rating) {
+                    withRating.add(review);
+                }
+            }
+            assertEquals(withRating, reviewRepository.getSortedReviews(TAJ_MAHAL, rating, ReviewSort.NEWEST_FIRST));
+        }
+        List<Review> found = reviewRepository.searchReviews(TAJ_MAHAL, "review", COMPACTED_REVIEWS);
+        assertEquals(new HashSet<>(expected), new HashSet<>(found));
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'compactionsRaceTheWriters' was executed successfully.");
+    }
+
+    /**
+     * Returns the updated version of a review, with the same author and rating.
+     *
+     * @param review The review
+     * @return The updated review
+     */
+    private static Review updated(Review review) {
+        return new Review(review.getAuthor(), review.getAvatarUrl(), "Updated review of " + review.getAuthor(), review.getRatingValue());
+    }
+}
@@ -0,0 +1,121 @@
+package com.openclassrooms.tajmahal;
+
+import static org.junit.Assert.assertEquals;
+
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListUpdateCallback;
+
+import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.views.ReviewAdapter;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class represents a unit test for the comparison of the lists of reviews submitted to the {@link ReviewAdapter},
+ * which identifies the rows by the fingerprint of their review.
+ */
+public class ReviewDiffUnitTest {
+
+    /**
+     * Counts the updates dispatched to the rows of the list.
+     */
+    private static class CountingUpdateCallback implements ListUpdateCallback {
+        private int inserted;
+        private int removed;
+        private int moved;
+        private int changed;
+
+        @Override
+        public void onInserted(int position, int count) {
+            inserted += count;
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            removed += count;
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            moved++;
+        }
+
+        @Override
+        public void onChanged(int position, int count, @Nullable Object payload) {
+            changed += count;
+        }
+    }
+
+    /**
+     * Creates the review of the given number.
+     *
+     * @param number The number of the review
+     * @return The review
+     */
+    private static Review review(int number) {
+        return new Review("Author " + number, "https://xsgames.co/randomusers/assets/avatars/male/2.jpg", "Review " + number, number % 5 + 1);
+    }
+
+    /**
+     * Compares two lists of reviews as the adapter does, and counts the updates of the rows.
+     *
+     * @param oldReviews The displayed reviews
+     * @param newReviews The submitted reviews
+     * @return The updates of the rows
+     */
+    private static CountingUpdateCallback diff(List<Review> oldReviews, List<Review> newReviews) {
+        DiffUtil.DiffResult result = DiffUtil.calculateDiff(new DiffUtil.Callback() {
+            @Override
+            public int getOldListSize() {
+                return oldReviews.size();
+            }
+
+            @Override
+            public int getNewListSize() {
+                return newReviews.size();
+            }
+
+            @Override
+            public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+                return ReviewAdapter.DIFF_CALLBACK.areItemsTheSame(oldReviews.get(oldItemPosition), newReviews.get(newItemPosition));
+            }
+
+            @Override
+            public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+                return ReviewAdapter.DIFF_CALLBACK.areContentsTheSame(oldReviews.get(oldItemPosition), newReviews.get(newItemPosition));
+            }
+        });
+        CountingUpdateCallback updates = new CountingUpdateCallback();
+        result.dispatchUpdatesTo(updates);
+        return updates;
+    }
+
+    /**
+     * This method checks that adding a review on top of the list only inserts its row,
+     * even though the other reviews are submitted as new instances.
+     */
+    @Test
+    public void addedReviewIsASingleInsertion() {
+        List<Review> oldReviews = new ArrayList<>();
+        List<Review> newReviews = new ArrayList<>();
+        newReviews.add(review(100));
+        for (int i = 0; i < 100; i++) {
+            oldReviews.add(review(i));
+            newReviews.add(review(i));
+        }
+
+        CountingUpdateCallback updates = diff(oldReviews, newReviews);
+
+        assertEquals(1, updates.inserted);
+        assertEquals(0, updates.removed);
+        assertEquals(0, updates.moved);
+        assertEquals(0, updates.changed);
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'addedReviewIsASingleInsertion' was executed successfully.");
+    }
+}
@@ -0,0 +1,330 @@
+package com.openclassrooms.tajmahal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * This class represents a unit test for the memory footprint of the reviews.
+ * Rather than measuring heap sizes, which depend on the garbage collector, it computes the retained size of the reviews
+ * from their object graph, laid out as by the Android runtime, and checks the structure the footprint comes from:
+ * the strings shared between reviews and the long contents kept encoded. It executes on the development machine (host).
+ *
+ * @see <a href="http://d.android.com/tools/testing">Testing documentation</a>
+ */
+public class ReviewFootprintUnitTest {
+
+    // The number of reviews of the measured lists.
+    private static final int REVIEW_COUNT = 100_000;
+
+    // The number of distinct authors of the measured reviews.
+    private static final int AUTHOR_COUNT = 1_000;
+
+    // The largest share of the former retained size allowed for the compact reviews.
+    private static final double MAX_FOOTPRINT_RATIO = 0.5;
+
+    // The largest retained size allowed per compact review, in bytes, with the reference held by the list.
+    private static final long MAX_BYTES_PER_REVIEW = 200;
+
+    private static final String[] COMMENTS = {
+            "Service très rapide et nourriture délicieuse, nous mangeons ici chaque week-end, c'est très rapide et savoureux. Continuez ainsi!",
+            "Un service excellent et des plats incroyablement savoureux. Nous sommes vraiment satisfaits de notre expérience au restaurant.",
+            "Les currys manquaient de diversité de saveurs et semblaient tous à base de tomates. Malgré les évaluations élevées que nous avons vues, nous avons été déçus.",
+            "Très bon restaurant Indien ! Je recommande."
+    };
+
+    /**
+     * The former representation of a review, holding its own strings and a boxed rating.
+     */
+    private static final class FormerReview {
+        final String author;
+        final String avatarUrl;
+        final String content;
+        final Integer rating;
+
+        FormerReview(String author, String avatarUrl, String content, Integer rating) {
+            this.author = author;
+            this.avatarUrl = avatarUrl;
+            this.content = content;
+            this.rating = rating;
+        }
+    }
+
+    /**
+     * Computes the retained size of object graphs as laid out by the Android runtime: an 8-byte object header,
+     * 4-byte references, a 12-byte array header, strings holding their characters inline, on one byte each if they
+     * are all ASCII, and every object aligned on 8 bytes. The objects reachable from several roots are counted once.
+     */
+    private static final class RetainedSize {
+
+        // The objects counted so far.
+        private final Set<Object> counted = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        /**
+         * Adds the objects reachable from the given one, not counted yet, to the retained size.
+         *
+         * @param object The root object, possibly null.
+         * @return The size of the objects newly counted, in bytes.
+         * @throws IllegalAccessException if a field cannot be read.
+         */
+        long add(Object object) throws IllegalAccessException {
+            if (object == null || !counted.add(object)) {
+                return 0;
+            }
+            Class<?> type = object.getClass();
+            if (type == String.class) {
+                String string = (String) object;
+                boolean ascii = string.chars().allMatch(c -> c > 0 && c < 0x80);
+                return align(16 + (long) string.length() * (ascii ? 1 : 2));
+            }
+            if (type == Integer.class) {
+                return align(8 + Integer.BYTES);
+            }
+            if (type == byte[].class) {
+                return align(12 + ((byte[]) object).length);
+            }
+            long size = 8;
+            long reachable = 0;
+            for (Class<?> declaring = type; declaring != Object.class; declaring = declaring.getSuperclass()) {
+                for (Field field : declaring.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers())) {
+                        continue;
+                    }
+                    Class<?> fieldType = field.getType();
+                    if (fieldType == long.class || fieldType == double.class) {
+                        size += 8;
+                    } else if (fieldType == int.class || fieldType == float.class || !fieldType.isPrimitive()) {
+                        size += 4;
+                    } else if (fieldType == short.class || fieldType == char.class) {
+                        size += 2;
+                    } else {
+                        size += 1;
+                    }
+                    if (!fieldType.isPrimitive()) {
+                        field.setAccessible(true);
+                        reachable += add(field.get(object));
+                    }
+                }
+            }
+            return align(size) + reachable;
+        }
+
+        private static long align(long size) {
+            return (size + 7) & ~7L;
+        }
+    }
+
+    /**
+     * Creates the fields of the review at the given position, as new strings, like the rows read from the database.
+     *
+     * @param index The position of the review.
+     * @return The author, avatar URL and content of the review.
+     */
+    private static String[] fields(int index) {
+        int author = index % AUTHOR_COUNT;
+        return new String[]{
+                "Author " + author,
+                "https://xsgames.co/randomusers/assets/avatars/female/" + author + ".jpg",
+                new String(COMMENTS[index % COMMENTS.length].toCharArray())
+        };
+    }
+
+    /**
+     * This method checks that a list of 100k compact reviews retains at most half of the size retained with the former
+     * representation, and less than {@link #MAX_BYTES_PER_REVIEW} bytes per review.
+     *
+     * @throws IllegalAccessException if a field of a review cannot be read
+     */
+    @Test
+    public void compactReviewsRetainLessMemory() throws IllegalAccessException {
+        RetainedSize formerSize = new RetainedSize();
+        RetainedSize compactSize = new RetainedSize();
+        // Both lists hold a 4-byte reference per review
+        long former = 4L * REVIEW_COUNT;
+        long compact = 4L * REVIEW_COUNT;
+        for (int i = 0; i < REVIEW_COUNT; i++) {
+            String[] fields = fields(i);
+            former += formerSize.add(new FormerReview(fields[0], fields[1], fields[2], i % 5 + 1));
+            fields = fields(i);
+            compact += compactSize.add(new Review(fields[0], fields[1], fields[2], i % 5 + 1));
+        }
+
+        System.out.println("Retained size per review: " + former / REVIEW_COUNT + " bytes before, " + compact / REVIEW_COUNT + " bytes now");
+        assertTrue("The compact reviews should retain less than " + MAX_FOOTPRINT_RATIO + " of the former size",
+                compact < former * MAX_FOOTPRINT_RATIO);
+        assertTrue("A compact review should retain less than " + MAX_BYTES_PER_REVIEW + " bytes",
+                compact < MAX_BYTES_PER_REVIEW * REVIEW_COUNT);
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'compactReviewsRetainLessMemory' was executed successfully.");
+    }
+
+    /**
+     * This method checks that the long contents are kept encoded in UTF-8, and that the short contents and the contents
+     * holding emojis are kept as strings.
+     *
+     * @throws ReflectiveOperationException if the content of a review cannot be read
+     */
+    @Test
+    public void longContentsAreEncoded() throws ReflectiveOperationException {
+        Field content = Review.class.getDeclaredField("content");
+        content.setAccessible(true);
+        String emojis = "Excellent 😋😋😋, le meilleur restaurant indien du quartier, nous reviendrons très bientôt !";
+
+        Object encoded = content.get(new Review("John Tester", null, COMMENTS[0], 5));
+        assertTrue("A long content should be kept encoded", encoded instanceof byte[]);
+        assertEquals(COMMENTS[0].getBytes(StandardCharsets.UTF_8).length, ((byte[]) encoded).length);
+        assertTrue(content.get(new Review("John Tester", null, COMMENTS[3], 5)) instanceof String);
+        assertTrue(content.get(new Review("John Tester", null, emojis, 5)) instanceof String);
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'longContentsAreEncoded' was executed successfully.");
+    }
+
+    /**
+     * This method checks that a list of 100k reviews keeps a single author name and avatar URL per author,
+     * rather than the copy read with each review, which is where most of the former retained size went.
+     */
+    @Test
+    public void reviewsKeepOneCopyPerAuthor() {
+        List<Review> reviews = new ArrayList<>(REVIEW_COUNT);
+        for (int i = 0; i < REVIEW_COUNT; i++) {
+            String[] fields = fields(i);
+            reviews.add(new Review(fields[0], fields[1], fields[2], i % 5 + 1));
+        }
+
+        Set<String> authors = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<String> avatarUrls = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Review review : reviews) {
+            authors.add(review.getAuthor());
+            avatarUrls.add(review.getAvatarUrl());
+        }
+        assertEquals(AUTHOR_COUNT, authors.size());
+        assertEquals(AUTHOR_COUNT, avatarUrls.size());
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'reviewsKeepOneCopyPerAuthor' was executed successfully.");
+    }
+
+    /**
+     * This method checks that the authors of reviews created concurrently, as the repository does for several
+     * restaurants at once, are still shared.
+     *
+     * @throws Exception if a thread fails
+     */
+    @Test
+    public void authorStringsAreSharedAcrossThreads() throws Exception {
+        int threadCount = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            List<Future<List<Review>>> futures = new ArrayList<>();
+            for (int t = 0; t < threadCount; t++) {
+                futures.add(executor.submit(() -> {
+                    List<Review> reviews = new ArrayList<>(AUTHOR_COUNT);
+                    for (int i = 0; i < AUTHOR_COUNT; i++) {
+                        String[] fields = fields(i);
+                        reviews.add(new Review(fields[0], fields[1], fields[2], 5));
+                    }
+                    return reviews;
+                }));
+            }
+            List<Review> first = futures.get(0).get();
+            for (Future<List<Review>> future : futures) {
+                List<Review> reviews = future.get();
+                for (int i = 0; i < AUTHOR_COUNT; i++) {
+                    assertSame(first.get(i).getAuthor(), reviews.get(i).getAuthor());
+                    assertSame(first.get(i).getAvatarUrl(), reviews.get(i).getAvatarUrl());
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'authorStringsAreSharedAcrossThreads' was executed successfully.");
+    }
+
+    /**
+     * This method checks that the reviews of a same author share their author name and avatar URL.
+     */
+    @Test
+    public void authorStringsAreShared() {
+        String[] first = fields(0);
+        String[] second = fields(AUTHOR_COUNT);
+        Review firstReview = new Review(first[0], first[1], first[2], 5);
+        Review secondReview = new Review(second[0], second[1], second[2], 4);
+
+        assertSame(firstReview.getAuthor(), secondReview.getAuthor());
+        assertSame(firstReview.getAvatarUrl(), secondReview.getAvatarUrl());
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'authorStringsAreShared' was executed successfully.");
+    }
+
+    /**
+     * This method checks that the content and the rating of a review are given back as they were provided,
+     * whatever the way the review keeps them.
+     */
+    @Test
+    public void reviewFieldsAreGivenBack() {
+        String emojis = "Excellent 😋😋😋, le meilleur restaurant indien du quartier, nous reviendrons très bientôt !";
+        for (String content : new String[]{COMMENTS[0], COMMENTS[3], emojis, "", null}) {
+            Review review = new Review("John Tester", "https://xsgames.co/randomusers/assets/avatars/male/2.jpg", content, 3);
+            assertEquals(content, review.getContent());
+            assertEquals(Integer.valueOf(3), review.getRating());
+            assertEquals(3, review.getRatingValue());
+        }
+
+        Review unrated = new Review("John Tester", "https://xsgames.co/randomusers/assets/avatars/male/2.jpg", COMMENTS[0], (Integer) null);
+        assertNull(unrated.getRating());
+        assertEquals(Review.NO_RATING, unrated.getRatingValue());
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'reviewFieldsAreGivenBack' was executed successfully.");
+    }
+
+    /**
+     * This method checks that the fingerprint, stored in the database, is still computed from the characters of the review,
+     * and that equal reviews are equal whatever the way they were created.
+     */
+    @Test
+    public void fingerprintIsComputedFromCharacters() {
+        String[] fields = fields(0);
+        Review review = new Review(fields[0], fields[1], fields[2], 5);
+        String[] copyFields = fields(0);
+        Review copy = new Review(copyFields[0], copyFields[1], copyFields[2], Integer.valueOf(5));
+
+        long expected = 0xcbf29ce484222325L;
+        for (String field : fields) {
+            for (int i = 0; i < field.length(); i++) {
+                expected = (expected ^ field.charAt(i)) * 0x100000001b3L;
+            }
+            expected = (expected ^ 0xFE) * 0x100000001b3L;
+        }
+        expected = (expected ^ 5) * 0x100000001b3L;
+
+        assertEquals(expected, review.getFingerprint());
+        assertEquals(review, copy);
+        assertEquals(review.hashCode(), copy.hashCode());
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'fingerprintIsComputedFromCharacters' was executed successfully.");
+    }
+}
@@ -0,0 +1,334 @@
+package com.openclassrooms.tajmahal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+
+import com.openclassrooms.tajmahal.data.local.OutboxEntity;
+import com.openclassrooms.tajmahal.data.local.ReviewDao;
+import com.openclassrooms.tajmahal.data.local.ReviewSnapshotStore;
+import com.openclassrooms.tajmahal.data.repository.ReviewBatchResult;
+import com.openclassrooms.tajmahal.data.repository.ReviewChange;
+import com.openclassrooms.tajmahal.data.repository.ReviewOutbox;
+import com.openclassrooms.tajmahal.data.repository.ReviewRepository;
+import com.openclassrooms.tajmahal.data.repository.ReviewSort;
+import com.openclassrooms.tajmahal.data.service.RestaurantApi;
+import com.openclassrooms.tajmahal.data.service.RestaurantFakeApi;
+import com.openclassrooms.tajmahal.domain.model.RatingHistogram;
+import com.openclassrooms.tajmahal.domain.model.RatingStatistics;
+import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.model.ReviewPage;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * This class represents a unit test for the update and the deletion of the reviews, which replace the reviews in place
+ * or leave tombstones, and adjust the rating statistics instead of recomputing them.
+ * It executes on the development machine (host) and uses mocks to simulate the server and the local database.
+ *
+ * @see <a href="http://d.android.com/tools/testing">Testing documentation</a>
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(application = TajMahalApplication.class, manifest = "src/main/AndroidManifest.xml")
+public class ReviewModerationUnitTest {
+    // The identifier of the restaurant whose reviews are tested.
+    private static final long TAJ_MAHAL = 1;
+
+    // The reviews of the first page of the API, newest first.
+    private final List<Review> firstPage = Arrays.asList(review("Ranjit Singh", 5), review("Martyna Siddeswara", 4),
+            review("David John", 2), review("Emilie Hood", 4), review("Lea Tester", 1));
+
+    private ReviewDao reviewDao;
+    private ReviewRepository reviewRepository;
+
+    // Executes the LiveData updates synchronously, as the repository publishes them with postValue.
+    @Rule
+    public InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+
+    /**
+     * Creates a review of the given author and rating.
+     *
+     * @param author The author of the review
+     * @param rating The rating of the review
+     * @return The review
+     */
+    private static Review review(String author, int rating) {
+        return new Review(author, "https://xsgames.co/randomusers/assets/avatars/male/2.jpg", "Review of " + author, rating);
+    }
+
+    /**
+     * Set up the test environment.
+     * This method is called before each test method is executed.
+     * It makes the mock API return a first page of reviews and their statistics, followed by a second page fetching
+     * again two reviews of the first page, and loads the first page into a new repository.
+     */
+    @Before
+    public void setup() {
+        RatingStatistics statistics = new RatingStatistics();
+        for (Review review : firstPage) {
+            statistics.record(review.getRatingValue());
+        }
+        List<Review> secondPage = Arrays.asList(firstPage.get(1), firstPage.get(2), review("Komala Alanazi", 3));
+        RestaurantApi api = Mockito.mock(RestaurantApi.class);
+        Mockito.when(api.getRatingStatistics(TAJ_MAHAL)).thenReturn(statistics);
+        Mockito.when(api.getReviewsPage(Mockito.eq(TAJ_MAHAL), Mockito.anyInt(), Mockito.isNull())).thenReturn(new ReviewPage(firstPage, "2"));
+        Mockito.when(api.getReviewsPage(Mockito.eq(TAJ_MAHAL), Mockito.anyInt(), Mockito.eq("2"))).thenReturn(new ReviewPage(secondPage, null));
+        reviewDao = Mockito.mock(ReviewDao.class);
+        reviewRepository = new ReviewRepository(api, reviewDao, Mockito.mock(ReviewOutbox.class), Mockito.mock(ReviewSnapshotStore.class), Runnable::run);
+        reviewRepository.getReviews(TAJ_MAHAL);
+    }
+
+    /**
+     * Returns the reviews of the restaurant as last delivered to the observers.
+     *
+     * @return The reviews, newest first
+     */
+    private List<Review> reviews() {
+        return Objects.requireNonNull(reviewRepository.getReviews(TAJ_MAHAL).getValue());
+    }
+
+    /**
+     * Returns the rating statistics of the restaurant as last delivered to the observers.
+     *
+     * @return The statistics
+     */
+    private RatingHistogram statistics() {
+        return Objects.requireNonNull(reviewRepository.getRatingStatistics(TAJ_MAHAL).getValue());
+    }
+
+    /**
+     * This method checks that an updated review keeps its position, in the list and among the reviews with its rating,
+     * that a new rating moves it to the reviews with this rating at its place in time, and that the statistics,
+     * the search and the change feed follow.
+     */
+    @Test
+    public void updateReplacesInPlace() {
+        long version = reviewRepository.getVersion(TAJ_MAHAL);
+        Review martyna = firstPage.get(1);
+        Review amended = new Review(martyna.getAuthor(), martyna.getAvatarUrl(), "Service un peu lent ce soir", 1);
+
+        assertEquals(ReviewBatchResult.Status.ACCEPTED, reviewRepository.updateReview(TAJ_MAHAL, martyna, amended));
+        assertEquals(1, reviews().indexOf(amended));
+        assertFalse(reviews().contains(martyna));
+        assertEquals(firstPage.size(), reviews().size());
+        assertEquals("The review should be placed before the older reviews with its new rating",
+                Arrays.asList(amended, firstPage.get(4)), reviewRepository.getSortedReviews(TAJ_MAHAL, 1, ReviewSort.NEWEST_FIRST));
+        assertEquals(Collections.singletonList(firstPage.get(3)), reviewRepository.getSortedReviews(TAJ_MAHAL, 4, ReviewSort.NEWEST_FIRST));
+        assertEquals(Collections.singletonList(amended), reviewRepository.searchReviews(TAJ_MAHAL, "lent", 10));
+        assertTrue(reviewRepository.searchReviews(TAJ_MAHAL, "Review of Martyna", 10).isEmpty());
+
+        // The rating is replaced in the statistics
+        assertEquals(5, statistics().getTotalRatings());
+        assertEquals(1, statistics().getRatingCount(4));
+        assertEquals(2, statistics().getRatingCount(1));
+        assertEquals(13 / 5.0, statistics().getAverageRating(), 0.001);
+
+        // The change feed replays the update as a replacement
+        List<ReviewChange> changes = reviewRepository.getChangesSince(TAJ_MAHAL, version);
+        assertEquals(1, changes.size());
+        assertEquals(ReviewChange.Type.REPLACED, changes.get(0).getType());
+        assertEquals(1, changes.get(0).getPosition());
+        assertEquals(martyna, changes.get(0).getPreviousReview());
+        Mockito.verify(reviewDao).replaceReview(Mockito.eq(TAJ_MAHAL), Mockito.eq(martyna.getFingerprint()), Mockito.any());
+
+        // Invalid, unknown and duplicate updates are rejected
+        assertEquals(ReviewBatchResult.Status.INVALID_RATING, reviewRepository.updateReview(TAJ_MAHAL, amended, review("Martyna Siddeswara", 6)));
+        assertEquals(ReviewBatchResult.Status.NOT_FOUND, reviewRepository.updateReview(TAJ_MAHAL, martyna, review("Martyna Siddeswara", 3)));
+        assertEquals(ReviewBatchResult.Status.DUPLICATE, reviewRepository.updateReview(TAJ_MAHAL, amended, firstPage.get(0)));
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'updateReplacesInPlace' was executed successfully.");
+    }
+
+    /**
+     * This method checks that a deleted review disappears from the list, the search and the statistics,
+     * and that the change feed replays it as a removal.
+     */
+    @Test
+    public void deleteRemovesReview() {
+        long version = reviewRepository.getVersion(TAJ_MAHAL);
+        List<Review> expected = new ArrayList<>(reviews());
+        Review david = firstPage.get(2);
+
+        assertTrue(reviewRepository.deleteReview(TAJ_MAHAL, david));
+        expected.remove(david);
+        assertEquals(expected, reviews());
+        assertTrue(reviewRepository.getSortedReviews(TAJ_MAHAL, 2, ReviewSort.NEWEST_FIRST).isEmpty());
+        assertTrue(reviewRepository.searchReviews(TAJ_MAHAL, "David", 10).isEmpty());
+        assertEquals(4, statistics().getTotalRatings());
+        assertEquals(0, statistics().getRatingCount(2));
+        assertEquals(14 / 4.0, statistics().getAverageRating(), 0.001);
+
+        List<ReviewChange> changes = reviewRepository.getChangesSince(TAJ_MAHAL, version);
+        assertEquals(1, changes.size());
+        assertEquals(ReviewChange.Type.REMOVED, changes.get(0).getType());
+        assertEquals(2, changes.get(0).getPosition());
+        Mockito.verify(reviewDao).deleteReview(TAJ_MAHAL, david.getFingerprint());
+
+        // A review is only deleted once
+        assertFalse(reviewRepository.deleteReview(TAJ_MAHAL, david));
+        assertEquals(ReviewBatchResult.Status.NOT_FOUND, reviewRepository.updateReview(TAJ_MAHAL, david, review("David John", 3)));
+
+        // A review written on this device is deleted likewise
+        Review newReview = review("Manon Garcia", 3);
+        reviewRepository.addReview(TAJ_MAHAL, newReview);
+        assertEquals(5, statistics().getTotalRatings());
+        assertTrue(reviewRepository.deleteReview(TAJ_MAHAL, newReview));
+        assertEquals(expected, reviews());
+        assertEquals(4, statistics().getTotalRatings());
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'deleteRemovesReview' was executed successfully.");
+    }
+
+    /**
+     * This method checks that the reviews written on this device and deleted or updated before their submission
+     * are removed from the outbox or rewritten in place, so that they are never submitted as first written.
+     */
+    @Test
+    public void queuedReviewsAreModerated() {
+        ReviewOutboxUnitTest.InMemoryOutboxDao outboxDao = new ReviewOutboxUnitTest.InMemoryOutboxDao();
+        RestaurantFakeApi api = new RestaurantFakeApi();
+        reviewRepository = new ReviewRepository(api, reviewDao, new ReviewOutbox(api, outboxDao, () -> {
+        }), Mockito.mock(ReviewSnapshotStore.class), Runnable::run);
+        long restaurantId = RestaurantFakeApi.TAJ_MAHAL_ID;
+        Review deleted = review("John Tester", 3);
+        Review updated = review("Jane Tester", 4);
+        Review amended = new Review(updated.getAuthor(), updated.getAvatarUrl(), "Finalement excellent", 5);
+        reviewRepository.addReviews(restaurantId, Arrays.asList(deleted, updated, review("Jim Tester", 2)));
+        assertEquals(3, outboxDao.count());
+
+        assertTrue(reviewRepository.deleteReview(restaurantId, deleted));
+        assertEquals(ReviewBatchResult.Status.ACCEPTED, reviewRepository.updateReview(restaurantId, updated, amended));
+        assertEquals(2, outboxDao.count());
+        List<Review> queued = new ArrayList<>();
+        for (OutboxEntity entity : outboxDao.getQueuedReviews(10)) {
+            queued.add(entity.toSubmission().getReview());
+        }
+        assertEquals("The updated review should keep its place in the outbox", Arrays.asList(amended, review("Jim Tester", 2)), queued);
+
+        // A second update finds the rewritten row again
+        Review amendedAgain = new Review(updated.getAuthor(), updated.getAvatarUrl(), "Finalement très bon", 4);
+        reviewRepository.updateReview(restaurantId, amended, amendedAgain);
+        assertEquals(amendedAgain, outboxDao.getQueuedReviews(10).get(0).toSubmission().getReview());
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'queuedReviewsAreModerated' was executed successfully.");
+    }
+
+    /**
+     * This method checks that the writes of a review to the local database run in the order of its changes, even on
+     * an executor running the tasks submitted to it in the reverse order.
+     */
+    @Test
+    public void writesFollowChanges() {
+        Deque<Runnable> tasks = new ArrayDeque<>();
+        reviewDao = Mockito.mock(ReviewDao.class);
+        reviewRepository = new ReviewRepository(Mockito.mock(RestaurantApi.class), reviewDao, Mockito.mock(ReviewOutbox.class),
+                Mockito.mock(ReviewSnapshotStore.class), tasks::push);
+        Review review = review("John Tester", 3);
+        Review amended = new Review(review.getAuthor(), review.getAvatarUrl(), "Finalement excellent", 5);
+
+        reviewRepository.addReviews(TAJ_MAHAL, Collections.singletonList(review));
+        reviewRepository.updateReview(TAJ_MAHAL, review, amended);
+        assertTrue(reviewRepository.deleteReview(TAJ_MAHAL, amended));
+        while (!tasks.isEmpty()) {
+            tasks.pop().run();
+        }
+
+        InOrder inOrder = Mockito.inOrder(reviewDao);
+        inOrder.verify(reviewDao).insertAll(Mockito.anyList());
+        inOrder.verify(reviewDao).replaceReview(Mockito.eq(TAJ_MAHAL), Mockito.eq(review.getFingerprint()), Mockito.any());
+        inOrder.verify(reviewDao).deleteReview(TAJ_MAHAL, amended.getFingerprint());
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'writesFollowChanges' was executed successfully.");
+    }
+
+    /**
+     * This method checks that the reviews deleted or updated on this device stay deleted or updated when the API
+     * sends them again.
+     */
+    @Test
+    public void moderationSurvivesRefetch() {
+        Review martyna = firstPage.get(1);
+        Review amended = new Review(martyna.getAuthor(), martyna.getAvatarUrl(), "Service un peu lent ce soir", 4);
+        reviewRepository.updateReview(TAJ_MAHAL, martyna, amended);
+        reviewRepository.deleteReview(TAJ_MAHAL, firstPage.get(2));
+
+        reviewRepository.loadNextPage(TAJ_MAHAL);
+        assertEquals(Arrays.asList(firstPage.get(0), amended, firstPage.get(3), firstPage.get(4), review("Komala Alanazi", 3)), reviews());
+        assertEquals(1, reviewRepository.searchReviews(TAJ_MAHAL, "Martyna", 10).size());
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'moderationSurvivesRefetch' was executed successfully.");
+    }
+
+    /**
+     * This method checks that deleting more reviews than the compaction threshold, which compacts the reviews
+     * in the background, keeps every other review, its rating buckets, the statistics and the search right.
+     */
+    @Test
+    public void deletionsAreCompacted() {
+        List<Review> added = new ArrayList<>();
+        for (int i = 0; i < 3 * ReviewRepository.COMPACTION_THRESHOLD; i++) {
+            added.add(review("Tester " + i, i % 5 + 1));
+        }
+        reviewRepository.addReviews(TAJ_MAHAL, added);
+        List<Review> expected = new ArrayList<>(reviews());
+        long version = reviewRepository.getVersion(TAJ_MAHAL);
+        List<Review> replayed = new ArrayList<>(expected);
+
+        for (int i = 0; i < added.size(); i += 2) {
+            assertTrue(reviewRepository.deleteReview(TAJ_MAHAL, added.get(i)));
+            expected.remove(added.get(i));
+        }
+        Review amended = review("Tester 1", 5);
+        reviewRepository.updateReview(TAJ_MAHAL, added.get(1), amended);
+        expected.set(expected.indexOf(added.get(1)), amended);
+
+        assertEquals(expected, reviews());
+        for (int rating = RatingStatistics.MIN_RATING; rating <= RatingStatistics.MAX_RATING; rating++) {
+            List<Review> withRating = new ArrayList<>();
+            for (Review review : expected) {
+                if (review.getRatingValue() == rating) {
+                    withRating.add(review);
+                }
+            }
+            assertEquals(withRating, reviewRepository.getSortedReviews(TAJ_MAHAL, rating, ReviewSort.NEWEST_FIRST));
+            assertEquals(withRating.size(), statistics().getRatingCount(rating));
+        }
+        assertEquals(expected.size(), statistics().getTotalRatings());
+
+        // The search index is compacted along, the reviews left keeping their identifiers
+        assertEquals(added.get(33), reviewRepository.searchReviews(TAJ_MAHAL, "Tester 33", 1).get(0));
+        assertFalse(reviewRepository.searchReviews(TAJ_MAHAL, "Tester 32", 200).contains(added.get(32)));
+        assertTrue(reviewRepository.deleteReview(TAJ_MAHAL, added.get(33)));
+        assertFalse(reviewRepository.searchReviews(TAJ_MAHAL, "Tester 33", 200).contains(added.get(33)));
+
+        // The changes replayed by the feed lead to the same reviews
+        expected.remove(added.get(33));
+        ReviewChangeFeedUnitTest.apply(replayed, reviewRepository.getChangesSince(TAJ_MAHAL, version));
+        assertEquals(expected, replayed);
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'deletionsAreCompacted' was executed successfully.");
+    }
+}
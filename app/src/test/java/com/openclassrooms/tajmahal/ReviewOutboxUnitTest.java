@@ -0,0 +1,234 @@
+package com.openclassrooms.tajmahal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.openclassrooms.tajmahal.data.local.OutboxDao;
+import com.openclassrooms.tajmahal.data.local.OutboxEntity;
+import com.openclassrooms.tajmahal.data.repository.ReviewOutbox;
+import com.openclassrooms.tajmahal.data.service.RestaurantFakeApi;
+import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.model.ReviewSubmission;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * This class represents a unit test for the outbox of the reviews submitted to the API.
+ * It executes on the development machine (host) and uses a flaky stand-in of the server and an in-memory outbox table.
+ *
+ * @see <a href="http://d.android.com/tools/testing">Testing documentation</a>
+ */
+public class ReviewOutboxUnitTest {
+
+    // The identifier of the restaurant whose reviews are submitted.
+    private static final long TAJ_MAHAL = RestaurantFakeApi.TAJ_MAHAL_ID;
+
+    private FlakyApi api;
+    private InMemoryOutboxDao outboxDao;
+    private int scheduledSubmissions;
+    private ReviewOutbox reviewOutbox;
+
+    private final Review firstReview = new Review("John Tester", "https://xsgames.co/randomusers/assets/avatars/male/2.jpg", "This is the content of the new review.", 3);
+    private final Review secondReview = new Review("Jane Tester", "https://xsgames.co/randomusers/assets/avatars/female/2.jpg", "This is the content of another review.", 4);
+
+    /**
+     * Stand-in of the server, failing the requests as asked by the test.
+     */
+    private static class FlakyApi extends RestaurantFakeApi {
+        // The number of next requests failing before reaching the server.
+        int requestsLost;
+        // The number of next requests processed by the server, but whose acknowledgement is lost.
+        int acknowledgementsLost;
+        // The number of requests received.
+        int requests;
+
+        @Override
+        public void submitReviews(long restaurantId, List<ReviewSubmission> submissions) {
+            requests++;
+            if (requestsLost > 0) {
+                requestsLost--;
+                throw new IllegalStateException("Network unavailable");
+            }
+            super.submitReviews(restaurantId, submissions);
+            if (acknowledgementsLost > 0) {
+                acknowledgementsLost--;
+                throw new IllegalStateException("Connection reset");
+            }
+        }
+    }
+
+    /**
+     * Outbox table kept in memory, also used by the other tests of the outbox.
+     */
+    static class InMemoryOutboxDao extends OutboxDao {
+        final List<OutboxEntity> rows = new ArrayList<>();
+        final Set<String> keys = new HashSet<>();
+        long nextId = 1;
+
+        @Override
+        public void insertAll(List<OutboxEntity> reviews) {
+            for (OutboxEntity review : reviews) {
+                if (keys.add(review.idempotencyKey)) {
+                    review.id = nextId++;
+                    rows.add(review);
+                }
+            }
+        }
+
+        @Override
+        public List<OutboxEntity> getQueuedReviews(int limit) {
+            return new ArrayList<>(rows.subList(0, Math.min(limit, rows.size())));
+        }
+
+        @Override
+        public void delete(List<Long> ids) {
+            rows.removeIf(row -> ids.contains(row.id));
+        }
+
+        @Override
+        public void deleteByKey(String idempotencyKey) {
+            if (keys.remove(idempotencyKey)) {
+                rows.removeIf(row -> row.idempotencyKey.equals(idempotencyKey));
+            }
+        }
+
+        @Override
+        public void updateByKey(String idempotencyKey, String newIdempotencyKey, String author, String avatarUrl,
+                                String content, int rating) {
+            for (OutboxEntity row : rows) {
+                if (row.idempotencyKey.equals(idempotencyKey)) {
+                    keys.remove(idempotencyKey);
+                    keys.add(newIdempotencyKey);
+                    row.idempotencyKey = newIdempotencyKey;
+                    row.author = author;
+                    row.avatarUrl = avatarUrl;
+                    row.content = content;
+                    row.rating = rating;
+                }
+            }
+        }
+
+        @Override
+        public int count() {
+            return rows.size();
+        }
+    }
+
+    /**
+     * Set up the test environment.
+     * This method is called before each test method is executed.
+     * It initializes a new outbox submitting the reviews to the flaky server.
+     */
+    @Before
+    public void setup() {
+        api = new FlakyApi();
+        outboxDao = new InMemoryOutboxDao();
+        scheduledSubmissions = 0;
+        reviewOutbox = new ReviewOutbox(api, outboxDao, () -> scheduledSubmissions++);
+    }
+
+    /**
+     * This method checks that queued reviews are submitted in a single batch and removed from the outbox.
+     */
+    @Test
+    public void queuedReviewsAreSubmittedInBatch() {
+        reviewOutbox.enqueue(TAJ_MAHAL, Arrays.asList(firstReview, secondReview));
+        assertEquals(1, scheduledSubmissions);
+        assertEquals(2, reviewOutbox.size());
+
+        assertTrue(reviewOutbox.submitQueuedReviews());
+
+        assertEquals(1, api.requests);
+        assertEquals(Arrays.asList(firstReview, secondReview), api.getSubmittedReviews(TAJ_MAHAL));
+        assertEquals(0, reviewOutbox.size());
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'queuedReviewsAreSubmittedInBatch' was executed successfully.");
+    }
+
+    /**
+     * This method checks that reviews are kept in the outbox while the network is unavailable, and submitted by the retry.
+     */
+    @Test
+    public void failedSubmissionIsRetried() {
+        api.requestsLost = 2;
+        reviewOutbox.enqueue(TAJ_MAHAL, Arrays.asList(firstReview, secondReview));
+
+        assertFalse(reviewOutbox.submitQueuedReviews());
+        assertFalse(reviewOutbox.submitQueuedReviews());
+        assertEquals(2, reviewOutbox.size());
+        assertTrue(api.getSubmittedReviews(TAJ_MAHAL).isEmpty());
+
+        assertTrue(reviewOutbox.submitQueuedReviews());
+        assertEquals(Arrays.asList(firstReview, secondReview), api.getSubmittedReviews(TAJ_MAHAL));
+        assertEquals(0, reviewOutbox.size());
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'failedSubmissionIsRetried' was executed successfully.");
+    }
+
+    /**
+     * This method checks that a review whose acknowledgement was lost is submitted again, but published once.
+     */
+    @Test
+    public void lostAcknowledgementDoesNotDuplicateReviews() {
+        api.acknowledgementsLost = 1;
+        reviewOutbox.enqueue(TAJ_MAHAL, Arrays.asList(firstReview, secondReview));
+
+        assertFalse(reviewOutbox.submitQueuedReviews());
+        assertEquals(2, reviewOutbox.size());
+        assertTrue(reviewOutbox.submitQueuedReviews());
+
+        assertEquals(2, api.requests);
+        assertEquals(Arrays.asList(firstReview, secondReview), api.getSubmittedReviews(TAJ_MAHAL));
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'lostAcknowledgementDoesNotDuplicateReviews' was executed successfully.");
+    }
+
+    /**
+     * This method checks that a batch rejected for good by the server does not block the following reviews.
+     */
+    @Test
+    public void rejectedBatchIsDropped() {
+        long unknownRestaurant = TAJ_MAHAL + RestaurantFakeApi.RESTAURANT_COUNT;
+        reviewOutbox.enqueue(unknownRestaurant, Arrays.asList(firstReview));
+        reviewOutbox.enqueue(TAJ_MAHAL, Arrays.asList(secondReview));
+
+        assertTrue(reviewOutbox.submitQueuedReviews());
+
+        assertEquals(Arrays.asList(secondReview), api.getSubmittedReviews(TAJ_MAHAL));
+        assertEquals(0, reviewOutbox.size());
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'rejectedBatchIsDropped' was executed successfully.");
+    }
+
+    /**
+     * This method checks that the outbox submits more reviews than fit in a single batch.
+     */
+    @Test
+    public void largeOutboxIsDrained() {
+        List<Review> reviews = new ArrayList<>();
+        for (int i = 0; i < 2 * ReviewOutbox.BATCH_SIZE + 1; i++) {
+            reviews.add(new Review("Tester " + i, "https://xsgames.co/randomusers/assets/avatars/male/2.jpg", "This is the content of the new review.", i % 5 + 1));
+        }
+        reviewOutbox.enqueue(TAJ_MAHAL, reviews);
+
+        assertTrue(reviewOutbox.submitQueuedReviews());
+
+        assertEquals(3, api.requests);
+        assertEquals(reviews, api.getSubmittedReviews(TAJ_MAHAL));
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'largeOutboxIsDrained' was executed successfully.");
+    }
+}
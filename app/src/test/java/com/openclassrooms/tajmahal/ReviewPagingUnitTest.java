@@ -0,0 +1,160 @@
+package com.openclassrooms.tajmahal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+
+import com.openclassrooms.tajmahal.data.local.ReviewDao;
+import com.openclassrooms.tajmahal.data.local.ReviewSnapshotStore;
+import com.openclassrooms.tajmahal.data.repository.LoadState;
+import com.openclassrooms.tajmahal.data.repository.ReviewOutbox;
+import com.openclassrooms.tajmahal.data.repository.ReviewRepository;
+import com.openclassrooms.tajmahal.data.service.RestaurantApi;
+import com.openclassrooms.tajmahal.data.service.RestaurantFakeApi;
+import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.model.ReviewPage;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * This class represents a unit test for the paged loading of the reviews.
+ * It executes on the development machine (host) and uses the fake API to simulate the server.
+ *
+ * @see <a href="http://d.android.com/tools/testing">Testing documentation</a>
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(application = TajMahalApplication.class, manifest = "src/main/AndroidManifest.xml")
+public class ReviewPagingUnitTest {
+    // The identifier of the restaurant whose reviews are tested.
+    private static final long TAJ_MAHAL = RestaurantFakeApi.TAJ_MAHAL_ID;
+
+    private RestaurantFakeApi fakeApi;
+    private ReviewRepository reviewRepository;
+
+    // Executes the LiveData updates synchronously, as the repository publishes them with postValue.
+    @Rule
+    public InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+
+    /**
+     * Set up the test environment.
+     * This method is called before each test method is executed.
+     * It initializes a new ReviewRepository with the fake API.
+     */
+    @Before
+    public void setup() {
+        fakeApi = new RestaurantFakeApi();
+        reviewRepository = new ReviewRepository(fakeApi, Mockito.mock(ReviewDao.class), Mockito.mock(ReviewOutbox.class), Mockito.mock(ReviewSnapshotStore.class), Runnable::run);
+    }
+
+    /**
+     * This method checks that walking through the pages of the API returns every review exactly once.
+     */
+    @Test
+    public void pagesCoverEveryReviewOnce() {
+        Set<Review> reviews = new HashSet<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            ReviewPage page = fakeApi.getReviewsPage(TAJ_MAHAL, ReviewRepository.PAGE_SIZE, cursor);
+            reviews.addAll(page.getReviews());
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals("Every review should be returned once", RestaurantFakeApi.TOTAL_REVIEWS, reviews.size());
+        assertEquals((RestaurantFakeApi.TOTAL_REVIEWS + ReviewRepository.PAGE_SIZE - 1) / ReviewRepository.PAGE_SIZE, pages);
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'pagesCoverEveryReviewOnce' was executed successfully.");
+    }
+
+    /**
+     * This method checks that the repository only loads the first page, and the following ones on demand.
+     */
+    @Test
+    public void repositoryLoadsPagesOnDemand() {
+        List<Review> reviews = reviewRepository.getReviews(TAJ_MAHAL).getValue();
+        assertEquals(ReviewRepository.PAGE_SIZE, Objects.requireNonNull(reviews).size());
+        assertTrue(reviewRepository.hasMoreReviews(TAJ_MAHAL));
+
+        reviewRepository.loadNextPage(TAJ_MAHAL);
+        reviews = reviewRepository.getReviews(TAJ_MAHAL).getValue();
+        assertEquals(2 * ReviewRepository.PAGE_SIZE, Objects.requireNonNull(reviews).size());
+
+        while (reviewRepository.hasMoreReviews(TAJ_MAHAL)) {
+            reviewRepository.loadNextPage(TAJ_MAHAL);
+        }
+        reviews = reviewRepository.getReviews(TAJ_MAHAL).getValue();
+        assertEquals(RestaurantFakeApi.TOTAL_REVIEWS, Objects.requireNonNull(reviews).size());
+        assertFalse(reviewRepository.hasMoreReviews(TAJ_MAHAL));
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'repositoryLoadsPagesOnDemand' was executed successfully.");
+    }
+
+    /**
+     * This method checks that the rating statistics cover every review, not only the loaded ones.
+     */
+    @Test
+    public void statisticsCoverEveryReview() {
+        assertEquals(RestaurantFakeApi.TOTAL_REVIEWS,
+                Objects.requireNonNull(reviewRepository.getRatingStatistics(TAJ_MAHAL).getValue()).getTotalRatings());
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'statisticsCoverEveryReview' was executed successfully.");
+    }
+
+    /**
+     * This method checks that the repository does not call the API on the injecting thread nor on the requesting thread,
+     * and reports the loading state until the background task has run.
+     */
+    @Test
+    public void repositoryLoadsInBackground() {
+        List<Runnable> pendingTasks = new ArrayList<>();
+        RestaurantApi api = Mockito.mock(RestaurantApi.class);
+        ReviewRepository repository = new ReviewRepository(api, Mockito.mock(ReviewDao.class), Mockito.mock(ReviewOutbox.class), Mockito.mock(ReviewSnapshotStore.class), pendingTasks::add);
+
+        Mockito.verifyNoInteractions(api);
+        assertEquals(LoadState.Status.LOADING, Objects.requireNonNull(repository.getLoadState(TAJ_MAHAL).getValue()).getStatus());
+        Mockito.verifyNoInteractions(api);
+
+        Mockito.when(api.getReviewsPage(Mockito.eq(TAJ_MAHAL), Mockito.anyInt(), Mockito.isNull())).thenReturn(new ReviewPage(new ArrayList<>(), null));
+        pendingTasks.get(0).run();
+        assertEquals(LoadState.Status.LOADED, Objects.requireNonNull(repository.getLoadState(TAJ_MAHAL).getValue()).getStatus());
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'repositoryLoadsInBackground' was executed successfully.");
+    }
+
+    /**
+     * This method checks that a failure of the API is reported through the load state.
+     */
+    @Test
+    public void loadingErrorIsReported() {
+        RestaurantApi api = Mockito.mock(RestaurantApi.class);
+        Mockito.when(api.getReviewsPage(Mockito.eq(TAJ_MAHAL), Mockito.anyInt(), Mockito.isNull())).thenThrow(new IllegalStateException("Network unavailable"));
+        ReviewRepository repository = new ReviewRepository(api, Mockito.mock(ReviewDao.class), Mockito.mock(ReviewOutbox.class), Mockito.mock(ReviewSnapshotStore.class), Runnable::run);
+
+        LoadState loadState = Objects.requireNonNull(repository.getLoadState(TAJ_MAHAL).getValue());
+        assertEquals(LoadState.Status.ERROR, loadState.getStatus());
+        assertTrue(loadState.getError() instanceof IllegalStateException);
+        assertTrue("A failed page should be retried", repository.hasMoreReviews(TAJ_MAHAL));
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'loadingErrorIsReported' was executed successfully.");
+    }
+}
@@ -0,0 +1,253 @@
+package com.openclassrooms.tajmahal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.openclassrooms.tajmahal.data.repository.ReviewSearchIndex;
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class represents a unit test for the full-text search of the reviews.
+ * It executes on the development machine (host).
+ *
+ * @see <a href="http://d.android.com/tools/testing">Testing documentation</a>
+ */
+public class ReviewSearchUnitTest {
+
+    // The words from which the contents of the generated reviews are made.
+    private static final String[] WORDS = {"restaurant", "indien", "délicieux", "service", "rapide", "lent", "accueil",
+            "chaleureux", "plats", "épicés", "naan", "fromage", "curry", "agneau", "poulet", "tikka", "masala", "dessert",
+            "prix", "raisonnable", "cadre", "magnifique", "bruyant", "serveurs", "souriants", "attente", "longue"};
+
+    /**
+     * Creates a review of the given author and content.
+     *
+     * @param author  The author of the review.
+     * @param content The content of the review.
+     * @return The review, rated 4 stars.
+     */
+    private static Review review(String author, String content) {
+        return new Review(author, "https://xsgames.co/randomusers/assets/avatars/female/1.jpg", content, 4);
+    }
+
+    /**
+     * This method checks that the terms are folded to lower case without accents, and that the words too short are ignored.
+     */
+    @Test
+    public void termsAreFolded() {
+        assertEquals(Arrays.asList("deja", "venu", "oeuvre", "coeur", "cafe", "naan", "2024"),
+                ReviewSearchIndex.terms("Déjà venu, l'œuvre... CŒUR, Café & naan, 2024 !"));
+        assertTrue(ReviewSearchIndex.terms("à l'").isEmpty());
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'termsAreFolded' was executed successfully.");
+    }
+
+    /**
+     * This method checks that a review is found whatever the case and the accents of the query, and by the prefix of a word.
+     */
+    @Test
+    public void reviewsAreFoundByFoldedPrefix() {
+        ReviewSearchIndex index = new ReviewSearchIndex();
+        Review disappointed = review("Ranjit Singh", "Service très rapide et nourriture délicieuse, mais un peu déçus par le dessert.");
+        index.addOldest(disappointed);
+        index.addOldest(review("Martyna Siddeswara", "Un accueil chaleureux."));
+        index.publish();
+
+        assertEquals(Arrays.asList(disappointed), index.search("DECUS", 10));
+        assertEquals(Arrays.asList(disappointed), index.search("déçu", 10));
+        assertEquals(Arrays.asList(disappointed), index.search("délic", 10));
+        assertEquals(Arrays.asList(disappointed), index.search("ranj", 10));
+        assertTrue(index.search("déçue", 10).isEmpty());
+        assertTrue(index.search("  ! ", 10).isEmpty());
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'reviewsAreFoundByFoldedPrefix' was executed successfully.");
+    }
+
+    /**
+     * This method checks that a review is only found if it matches every word of the query.
+     */
+    @Test
+    public void everyWordMustMatch() {
+        ReviewSearchIndex index = new ReviewSearchIndex();
+        Review fastAndTasty = review("Ranjit Singh", "Service rapide, plats délicieux.");
+        Review slowAndTasty = review("Martyna Siddeswara", "Service lent, plats délicieux.");
+        index.addOldest(fastAndTasty);
+        index.addOldest(slowAndTasty);
+        index.publish();
+
+        assertEquals(Arrays.asList(fastAndTasty), index.search("service rapide", 10));
+        assertEquals(Arrays.asList(slowAndTasty), index.search("martyna délicieux", 10));
+        assertEquals(2, index.search("plats service", 10).size());
+        assertTrue(index.search("rapide lent", 10).isEmpty());
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'everyWordMustMatch' was executed successfully.");
+    }
+
+    /**
+     * This method checks that the reviews are ranked by the weight of the matched terms, then newest first.
+     */
+    @Test
+    public void reviewsAreRanked() {
+        ReviewSearchIndex index = new ReviewSearchIndex();
+        Review byAuthor = review("Curry Lover", "Le meilleur restaurant du quartier.");
+        Review twice = review("Ranjit Singh", "Le curry d'agneau et le curry de poulet sont excellents.");
+        Review once = review("Martyna Siddeswara", "Un bon curry.");
+        Review prefix = review("Emma Martin", "Currywurst à l'indienne ?");
+        index.addOldest(once);
+        index.addOldest(twice);
+        index.addOldest(prefix);
+        index.addOldest(byAuthor);
+        index.publish();
+
+        assertEquals(Arrays.asList(byAuthor, twice, once, prefix), index.search("curry", 10));
+        assertEquals(Arrays.asList(byAuthor, twice), index.search("curry", 2));
+
+        // A new review with the same score as an older one is ranked first
+        Review newer = review("Lucas Bernard", "Un bon curry.");
+        index.addNewest(newer);
+        index.publish();
+        List<Review> results = index.search("bon curry", 10);
+        assertEquals(Arrays.asList(newer, once), results);
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'reviewsAreRanked' was executed successfully.");
+    }
+
+    /**
+     * This method checks that the searches read the state of the index published last: the reviews added, removed or
+     * cleared since then are only searched once published.
+     */
+    @Test
+    public void searchesReadThePublishedState() {
+        ReviewSearchIndex index = new ReviewSearchIndex();
+        Review first = review("Ranjit Singh", "Un curry délicieux.");
+        Review second = review("Martyna Siddeswara", "Un curry trop épicé.");
+        int firstId = index.addOldest(first);
+        index.publish();
+        index.addOldest(second);
+        assertEquals(Arrays.asList(first), index.search("curry", 10));
+
+        index.publish();
+        index.remove(firstId);
+        assertEquals(2, index.search("curry", 10).size());
+        index.publish();
+        assertEquals(Arrays.asList(second), index.search("curry", 10));
+
+        index.clear();
+        index.addOldest(review("Emma Martin", "Un naan au fromage."));
+        assertEquals(Arrays.asList(second), index.search("curry", 10));
+        assertTrue(index.search("naan", 10).isEmpty());
+        index.publish();
+        assertTrue(index.search("curry", 10).isEmpty());
+        assertEquals(1, index.search("naan", 10).size());
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'searchesReadThePublishedState' was executed successfully.");
+    }
+
+    /**
+     * This method checks that the compaction drops the removed reviews and their terms, and that the reviews left are
+     * then ranked exactly like in an index of these reviews only.
+     */
+    @Test
+    public void removedReviewsAreCompacted() {
+        ReviewSearchIndex index = new ReviewSearchIndex();
+        ReviewSearchIndex expectedIndex = new ReviewSearchIndex();
+        List<Review> reviews = new ArrayList<>();
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            Review review = review("Author " + i, WORDS[i % WORDS.length] + " " + WORDS[i * 7 % WORDS.length] + " " + WORDS[i / 11 % WORDS.length]);
+            reviews.add(review);
+            ids.add(index.addOldest(review));
+        }
+        for (int i = 0; i < reviews.size(); i += 3) {
+            index.remove(ids.get(i));
+        }
+        for (int i = 1; i < reviews.size(); i += 6) {
+            Review replacement = review("Replaced " + i, "dessert tikka " + WORDS[i % WORDS.length]);
+            ids.set(i, index.replace(ids.get(i), replacement));
+            reviews.set(i, replacement);
+        }
+        for (int i = 0; i < reviews.size(); i++) {
+            if (i % 3 != 0) {
+                expectedIndex.addOldest(reviews.get(i));
+            }
+        }
+        index.publish();
+        expectedIndex.publish();
+        assertEquals(150, index.getRemovedCount());
+        assertEquals(expectedIndex.size(), index.size());
+
+        // The compaction is built from the state of the index as of its start, the searches still reading the reviews removed
+        ReviewSearchIndex.Compaction compaction = index.startCompaction();
+        compaction.run();
+        assertEquals(150, index.getRemovedCount());
+        assertEquals(expectedIndex.search("curry", 20), index.search("curry", 20));
+        index.finishCompaction(compaction);
+        assertEquals(0, index.getRemovedCount());
+        assertEquals(expectedIndex.size(), index.size());
+        assertEquals(Arrays.asList(reviews.get(32)), index.search("author 32", 10));
+        assertTrue("The terms of the removed reviews only should be dropped", index.search("author 30", 10).isEmpty());
+        String[] queries = {"curry", "dessert tikka", "replaced", "ser", "author 1", "prix cadre", "naan"};
+        for (String query : queries) {
+            assertEquals(expectedIndex.search(query, 20), index.search(query, 20));
+        }
+
+        // The reviews left can still be removed and replaced by their identifiers
+        index.remove(ids.get(2));
+        index.publish();
+        assertTrue(index.search("author 2", 20).stream().noneMatch(review -> review.getAuthor().equals("Author 2")));
+        Review replacement = review("Renamed", "agneau");
+        index.replace(ids.get(4), replacement);
+        index.publish();
+        assertTrue(index.search("agneau", 300).contains(replacement));
+        assertTrue(index.search("author 4", 20).stream().noneMatch(review -> review.getAuthor().equals("Author 4")));
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'removedReviewsAreCompacted' was executed successfully.");
+    }
+
+    /**
+     * This method checks that a search among 100,000 reviews runs in less than a millisecond on average.
+     */
+    @Test
+    public void searchIsFast() {
+        ReviewSearchIndex index = new ReviewSearchIndex();
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 100_000; i++) {
+            content.setLength(0);
+            // Half of the words are common ones, found in about a fifth of the reviews; the other half are rarer ones
+            for (int j = 0; j < 6; j++) {
+                content.append(WORDS[(i * 7 + j * 13 + i / (j + 1)) % WORDS.length]).append(' ');
+                content.append("mot").append((i * 31 + j * 97) % 5_000).append(' ');
+            }
+            index.addOldest(review("Author " + i, content.toString()));
+        }
+        index.publish();
+        String[] queries = {"curry agneau", "service rap", "épicés naan", "author 4242", "magnifique cadre prix", "mot42"};
+        for (int i = 0; i < 200; i++) {
+            index.search(queries[i % queries.length], 20);
+        }
+
+        int searches = 1_000;
+        long start = System.nanoTime();
+        for (int i = 0; i < searches; i++) {
+            index.search(queries[i % queries.length], 20);
+        }
+        double averageMillis = (System.nanoTime() - start) / 1e6 / searches;
+        System.out.println("Average search among 100,000 reviews: " + averageMillis + " ms");
+        assertTrue(averageMillis < 1);
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'searchIsFast' was executed successfully.");
+    }
+}
@@ -0,0 +1,216 @@
+package com.openclassrooms.tajmahal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.openclassrooms.tajmahal.data.local.ReviewSnapshot;
+import com.openclassrooms.tajmahal.data.local.ReviewSnapshotStore;
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class represents a unit test for the memory-mapped snapshots of the reviews.
+ * It executes on the development machine (host) and writes the snapshots to a temporary folder.
+ *
+ * @see <a href="http://d.android.com/tools/testing">Testing documentation</a>
+ */
+public class ReviewSnapshotUnitTest {
+
+    // The identifier of the restaurant whose reviews are tested.
+    private static final long TAJ_MAHAL = 1;
+
+    // The storage of the application, holding the snapshots of the reviews.
+    @Rule
+    public TemporaryFolder storage = new TemporaryFolder();
+
+    /**
+     * Generates reviews of various lengths, with accented characters and emojis.
+     *
+     * @param count The number of reviews.
+     * @return The reviews, newest first.
+     */
+    private static List<Review> reviews(int count) {
+        List<Review> reviews = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            StringBuilder content = new StringBuilder("Très bon restaurant Indien ! ");
+            for (int j = 0; j < i % 7; j++) {
+                content.append("Je recommande, c'est délicieux 😋 ");
+            }
+            reviews.add(new Review("Author " + i, "https://xsgames.co/randomusers/assets/avatars/male/" + i % 75 + ".jpg",
+                    content.toString(), i % 5 + 1));
+        }
+        return reviews;
+    }
+
+    /**
+     * This method checks that the reviews read back from a snapshot are equal to the reviews written, in the same order.
+     */
+    @Test
+    public void reviewsAreReadBack() throws IOException {
+        List<Review> reviews = reviews(1_000);
+        File file = storage.newFile();
+        ReviewSnapshot.write(file, reviews);
+
+        ReviewSnapshot snapshot = ReviewSnapshot.open(file);
+        assertEquals(reviews.size(), snapshot.size());
+        assertEquals(reviews, snapshot);
+        assertEquals(reviews.get(999).getFingerprint(), snapshot.get(999).getFingerprint());
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'reviewsAreReadBack' was executed successfully.");
+    }
+
+    /**
+     * This method checks that the missing fields of a review are kept missing, and that an empty snapshot can be read back.
+     */
+    @Test
+    public void missingFieldsAreKept() throws IOException {
+        Review incomplete = new Review(null, null, "", (Integer) null);
+        File file = storage.newFile();
+        ReviewSnapshot.write(file, Collections.singletonList(incomplete));
+
+        Review review = ReviewSnapshot.open(file).get(0);
+        assertNull(review.getAuthor());
+        assertNull(review.getAvatarUrl());
+        assertEquals("", review.getContent());
+        assertNull(review.getRating());
+
+        ReviewSnapshot.write(file, Collections.<Review>emptyList());
+        assertTrue(ReviewSnapshot.open(file).isEmpty());
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'missingFieldsAreKept' was executed successfully.");
+    }
+
+    /**
+     * This method checks that a review is looked up in the hash table of the fingerprints of the snapshot,
+     * whatever the number of reviews.
+     */
+    @Test
+    public void reviewsAreLookedUp() throws IOException {
+        List<Review> reviews = reviews(100);
+        File file = storage.newFile();
+        ReviewSnapshot.write(file, reviews);
+        ReviewSnapshot snapshot = ReviewSnapshot.open(file);
+
+        assertTrue(snapshot.contains(reviews(100).get(42)));
+        assertFalse(snapshot.contains(reviews(101).get(100)));
+        assertFalse(snapshot.contains("Author 42"));
+
+        // Every review is found, and no other one, in snapshots filling their hash table more or less
+        for (int size : new int[]{0, 1, 2, 3, 64, 65, 1000}) {
+            List<Review> written = reviews(size);
+            ReviewSnapshot.write(file, written);
+            ReviewSnapshot reopened = ReviewSnapshot.open(file);
+            for (Review review : written) {
+                assertTrue(reopened.contains(review));
+            }
+            for (Review review : reviews(size + 50).subList(size, size + 50)) {
+                assertFalse(reopened.contains(review));
+            }
+        }
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'reviewsAreLookedUp' was executed successfully.");
+    }
+
+    /**
+     * This method checks that a snapshot replaced while it is read keeps its reviews, and that the store reopens the new one.
+     */
+    @Test
+    public void replacedSnapshotIsUnchanged() {
+        ReviewSnapshotStore store = new ReviewSnapshotStore(new File(storage.getRoot(), "snapshots"));
+        assertNull(store.open(TAJ_MAHAL));
+
+        List<Review> reviews = reviews(10);
+        store.write(TAJ_MAHAL, reviews);
+        List<Review> snapshot = store.open(TAJ_MAHAL);
+        store.write(TAJ_MAHAL, reviews(20));
+
+        assertEquals(reviews, snapshot);
+        assertEquals(20, store.open(TAJ_MAHAL).size());
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'replacedSnapshotIsUnchanged' was executed successfully.");
+    }
+
+    /**
+     * This method checks that a truncated snapshot is dropped by the store instead of being read.
+     */
+    @Test
+    public void truncatedSnapshotIsDropped() throws IOException {
+        File directory = storage.newFolder();
+        ReviewSnapshotStore store = new ReviewSnapshotStore(directory);
+        store.write(TAJ_MAHAL, reviews(10));
+        File file = directory.listFiles()[0];
+        try (RandomAccessFile output = new RandomAccessFile(file, "rw")) {
+            output.setLength(output.length() - 1);
+        }
+
+        assertNull(store.open(TAJ_MAHAL));
+        assertFalse(file.exists());
+        assertEquals(0, directory.listFiles().length);
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'truncatedSnapshotIsDropped' was executed successfully.");
+    }
+
+    /**
+     * This method checks that a snapshot of the right length whose offsets or hash table are corrupted is dropped
+     * by the store instead of being read or probed.
+     */
+    @Test
+    public void corruptedSnapshotIsDropped() throws IOException {
+        File directory = storage.newFolder();
+        ReviewSnapshotStore store = new ReviewSnapshotStore(directory);
+        int count = 10;
+        // The header, the ratings and the fingerprints come before the hash table of 32 slots, the flags and the offsets
+        long tablePosition = 4 * Integer.BYTES + count * (Integer.BYTES + Long.BYTES);
+        long offsetsPosition = tablePosition + 32 * Integer.BYTES + count;
+
+        // An offset past the blob
+        store.write(TAJ_MAHAL, reviews(count));
+        File file = directory.listFiles()[0];
+        try (RandomAccessFile output = new RandomAccessFile(file, "rw")) {
+            output.seek(offsetsPosition + 5 * Integer.BYTES);
+            output.writeInt(Integer.MAX_VALUE);
+        }
+        assertNull(store.open(TAJ_MAHAL));
+        assertFalse(file.exists());
+
+        // A hash table without an empty slot, whose probes would never end
+        store.write(TAJ_MAHAL, reviews(count));
+        try (RandomAccessFile output = new RandomAccessFile(file, "rw")) {
+            output.seek(tablePosition);
+            for (int slot = 0; slot < 32; slot++) {
+                output.writeInt(1);
+            }
+        }
+        assertNull(store.open(TAJ_MAHAL));
+        assertFalse(file.exists());
+
+        // A hash table pointing past the reviews
+        store.write(TAJ_MAHAL, reviews(count));
+        try (RandomAccessFile output = new RandomAccessFile(file, "rw")) {
+            output.seek(tablePosition);
+            output.writeInt(count + 1);
+        }
+        assertNull(store.open(TAJ_MAHAL));
+        assertFalse(file.exists());
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'corruptedSnapshotIsDropped' was executed successfully.");
+    }
+}
@@ -0,0 +1,201 @@
+package com.openclassrooms.tajmahal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+
+import com.openclassrooms.tajmahal.data.local.ReviewDao;
+import com.openclassrooms.tajmahal.data.local.ReviewSnapshotStore;
+import com.openclassrooms.tajmahal.data.repository.ReviewOutbox;
+import com.openclassrooms.tajmahal.data.repository.ReviewRepository;
+import com.openclassrooms.tajmahal.data.repository.ReviewSort;
+import com.openclassrooms.tajmahal.data.service.RestaurantApi;
+import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.model.ReviewPage;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class represents a unit test for the reviews filtered by rating and sorted by rating.
+ * It executes on the development machine (host) and uses mocks to simulate the server and the local database.
+ *
+ * @see <a href="http://d.android.com/tools/testing">Testing documentation</a>
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(application = TajMahalApplication.class, manifest = "src/main/AndroidManifest.xml")
+public class ReviewSortUnitTest {
+    // The identifier of the restaurant whose reviews are tested.
+    private static final long TAJ_MAHAL = 1;
+
+    private RestaurantApi api;
+    private ReviewSnapshotStore snapshotStore;
+
+    // The reviews of the API, newest first.
+    private final Review excellent = review("Ranjit Singh", 5);
+    private final Review good = review("Martyna Siddeswara", 4);
+    private final Review disappointing = review("David John", 2);
+    private final Review alsoExcellent = review("Komala Alanazi", 5);
+    private final Review alsoGood = review("Emilie Hood", 4);
+
+    // Executes the LiveData updates synchronously, as the repository publishes them with postValue.
+    @Rule
+    public InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+
+    // The storage of the application, holding the snapshots of the reviews.
+    @Rule
+    public TemporaryFolder storage = new TemporaryFolder();
+
+    /**
+     * Creates a review of the given author and rating.
+     *
+     * @param author The author of the review
+     * @param rating The rating of the review
+     * @return The review
+     */
+    private static Review review(String author, int rating) {
+        return new Review(author, "https://xsgames.co/randomusers/assets/avatars/male/2.jpg", "Review of " + author, rating);
+    }
+
+    /**
+     * Set up the test environment.
+     * This method is called before each test method is executed.
+     * It makes the mock API return a single page of reviews, and opens an empty snapshot store.
+     */
+    @Before
+    public void setup() {
+        api = Mockito.mock(RestaurantApi.class);
+        snapshotStore = new ReviewSnapshotStore(storage.getRoot());
+        Mockito.when(api.getReviewsPage(Mockito.eq(TAJ_MAHAL), Mockito.anyInt(), Mockito.isNull()))
+                .thenReturn(new ReviewPage(Arrays.asList(excellent, good, disappointing, alsoExcellent, alsoGood), null));
+    }
+
+    /**
+     * Creates a repository fetching the reviews from the mock API, and loads its reviews.
+     *
+     * @return The repository
+     */
+    private ReviewRepository newRepository() {
+        ReviewRepository reviewRepository = new ReviewRepository(api, Mockito.mock(ReviewDao.class), Mockito.mock(ReviewOutbox.class), snapshotStore, Runnable::run);
+        reviewRepository.getReviews(TAJ_MAHAL);
+        return reviewRepository;
+    }
+
+    /**
+     * This method checks that the reviews with a given rating are listed newest first, a new review coming first.
+     */
+    @Test
+    public void reviewsAreFilteredByRating() {
+        ReviewRepository reviewRepository = newRepository();
+
+        assertEquals(Arrays.asList(excellent, alsoExcellent), reviewRepository.getSortedReviews(TAJ_MAHAL, 5, ReviewSort.NEWEST_FIRST));
+        assertEquals(Arrays.asList(disappointing), reviewRepository.getSortedReviews(TAJ_MAHAL, 2, ReviewSort.HIGHEST_RATING_FIRST));
+        assertEquals(0, reviewRepository.getSortedReviews(TAJ_MAHAL, 1, ReviewSort.NEWEST_FIRST).size());
+
+        Review newReview = review("Manon Garcia", 5);
+        reviewRepository.addReview(TAJ_MAHAL, newReview);
+        assertEquals(Arrays.asList(newReview, excellent, alsoExcellent), reviewRepository.getSortedReviews(TAJ_MAHAL, 5, ReviewSort.NEWEST_FIRST));
+        assertEquals(6, reviewRepository.getSortedReviews(TAJ_MAHAL, ReviewRepository.ALL_RATINGS, ReviewSort.NEWEST_FIRST).size());
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'reviewsAreFilteredByRating' was executed successfully.");
+    }
+
+    /**
+     * This method checks that the reviews are sorted by rating, the newest first among the reviews with the same rating.
+     */
+    @Test
+    public void reviewsAreSortedByRating() {
+        ReviewRepository reviewRepository = newRepository();
+        Review newReview = review("Manon Garcia", 4);
+        reviewRepository.addReview(TAJ_MAHAL, newReview);
+
+        assertEquals(Arrays.asList(excellent, alsoExcellent, newReview, good, alsoGood, disappointing),
+                reviewRepository.getSortedReviews(TAJ_MAHAL, ReviewRepository.ALL_RATINGS, ReviewSort.HIGHEST_RATING_FIRST));
+        assertEquals(Arrays.asList(disappointing, newReview, good, alsoGood, excellent, alsoExcellent),
+                reviewRepository.getSortedReviews(TAJ_MAHAL, ReviewRepository.ALL_RATINGS, ReviewSort.LOWEST_RATING_FIRST));
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'reviewsAreSortedByRating' was executed successfully.");
+    }
+
+    /**
+     * This method checks that switching back to a view returns the same list until the reviews change.
+     */
+    @Test
+    public void viewsAreReusedUntilReviewsChange() {
+        ReviewRepository reviewRepository = newRepository();
+
+        List<Review> excellentReviews = reviewRepository.getSortedReviews(TAJ_MAHAL, 5, ReviewSort.NEWEST_FIRST);
+        List<Review> newestReviews = reviewRepository.getSortedReviews(TAJ_MAHAL, ReviewRepository.ALL_RATINGS, ReviewSort.NEWEST_FIRST);
+        List<Review> worstReviews = reviewRepository.getSortedReviews(TAJ_MAHAL, ReviewRepository.ALL_RATINGS, ReviewSort.LOWEST_RATING_FIRST);
+        List<Review> bestReviews = reviewRepository.getSortedReviews(TAJ_MAHAL, ReviewRepository.ALL_RATINGS, ReviewSort.HIGHEST_RATING_FIRST);
+        assertSame(excellentReviews, reviewRepository.getSortedReviews(TAJ_MAHAL, 5, ReviewSort.NEWEST_FIRST));
+        assertSame(newestReviews, reviewRepository.getSortedReviews(TAJ_MAHAL, ReviewRepository.ALL_RATINGS, ReviewSort.NEWEST_FIRST));
+        assertSame(worstReviews, reviewRepository.getSortedReviews(TAJ_MAHAL, ReviewRepository.ALL_RATINGS, ReviewSort.LOWEST_RATING_FIRST));
+        assertSame(bestReviews, reviewRepository.getSortedReviews(TAJ_MAHAL, ReviewRepository.ALL_RATINGS, ReviewSort.HIGHEST_RATING_FIRST));
+
+        // Adding a 1-star review changes the list of every review and the lists sorted by rating,
+        // but not the bucket of the 5-star reviews
+        reviewRepository.addReview(TAJ_MAHAL, review("Manon Garcia", 1));
+        assertSame(excellentReviews, reviewRepository.getSortedReviews(TAJ_MAHAL, 5, ReviewSort.NEWEST_FIRST));
+        assertNotSame(newestReviews, reviewRepository.getSortedReviews(TAJ_MAHAL, ReviewRepository.ALL_RATINGS, ReviewSort.NEWEST_FIRST));
+        assertNotSame(bestReviews, reviewRepository.getSortedReviews(TAJ_MAHAL, ReviewRepository.ALL_RATINGS, ReviewSort.HIGHEST_RATING_FIRST));
+        bestReviews = reviewRepository.getSortedReviews(TAJ_MAHAL, ReviewRepository.ALL_RATINGS, ReviewSort.HIGHEST_RATING_FIRST);
+        assertSame(bestReviews, reviewRepository.getSortedReviews(TAJ_MAHAL, ReviewRepository.ALL_RATINGS, ReviewSort.HIGHEST_RATING_FIRST));
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'viewsAreReusedUntilReviewsChange' was executed successfully.");
+    }
+
+    /**
+     * This method checks that the reviews of the snapshot of the previous session are filtered by rating before the API answers.
+     */
+    @Test
+    public void snapshotReviewsAreFiltered() {
+        List<Review> previousReviews = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            previousReviews.add(review("Author " + i, i % 5 + 1));
+        }
+        snapshotStore.write(TAJ_MAHAL, previousReviews);
+        Mockito.when(api.getReviewsPage(Mockito.eq(TAJ_MAHAL), Mockito.anyInt(), Mockito.isNull())).thenThrow(new IllegalStateException("Network unavailable"));
+        ReviewRepository reviewRepository = newRepository();
+
+        List<Review> worstReviews = reviewRepository.getSortedReviews(TAJ_MAHAL, 1, ReviewSort.NEWEST_FIRST);
+        assertEquals(20, worstReviews.size());
+        assertEquals(previousReviews.get(0), worstReviews.get(0));
+        assertEquals(previousReviews.get(95), worstReviews.get(19));
+        assertEquals(previousReviews.get(4), reviewRepository.getSortedReviews(TAJ_MAHAL, ReviewRepository.ALL_RATINGS, ReviewSort.HIGHEST_RATING_FIRST).get(0));
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'snapshotReviewsAreFiltered' was executed successfully.");
+    }
+
+    /**
+     * This method checks that an invalid rating or a missing order is rejected.
+     */
+    @Test
+    public void invalidViewIsRejected() {
+        ReviewRepository reviewRepository = newRepository();
+
+        assertThrows(IllegalArgumentException.class, () -> reviewRepository.getSortedReviews(TAJ_MAHAL, 6, ReviewSort.NEWEST_FIRST));
+        assertThrows(IllegalArgumentException.class, () -> reviewRepository.getSortedReviews(TAJ_MAHAL, -1, ReviewSort.NEWEST_FIRST));
+        assertThrows(IllegalArgumentException.class, () -> reviewRepository.getSortedReviews(TAJ_MAHAL, 3, null));
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'invalidViewIsRejected' was executed successfully.");
+    }
+}
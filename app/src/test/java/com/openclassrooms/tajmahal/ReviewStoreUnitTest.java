@@ -0,0 +1,238 @@
+package com.openclassrooms.tajmahal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import com.openclassrooms.tajmahal.data.repository.ReviewStore;
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * This class represents a unit test for the immutable snapshots of the {@link ReviewStore}, which share their structure
+ * with the following versions of the store instead of copying the reviews, and for its tombstones.
+ */
+public class ReviewStoreUnitTest {
+
+    /**
+     * Creates the review of the given number.
+     *
+     * @param number The number of the review
+     * @return The review
+     */
+    private static Review review(int number) {
+        return new Review("Author " + number, "https://xsgames.co/randomusers/assets/avatars/male/2.jpg", "Review " + number, number % 5 + 1);
+    }
+
+    /**
+     * This method checks that each snapshot keeps the reviews of the store at the time it was taken,
+     * while the store keeps growing on both ends.
+     */
+    @Test
+    public void snapshotsAreImmutableVersions() {
+        ReviewStore store = new ReviewStore();
+        List<Review> expected = new ArrayList<>();
+        List<List<Review>> snapshots = new ArrayList<>();
+        List<List<Review>> expectedSnapshots = new ArrayList<>();
+        int number = 0;
+        for (int step = 0; step < 300; step++) {
+            if (step % 3 == 0) {
+                // A page of older reviews, below the reviews of the store
+                List<Review> page = new ArrayList<>();
+                for (int i = 0; i < 20; i++) {
+                    page.add(review(number++));
+                }
+                store.addAllNewestFirst(page);
+                expected.addAll(page);
+            } else {
+                // A new review, on top of the store
+                Review newReview = review(number++);
+                store.addNewest(newReview);
+                expected.add(0, newReview);
+            }
+            snapshots.add(store.snapshot());
+            expectedSnapshots.add(new ArrayList<>(expected));
+        }
+
+        for (int i = 0; i < snapshots.size(); i++) {
+            assertEquals("A snapshot should never change", expectedSnapshots.get(i), snapshots.get(i));
+        }
+        assertEquals(expected, store);
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'snapshotsAreImmutableVersions' was executed successfully.");
+    }
+
+    /**
+     * This method checks that a store deep enough to grow its tree several times keeps every review at its position.
+     */
+    @Test
+    public void largeStoreKeepsOrder() {
+        int count = 40_000;
+        ReviewStore store = new ReviewStore();
+        List<Review> page = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            store.addNewest(review(i));
+            page.add(review(count + i));
+        }
+        store.addAllNewestFirst(page);
+
+        List<Review> snapshot = store.snapshot();
+        assertEquals(2 * count, snapshot.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(review(count - 1 - i), snapshot.get(i));
+            assertEquals(review(count + i), snapshot.get(count + i));
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> snapshot.get(2 * count));
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.add(review(0)));
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'largeStoreKeepsOrder' was executed successfully.");
+    }
+
+    /**
+     * This method checks that the reviews removed, replaced and inserted keep the other reviews at their positions,
+     * before and after the tombstones and the inserted reviews are compacted, and that the snapshots taken meanwhile never change.
+     */
+    @Test
+    public void tombstonesKeepPositions() {
+        ReviewStore store = new ReviewStore();
+        List<Review> expected = new ArrayList<>();
+        List<Review> page = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            store.addNewest(review(i));
+            expected.add(0, review(i));
+            page.add(review(1000 + i));
+        }
+        store.addAllNewestFirst(page);
+        expected.addAll(page);
+
+        Random random = new Random(25);
+        List<List<Review>> snapshots = new ArrayList<>();
+        List<List<Review>> expectedSnapshots = new ArrayList<>();
+        int tombstones = 0;
+        for (int step = 0; step < 600; step++) {
+            int position = random.nextInt(expected.size());
+            if (step % 3 == 0) {
+                // An inserted review stays inserted once replaced, until the compaction
+                Review replacement = expected.get(position).getAuthor().startsWith("Inserted")
+                        ? new Review("Inserted " + step, "https://xsgames.co/randomusers/assets/avatars/male/2.jpg", "Replaced", 2)
+                        : review(2000 + step);
+                assertEquals(expected.set(position, replacement), store.set(position, replacement));
+            } else {
+                Review removed = expected.remove(position);
+                assertEquals(removed, store.remove(position));
+                if (!removed.getAuthor().startsWith("Inserted")) {
+                    tombstones++;
+                }
+            }
+            if (step % 10 == 5) {
+                Review inserted = new Review("Inserted " + step, "https://xsgames.co/randomusers/assets/avatars/male/2.jpg", "Inserted", 4);
+                position = random.nextInt(expected.size() + 1);
+                store.add(position, inserted);
+                expected.add(position, inserted);
+            }
+            assertEquals(expected, store);
+            if (step % 50 == 0) {
+                snapshots.add(store.snapshot());
+                expectedSnapshots.add(new ArrayList<>(expected));
+            }
+        }
+        assertEquals(expected, store);
+        assertEquals(expected, store.snapshot());
+
+        // The compaction drops the tombstones and merges the inserted reviews, leaving the reviews and the snapshots unchanged
+        int inserted = 0;
+        for (Review review : expected) {
+            if (review.getAuthor().startsWith("Inserted")) {
+                inserted++;
+            }
+        }
+        assertTrue("Some inserted reviews should be left", inserted > 0);
+        assertEquals(tombstones + inserted, store.getTombstoneCount());
+        store.compact();
+        assertEquals(0, store.getTombstoneCount());
+        assertEquals(expected, store);
+        for (int i = 0; i < snapshots.size(); i++) {
+            assertEquals("A snapshot should never change", expectedSnapshots.get(i), snapshots.get(i));
+        }
+
+        // The reviews are found by binary search over a key decreasing along the store
+        List<Review> keyed = new ArrayList<>(expected);
+        assertEquals(17, store.positionOf(-17, review -> -keyed.indexOf(review)));
+        assertEquals(-(expected.size() + 1), store.positionOf(-expected.size(), review -> -keyed.indexOf(review)));
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'tombstonesKeepPositions' was executed successfully.");
+    }
+
+    /**
+     * This method checks that the rows of the reviews of the previous session are dropped at their positions, whether
+     * they are dropped in order or not, and that the snapshots taken meanwhile never change.
+     */
+    @Test
+    public void previousRowsAreDropped() {
+        ReviewStore store = new ReviewStore();
+        List<Review> previous = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            previous.add(review(i));
+        }
+        store.setPrevious(Collections.unmodifiableList(previous));
+        store.addNewest(review(1000));
+        List<Review> expected = new ArrayList<>(store);
+
+        Random random = new Random(17);
+        List<Review> snapshot = store.snapshot();
+        List<Review> expectedSnapshot = new ArrayList<>(expected);
+        for (int step = 0; expected.size() > 1; step++) {
+            // Mostly the top row, as the pages fetched again follow the snapshot, and sometimes any row
+            int row = step % 4 == 0 ? random.nextInt(previous.size()) : previous.indexOf(expected.get(1));
+            int expectedPosition = expected.indexOf(previous.get(row));
+            assertEquals(expectedPosition < 0 ? -1 : row, store.previousRowOf(previous.get(row)));
+            assertEquals(expectedPosition, store.dropPrevious(row));
+            if (expectedPosition >= 0) {
+                expected.remove(expectedPosition);
+            }
+            assertEquals(-1, store.previousRowOf(previous.get(row)));
+            assertEquals(expected, store);
+            assertEquals(expected.subList(1, expected.size()), store.loadedReviews());
+            assertEquals(expected.size() - 1, store.previousSize());
+        }
+        assertEquals(Collections.singletonList(review(1000)), store.snapshot());
+        assertEquals(expectedSnapshot, snapshot);
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'previousRowsAreDropped' was executed successfully.");
+    }
+
+    /**
+     * This method checks that the loaded reviews and the snapshots are handed over as they are, without any copy,
+     * until the store changes.
+     */
+    @Test
+    public void versionsAreSharedUntilChange() {
+        ReviewStore store = new ReviewStore();
+        store.addAllNewestFirst(Collections.singletonList(review(1)));
+        List<Review> loaded = store.loadedReviews();
+        List<Review> snapshot = store.snapshot();
+        assertSame(loaded, store.loadedReviews());
+        assertSame(snapshot, store.snapshot());
+
+        // A new review on top of the store leaves the loaded reviews as they were
+        store.addNewest(review(2));
+        assertSame(loaded, store.loadedReviews());
+        assertNotSame(snapshot, store.snapshot());
+        assertEquals(1, snapshot.size());
+
+        // Print a message if the test is executed without errors
+        System.out.println("The test 'versionsAreSharedUntilChange' was executed successfully.");
+    }
+}
@@ -0,0 +1,39 @@
+plugins {
+    id("java")
+    id("me.champeau.jmh")
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_1_8
+    targetCompatibility = JavaVersion.VERSION_1_8
+}
+
+// Run with ./gradlew :benchmark:jmh. The benchmarks run on the JVM against the classes of the debug variant of the app,
+// with the same library classes as the JVM unit tests.
+evaluationDependsOn(":app")
+
+val artifactType = Attribute.of("artifactType", String::class.java)
+val appProject = project(":app")
+val appClasses = files(appProject.tasks.named("compileDebugJavaWithJavac"))
+val appLibraries = appProject.configurations.named("debugUnitTestRuntimeClasspath").map { configuration ->
+    configuration.incoming.artifactView {
+        attributes.attribute(artifactType, "android-classes-jar")
+    }.files
+}
+
+dependencies {
+    jmhImplementation(appClasses)
+    jmhImplementation(files(appLibraries))
+}
+
+jmh {
+    // Throughput and average time of each operation, with the allocation rate reported by the GC profiler.
+    benchmarkMode.set(listOf("thrpt", "avgt"))
+    timeUnit.set("us")
+    profilers.set(listOf("gc"))
+    warmupIterations.set(3)
+    iterations.set(5)
+    fork.set(1)
+    jvmArgs.set(listOf("-Xmx4g"))
+    resultFormat.set("JSON")
+}
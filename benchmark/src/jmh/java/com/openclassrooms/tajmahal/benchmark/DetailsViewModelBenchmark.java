@@ -0,0 +1,70 @@
+package com.openclassrooms.tajmahal.benchmark;
+
+import androidx.lifecycle.Observer;
+
+import com.openclassrooms.tajmahal.domain.model.RatingHistogram;
+import com.openclassrooms.tajmahal.ui.restaurant.DetailsViewModel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks of the rating aggregates of {@link DetailsViewModel}.
+ * <p>
+ * The aggregates are observed as the details screen does, so that they are updated by each new review.
+ * The {@link #addReview()} benchmark measures the cost of this update, the other ones the cost of reading them.
+ */
+@State(Scope.Benchmark)
+public class DetailsViewModelBenchmark {
+
+    // The number of reviews held by the repository.
+    @Param({ReviewDataset.SMALL, ReviewDataset.LARGE, ReviewDataset.HUGE})
+    public int reviewCount;
+
+    private DetailsViewModel detailsViewModel;
+
+    // The position of the next review to add, after the reviews of the dataset.
+    private int nextReview;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        ReviewDataset.runLiveDataOnCurrentThread();
+        detailsViewModel = new DetailsViewModel(ReviewDataset.newRestaurantRepository(),
+                ReviewDataset.newReviewRepository(reviewCount));
+        detailsViewModel.selectRestaurant(ReviewDataset.RESTAURANT_ID);
+        nextReview = reviewCount;
+
+        Observer<Object> observer = value -> {
+        };
+        detailsViewModel.getTotalRatings().observeForever(observer);
+        detailsViewModel.getRatingCount().observeForever(observer);
+        detailsViewModel.getAverageRating().observeForever(observer);
+    }
+
+    /**
+     * Adds a new review through the ViewModel, updating the three observed aggregates.
+     */
+    @Benchmark
+    public void addReview() {
+        detailsViewModel.addReview(ReviewDataset.review(nextReview++));
+    }
+
+    @Benchmark
+    public Integer getTotalRatings() {
+        return detailsViewModel.getTotalRatings().getValue();
+    }
+
+    @Benchmark
+    public RatingHistogram getRatingCount() {
+        return detailsViewModel.getRatingCount().getValue();
+    }
+
+    @Benchmark
+    public Float getAverageRating() {
+        return detailsViewModel.getAverageRating().getValue();
+    }
+}
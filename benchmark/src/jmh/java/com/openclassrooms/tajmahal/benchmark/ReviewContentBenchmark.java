@@ -0,0 +1,54 @@
+package com.openclassrooms.tajmahal.benchmark;
+
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks of the reading of the content of a review, as done once per bind of its row: a long content is kept
+ * encoded in UTF-8 and decoded on each read, a short content is kept as a string. The search never reads the contents,
+ * which are only decoded once when the review is indexed.
+ */
+@State(Scope.Benchmark)
+public class ReviewContentBenchmark {
+
+    // A long review of accented text, as kept encoded by the reviews.
+    private static final String LONG_CONTENT = "Service très rapide et nourriture délicieuse, nous mangeons ici chaque week-end, "
+            + "c'est très rapide et savoureux. Les currys sont parfumés et le personnel est très accueillant. Continuez ainsi !";
+
+    // A short review, as kept as a string by the reviews.
+    private static final String SHORT_CONTENT = "Très bon restaurant Indien ! Je recommande.";
+
+    private Review encodedReview;
+    private Review stringReview;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        encodedReview = new Review("Ranjit Singh", "https://xsgames.co/randomusers/assets/avatars/male/71.jpg", LONG_CONTENT, 5);
+        stringReview = new Review("Ranjit Singh", "https://xsgames.co/randomusers/assets/avatars/male/71.jpg", SHORT_CONTENT, 5);
+    }
+
+    /**
+     * Reads a long content, decoded from UTF-8.
+     *
+     * @return The content, consumed by JMH
+     */
+    @Benchmark
+    public String readEncodedContent() {
+        return encodedReview.getContent();
+    }
+
+    /**
+     * Reads a short content, kept as a string.
+     *
+     * @return The content, consumed by JMH
+     */
+    @Benchmark
+    public String readStringContent() {
+        return stringReview.getContent();
+    }
+}
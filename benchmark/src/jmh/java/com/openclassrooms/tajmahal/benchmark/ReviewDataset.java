@@ -0,0 +1,254 @@
+package com.openclassrooms.tajmahal.benchmark;
+
+import androidx.arch.core.executor.ArchTaskExecutor;
+import androidx.arch.core.executor.TaskExecutor;
+
+import com.openclassrooms.tajmahal.data.local.OutboxDao;
+import com.openclassrooms.tajmahal.data.local.OutboxEntity;
+import com.openclassrooms.tajmahal.data.local.ReviewDao;
+import com.openclassrooms.tajmahal.data.local.ReviewEntity;
+import com.openclassrooms.tajmahal.data.local.ReviewSnapshotStore;
+import com.openclassrooms.tajmahal.data.repository.RestaurantRepository;
+import com.openclassrooms.tajmahal.data.repository.ReviewOutbox;
+import com.openclassrooms.tajmahal.data.repository.ReviewRepository;
+import com.openclassrooms.tajmahal.data.service.RestaurantApi;
+import com.openclassrooms.tajmahal.domain.model.RatingStatistics;
+import com.openclassrooms.tajmahal.domain.model.Restaurant;
+import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.model.ReviewPage;
+import com.openclassrooms.tajmahal.domain.model.ReviewSubmission;
+
+import java.io.File;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Generated datasets of reviews for the benchmarks, and the repositories serving them.
+ * <p>
+ * The reviews are generated from their position, so that every review of a dataset is unique
+ * and a dataset of one million reviews does not have to be stored twice. The API serves the whole dataset
+ * as a single page, so that preparing a benchmark does not depend on the cost of the paging.
+ */
+public final class ReviewDataset {
+
+    // The sizes of the datasets, as JMH parameters.
+    public static final String SMALL = "1000";
+    public static final String LARGE = "100000";
+    public static final String HUGE = "1000000";
+
+    // The identifier of the restaurant of the generated datasets.
+    public static final long RESTAURANT_ID = 1;
+
+    private static final String[] COMMENTS = {
+            "Très bon restaurant Indien ! Je recommande.",
+            "Service très rapide et nourriture délicieuse.",
+            "Les currys manquaient de diversité de saveurs.",
+            "Un service excellent et des plats incroyablement savoureux.",
+            "Bon rapport qualité prix, mais un peu bruyant le soir."
+    };
+
+    private ReviewDataset() {
+    }
+
+    /**
+     * Makes LiveData run on the benchmark threads, which have no Android main thread.
+     */
+    public static void runLiveDataOnCurrentThread() {
+        ArchTaskExecutor.getInstance().setDelegate(new TaskExecutor() {
+            @Override
+            public void executeOnDiskIO(Runnable runnable) {
+                runnable.run();
+            }
+
+            @Override
+            public void postToMainThread(Runnable runnable) {
+                runnable.run();
+            }
+
+            @Override
+            public boolean isMainThread() {
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Returns the review at the given position of a generated dataset.
+     *
+     * @param index The position of the review, 0 being the newest review
+     * @return The review at this position
+     */
+    public static Review review(int index) {
+        String gender = index % 2 == 0 ? "female" : "male";
+        return new Review("Author " + index,
+                "https://xsgames.co/randomusers/assets/avatars/" + gender + "/" + (index % 75) + ".jpg",
+                COMMENTS[index % COMMENTS.length],
+                index % RatingStatistics.MAX_RATING + 1);
+    }
+
+    /**
+     * Creates a review repository holding a generated dataset for {@link #RESTAURANT_ID}, loaded synchronously.
+     *
+     * @param reviewCount The number of reviews of the dataset
+     * @return The repository holding the reviews
+     */
+    public static ReviewRepository newReviewRepository(int reviewCount) {
+        DatasetApi api = new DatasetApi(reviewCount);
+        ReviewOutbox reviewOutbox = new ReviewOutbox(api, new NoOpOutboxDao(), () -> {
+        });
+        ReviewRepository reviewRepository = new ReviewRepository(api, new NoOpReviewDao(), reviewOutbox, new NoOpSnapshotStore(), Runnable::run);
+        reviewRepository.getReviews(RESTAURANT_ID);
+        return reviewRepository;
+    }
+
+    /**
+     * Creates a restaurant repository serving the restaurant of the generated datasets.
+     *
+     * @return The restaurant repository
+     */
+    public static RestaurantRepository newRestaurantRepository() {
+        return new RestaurantRepository(new DatasetApi(0), Runnable::run);
+    }
+
+    /**
+     * API serving a generated dataset of reviews in a single page.
+     */
+    private static final class DatasetApi implements RestaurantApi {
+
+        private final List<Review> reviews;
+
+        DatasetApi(final int reviewCount) {
+            reviews = new AbstractList<Review>() {
+                @Override
+                public Review get(int index) {
+                    return review(index);
+                }
+
+                @Override
+                public int size() {
+                    return reviewCount;
+                }
+            };
+        }
+
+        @Override
+        public Restaurant getRestaurant(long restaurantId) {
+            return new Restaurant(restaurantId, "Taj Mahal", "Indien", "11h30 - 14h30・18h30 - 22h00",
+                    "12 Avenue de la Brique - 75010 Paris", "http://www.tajmahal.fr", "06 12 34 56 78", true, true);
+        }
+
+        @Override
+        public List<Review> getReviews(long restaurantId) {
+            return new ArrayList<>(reviews);
+        }
+
+        @Override
+        public ReviewPage getReviewsPage(long restaurantId, int pageSize, String cursor) {
+            return new ReviewPage(getReviews(restaurantId), null);
+        }
+
+        @Override
+        public RatingStatistics getRatingStatistics(long restaurantId) {
+            RatingStatistics statistics = new RatingStatistics();
+            for (int i = 0; i < reviews.size(); i++) {
+                statistics.record(i % RatingStatistics.MAX_RATING + 1);
+            }
+            return statistics;
+        }
+
+        @Override
+        public void submitReviews(long restaurantId, List<ReviewSubmission> submissions) {
+        }
+    }
+
+    /**
+     * Review DAO storing nothing, so that the benchmarks only measure the repository.
+     */
+    private static final class NoOpReviewDao extends ReviewDao {
+
+        @Override
+        public List<ReviewEntity> getLocalReviews(long restaurantId) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public List<ReviewEntity> getCachedReviews(long restaurantId, int limit) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public void insert(ReviewEntity review) {
+        }
+
+        @Override
+        public void insertAll(List<ReviewEntity> reviews) {
+        }
+
+        @Override
+        public void deleteReview(long restaurantId, long fingerprint) {
+        }
+
+        @Override
+        public void updateReview(long restaurantId, long fingerprint, long newFingerprint, String author, String avatarUrl,
+                                 String content, int rating) {
+        }
+
+        @Override
+        public void deleteCachedReviews(long restaurantId) {
+        }
+    }
+
+    /**
+     * Outbox DAO storing nothing, so that the benchmarks do not measure the submission of the new reviews.
+     */
+    private static final class NoOpOutboxDao extends OutboxDao {
+
+        @Override
+        public void insertAll(List<OutboxEntity> reviews) {
+        }
+
+        @Override
+        public List<OutboxEntity> getQueuedReviews(int limit) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public void delete(List<Long> ids) {
+        }
+
+        @Override
+        public void deleteByKey(String idempotencyKey) {
+        }
+
+        @Override
+        public void updateByKey(String idempotencyKey, String newIdempotencyKey, String author, String avatarUrl,
+                                String content, int rating) {
+        }
+
+        @Override
+        public int count() {
+            return 0;
+        }
+    }
+
+    /**
+     * Snapshot store storing nothing, so that the benchmarks do not measure the writing of the snapshots.
+     */
+    private static final class NoOpSnapshotStore extends ReviewSnapshotStore {
+
+        NoOpSnapshotStore() {
+            super(new File("."));
+        }
+
+        @Override
+        public List<Review> open(long restaurantId) {
+            return null;
+        }
+
+        @Override
+        public void write(long restaurantId, List<Review> reviews) {
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.openclassrooms.tajmahal.benchmark;
+
+import com.openclassrooms.tajmahal.data.repository.ReviewBatchResult;
+import com.openclassrooms.tajmahal.data.repository.ReviewRepository;
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Benchmarks of the hot paths of {@link ReviewRepository}: adding a review, adding a batch of reviews and reading the reviews.
+ * <p>
+ * The repository is rebuilt before each iteration, so that the reviews added during an iteration
+ * do not make the following ones slower.
+ */
+@State(Scope.Benchmark)
+public class ReviewRepositoryBenchmark {
+
+    // The number of reviews of each batch added by the addReviews benchmark.
+    private static final int BATCH_SIZE = 100;
+
+    // The number of reviews held by the repository.
+    @Param({ReviewDataset.SMALL, ReviewDataset.LARGE, ReviewDataset.HUGE})
+    public int reviewCount;
+
+    private ReviewRepository reviewRepository;
+
+    // The position of the next review to add, after the reviews of the dataset.
+    private int nextReview;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        ReviewDataset.runLiveDataOnCurrentThread();
+        reviewRepository = ReviewDataset.newReviewRepository(reviewCount);
+        nextReview = reviewCount;
+    }
+
+    /**
+     * Adds a new review. The cost of creating the review is included, but does not depend on the dataset.
+     */
+    @Benchmark
+    public void addReview() {
+        reviewRepository.addReview(ReviewDataset.RESTAURANT_ID, ReviewDataset.review(nextReview++));
+    }
+
+    /**
+     * Adds a batch of new reviews, published once for the whole batch.
+     *
+     * @return The result of the batch, consumed by JMH
+     */
+    @Benchmark
+    public ReviewBatchResult addReviews() {
+        List<Review> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(ReviewDataset.review(nextReview++));
+        }
+        return reviewRepository.addReviews(ReviewDataset.RESTAURANT_ID, batch);
+    }
+
+    /**
+     * Reads the reviews, as the review screen does each time it is displayed.
+     *
+     * @return The reviews, consumed by JMH
+     */
+    @Benchmark
+    public List<Review> getReviews() {
+        return reviewRepository.getReviews(ReviewDataset.RESTAURANT_ID).getValue();
+    }
+}
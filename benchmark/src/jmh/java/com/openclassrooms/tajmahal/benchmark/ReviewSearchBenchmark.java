@@ -0,0 +1,53 @@
+package com.openclassrooms.tajmahal.benchmark;
+
+import com.openclassrooms.tajmahal.data.repository.ReviewSearchIndex;
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+
+/**
+ * Benchmarks of the full-text search of the reviews through the {@link ReviewSearchIndex}:
+ * a search only reads the postings of the matching terms, never the text of the reviews.
+ */
+@State(Scope.Benchmark)
+public class ReviewSearchBenchmark {
+
+    // The number of reviews returned by a search, as displayed by the review screen.
+    private static final int LIMIT = 100;
+
+    // The number of indexed reviews.
+    @Param({ReviewDataset.SMALL, ReviewDataset.LARGE})
+    public int reviewCount;
+
+    // The searched words: a rare author, a common word, a prefix, and several words typed without their accents.
+    @Param({"author 4242", "service", "curr", "rapide delicieuse"})
+    public String query;
+
+    private ReviewSearchIndex index;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        index = new ReviewSearchIndex();
+        for (int i = 0; i < reviewCount; i++) {
+            index.addOldest(ReviewDataset.review(i));
+        }
+        index.publish();
+    }
+
+    /**
+     * Searches the indexed reviews.
+     *
+     * @return The best ranked matching reviews, consumed by JMH
+     */
+    @Benchmark
+    public List<Review> search() {
+        return index.search(query, LIMIT);
+    }
+}
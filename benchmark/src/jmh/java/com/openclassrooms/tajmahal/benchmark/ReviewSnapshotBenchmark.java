@@ -0,0 +1,93 @@
+package com.openclassrooms.tajmahal.benchmark;
+
+import com.openclassrooms.tajmahal.data.local.ReviewSnapshot;
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * Benchmarks of the startup from a {@link ReviewSnapshot}: opening the snapshot of the previous session and decoding
+ * the reviews of the first screen should only scan the offsets and the hash table of the snapshot to check them,
+ * without decoding any other review, and looking up a review in it, as done for each review added or fetched again,
+ * should not depend on the number of reviews of the snapshot.
+ */
+@State(Scope.Benchmark)
+public class ReviewSnapshotBenchmark {
+
+    // The number of reviews decoded to fill the first screen.
+    private static final int FIRST_SCREEN = 10;
+
+    // The number of reviews of the snapshot.
+    @Param({ReviewDataset.SMALL, ReviewDataset.LARGE, ReviewDataset.HUGE})
+    public int reviewCount;
+
+    private File file;
+
+    // The snapshot opened once, in which the reviews are looked up.
+    private ReviewSnapshot openedSnapshot;
+
+    // A review missing from the snapshot, whose lookup probes the hash table up to an empty slot.
+    private Review missingReview;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        file = File.createTempFile("reviews", ".snapshot");
+        final int count = reviewCount;
+        List<Review> reviews = new AbstractList<Review>() {
+            @Override
+            public Review get(int index) {
+                return ReviewDataset.review(index);
+            }
+
+            @Override
+            public int size() {
+                return count;
+            }
+        };
+        ReviewSnapshot.write(file, reviews);
+        openedSnapshot = ReviewSnapshot.open(file);
+        missingReview = ReviewDataset.review(count);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        file.delete();
+    }
+
+    /**
+     * Opens the snapshot and decodes the reviews of the first screen, as done on startup.
+     *
+     * @return The last decoded review, consumed by JMH
+     * @throws IOException if the snapshot cannot be read
+     */
+    @Benchmark
+    public Review openAndBindFirstScreen() throws IOException {
+        ReviewSnapshot snapshot = ReviewSnapshot.open(file);
+        Review review = null;
+        for (int i = 0; i < FIRST_SCREEN && i < snapshot.size(); i++) {
+            review = snapshot.get(i);
+        }
+        return review;
+    }
+
+    /**
+     * Looks up a review missing from the snapshot, as done before adding a review.
+     *
+     * @return Whether the snapshot holds the review, consumed by JMH
+     */
+    @Benchmark
+    public boolean containsMissingReview() {
+        return openedSnapshot.contains(missingReview);
+    }
+}
@@ -15,3 +15,4 @@ dependencyResolutionManagement {
 
 rootProject.name = "P3M_TajMahal"
 include(":app")
+include(":benchmark")